@@ -40,6 +40,12 @@ android {
         sourceCompatibility = JavaVersion.VERSION_17
         targetCompatibility = JavaVersion.VERSION_17
     }
+
+    // Test fixtures used by both the JVM (Robolectric) and the instrumented tests
+    sourceSets {
+        getByName("test").java.srcDir("src/sharedTest/java")
+        getByName("androidTest").java.srcDir("src/sharedTest/java")
+    }
 }
 
 dependencies {
@@ -104,6 +110,7 @@ dependencies {
     androidTestImplementation(libs.androidx.test.rules)       // 1.5.0
     androidTestImplementation(libs.androidx.test.ext.junit)   // 1.1.5
     androidTestImplementation(libs.espresso.core)             // 3.5.1
+    androidTestImplementation(libs.okhttp3.mockwebserver)
     implementation(libs.protobuf.javalite)
     implementation(libs.okhttp3.okhttp)
 }
@@ -0,0 +1,249 @@
+package com.code.wlu.cp470.wellnest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.code.wlu.cp470.wellnest.data.ActiveWalkTracker;
+import com.code.wlu.cp470.wellnest.data.RoamioModels;
+import com.code.wlu.cp470.wellnest.data.local.WellnestDatabaseHelper;
+import com.code.wlu.cp470.wellnest.data.local.managers.ActiveWalkManager;
+import com.code.wlu.cp470.wellnest.data.local.managers.WalkSessionManager;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Instrumented tests for checkpointing the walk in progress (ActiveWalkManager +
+ * ActiveWalkTracker): throttled writes, restore after the process is gone (with the walk's
+ * coordinates), and finishing into walk_sessions.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ActiveWalkTrackerInstrumentedTest {
+
+    private static final String ME = "uid_me";
+    private static final long T0 = 1_700_000_000_000L;
+    private static final long INTERVAL_MS = 10_000L;
+    private static final double MIN_METERS = 50d;
+
+    private WellnestDatabaseHelper helper;
+    private SQLiteDatabase db;
+    private ActiveWalkManager activeWalks;
+    private WalkSessionManager walkSessions;
+    private long now;
+
+    @Before
+    public void setUp() {
+        Context context = ApplicationProvider.getApplicationContext();
+        helper = new WellnestDatabaseHelper(context);
+        db = helper.getWritableDatabase();
+        helper.cleanDatabase(db);
+        walkSessions = new WalkSessionManager(db);
+        activeWalks = new ActiveWalkManager(db, walkSessions);
+        now = T0;
+    }
+
+    @After
+    public void tearDown() {
+        helper.cleanDatabase(db);
+        if (db != null && db.isOpen()) db.close();
+        if (helper != null) helper.close();
+    }
+
+    private RoamioModels.Walk sampleWalk() {
+        return new RoamioModels.Walk(null, "Harbour Loop", "A breezy loop.",
+                "1 Start St", "9 End Ave", 1800f, false);
+    }
+
+    private RoamioModels.Walk geocodedWalk() {
+        return new RoamioModels.Walk(null, "Harbour Loop", "A breezy loop.",
+                "1 Start St", "9 End Ave", 1800f, false, 43.000, -80.000, 43.010, -80.000);
+    }
+
+    private ActiveWalkTracker tracker(RoamioModels.ActiveWalk active) {
+        return new ActiveWalkTracker(activeWalks, active, Runnable::run, () -> now, INTERVAL_MS, MIN_METERS);
+    }
+
+    @Test
+    public void startWalk_isRestoredWithWalkDetails() {
+        activeWalks.startWalk(ME, sampleWalk(), T0, 12345L, 0);
+
+        RoamioModels.ActiveWalk restored = new ActiveWalkManager(db).getActiveWalk(ME);
+        assertNotNull(restored);
+        assertEquals(T0, restored.getStartedAt());
+        assertEquals(12345L, restored.getStartElapsedRealtimeMs());
+        assertEquals("Harbour Loop", restored.getWalk().getName());
+        assertEquals("A breezy loop.", restored.getWalk().getStory());
+        assertEquals("1 Start St", restored.getWalk().getStartAddress());
+        assertEquals("9 End Ave", restored.getWalk().getEndAddress());
+        assertEquals(1800f, restored.getWalk().getDistanceMeters(), 0.01f);
+        assertNull(activeWalks.getActiveWalk("someone_else"));
+    }
+
+    @Test
+    public void startWalk_keepsTheWalksCoordinates_forTheCompletionCheck() {
+        activeWalks.startWalk(ME, geocodedWalk(), T0, 0, 0);
+
+        RoamioModels.Walk restored = new ActiveWalkManager(db).getActiveWalk(ME).getWalk();
+        assertEquals(43.000, restored.getStartLatitude(), 1e-9);
+        assertEquals(-80.000, restored.getStartLongitude(), 1e-9);
+        assertTrue(restored.hasEndCoordinates());
+        // ~111 m per 0.001 degree of latitude
+        assertEquals(0f, restored.distanceToEndMeters(43.010, -80.000), 0.01f);
+        assertEquals(111f, restored.distanceToEndMeters(43.009, -80.000), 2f);
+    }
+
+    @Test
+    public void aWalkStartedWithoutCoordinates_keepsItsDestinationOnceResolved() {
+        RoamioModels.ActiveWalk active = activeWalks.startWalk(ME, sampleWalk(), T0, 0, 0);
+
+        RoamioModels.Walk restored = activeWalks.getActiveWalk(ME).getWalk();
+        assertFalse(restored.hasEndCoordinates());
+        assertTrue(Double.isNaN(restored.getStartLatitude()));
+        assertTrue(Float.isNaN(restored.distanceToEndMeters(43.0, -80.0)));
+
+        assertTrue(activeWalks.setEndCoordinates(active.getId(), 43.010, -80.000));
+        restored = activeWalks.getActiveWalk(ME).getWalk();
+        assertTrue(restored.hasEndCoordinates());
+        assertEquals(43.010, restored.getEndLatitude(), 1e-9);
+        assertTrue(Double.isNaN(restored.getStartLatitude()));
+        assertFalse(activeWalks.setEndCoordinates(active.getId() + 1, 43.0, -80.0));
+    }
+
+    @Test
+    public void startWalk_replacesPreviousWalkInProgress() {
+        activeWalks.startWalk(ME, sampleWalk(), T0, 0, 0);
+        RoamioModels.ActiveWalk second = activeWalks.startWalk(ME, sampleWalk(), T0 + 1000, 0, 0);
+        assertEquals(second.getId(), activeWalks.getActiveWalk(ME).getId());
+        assertEquals(T0 + 1000, activeWalks.getActiveWalk(ME).getStartedAt());
+    }
+
+    @Test
+    public void tracker_coalescesFixesBetweenIntervals() {
+        ActiveWalkTracker tracker = tracker(activeWalks.startWalk(ME, sampleWalk(), T0, 0, 0));
+
+        // 1 s apart, 5 m each: 20 updates in 20 s -> only the interval can trigger a write
+        for (int i = 1; i <= 20; i++) {
+            now = T0 + i * 1000L;
+            tracker.onProgress(i * 10, i * 5d);
+        }
+        assertEquals(2, tracker.getWriteCount());
+        RoamioModels.ActiveWalk stored = activeWalks.getActiveWalk(ME);
+        assertEquals(100, stored.getLastKnownSteps());
+        assertEquals(100d, stored.getLastKnownDistanceMeters(), 0.001);
+        assertEquals(T0 + 20_000L, stored.getLastUpdatedMs());
+    }
+
+    @Test
+    public void tracker_writesEarlyAfterEnoughDistance() {
+        ActiveWalkTracker tracker = tracker(activeWalks.startWalk(ME, sampleWalk(), T0, 0, 0));
+
+        now = T0 + 1000;
+        tracker.onProgress(10, 20d);
+        assertEquals(0, tracker.getWriteCount());
+        now = T0 + 2000;
+        tracker.onProgress(80, 60d);
+        assertEquals(1, tracker.getWriteCount());
+        assertEquals(60d, activeWalks.getActiveWalk(ME).getLastKnownDistanceMeters(), 0.001);
+    }
+
+    @Test
+    public void tracker_locationFixesAccumulateDistance() {
+        ActiveWalkTracker tracker = tracker(activeWalks.startWalk(ME, sampleWalk(), T0, 0, 0));
+
+        // ~111 m per 0.001 degree of latitude
+        tracker.onLocationFix(43.000, -80.000);
+        tracker.onLocationFix(43.001, -80.000);
+        tracker.onLocationFix(43.002, -80.000);
+        assertEquals(222d, tracker.getDistanceMeters(), 3d);
+    }
+
+    @Test
+    public void flush_thenRestore_resumesFromLastCheckpoint() {
+        ActiveWalkTracker tracker = tracker(activeWalks.startWalk(ME, sampleWalk(), T0, 0, 0));
+        now = T0 + 1000;
+        tracker.onProgress(30, 25d);
+        assertEquals(0, tracker.getWriteCount());
+        tracker.flush();
+        assertEquals(1, tracker.getWriteCount());
+        tracker.flush(); // nothing pending
+        assertEquals(1, tracker.getWriteCount());
+
+        // "process death": only the database survives
+        RoamioModels.ActiveWalk restored = new ActiveWalkManager(db).getActiveWalk(ME);
+        ActiveWalkTracker resumed = tracker(restored);
+        assertEquals(30, resumed.getSteps());
+        assertEquals(25d, resumed.getDistanceMeters(), 0.001);
+
+        // the first fix after a restore must not count the distance from before the restart
+        resumed.onLocationFix(43.0, -80.0);
+        assertEquals(25d, resumed.getDistanceMeters(), 0.001);
+    }
+
+    @Test
+    public void checkpoints_runOnTheWriter_andALateOneDoesNotOverwriteFlushNow() {
+        RoamioModels.ActiveWalk active = activeWalks.startWalk(ME, sampleWalk(), T0, 0, 0);
+        List<Runnable> queued = new ArrayList<>();
+        ActiveWalkTracker tracker = new ActiveWalkTracker(activeWalks, active, queued::add,
+                () -> now, INTERVAL_MS, MIN_METERS);
+
+        now = T0 + INTERVAL_MS;
+        tracker.onProgress(100, 80d);
+        assertEquals(1, queued.size());
+        assertEquals(0, activeWalks.getActiveWalk(ME).getLastKnownSteps()); // nothing written yet
+
+        // the writer was shut down before running it: flushNow writes on this thread
+        now += 1000;
+        tracker.onProgress(120, 90d);
+        tracker.flushNow();
+        assertEquals(120, activeWalks.getActiveWalk(ME).getLastKnownSteps());
+
+        // the older queued checkpoint runs afterwards and is ignored
+        queued.get(0).run();
+        RoamioModels.ActiveWalk stored = activeWalks.getActiveWalk(ME);
+        assertEquals(120, stored.getLastKnownSteps());
+        assertEquals(90d, stored.getLastKnownDistanceMeters(), 0.001);
+        assertEquals(now, stored.getLastUpdatedMs());
+    }
+
+    @Test
+    public void finishWalk_movesWalkIntoHistory() {
+        RoamioModels.ActiveWalk active = activeWalks.startWalk(ME, sampleWalk(), T0, 0, 0);
+        ActiveWalkTracker tracker = tracker(active);
+        now = T0 + 30 * 60_000L;
+        tracker.onProgress(2400, 1750d);
+
+        long sessionId = activeWalks.finishWalk(active.getId(), now, 500);
+
+        assertNull(activeWalks.getActiveWalk(ME));
+        List<RoamioModels.WalkSession> history = walkSessions.getHistoryPage(ME, 10);
+        assertEquals(1, history.size());
+        RoamioModels.WalkSession session = history.get(0);
+        assertEquals(sessionId, session.getId());
+        assertEquals(T0, session.getStartedAt());
+        assertEquals(now, session.getEndedAt());
+        assertEquals(2400, session.getSteps());
+        assertEquals(1750d, session.getDistanceMeters(), 0.001);
+        assertEquals(500, session.getPointsAwarded());
+    }
+
+    @Test
+    public void finishWalk_withoutFixes_usesPlannedDistance() {
+        RoamioModels.ActiveWalk active = activeWalks.startWalk(ME, sampleWalk(), T0, 0, 0);
+        activeWalks.finishWalk(active.getId(), T0 + 60_000L, 500);
+        assertEquals(1800d, walkSessions.getHistoryPage(ME, 1).get(0).getDistanceMeters(), 0.01);
+    }
+}
@@ -0,0 +1,392 @@
+package com.code.wlu.cp470.wellnest;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.util.Log;
+
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.code.wlu.cp470.wellnest.data.ActivityJarModels.Activity;
+import com.code.wlu.cp470.wellnest.data.ActivityJarModels.CacheKey;
+import com.code.wlu.cp470.wellnest.data.ActivityJarModels.Category;
+import com.code.wlu.cp470.wellnest.data.ActivityJarModels.PlanContext;
+import com.code.wlu.cp470.wellnest.data.ActivityJarModels.TimeWindow;
+import com.code.wlu.cp470.wellnest.data.ActivityJarModels.WeatherBucket;
+import com.code.wlu.cp470.wellnest.data.local.WellnestDatabaseHelper;
+import com.code.wlu.cp470.wellnest.data.local.managers.ActivityJarCacheManager;
+import com.code.wlu.cp470.wellnest.utils.GeoHash;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Instrumented tests for ActivityJarCacheManager: activities round-trip through the row
+ * tables with their tags and order, removals touch one card, entries are found by location
+ * cell / time window / weather and expire or get evicted, and a benchmark compares a removal
+ * and a category load against the old rewrite-the-JSON-blob approach as the cache grows.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ActivityJarCacheManagerInstrumentedTest {
+
+    private static final String TAG = "ActivityJarCacheTest";
+
+    // Waterloo campus and downtown Kitchener, ~5 km apart
+    private static final PlanContext HOME = new PlanContext(43.4723, -80.5449, "Clear, 20°C", 0);
+    private static final PlanContext WORK = new PlanContext(43.4516, -80.4925, "Clear, 21°C", 1);
+    private static final LocalDateTime MORNING = LocalDateTime.of(2025, 6, 2, 9, 30);
+    private static final LocalDateTime EVENING = LocalDateTime.of(2025, 6, 2, 19, 0);
+    private static final CacheKey KEY = CacheKey.of(HOME, MORNING);
+
+    private WellnestDatabaseHelper helper;
+    private SQLiteDatabase db;
+    private ActivityJarCacheManager cache;
+    private long now = 1_000_000L;
+
+    @Before
+    public void setUp() {
+        Context context = ApplicationProvider.getApplicationContext();
+        helper = new WellnestDatabaseHelper(context);
+        db = helper.getWritableDatabase();
+        helper.cleanDatabase(db);
+        cache = new ActivityJarCacheManager(db, () -> now);
+    }
+
+    @After
+    public void tearDown() {
+        helper.cleanDatabase(db);
+        if (db != null && db.isOpen()) db.close();
+        if (helper != null) helper.close();
+    }
+
+    private static Map<Category, List<Activity>> activities(int perCategory) {
+        Map<Category, List<Activity>> map = new EnumMap<>(Category.class);
+        for (Category category : Category.values()) {
+            List<Activity> list = new ArrayList<>();
+            for (int i = 0; i < perCategory; i++) {
+                list.add(new Activity(category.name(), "✨", category + " " + i,
+                        "Something to do, number " + i + ", with a few sentences of description.",
+                        i + " Main St", new String[]{"outdoor", "free", "tag" + i}, "https://example.com/" + i));
+            }
+            map.put(category, list);
+        }
+        return map;
+    }
+
+    @Test
+    public void emptyCache_hasNothing() {
+        assertFalse(cache.hasValidCache(KEY));
+        assertNull(cache.getCachedData(KEY));
+        assertTrue(cache.getActivities(KEY, Category.Cozy).isEmpty());
+    }
+
+    @Test
+    public void cacheKey_bucketsLocationTimeAndWeather() {
+        assertEquals("u4pruy", GeoHash.encode(57.64911, 10.40744, 6));
+        // a couple hundred metres away is the same cell; home and work are not
+        assertEquals(KEY, CacheKey.of(new PlanContext(43.4725, -80.5452, "Clear", 0), MORNING.plusHours(2)));
+        assertNotEquals(KEY.getGeohash(), CacheKey.of(WORK, MORNING).getGeohash());
+
+        assertEquals(TimeWindow.Morning, TimeWindow.of(MORNING.toLocalTime()));
+        assertEquals(TimeWindow.Evening, TimeWindow.of(EVENING.toLocalTime()));
+        assertEquals(TimeWindow.Night, TimeWindow.of(EVENING.withHour(23).toLocalTime()));
+        assertEquals(TimeWindow.Night, TimeWindow.of(MORNING.withHour(2).toLocalTime()));
+
+        assertEquals(WeatherBucket.Clear, KEY.getWeatherBucket());
+        assertEquals(WeatherBucket.Clear, CacheKey.of(WORK, MORNING).getWeatherBucket());
+        assertEquals(WeatherBucket.Wet, WeatherBucket.fromWeatherCode(61));
+        assertEquals(WeatherBucket.Unknown, WeatherBucket.fromWeatherCode(-1));
+    }
+
+    @Test
+    public void entries_areKeyedByPlaceTimeAndWeather() {
+        CacheKey work = CacheKey.of(WORK, MORNING);
+        CacheKey evening = CacheKey.of(HOME, EVENING);
+        CacheKey rainy = new CacheKey(KEY.getGeohash(), KEY.getTimeWindow(), WeatherBucket.Wet);
+        cache.saveCache(KEY, activities(1), "home");
+        cache.saveCache(work, activities(2), "work");
+
+        // moving back and forth between home and work hits the entry for each
+        assertEquals("home", cache.getCachedData(KEY).weatherSummary);
+        assertEquals("work", cache.getCachedData(work).weatherSummary);
+        assertEquals(2, cache.getActivities(work, Category.Play).size());
+        assertEquals(1, cache.getActivities(KEY, Category.Play).size());
+
+        assertFalse(cache.hasValidCache(evening));
+        assertFalse(cache.hasValidCache(rainy));
+        cache.saveCache(evening, activities(1), "home, evening");
+        assertTrue(cache.hasValidCache(evening));
+        assertEquals(3, count("SELECT COUNT(*) FROM activity_jar_batches"));
+    }
+
+    @Test
+    public void unknownWeather_fallsBackToTheLatestEntryForThePlaceAndTime() {
+        CacheKey rainy = new CacheKey(KEY.getGeohash(), KEY.getTimeWindow(), WeatherBucket.Wet);
+        cache.saveCache(KEY, activities(1), "clear");
+        now += 1_000;
+        cache.saveCache(rainy, activities(1), "rain");
+
+        CacheKey unknown = new CacheKey(KEY.getGeohash(), KEY.getTimeWindow(), WeatherBucket.Unknown);
+        assertEquals("rain", cache.getCachedData(unknown).weatherSummary);
+        now += 1_000;
+        cache.getCachedData(KEY);
+        assertEquals("clear", cache.getCachedData(unknown).weatherSummary);
+    }
+
+    @Test
+    public void entries_expireAfterTheTtl() {
+        cache.saveCache(KEY, activities(1), "w");
+        now += ActivityJarCacheManager.ENTRY_TTL_MS - 1;
+        assertTrue(cache.hasValidCache(KEY));
+        now += 1;
+        assertFalse(cache.hasValidCache(KEY));
+        assertNull(cache.getCachedData(KEY));
+
+        // the expired rows go on the next write
+        cache.saveCache(CacheKey.of(WORK, MORNING), activities(1), "w");
+        assertEquals(1, count("SELECT COUNT(*) FROM activity_jar_batches"));
+        assertEquals(Category.values().length, count("SELECT COUNT(*) FROM activity_jar_activities"));
+    }
+
+    @Test
+    public void saveCache_evictsTheLeastRecentlyUsedBeyondTheLimit() {
+        List<CacheKey> keys = new ArrayList<>();
+        for (int i = 0; i < ActivityJarCacheManager.MAX_ENTRIES; i++) {
+            CacheKey key = CacheKey.of(new PlanContext(43.0 + i * 0.1, -80.0, "w", 0), MORNING);
+            keys.add(key);
+            cache.saveCache(key, activities(1), "w" + i);
+            now += 1_000;
+        }
+        // the oldest is used again, so the second oldest goes
+        cache.getCachedData(keys.get(0));
+        now += 1_000;
+        cache.saveCache(CacheKey.of(WORK, MORNING), activities(1), "new");
+
+        assertEquals(ActivityJarCacheManager.MAX_ENTRIES, count("SELECT COUNT(*) FROM activity_jar_batches"));
+        assertTrue(cache.hasValidCache(keys.get(0)));
+        assertFalse(cache.hasValidCache(keys.get(1)));
+        assertTrue(cache.hasValidCache(CacheKey.of(WORK, MORNING)));
+    }
+
+    @Test
+    public void saveCache_roundTripsFieldsTagsAndOrder() {
+        Map<Category, List<Activity>> saved = activities(3);
+        saved.get(Category.Play).get(1).setTags(new String[0]);
+        saved.get(Category.Play).get(2).setAddress(null);
+        cache.saveCache(KEY, saved, "Sunny, 21°C");
+
+        ActivityJarCacheManager.CacheEntry entry = cache.getCachedData(KEY);
+        assertEquals("Sunny, 21°C", entry.weatherSummary);
+        assertEquals(now, entry.timestamp);
+        assertEquals(Category.values().length, entry.activities.size());
+
+        for (Category category : Category.values()) {
+            List<Activity> expected = saved.get(category);
+            List<Activity> actual = entry.activities.get(category);
+            assertEquals(expected.size(), actual.size());
+            for (int i = 0; i < expected.size(); i++) {
+                Activity e = expected.get(i);
+                Activity a = actual.get(i);
+                assertNotEquals(0, e.getId());
+                assertEquals(e.getId(), a.getId());
+                assertEquals(category.name(), a.getCategory());
+                assertEquals(e.getEmoji(), a.getEmoji());
+                assertEquals(e.getTitle(), a.getTitle());
+                assertEquals(e.getDescription(), a.getDescription());
+                assertEquals(e.getAddress(), a.getAddress());
+                assertEquals(e.getUrl(), a.getUrl());
+                assertArrayEquals(e.getTags(), a.getTags());
+            }
+        }
+    }
+
+    @Test
+    public void saveCache_replacesThePreviousActivitiesForTheKey() {
+        cache.saveCache(KEY, activities(4), "old");
+        cache.saveCache(KEY, activities(1), "new");
+
+        assertEquals("new", cache.getCachedData(KEY).weatherSummary);
+        assertEquals(1, cache.getActivities(KEY, Category.Explore).size());
+        assertEquals(Category.values().length, count("SELECT COUNT(*) FROM activity_jar_activities"));
+        assertEquals(Category.values().length * 3, count("SELECT COUNT(*) FROM activity_jar_activity_tags"));
+    }
+
+    @Test
+    public void removeActivity_deletesOnlyThatCardAndItsTags() {
+        Map<Category, List<Activity>> saved = activities(3);
+        cache.saveCache(KEY, saved, "w");
+        Activity gone = saved.get(Category.Culture).get(1);
+
+        assertTrue(cache.removeActivity(gone.getId()));
+        assertFalse(cache.removeActivity(gone.getId()));
+
+        List<Activity> culture = cache.getActivities(KEY, Category.Culture);
+        assertEquals(2, culture.size());
+        assertEquals("Culture 0", culture.get(0).getTitle());
+        assertEquals("Culture 2", culture.get(1).getTitle());
+        assertEquals(3, cache.getActivities(KEY, Category.Explore).size());
+        assertEquals(0, count("SELECT COUNT(*) FROM activity_jar_activity_tags WHERE activity_id=" + gone.getId()));
+        assertTrue(cache.hasValidCache(KEY));
+    }
+
+    @Test
+    public void removingEveryActivity_leavesNoValidCache() {
+        Map<Category, List<Activity>> saved = activities(1);
+        cache.saveCache(KEY, saved, "w");
+        for (List<Activity> list : saved.values()) {
+            for (Activity a : list) cache.removeActivity(a.getId());
+        }
+        assertFalse(cache.hasValidCache(KEY));
+    }
+
+    @Test
+    public void keyLookup_usesTheIndex() {
+        String plan = explain("SELECT _id FROM activity_jar_batches WHERE geohash=? AND time_window=? "
+                + "AND weather_bucket=? AND expires_at>?", "dpwzv5", "Morning", "Clear", "0");
+        assertTrue(plan, plan.contains("idx_activity_jar_batches_key"));
+    }
+
+    @Test
+    public void categoryLoad_usesTheIndex() {
+        String plan = explain("SELECT * FROM activity_jar_activities WHERE batch_id=? AND category=? "
+                + "ORDER BY position", "1", "Cozy");
+        assertTrue(plan, plan.contains("idx_activity_jar_activities_batch_category"));
+        assertFalse(plan, plan.contains("TEMP B-TREE"));
+    }
+
+    @Test
+    public void benchmark_rowsVsBlob_perAction() throws JSONException {
+        db.execSQL("CREATE TEMP TABLE legacy_blob (json_data TEXT)");
+        int reps = 20;
+        long lastBlobRemove = 0;
+        long lastRowRemove = 0;
+
+        for (int perCategory : new int[]{5, 20, 80, 320}) {
+            // rows
+            Map<Category, List<Activity>> saved = activities(perCategory);
+            cache.saveCache(KEY, saved, "w");
+            List<Activity> explore = saved.get(Category.Explore);
+            long t0 = System.nanoTime();
+            for (int i = 0; i < reps; i++) cache.removeActivity(explore.get(i % explore.size()).getId());
+            long rowRemove = (System.nanoTime() - t0) / reps;
+            t0 = System.nanoTime();
+            for (int i = 0; i < reps; i++) cache.getActivities(KEY, Category.Cozy);
+            long rowCategory = (System.nanoTime() - t0) / reps;
+
+            // blob: every action reads, parses and (for a removal) re-serializes everything
+            legacySave(activities(perCategory));
+            t0 = System.nanoTime();
+            for (int i = 0; i < reps; i++) {
+                Map<Category, List<Activity>> all = legacyLoad();
+                all.get(Category.Explore).remove(0);
+                legacySave(all);
+            }
+            long blobRemove = (System.nanoTime() - t0) / reps;
+            t0 = System.nanoTime();
+            for (int i = 0; i < reps; i++) legacyLoad().get(Category.Cozy);
+            long blobCategory = (System.nanoTime() - t0) / reps;
+
+            Log.i(TAG, String.format("%d activities: remove blob=%.1fus rows=%.1fus | "
+                            + "category load blob=%.1fus rows=%.1fus",
+                    perCategory * Category.values().length,
+                    blobRemove / 1000.0, rowRemove / 1000.0,
+                    blobCategory / 1000.0, rowCategory / 1000.0));
+            lastBlobRemove = blobRemove;
+            lastRowRemove = rowRemove;
+        }
+
+        assertTrue("row removal " + lastRowRemove + "ns should beat a blob rewrite " + lastBlobRemove + "ns",
+                lastRowRemove < lastBlobRemove);
+    }
+
+    // ------------------------------------------------------------
+    // the JSON blob approach this replaced
+    // ------------------------------------------------------------
+
+    private void legacySave(Map<Category, List<Activity>> map) throws JSONException {
+        JSONObject root = new JSONObject();
+        for (Map.Entry<Category, List<Activity>> entry : map.entrySet()) {
+            JSONArray array = new JSONArray();
+            for (Activity activity : entry.getValue()) {
+                JSONObject obj = new JSONObject();
+                obj.put("emoji", activity.getEmoji());
+                obj.put("title", activity.getTitle());
+                obj.put("description", activity.getDescription());
+                obj.put("address", activity.getAddress());
+                obj.put("url", activity.getUrl());
+                JSONArray tags = new JSONArray();
+                for (String tag : activity.getTags()) tags.put(tag);
+                obj.put("tags", tags);
+                array.put(obj);
+            }
+            root.put(entry.getKey().name(), array);
+        }
+        db.beginTransaction();
+        try {
+            db.execSQL("DELETE FROM legacy_blob");
+            db.execSQL("INSERT INTO legacy_blob (json_data) VALUES (?)", new Object[]{root.toString()});
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    private Map<Category, List<Activity>> legacyLoad() throws JSONException {
+        String json;
+        try (Cursor c = db.rawQuery("SELECT json_data FROM legacy_blob", null)) {
+            c.moveToFirst();
+            json = c.getString(0);
+        }
+        JSONObject root = new JSONObject(json);
+        Map<Category, List<Activity>> map = new EnumMap<>(Category.class);
+        for (Category category : Category.values()) {
+            JSONArray array = root.optJSONArray(category.name());
+            if (array == null) continue;
+            List<Activity> list = new ArrayList<>();
+            for (int i = 0; i < array.length(); i++) {
+                JSONObject a = array.getJSONObject(i);
+                JSONArray tagsJson = a.optJSONArray("tags");
+                String[] tags = new String[tagsJson != null ? tagsJson.length() : 0];
+                for (int t = 0; t < tags.length; t++) tags[t] = tagsJson.getString(t);
+                list.add(new Activity(category.name(), a.optString("emoji"), a.optString("title"),
+                        a.optString("description"), a.optString("address"), tags, a.optString("url")));
+            }
+            map.put(category, list);
+        }
+        return map;
+    }
+
+    private int count(String sql) {
+        try (Cursor c = db.rawQuery(sql, null)) {
+            return c.moveToFirst() ? c.getInt(0) : -1;
+        }
+    }
+
+    private String explain(String sql, String... args) {
+        StringBuilder plan = new StringBuilder();
+        try (Cursor c = db.rawQuery("EXPLAIN QUERY PLAN " + sql, args)) {
+            int detail = c.getColumnIndexOrThrow("detail");
+            while (c.moveToNext()) plan.append(c.getString(detail)).append('\n');
+        }
+        return plan.toString();
+    }
+}
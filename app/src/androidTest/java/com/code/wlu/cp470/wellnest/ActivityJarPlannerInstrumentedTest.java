@@ -0,0 +1,233 @@
+package com.code.wlu.cp470.wellnest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.code.wlu.cp470.wellnest.data.ActivityJarModels.Activity;
+import com.code.wlu.cp470.wellnest.data.ActivityJarModels.CacheKey;
+import com.code.wlu.cp470.wellnest.data.ActivityJarModels.Category;
+import com.code.wlu.cp470.wellnest.data.ActivityJarModels.PlanContext;
+import com.code.wlu.cp470.wellnest.data.ActivityJarPlanner;
+import com.code.wlu.cp470.wellnest.data.local.WellnestDatabaseHelper;
+import com.code.wlu.cp470.wellnest.data.local.managers.ActivityJarCacheManager;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Instrumented tests for ActivityJarPlanner with a fake pipeline: concurrent plans for one key
+ * (prefetch + jar screen) run the pipeline once and share its result or failure, other keys
+ * are not held up, and a cached key skips the pipeline.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ActivityJarPlannerInstrumentedTest {
+
+    private static final PlanContext HOME = new PlanContext(43.4723, -80.5449, "Clear, 20°C", 0);
+    private static final PlanContext WORK = new PlanContext(43.4516, -80.4925, "Clear, 21°C", 0);
+    private static final LocalDateTime MORNING = LocalDateTime.of(2025, 6, 2, 9, 30);
+
+    private WellnestDatabaseHelper helper;
+    private SQLiteDatabase db;
+    private ActivityJarCacheManager cache;
+    private ExecutorService callers;
+
+    // the fake pipeline: counts runs, blocks until released, then returns or throws
+    private final AtomicInteger pipelineRuns = new AtomicInteger();
+    private final AtomicInteger locatorRuns = new AtomicInteger();
+    private volatile CountDownLatch pipelineEntered;
+    private volatile CountDownLatch releasePipeline;
+    private volatile Exception pipelineFailure;
+
+    @Before
+    public void setUp() {
+        Context context = ApplicationProvider.getApplicationContext();
+        helper = new WellnestDatabaseHelper(context);
+        db = helper.getWritableDatabase();
+        helper.cleanDatabase(db);
+        cache = new ActivityJarCacheManager(db);
+        callers = Executors.newFixedThreadPool(4);
+        pipelineEntered = new CountDownLatch(1);
+        releasePipeline = new CountDownLatch(0);
+    }
+
+    @After
+    public void tearDown() {
+        callers.shutdownNow();
+        helper.cleanDatabase(db);
+        if (db != null && db.isOpen()) db.close();
+        if (helper != null) helper.close();
+    }
+
+    private ActivityJarPlanner planner() {
+        return new ActivityJarPlanner(cache,
+                token -> {
+                    locatorRuns.incrementAndGet();
+                    releasePipeline.await(5, TimeUnit.SECONDS);
+                    return HOME;
+                },
+                (planContext, callback, token) -> {
+                    pipelineRuns.incrementAndGet();
+                    callback.onProgress(40, "Searching for things to do...");
+                    pipelineEntered.countDown();
+                    if (!releasePipeline.await(5, TimeUnit.SECONDS)) throw new IOException("never released");
+                    if (pipelineFailure != null) throw pipelineFailure;
+                    return activities(planContext.getWeatherSummary());
+                });
+    }
+
+    private static Map<Category, List<Activity>> activities(String title) {
+        Map<Category, List<Activity>> map = new EnumMap<>(Category.class);
+        for (Category category : Category.values()) {
+            List<Activity> list = new ArrayList<>();
+            list.add(new Activity(category.name(), "✨", title, "d", "a", new String[]{"solo"}, "https://example.com"));
+            map.put(category, list);
+        }
+        return map;
+    }
+
+    @Test
+    public void concurrentPlans_forOneKey_runThePipelineOnce() throws Exception {
+        ActivityJarPlanner planner = planner();
+        CacheKey key = CacheKey.of(HOME, MORNING);
+        releasePipeline = new CountDownLatch(1);
+
+        // the prefetch starts the plan...
+        Future<Map<Category, List<Activity>>> prefetch = callers.submit(() -> planner.plan(key, HOME));
+        assertTrue(pipelineEntered.await(5, TimeUnit.SECONDS));
+        assertTrue(planner.isPlanning(key));
+
+        // ...and the jar screen asks for the same key while it runs
+        List<Future<Map<Category, List<Activity>>>> screens = new ArrayList<>();
+        for (int i = 0; i < 3; i++) screens.add(callers.submit(() -> planner.plan(key, HOME)));
+        Thread.sleep(200);
+        releasePipeline.countDown();
+
+        Map<Category, List<Activity>> first = prefetch.get(5, TimeUnit.SECONDS);
+        for (Future<Map<Category, List<Activity>>> screen : screens) {
+            assertSame(first, screen.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, pipelineRuns.get());
+        assertFalse(planner.isPlanning(key));
+        assertEquals(1, count("SELECT COUNT(*) FROM activity_jar_batches"));
+        assertTrue(cache.hasValidCache(key));
+    }
+
+    @Test
+    public void aFailedPlan_failsEveryCallerOnce_andTheNextCallRetries() throws Exception {
+        ActivityJarPlanner planner = planner();
+        CacheKey key = CacheKey.of(HOME, MORNING);
+        releasePipeline = new CountDownLatch(1);
+        pipelineFailure = new IOException("tavily down");
+
+        Future<Map<Category, List<Activity>>> a = callers.submit(() -> planner.plan(key, HOME));
+        assertTrue(pipelineEntered.await(5, TimeUnit.SECONDS));
+        Future<Map<Category, List<Activity>>> b = callers.submit(() -> planner.plan(key, HOME));
+        Thread.sleep(200);
+        releasePipeline.countDown();
+
+        for (Future<Map<Category, List<Activity>>> f : Arrays.asList(a, b)) {
+            try {
+                f.get(5, TimeUnit.SECONDS);
+                fail("expected the pipeline failure");
+            } catch (ExecutionException e) {
+                assertEquals("tavily down", e.getCause().getMessage());
+            }
+        }
+        assertEquals(1, pipelineRuns.get());
+        assertFalse(cache.hasValidCache(key));
+
+        pipelineFailure = null;
+        assertNotNull(planner.plan(key, HOME));
+        assertEquals(2, pipelineRuns.get());
+    }
+
+    @Test
+    public void otherKeys_areNotHeldUp() throws Exception {
+        ActivityJarPlanner planner = planner();
+        releasePipeline = new CountDownLatch(1);
+
+        Future<Map<Category, List<Activity>>> home = callers.submit(() -> planner.plan(CacheKey.of(HOME, MORNING), HOME));
+        assertTrue(pipelineEntered.await(5, TimeUnit.SECONDS));
+        Future<Map<Category, List<Activity>>> work = callers.submit(() -> planner.plan(CacheKey.of(WORK, MORNING), WORK));
+        Thread.sleep(200);
+        assertFalse(work.isDone());
+        assertEquals(2, pipelineRuns.get()); // work got its own run instead of queueing behind home's
+        releasePipeline.countDown();
+
+        assertEquals("Clear, 20°C", home.get(5, TimeUnit.SECONDS).get(Category.Cozy).get(0).getTitle());
+        assertEquals("Clear, 21°C", work.get(5, TimeUnit.SECONDS).get(Category.Cozy).get(0).getTitle());
+    }
+
+    @Test
+    public void aCachedKey_skipsThePipeline() throws Exception {
+        ActivityJarPlanner planner = planner();
+        CacheKey key = CacheKey.of(HOME, MORNING);
+        cache.saveCache(key, activities("cached"), "w");
+
+        assertEquals("cached", planner.plan(key, HOME).get(Category.Play).get(0).getTitle());
+        assertEquals(0, pipelineRuns.get());
+    }
+
+    @Test
+    public void concurrentLocates_shareOneLookup() throws Exception {
+        ActivityJarPlanner planner = planner();
+        releasePipeline = new CountDownLatch(1);
+
+        Future<PlanContext> a = callers.submit(planner::locate);
+        Future<PlanContext> b = callers.submit(planner::locate);
+        Thread.sleep(200);
+        releasePipeline.countDown();
+
+        assertSame(a.get(5, TimeUnit.SECONDS), b.get(5, TimeUnit.SECONDS));
+        assertEquals(1, locatorRuns.get());
+    }
+
+    @Test
+    public void progress_reportsTheRunningPlan() throws Exception {
+        ActivityJarPlanner planner = planner();
+        CacheKey key = CacheKey.of(HOME, MORNING);
+        planner.plan(key, HOME);
+        InstrumentationRegistry.getInstrumentation().waitForIdleSync();
+
+        ActivityJarPlanner.Progress progress = planner.getProgress().getValue();
+        assertNotNull(progress);
+        assertEquals(key, progress.getKey());
+        assertEquals(100, progress.getPercent());
+        assertFalse(progress.isRunning());
+    }
+
+    private int count(String sql) {
+        try (Cursor c = db.rawQuery(sql, null)) {
+            return c.moveToFirst() ? c.getInt(0) : -1;
+        }
+    }
+}
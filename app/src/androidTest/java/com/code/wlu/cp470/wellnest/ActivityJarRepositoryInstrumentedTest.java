@@ -13,6 +13,7 @@ import androidx.test.ext.junit.runners.AndroidJUnit4;
 
 import com.code.wlu.cp470.wellnest.data.ActivityJarModels;
 import com.code.wlu.cp470.wellnest.data.ActivityJarRepository;
+import com.code.wlu.cp470.wellnest.data.local.DatabaseProvider;
 import com.code.wlu.cp470.wellnest.data.local.WellnestDatabaseHelper;
 import com.code.wlu.cp470.wellnest.data.local.managers.ActivityJarManager;
 import com.code.wlu.cp470.wellnest.data.remote.managers.FirebaseUserManager;
@@ -33,9 +34,6 @@ import java.util.Map;
 @RunWith(AndroidJUnit4.class)
 public class ActivityJarRepositoryInstrumentedTest {
 
-    private static final String USER_REPO_PREFS = "user_repo_prefs";
-    private static final String PREFS_UID = "uid";
-
     private Context context;
     private WellnestDatabaseHelper helper;
     private SQLiteDatabase db;
@@ -107,17 +105,15 @@ public class ActivityJarRepositoryInstrumentedTest {
         // Clean up SharedPreferences
         context.getSharedPreferences("activityJar_repo_prefs", Context.MODE_PRIVATE)
                 .edit().clear().apply();
-        // Clean up UserRepository prefs to avoid test pollution
-        context.getSharedPreferences(USER_REPO_PREFS, Context.MODE_PRIVATE)
-                .edit().clear().apply();
+        // Sign the seeded identity out to avoid test pollution
+        DatabaseProvider.get(context).getSessionStore().onSignedOut();
     }
 
     /**
-     * Helper method to seed the uid in UserRepository's SharedPreferences
+     * Helper method to sign {@code uid} in on the SessionStore the repository reads it from
      */
     private void seedUserRepoUid(String uid) {
-        context.getSharedPreferences(USER_REPO_PREFS, Context.MODE_PRIVATE)
-                .edit().putString(PREFS_UID, uid).apply();
+        DatabaseProvider.get(context).getSessionStore().onSignedIn(uid, null, null);
     }
 
     // ============================================================
@@ -186,7 +182,7 @@ public class ActivityJarRepositoryInstrumentedTest {
     public void syncActivityJarScoreOnceDaily_whenDue_syncsScoresAndRecordsDate() {
         String testUid = "activityjar_sync_test_1";
 
-        // Pre-seed UserRepository's SharedPreferences with test uid
+        // Sign the test uid in
         seedUserRepoUid(testUid);
 
         // Clear any existing sync date by setting it to a past day
@@ -218,7 +214,7 @@ public class ActivityJarRepositoryInstrumentedTest {
     public void syncActivityJarScoreOnceDaily_whenAlreadySyncedToday_skipsSync() {
         String testUid = "activityjar_sync_test_2";
 
-        // Pre-seed UserRepository's SharedPreferences with test uid
+        // Sign the test uid in
         seedUserRepoUid(testUid);
 
         // Set up: local=5, remote=999
@@ -251,7 +247,7 @@ public class ActivityJarRepositoryInstrumentedTest {
     public void syncActivityJarScoreOnceDaily_localHigher_updatesRemote() {
         String testUid = "activityjar_sync_test_3";
 
-        // Pre-seed UserRepository's SharedPreferences with test uid
+        // Sign the test uid in
         seedUserRepoUid(testUid);
 
         // Clear sync date
@@ -271,21 +267,15 @@ public class ActivityJarRepositoryInstrumentedTest {
     }
 
     /**
-     * Test that syncActivityJarScoreOnceDaily handles null/empty uid gracefully.
+     * Test that syncActivityJarScoreOnceDaily handles a signed-out session gracefully.
      */
     @Test
     public void syncActivityJarScoreOnceDaily_nullUid_doesNotCrash() {
-        // Clear the uid from UserRepository prefs to simulate null/empty uid
-        context.getSharedPreferences(USER_REPO_PREFS, Context.MODE_PRIVATE)
-                .edit().remove(PREFS_UID).apply();
+        // Nobody signed in: the session has no uid
+        DatabaseProvider.get(context).getSessionStore().onSignedOut();
         
         // Should not throw, just return early
         repo.syncActivityJarScoreOnceDaily();
-        
-        // Test with empty uid
-        context.getSharedPreferences(USER_REPO_PREFS, Context.MODE_PRIVATE)
-                .edit().putString(PREFS_UID, "").apply();
-        repo.syncActivityJarScoreOnceDaily();
         // No assertions needed - just verifying no crash
     }
 }
\ No newline at end of file
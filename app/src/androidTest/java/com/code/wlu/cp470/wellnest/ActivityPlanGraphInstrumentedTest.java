@@ -0,0 +1,318 @@
+package com.code.wlu.cp470.wellnest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.code.wlu.cp470.wellnest.data.ActivityJarModels.Activity;
+import com.code.wlu.cp470.wellnest.data.ActivityJarModels.Category;
+import com.code.wlu.cp470.wellnest.data.ActivityJarModels.PlanContext;
+import com.code.wlu.cp470.wellnest.data.ActivityPlanGraph;
+import com.code.wlu.cp470.wellnest.utils.Deadline;
+
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+/**
+ * Instrumented tests for ActivityPlanGraph against a MockWebServer that stands in for every
+ * stage (location, weather, geocoding, search, synthesis) with its own injected latency: the
+ * plan takes as long as its longest chain rather than the sum of its stages, the optional
+ * stages fall back instead of failing the plan, and a deadline bounds the whole plan.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ActivityPlanGraphInstrumentedTest {
+
+    private static final String TAG = "ActivityPlanGraphTest";
+
+    private static final String SYNTHESIS = "{\"Explore\":[{\"emoji\":\"🥾\",\"title\":\"Laurel Trail\","
+            + "\"description\":\"d\",\"address\":\"a\",\"tags\":[\"solo\"],\"url\":\"https://example.com\"}],"
+            + "\"Cozy\":[{\"emoji\":\"☕\",\"title\":\"Death Valley's\",\"description\":\"d\","
+            + "\"address\":\"a\",\"tags\":[\"friends\",\"family\"],\"url\":\"https://example.com\"}]}";
+
+    private final Map<String, Long> delays = new ConcurrentHashMap<>();
+    private final Map<String, Integer> statuses = new ConcurrentHashMap<>();
+    private final Map<String, String> queries = new ConcurrentHashMap<>();
+    private volatile String synthesisPrompt;
+
+    private MockWebServer server;
+    private OkHttpClient http;
+    private ExecutorService executor;
+    private ScheduledExecutorService timer;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                String stage = request.getRequestUrl().pathSegments().get(0);
+                if ("search".equals(stage)) queries.put(stage, request.getRequestUrl().queryParameter("q"));
+                MockResponse response = new MockResponse()
+                        .setResponseCode(statuses.containsKey(stage) ? statuses.get(stage) : 200)
+                        .setBody(bodyFor(stage));
+                Long delay = delays.get(stage);
+                return delay != null ? response.setBodyDelay(delay, TimeUnit.MILLISECONDS) : response;
+            }
+        });
+        server.start();
+        http = new OkHttpClient.Builder().readTimeout(10, TimeUnit.SECONDS).build();
+        executor = Executors.newFixedThreadPool(4);
+        timer = Executors.newSingleThreadScheduledExecutor();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        executor.shutdownNow();
+        timer.shutdownNow();
+        server.shutdown();
+    }
+
+    private static String bodyFor(String stage) {
+        switch (stage) {
+            case "location":
+                return "{\"lat\":43.4723,\"lon\":-80.5449}";
+            case "weather":
+                return "{\"current_weather\":{\"temperature\":21.0,\"windspeed\":9.0,\"weathercode\":0}}";
+            case "geocode":
+                return "Waterloo, Ontario";
+            case "search":
+                return "{\"results\":[]}";
+            default:
+                return SYNTHESIS;
+        }
+    }
+
+    private String get(String stage, String query) throws IOException {
+        HttpUrl.Builder url = server.url("/" + stage).newBuilder();
+        if (query != null) url.addQueryParameter("q", query);
+        try (Response response = http.newCall(new Request.Builder().url(url.build()).build()).execute()) {
+            if (!response.isSuccessful()) throw new IOException(stage + " returned " + response.code());
+            return response.body().string();
+        }
+    }
+
+    private ActivityPlanGraph graph(ActivityPlanGraph.Timeouts timeouts) {
+        return new ActivityPlanGraph(new ActivityPlanGraph.Stages() {
+            @Override
+            public double[] locate() throws Exception {
+                JSONObject o = new JSONObject(get("location", null));
+                return new double[]{o.getDouble("lat"), o.getDouble("lon")};
+            }
+
+            @Override
+            public JSONObject currentWeather(double latitude, double longitude) throws Exception {
+                return new JSONObject(get("weather", null)).optJSONObject("current_weather");
+            }
+
+            @Override
+            public String locationName(double latitude, double longitude) throws Exception {
+                return get("geocode", null);
+            }
+
+            @Override
+            public JSONObject search(String query) throws Exception {
+                return new JSONObject(get("search", query));
+            }
+
+            @Override
+            public String synthesize(String prompt) throws Exception {
+                synthesisPrompt = prompt;
+                return get("synthesis", null);
+            }
+        }, timeouts, executor, timer);
+    }
+
+    private ActivityPlanGraph graph() {
+        return graph(new ActivityPlanGraph.Timeouts(5_000, 5_000, 5_000, 5_000, 5_000));
+    }
+
+    @Test
+    public void plan_takesTheLongestChain_notTheSum() throws Exception {
+        delays.put("location", 200L);
+        delays.put("weather", 800L);
+        delays.put("geocode", 400L);
+        delays.put("search", 600L);
+        delays.put("synthesis", 400L);
+        long sum = 200 + 800 + 400 + 600 + 400;
+        // location -> geocode -> search -> synthesis; location -> weather -> synthesis is 1400
+        long longestChain = 200 + 400 + 600 + 400;
+
+        long start = System.nanoTime();
+        Map<Category, List<Activity>> plan = graph().plan(null);
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        Log.i(TAG, "plan: " + elapsed + " ms (longest chain " + longestChain + ", sum " + sum + ")");
+
+        assertNotNull(plan);
+        assertEquals("Laurel Trail", plan.get(Category.Explore).get(0).getTitle());
+        assertTrue("finished before its longest chain: " + elapsed, elapsed >= longestChain);
+        assertTrue("took the sum of its stages: " + elapsed, elapsed < sum - 300);
+        // the search did not wait for the weather
+        assertTrue(queries.get("search").startsWith("Best local things to do in Waterloo, Ontario on "));
+    }
+
+    @Test
+    public void locate_fetchesWeatherAndPlaceNameSideBySide() throws Exception {
+        delays.put("weather", 600L);
+        delays.put("geocode", 600L);
+
+        long start = System.nanoTime();
+        PlanContext context = graph().locate(null);
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        Log.i(TAG, "locate: " + elapsed + " ms");
+
+        assertNotNull(context);
+        assertEquals("Waterloo, Ontario", context.getLocationName());
+        assertEquals(0, context.getWeatherCode());
+        assertEquals("Clear, 21°C, wind 9 km/h", context.getWeatherSummary());
+        assertTrue("weather and geocoding ran one after the other: " + elapsed, elapsed < 1100);
+    }
+
+    @Test
+    public void aSlowWeatherStage_fallsBackInsteadOfHoldingUpThePlan() throws Exception {
+        delays.put("weather", 3_000L);
+
+        long start = System.nanoTime();
+        PlanContext context = graph(new ActivityPlanGraph.Timeouts(5_000, 300, 5_000, 5_000, 5_000)).locate(null);
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertNotNull(context);
+        assertEquals("weather unavailable", context.getWeatherSummary());
+        assertEquals(-1, context.getWeatherCode());
+        assertEquals("Waterloo, Ontario", context.getLocationName());
+        assertTrue("waited out the slow weather: " + elapsed, elapsed < 2_000);
+    }
+
+    @Test
+    public void aFailedGeocode_searchesByCoordinates() throws Exception {
+        statuses.put("geocode", 500);
+
+        Map<Category, List<Activity>> plan = graph().plan(null);
+
+        assertNotNull(plan);
+        assertTrue(queries.get("search").startsWith("Best local things to do in the area around 43.4723, -80.5449"));
+    }
+
+    @Test
+    public void aKnownPlanContext_skipsLocationAndWeather() throws Exception {
+        PlanContext known = new PlanContext(43.4723, -80.5449, "Clear, 20°C", 0, "Kitchener, Ontario");
+
+        Map<Category, List<Activity>> plan = graph().plan(known, null);
+
+        assertNotNull(plan);
+        assertEquals(2, server.getRequestCount()); // search and synthesis only
+        assertTrue(queries.get("search").contains("Kitchener, Ontario"));
+    }
+
+    @Test
+    public void aFailedSearch_failsThePlan() throws Exception {
+        statuses.put("search", 500);
+
+        try {
+            graph().plan(null);
+            fail("expected the search failure");
+        } catch (IOException e) {
+            assertEquals("search returned 500", e.getMessage());
+        }
+    }
+
+    @Test
+    public void aDeadline_dropsASlowSearch_andPlansFromWhatTheModelKnows() throws Exception {
+        delays.put("search", 3_000L);
+        // each stage alone would wait out the slow search; the deadline leaves 1 s for synthesis
+        ActivityPlanGraph graph = graph(new ActivityPlanGraph.Timeouts(5_000, 5_000, 5_000, 5_000, 5_000, 1_000));
+
+        long start = System.nanoTime();
+        Map<Category, List<Activity>> plan = graph.plan(null, Deadline.in(2_000));
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        Log.i(TAG, "plan within a 2000 ms deadline: " + elapsed + " ms");
+
+        assertNotNull(plan);
+        assertEquals("Laurel Trail", plan.get(Category.Explore).get(0).getTitle());
+        assertTrue(synthesisPrompt.startsWith("Using what you know about the location"));
+        assertTrue("overran the deadline: " + elapsed, elapsed < 2_500);
+    }
+
+    @Test
+    public void aDeadline_bringsASlowSynthesisInBeforeItsOwnTimeout() throws Exception {
+        delays.put("synthesis", 4_000L);
+
+        long start = System.nanoTime();
+        try {
+            graph().plan(null, Deadline.in(1_500));
+            fail("expected the synthesis to run out of time");
+        } catch (TimeoutException expected) {
+            long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            Log.i(TAG, "slow synthesis gave up after " + elapsed + " ms");
+            assertTrue("overran the deadline: " + elapsed, elapsed < 2_000);
+        }
+    }
+
+    @Test
+    public void aDeadline_thatAllowsEverything_changesNothing() throws Exception {
+        Map<Category, List<Activity>> plan = graph().plan(null, Deadline.in(30_000));
+
+        assertNotNull(plan);
+        assertTrue(synthesisPrompt.startsWith("Using the Tavily results"));
+        assertTrue(queries.get("search").startsWith("Best local things to do in Waterloo, Ontario on "));
+    }
+
+    @Test
+    public void noLocation_meansNoContext() throws Exception {
+        ActivityPlanGraph graph = new ActivityPlanGraph(new ActivityPlanGraph.Stages() {
+            @Override
+            public double[] locate() {
+                return null;
+            }
+
+            @Override
+            public JSONObject currentWeather(double latitude, double longitude) {
+                throw new AssertionError("no weather without a location");
+            }
+
+            @Override
+            public String locationName(double latitude, double longitude) {
+                throw new AssertionError("no geocoding without a location");
+            }
+
+            @Override
+            public JSONObject search(String query) {
+                throw new AssertionError("no search without a location");
+            }
+
+            @Override
+            public String synthesize(String prompt) {
+                throw new AssertionError("no synthesis without a location");
+            }
+        }, new ActivityPlanGraph.Timeouts(5_000, 5_000, 5_000, 5_000, 5_000), executor, timer);
+
+        assertNull(graph.locate(null));
+    }
+}
@@ -0,0 +1,131 @@
+package com.code.wlu.cp470.wellnest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import android.os.Debug;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.code.wlu.cp470.wellnest.data.AiResponseReader;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Benchmark for decoding a Tavily response with raw page content.
+ * <p>
+ * Decodes the same ~2.5 MB response once the old way (read the body into a String, build a
+ * JSONObject tree, print it into the prompt) and once through AiResponseReader, and logs the
+ * bytes allocated and the time taken by each.
+ */
+@RunWith(AndroidJUnit4.class)
+public class AiResponseReaderBenchmarkInstrumentedTest {
+
+    private static final String TAG = "AiResponseReaderBench";
+    private static final int RESULTS = 12;
+    private static final int RAW_CONTENT_CHARS = 200_000;
+    private static final int RUNS = 5;
+
+    private static byte[] tavilyResponseWithRawContent() throws Exception {
+        StringBuilder page = new StringBuilder(RAW_CONTENT_CHARS);
+        while (page.length() < RAW_CONTENT_CHARS) {
+            page.append("Waterloo Park has trails, a lake, a petting zoo and an outdoor stage. ");
+        }
+        JSONArray results = new JSONArray();
+        for (int i = 0; i < RESULTS; i++) {
+            results.put(new JSONObject()
+                    .put("url", "https://example.com/things-to-do/" + i)
+                    .put("title", "Things to do #" + i)
+                    .put("content", "A short snippet about place " + i + ".")
+                    .put("score", 0.9 - i * 0.01)
+                    .put("raw_content", page.toString()));
+        }
+        String body = new JSONObject()
+                .put("query", "Best local things to do in Waterloo, Ontario")
+                .put("answer", "Plenty.")
+                .put("results", results)
+                .put("response_time", 2.1)
+                .toString();
+        return body.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static Reader stream(byte[] body) {
+        return new InputStreamReader(new ByteArrayInputStream(body), StandardCharsets.UTF_8);
+    }
+
+    // What tavilySearch + the synthesis prompt used to do: body -> String -> tree -> String
+    private static String legacy(byte[] body) throws Exception {
+        StringBuilder text = new StringBuilder();
+        char[] buffer = new char[8192];
+        try (Reader in = stream(body)) {
+            int n;
+            while ((n = in.read(buffer)) != -1) text.append(buffer, 0, n);
+        }
+        return new JSONObject(text.toString()).toString();
+    }
+
+    private static String streaming(byte[] body) throws IOException {
+        try (Reader in = stream(body)) {
+            return AiResponseReader.readSearchResults(in).toString();
+        }
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void benchmark_tavilyDecode_streamingAllocatesLess() throws Exception {
+        byte[] body = tavilyResponseWithRawContent();
+        // warm up both paths
+        legacy(body);
+        streaming(body);
+
+        Debug.startAllocCounting();
+        try {
+            long legacyBytes = 0;
+            long legacyNanos = 0;
+            int legacyPromptChars = 0;
+            for (int i = 0; i < RUNS; i++) {
+                Debug.resetThreadAllocSize();
+                long start = System.nanoTime();
+                legacyPromptChars = legacy(body).length();
+                legacyNanos += System.nanoTime() - start;
+                legacyBytes += Debug.getThreadAllocSize();
+            }
+
+            long streamingBytes = 0;
+            long streamingNanos = 0;
+            int streamingPromptChars = 0;
+            for (int i = 0; i < RUNS; i++) {
+                Debug.resetThreadAllocSize();
+                long start = System.nanoTime();
+                streamingPromptChars = streaming(body).length();
+                streamingNanos += System.nanoTime() - start;
+                streamingBytes += Debug.getThreadAllocSize();
+            }
+
+            Log.i(TAG, String.format("%d KB response: before=%d KB/%.1f ms allocated/decode (prompt %d chars), "
+                            + "after=%d KB/%.1f ms (prompt %d chars)",
+                    body.length / 1024,
+                    legacyBytes / RUNS / 1024, legacyNanos / RUNS / 1e6, legacyPromptChars,
+                    streamingBytes / RUNS / 1024, streamingNanos / RUNS / 1e6, streamingPromptChars));
+
+            assertEquals(RESULTS, new JSONObject(streaming(body)).getJSONArray("results").length());
+            assertTrue(streamingPromptChars * 100 < legacyPromptChars);
+            assumeTrue("allocation counting unavailable on this runtime", legacyBytes > 0);
+            assertTrue("streaming allocated " + streamingBytes + " vs " + legacyBytes,
+                    streamingBytes < legacyBytes);
+        } finally {
+            Debug.stopAllocCounting();
+        }
+    }
+}
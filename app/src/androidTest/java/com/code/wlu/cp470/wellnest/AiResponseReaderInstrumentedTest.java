@@ -0,0 +1,113 @@
+package com.code.wlu.cp470.wellnest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.code.wlu.cp470.wellnest.data.AiResponseReader;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+/**
+ * Instrumented tests for AiResponseReader: the streamed decode keeps exactly the fields the
+ * client uses, handles both OpenAI reply shapes, and turns malformed or truncated bodies into
+ * IOExceptions.
+ */
+@RunWith(AndroidJUnit4.class)
+public class AiResponseReaderInstrumentedTest {
+
+    @Test
+    public void readModelText_readsTheFirstChoice() throws Exception {
+        String text = AiResponseReader.readModelText(new StringReader(
+                RecordedAiResponses.chatCompletion("gpt-5-nano", "{\"a\":\"quoted \\\"b\\\"\"}")));
+        assertEquals("{\"a\":\"quoted \\\"b\\\"\"}", text);
+    }
+
+    @Test
+    public void readModelText_readsResponsesApiOutput() throws Exception {
+        String body = "{\"id\":\"resp_1\",\"object\":\"response\",\"output\":["
+                + "{\"type\":\"reasoning\",\"summary\":[]},"
+                + "{\"type\":\"message\",\"role\":\"assistant\",\"content\":["
+                + "{\"type\":\"output_text\",\"text\":\"pa\",\"annotations\":[]},"
+                + "{\"type\":\"output_text\",\"text\":\"ss\",\"annotations\":[]}]}],"
+                + "\"usage\":{\"input_tokens\":10,\"output_tokens\":2}}";
+        assertEquals("pass", AiResponseReader.readModelText(new StringReader(body)));
+    }
+
+    @Test
+    public void readModelText_withoutChoices_fails() {
+        assertFails(() -> AiResponseReader.readModelText(new StringReader("{\"choices\":[]}")));
+        assertFails(() -> AiResponseReader.readModelText(new StringReader("{\"error\":{\"message\":\"rate limited\"}}")));
+    }
+
+    @Test
+    public void readSearchResults_keepsTitleUrlContentAndScoreOnly() throws Exception {
+        String body = "{\"query\":\"q\",\"answer\":\"a\",\"images\":[\"https://img\"],\"results\":["
+                + "{\"url\":\"https://a\",\"title\":\"A\",\"content\":\"alpha\",\"score\":0.9,"
+                + "\"raw_content\":\"<html>lots of page</html>\"},"
+                + "{\"title\":\"B\",\"url\":\"https://b\",\"content\":\"beta\",\"raw_content\":null,"
+                + "\"extra\":{\"nested\":[1,2,{\"x\":true}]}}"
+                + "],\"response_time\":1.2}";
+
+        JSONObject compact = AiResponseReader.readSearchResults(new StringReader(body));
+
+        assertEquals(1, compact.length());
+        JSONArray results = compact.getJSONArray("results");
+        assertEquals(2, results.length());
+        JSONObject first = results.getJSONObject(0);
+        assertEquals("A", first.getString("title"));
+        assertEquals("https://a", first.getString("url"));
+        assertEquals("alpha", first.getString("content"));
+        assertEquals(0.9, first.getDouble("score"), 0);
+        assertFalse(first.has("raw_content"));
+        assertEquals("beta", results.getJSONObject(1).getString("content"));
+        assertFalse(results.getJSONObject(1).has("score"));
+    }
+
+    @Test
+    public void readSearchResults_matchesTheRecordedResponse() throws Exception {
+        JSONObject tree = new JSONObject(RecordedAiResponses.TAVILY_SEARCH);
+        JSONObject compact = AiResponseReader.readSearchResults(new StringReader(RecordedAiResponses.TAVILY_SEARCH));
+
+        JSONArray expected = tree.getJSONArray("results");
+        JSONArray actual = compact.getJSONArray("results");
+        assertEquals(expected.length(), actual.length());
+        for (int i = 0; i < expected.length(); i++) {
+            for (String field : new String[]{"title", "url", "content"}) {
+                assertEquals(expected.getJSONObject(i).getString(field), actual.getJSONObject(i).getString(field));
+            }
+            assertEquals(expected.getJSONObject(i).optDouble("score"), actual.getJSONObject(i).optDouble("score"), 0);
+        }
+    }
+
+    @Test
+    public void truncatedOrMalformedBodies_fail() {
+        String search = RecordedAiResponses.TAVILY_SEARCH;
+        assertFails(() -> AiResponseReader.readSearchResults(new StringReader(search.substring(0, search.length() - 40))));
+        assertFails(() -> AiResponseReader.readSearchResults(new StringReader("<html>502 Bad Gateway</html>")));
+        assertFails(() -> AiResponseReader.readSearchResults(new StringReader("[]")));
+        String chat = RecordedAiResponses.chatCompletion("gpt-4o", "pass");
+        assertFails(() -> AiResponseReader.readModelText(new StringReader(chat.substring(0, chat.length() / 2))));
+    }
+
+    private interface Decode {
+        Object run() throws IOException;
+    }
+
+    private static void assertFails(Decode decode) {
+        try {
+            decode.run();
+            fail("expected an IOException");
+        } catch (IOException expected) {
+            // malformed input surfaces as the client's usual network failure
+        }
+    }
+}
@@ -0,0 +1,359 @@
+package com.code.wlu.cp470.wellnest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.code.wlu.cp470.wellnest.data.ResiliencePolicy;
+import com.code.wlu.cp470.wellnest.data.WellnestAiClient;
+import com.code.wlu.cp470.wellnest.utils.CancellationToken;
+import com.code.wlu.cp470.wellnest.utils.Deadline;
+import com.code.wlu.cp470.wellnest.utils.SingleFlight;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.mockwebserver.SocketPolicy;
+
+/**
+ * Instrumented tests for cancelling AI pipelines: a cancelled token must stop the OkHttp call
+ * in flight, a backoff wait and a location request within {@link #RELEASE_MS}, and give the
+ * connection back; a shared plan is only cancelled once all of its callers have cancelled.
+ */
+@RunWith(AndroidJUnit4.class)
+public class CancellationInstrumentedTest {
+
+    private static final String OPENAI = "/api/openai-chat";
+    private static final String OPEN_METEO = "/v1/forecast";
+
+    // How soon a cancelled pipeline must have let go of its thread
+    private static final long RELEASE_MS = 1000;
+
+    private static final double[] HERE = {43.4723, -80.5449};
+
+    private MockWebServer server;
+    private CountDownLatch modelCalled;
+    private OkHttpClient http;
+    private ExecutorService callers;
+
+    @Before
+    public void setUp() throws Exception {
+        WellnestAiClient.setSnapTaskEvaluationOverride(null);
+        modelCalled = new CountDownLatch(1);
+        server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                switch (request.getRequestUrl().encodedPath()) {
+                    case OPEN_METEO:
+                        return new MockResponse().setHeader("Content-Type", "application/json")
+                                .setBody(RecordedAiResponses.OPEN_METEO_FORECAST);
+                    case OPENAI:
+                        // a model that never answers
+                        modelCalled.countDown();
+                        return new MockResponse().setSocketPolicy(SocketPolicy.NO_RESPONSE);
+                    default:
+                        return new MockResponse().setResponseCode(404);
+                }
+            }
+        });
+        server.start();
+        // long enough that only cancelling can end a call in these tests
+        http = new OkHttpClient.Builder().readTimeout(60, TimeUnit.SECONDS).build();
+        callers = Executors.newCachedThreadPool();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        callers.shutdownNow();
+        server.shutdown();
+    }
+
+    private WellnestAiClient client(WellnestAiClient.LocationProvider location) {
+        return new WellnestAiClient.Builder()
+                .http(http)
+                .endpoints(new WellnestAiClient.Endpoints(
+                        server.url("/").toString(), server.url(OPEN_METEO).toString()))
+                .location(location)
+                .geocoder(new WellnestAiClient.GeocoderProvider() {
+                    @Override
+                    public String locationName(double latitude, double longitude) {
+                        return "Waterloo, Ontario";
+                    }
+
+                    @Override
+                    public double[] coordinatesOf(String address) {
+                        return HERE;
+                    }
+                })
+                .build();
+    }
+
+    private static WellnestAiClient.LocationProvider fixedLocation() {
+        return new WellnestAiClient.LocationProvider() {
+            @Override
+            public boolean hasPermission() {
+                return true;
+            }
+
+            @Override
+            public double[] currentLocation() {
+                return HERE;
+            }
+        };
+    }
+
+    // What a call on another thread threw, once it has ended; fails if it outlives RELEASE_MS
+    private static Throwable failureWithin(Future<?> call) throws InterruptedException {
+        try {
+            call.get(RELEASE_MS, TimeUnit.MILLISECONDS);
+            return null;
+        } catch (ExecutionException e) {
+            return e.getCause();
+        } catch (TimeoutException e) {
+            fail("still running " + RELEASE_MS + " ms after being cancelled");
+            return null;
+        }
+    }
+
+    // ------------------------------------------------------------
+    // Network calls
+    // ------------------------------------------------------------
+
+    @Test
+    public void pickWalkAndStory_cancelledWhileTheModelIsSilent_abortsTheCall() throws Exception {
+        WellnestAiClient client = client(fixedLocation());
+        CancellationToken token = new CancellationToken();
+        Future<?> walk = callers.submit((Callable<Object>) () -> client.pickWalkAndStory(null, token));
+
+        assertTrue("model never called", modelCalled.await(10, TimeUnit.SECONDS));
+        token.cancel();
+
+        Throwable thrown = failureWithin(walk);
+        assertTrue("threw " + thrown, thrown instanceof CancellationToken.CancelledException);
+        assertEquals("connections still in use", 0,
+                http.connectionPool().connectionCount() - http.connectionPool().idleConnectionCount());
+    }
+
+    @Test
+    public void evaluateSnapTask_cancelled_returnsNullInsteadOfTheLenientPass() throws Exception {
+        WellnestAiClient client = client(fixedLocation());
+        CancellationToken token = new CancellationToken();
+        Future<String> verdict = callers.submit(() -> client.evaluateSnapTask(
+                "task-1", "Make the bed", TestPhotos.snapshot(1), TestPhotos.snapshot(2), token));
+
+        assertTrue("model never called", modelCalled.await(10, TimeUnit.SECONDS));
+        token.cancel();
+
+        assertNull(failureWithin(verdict));
+        assertNull(verdict.get());
+    }
+
+    @Test
+    public void resiliencePolicy_cancelledDuringBackoff_stopsWaiting() throws Exception {
+        ResiliencePolicy policy = new ResiliencePolicy.Builder()
+                .baseDelayMs(60_000)
+                .maxDelayMs(60_000)
+                .random(new Random() {
+                    @Override
+                    public double nextDouble() {
+                        return 0.99;
+                    }
+                })
+                .build();
+        CancellationToken token = new CancellationToken();
+        CountDownLatch failedOnce = new CountDownLatch(1);
+        Future<?> call = callers.submit((Callable<Object>) () ->
+                policy.call("http://backoff.test/", token, () -> {
+                    failedOnce.countDown();
+                    throw new IOException("down");
+                }));
+
+        assertTrue(failedOnce.await(5, TimeUnit.SECONDS));
+        Thread.sleep(100); // into the backoff wait
+        token.cancel();
+
+        Throwable thrown = failureWithin(call);
+        assertTrue("threw " + thrown, thrown instanceof CancellationToken.CancelledException);
+    }
+
+    @Test
+    public void resiliencePolicy_anAttemptAbortedByCancelling_isNotHeldAgainstTheHost() throws Exception {
+        ResiliencePolicy policy = new ResiliencePolicy.Builder().failureThreshold(1).build();
+        CancellationToken token = new CancellationToken();
+        try {
+            policy.call("http://cancelled.test/", token, () -> {
+                token.cancel();
+                throw new IOException("Canceled");
+            });
+            fail("expected CancelledException");
+        } catch (CancellationToken.CancelledException expected) {
+            // expected
+        }
+        assertFalse(policy.isOpen("http://cancelled.test/"));
+    }
+
+    // ------------------------------------------------------------
+    // Location
+    // ------------------------------------------------------------
+
+    @Test
+    public void getPlanContext_cancelledWhileLocating_stopsTheLocationRequest() throws Exception {
+        CountDownLatch locating = new CountDownLatch(1);
+        CountDownLatch locationCancelled = new CountDownLatch(1);
+        WellnestAiClient client = client(new WellnestAiClient.LocationProvider() {
+            @Override
+            public boolean hasPermission() {
+                return true;
+            }
+
+            @Override
+            public double[] currentLocation() {
+                return currentLocation(CancellationToken.NONE, Deadline.NONE);
+            }
+
+            @Override
+            public double[] currentLocation(CancellationToken token, Deadline deadline) {
+                // like a fix that never comes, until the request is cancelled
+                try (CancellationToken.Registration ignored = token.onCancel(locationCancelled::countDown)) {
+                    locating.countDown();
+                    locationCancelled.await(30, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return null;
+            }
+        });
+        CancellationToken token = new CancellationToken();
+        Future<?> context = callers.submit((Callable<Object>) () -> client.getPlanContext(token));
+
+        assertTrue(locating.await(5, TimeUnit.SECONDS));
+        token.cancel();
+
+        Throwable thrown = failureWithin(context);
+        assertTrue("threw " + thrown, thrown instanceof CancellationToken.CancelledException);
+        assertEquals(0, locationCancelled.getCount());
+    }
+
+    // ------------------------------------------------------------
+    // Shared runs
+    // ------------------------------------------------------------
+
+    @Test
+    public void singleFlight_runsUntilEveryCallerHasCancelled() throws Exception {
+        SingleFlight<String, String> flight = new SingleFlight<>();
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch runCancelled = new CountDownLatch(1);
+        SingleFlight.Work<String> work = token -> {
+            try (CancellationToken.Registration ignored = token.onCancel(runCancelled::countDown)) {
+                running.countDown();
+                runCancelled.await(30, TimeUnit.SECONDS);
+            }
+            token.throwIfCancelled();
+            return "plan";
+        };
+
+        CancellationToken first = new CancellationToken();
+        CancellationToken second = new CancellationToken();
+        Future<String> leader = callers.submit(() -> flight.run("key", work, first));
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+        Future<String> joiner = callers.submit(() -> flight.run("key", work, second));
+        Thread.sleep(100); // let it join
+
+        // one screen going away stops its own wait, not the run
+        second.cancel();
+        Throwable thrown = failureWithin(joiner);
+        assertTrue("threw " + thrown, thrown instanceof CancellationToken.CancelledException);
+        assertEquals(1, runCancelled.getCount());
+        assertTrue(flight.isInFlight("key"));
+
+        // the last one going away cancels it
+        first.cancel();
+        thrown = failureWithin(leader);
+        assertTrue("threw " + thrown, thrown instanceof CancellationToken.CancelledException);
+        assertEquals(0, runCancelled.getCount());
+        assertFalse(flight.isInFlight("key"));
+    }
+
+    @Test
+    public void singleFlight_aCallerThatNeverCancels_keepsTheRunGoing() throws Exception {
+        SingleFlight<String, String> flight = new SingleFlight<>();
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        SingleFlight.Work<String> work = token -> {
+            running.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            token.throwIfCancelled();
+            return "plan";
+        };
+
+        // like the startup prefetch
+        Future<String> prefetch = callers.submit(() -> flight.run("key", work, CancellationToken.NONE));
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+        CancellationToken screen = new CancellationToken();
+        Future<String> joiner = callers.submit(() -> flight.run("key", work, screen));
+        Thread.sleep(100);
+
+        screen.cancel();
+        assertTrue(failureWithin(joiner) instanceof CancellationToken.CancelledException);
+        release.countDown();
+        assertEquals("plan", prefetch.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void singleFlight_afterEveryCallerLeft_aNewCallerStartsAFreshRun() throws Exception {
+        SingleFlight<String, String> flight = new SingleFlight<>();
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger runs = new AtomicInteger();
+        // the first run ignores its token for a while, like a call that is slow to abort
+        SingleFlight.Work<String> work = token -> {
+            if (runs.incrementAndGet() > 1) return "fresh";
+            running.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return "stale";
+        };
+
+        CancellationToken first = new CancellationToken();
+        CancellationToken second = new CancellationToken();
+        Future<String> leader = callers.submit(() -> flight.run("key", work, first));
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+        Future<String> joiner = callers.submit(() -> flight.run("key", work, second));
+        Thread.sleep(100); // let it join
+
+        first.cancel();
+        second.cancel();
+        assertTrue(failureWithin(joiner) instanceof CancellationToken.CancelledException);
+        assertFalse(flight.isInFlight("key"));
+
+        // the abandoned run is still going; the next caller does not join it
+        assertEquals("fresh", flight.run("key", work, new CancellationToken()));
+        assertEquals(2, runs.get());
+
+        release.countDown();
+        assertTrue(failureWithin(leader) instanceof CancellationToken.CancelledException);
+    }
+}
@@ -15,6 +15,7 @@ import com.code.wlu.cp470.wellnest.data.RoamioRepository;
 import com.code.wlu.cp470.wellnest.data.SnapTaskModels;
 import com.code.wlu.cp470.wellnest.data.SnapTaskRepository;
 import com.code.wlu.cp470.wellnest.data.UserRepository;
+import com.code.wlu.cp470.wellnest.data.local.DatabaseProvider;
 import com.code.wlu.cp470.wellnest.data.local.WellnestDatabaseHelper;
 import com.code.wlu.cp470.wellnest.data.local.managers.ActivityJarManager;
 import com.code.wlu.cp470.wellnest.data.local.managers.RoamioManager;
@@ -56,8 +57,6 @@ public class DataSyncInstrumentedTest {
     private static final String TAG = "DataSyncInstrumentedTest";
     private static final String DEFAULT_TEST_NAME = "Test User";
     private static final String DEFAULT_TEST_EMAIL = "testuser@example.com";
-    private static final String USER_REPO_PREFS = "user_repo_prefs";
-    private static final String PREFS_UID = "uid";
     private static final String SNAP_TASK_REPO_PREFS = "snapTask_repo_prefs";
     private static final String ROAMIO_REPO_PREFS = "auth_repository_prefs";
     private static final String ACTIVITY_JAR_REPO_PREFS = "activityJar_repo_prefs";
@@ -133,8 +132,8 @@ public class DataSyncInstrumentedTest {
         if (db != null && db.isOpen()) db.close();
         if (helper != null) helper.close();
         
-        // Clear shared preferences
-        context.getSharedPreferences(USER_REPO_PREFS, Context.MODE_PRIVATE).edit().clear().apply();
+        // Sign out and clear shared preferences
+        DatabaseProvider.get(context).getSessionStore().onSignedOut();
         context.getSharedPreferences(SNAP_TASK_REPO_PREFS, Context.MODE_PRIVATE).edit().clear().apply();
         context.getSharedPreferences(ROAMIO_REPO_PREFS, Context.MODE_PRIVATE).edit().clear().apply();
         context.getSharedPreferences(ACTIVITY_JAR_REPO_PREFS, Context.MODE_PRIVATE).edit().clear().apply();
@@ -249,8 +248,7 @@ public class DataSyncInstrumentedTest {
     }
 
     private void seedUserRepoUid(String uid) {
-        context.getSharedPreferences(USER_REPO_PREFS, Context.MODE_PRIVATE)
-                .edit().putString(PREFS_UID, uid).apply();
+        DatabaseProvider.get(context).getSessionStore().onSignedIn(uid, DEFAULT_TEST_NAME, DEFAULT_TEST_EMAIL);
     }
 
     private void clearAllSyncDates(String uid) {
@@ -557,17 +555,7 @@ public class DataSyncInstrumentedTest {
 
     @Test
     public void sync_nullUid_doesNotCrash() {
-        context.getSharedPreferences(USER_REPO_PREFS, Context.MODE_PRIVATE)
-                .edit().remove(PREFS_UID).apply();
-        snapTaskRepo.syncSnapTaskScoreOnceDaily();
-        roamioRepo.syncRoamioScoreOnceDaily();
-        activityJarRepo.syncActivityJarScoreOnceDaily();
-    }
-
-    @Test
-    public void sync_emptyUid_doesNotCrash() {
-        context.getSharedPreferences(USER_REPO_PREFS, Context.MODE_PRIVATE)
-                .edit().putString(PREFS_UID, "").apply();
+        DatabaseProvider.get(context).getSessionStore().onSignedOut();
         snapTaskRepo.syncSnapTaskScoreOnceDaily();
         roamioRepo.syncRoamioScoreOnceDaily();
         activityJarRepo.syncActivityJarScoreOnceDaily();
@@ -0,0 +1,239 @@
+package com.code.wlu.cp470.wellnest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.code.wlu.cp470.wellnest.data.local.WellnestDatabaseHelper;
+import com.code.wlu.cp470.wellnest.data.local.migration.Migration;
+import com.code.wlu.cp470.wellnest.data.local.migration.MigrationException;
+import com.code.wlu.cp470.wellnest.data.local.migration.MigrationMetrics;
+import com.code.wlu.cp470.wellnest.data.local.migration.MigrationRunner;
+import com.code.wlu.cp470.wellnest.data.local.migration.WellnestMigrations;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Upgrades every historical wellnest.db schema (see {@link HistoricalSchemas}) to the current
+ * version and checks the result matches a fresh install, that user data survives, and that a
+ * failing step leaves the database untouched.
+ */
+@RunWith(AndroidJUnit4.class)
+public class DatabaseMigrationInstrumentedTest {
+
+    private static final String OLD_DB = "migration_test_old.db";
+    private static final String FRESH_DB = "migration_test_fresh.db";
+
+    private Context context;
+    private final RecordingMetrics metrics = new RecordingMetrics();
+
+    @Before
+    public void setUp() {
+        context = ApplicationProvider.getApplicationContext();
+        context.deleteDatabase(OLD_DB);
+        context.deleteDatabase(FRESH_DB);
+    }
+
+    @After
+    public void tearDown() {
+        context.deleteDatabase(OLD_DB);
+        context.deleteDatabase(FRESH_DB);
+    }
+
+    private SQLiteDatabase openRaw(String name) {
+        File file = context.getDatabasePath(name);
+        file.getParentFile().mkdirs();
+        return SQLiteDatabase.openOrCreateDatabase(file, null);
+    }
+
+    private Map<String, String> freshSchema() {
+        WellnestDatabaseHelper fresh = new WellnestDatabaseHelper(context, FRESH_DB, metrics);
+        try {
+            return HistoricalSchemas.describe(fresh.getWritableDatabase());
+        } finally {
+            fresh.close();
+        }
+    }
+
+    @Test
+    public void everyHistoricalVersion_upgradesToFreshInstallSchema() {
+        Map<String, String> expected = freshSchema();
+
+        for (int v = HistoricalSchemas.OLDEST_VERSION; v <= HistoricalSchemas.NEWEST_HISTORICAL_VERSION; v++) {
+            context.deleteDatabase(OLD_DB);
+            SQLiteDatabase old = openRaw(OLD_DB);
+            HistoricalSchemas.create(old, v);
+            old.close();
+
+            WellnestDatabaseHelper helper = new WellnestDatabaseHelper(context, OLD_DB, metrics);
+            try {
+                SQLiteDatabase db = helper.getWritableDatabase();
+                assertEquals(WellnestDatabaseHelper.DATABASE_VERSION, db.getVersion());
+                assertEquals("schema after upgrading from v" + v, expected, HistoricalSchemas.describe(db));
+            } finally {
+                helper.close();
+            }
+        }
+    }
+
+    @Test
+    public void eachStep_producesTheNextHistoricalSchema() {
+        for (Migration step : WellnestMigrations.all()) {
+            if (step.to > HistoricalSchemas.NEWEST_HISTORICAL_VERSION) continue; // covered above
+
+            SQLiteDatabase expectedDb = SQLiteDatabase.create(null);
+            HistoricalSchemas.create(expectedDb, step.to);
+            Map<String, String> expected = HistoricalSchemas.describe(expectedDb);
+            expectedDb.close();
+
+            SQLiteDatabase db = SQLiteDatabase.create(null);
+            HistoricalSchemas.create(db, step.from);
+            step.migrate(db);
+            assertEquals(step.toString(), expected, HistoricalSchemas.describe(db));
+            db.close();
+        }
+    }
+
+    @Test
+    public void upgradeFromV1_keepsUserData() {
+        SQLiteDatabase old = openRaw(OLD_DB);
+        HistoricalSchemas.create(old, 1);
+        old.execSQL("INSERT INTO user_profile (uid, Name, Email) VALUES ('me', 'Me', 'me@x.com')");
+        old.execSQL("INSERT INTO global_score (uid, score) VALUES ('me', 100), ('friend', 40)");
+        old.execSQL("INSERT INTO friends (friend_uid, friend_name, friend_status) VALUES ('friend', 'Friend', 'accepted')");
+        old.execSQL("INSERT INTO snapTask_score (id, score) VALUES (1, 70)");
+        old.execSQL("INSERT INTO roamio_score (id, score) VALUES (1, 300)");
+        old.execSQL("INSERT INTO tasks (uid, name, points, completed) VALUES ('t1', 'Task', 10, 1)");
+        old.execSQL("INSERT INTO walk_sessions (uid, started_at, ended_at, distance_meters) VALUES ('me', 1, 2, 900)");
+        old.close();
+
+        WellnestDatabaseHelper helper = new WellnestDatabaseHelper(context, OLD_DB, metrics);
+        try {
+            SQLiteDatabase db = helper.getWritableDatabase();
+            assertEquals(1, count(db, "SELECT COUNT(*) FROM user_profile WHERE uid='me'"));
+            assertEquals(1, count(db, "SELECT COUNT(*) FROM friends WHERE friend_status='accepted'"));
+            assertEquals(1, count(db, "SELECT COUNT(*) FROM tasks WHERE completed=1"));
+            assertEquals(1, count(db, "SELECT COUNT(*) FROM walk_sessions"));
+            assertEquals(70, count(db, "SELECT score FROM snapTask_score"));
+            assertEquals(300, count(db, "SELECT score FROM roamio_score"));
+            assertEquals(40, count(db, "SELECT score FROM global_score WHERE uid='friend'"));
+            // v3 seeded the ledger and raised the global score to the micro-app total
+            assertEquals(370, count(db, "SELECT SUM(delta) FROM score_events"));
+            assertEquals(370, count(db, "SELECT score FROM global_score WHERE uid='me'"));
+        } finally {
+            helper.close();
+        }
+    }
+
+    @Test
+    public void upgrade_reportsEveryStepToMetrics() {
+        SQLiteDatabase old = openRaw(OLD_DB);
+        HistoricalSchemas.create(old, 1);
+        old.close();
+
+        new WellnestDatabaseHelper(context, OLD_DB, metrics).getWritableDatabase().close();
+
+        assertEquals(WellnestMigrations.all(), metrics.completed);
+        assertEquals(1, metrics.upgrades);
+        assertTrue(metrics.failed.isEmpty());
+    }
+
+    @Test
+    public void failingStep_rollsBackEverythingAndKeepsVersion() {
+        SQLiteDatabase db = openRaw(OLD_DB);
+        HistoricalSchemas.create(db, 1);
+        db.execSQL("INSERT INTO user_profile (uid, Name) VALUES ('me', 'Me')");
+
+        Migration broken = new Migration(2, 3) {
+            @Override
+            public void migrate(SQLiteDatabase db) {
+                db.execSQL("CREATE TABLE half_done (x INTEGER)");
+                db.execSQL("THIS IS NOT SQL");
+            }
+        };
+        MigrationRunner runner = new MigrationRunner(
+                Arrays.asList(WellnestMigrations.MIGRATION_1_2, broken), metrics);
+        try {
+            runner.migrate(db, 1, 3);
+            fail("expected MigrationException");
+        } catch (MigrationException expected) {
+            // expected
+        }
+
+        assertEquals(Arrays.asList(broken), metrics.failed);
+        assertEquals(0, metrics.upgrades);
+        assertEquals(1, db.getVersion());
+        // neither step 1->2 nor the partial 2->3 is left behind; data is intact
+        assertEquals(0, count(db, "SELECT COUNT(*) FROM sqlite_master WHERE name IN ('activity_jar_cache', 'half_done')"));
+        assertEquals(1, count(db, "SELECT COUNT(*) FROM user_profile"));
+        db.close();
+    }
+
+    @Test
+    public void missingStep_failsBeforeTouchingTheDatabase() {
+        SQLiteDatabase db = openRaw(OLD_DB);
+        HistoricalSchemas.create(db, 1);
+        MigrationRunner runner = new MigrationRunner(
+                Arrays.asList(WellnestMigrations.MIGRATION_1_2, WellnestMigrations.MIGRATION_3_4), metrics);
+        try {
+            runner.migrate(db, 1, 4);
+            fail("expected MigrationException");
+        } catch (MigrationException expected) {
+            // expected
+        }
+        assertTrue(metrics.completed.isEmpty());
+        assertEquals(0, count(db, "SELECT COUNT(*) FROM sqlite_master WHERE name='activity_jar_cache'"));
+        db.close();
+    }
+
+    @Test
+    public void registry_coversEveryVersionUpToCurrent() {
+        MigrationRunner runner = new MigrationRunner(WellnestMigrations.all(), metrics);
+        List<Migration> path = runner.findPath(HistoricalSchemas.OLDEST_VERSION, WellnestDatabaseHelper.DATABASE_VERSION);
+        assertEquals(WellnestDatabaseHelper.DATABASE_VERSION, path.get(path.size() - 1).to);
+        assertEquals(WellnestDatabaseHelper.DATABASE_VERSION - 1, HistoricalSchemas.NEWEST_HISTORICAL_VERSION);
+    }
+
+    private static int count(SQLiteDatabase db, String sql) {
+        try (Cursor c = db.rawQuery(sql, null)) {
+            return c.moveToFirst() ? c.getInt(0) : -1;
+        }
+    }
+
+    private static final class RecordingMetrics implements MigrationMetrics {
+        final List<Migration> completed = new ArrayList<>();
+        final List<Migration> failed = new ArrayList<>();
+        int upgrades;
+
+        @Override
+        public void onStepCompleted(Migration step, long durationMs) {
+            completed.add(step);
+        }
+
+        @Override
+        public void onStepFailed(Migration step, long durationMs, Throwable error) {
+            failed.add(step);
+        }
+
+        @Override
+        public void onUpgradeCompleted(int fromVersion, int toVersion, long durationMs) {
+            upgrades++;
+        }
+    }
+}
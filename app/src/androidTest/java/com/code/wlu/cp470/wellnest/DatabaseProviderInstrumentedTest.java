@@ -0,0 +1,68 @@
+package com.code.wlu.cp470.wellnest;
+
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.code.wlu.cp470.wellnest.data.local.DatabaseProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Instrumented tests for the application-scoped {@link DatabaseProvider} on a real device
+ * database. The resume and read-during-write benchmarks are in DatabaseProviderBenchmarkTest.
+ */
+@RunWith(AndroidJUnit4.class)
+public class DatabaseProviderInstrumentedTest {
+
+    private Context context;
+    private DatabaseProvider provider;
+    private SQLiteDatabase db;
+
+    @Before
+    public void setUp() {
+        context = ApplicationProvider.getApplicationContext();
+        provider = DatabaseProvider.get(context);
+        db = provider.getDatabase();
+        provider.getHelper().cleanDatabase(db);
+        // cleanDatabase drops the singleton score rows the shared managers created
+        provider.getSnapTaskManager().upsertSnapTaskScore(0);
+        provider.getRoamioManager().upsertRoamioScore(0);
+        provider.getActivityJarManager().upsertRoamioScore(0);
+    }
+
+    @After
+    public void tearDown() {
+        // Never close the shared connection; just leave it empty for the next test
+        provider.getHelper().cleanDatabase(db);
+    }
+
+    // ============================================================
+    // Singleton behaviour
+    // ============================================================
+
+    @Test
+    public void testGet_returnsSameProviderAndManagers() {
+        DatabaseProvider again = DatabaseProvider.get(context);
+        assertSame(provider, again);
+        assertSame(provider.getDatabase(), again.getDatabase());
+        assertSame(provider.getUserManager(), again.getUserManager());
+        assertSame(provider.getSnapTaskManager(), again.getSnapTaskManager());
+        assertSame(provider.getRoamioManager(), again.getRoamioManager());
+        assertSame(provider.getActivityJarManager(), again.getActivityJarManager());
+        assertSame(provider.getActivityJarCacheManager(), again.getActivityJarCacheManager());
+    }
+
+    @Test
+    public void testSharedDatabase_isWriteAheadLogged() {
+        assertTrue("Shared connection should use WAL", db.isWriteAheadLoggingEnabled());
+    }
+}
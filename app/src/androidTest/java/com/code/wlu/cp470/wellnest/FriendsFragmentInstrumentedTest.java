@@ -27,6 +27,7 @@ import androidx.test.espresso.ViewAction;
 import androidx.test.ext.junit.runners.AndroidJUnit4;
 
 import com.code.wlu.cp470.wellnest.data.UserModels.Friend;
+import com.code.wlu.cp470.wellnest.data.local.DatabaseProvider;
 import com.code.wlu.cp470.wellnest.data.local.WellnestDatabaseHelper;
 import com.code.wlu.cp470.wellnest.data.local.managers.UserManager;
 import com.code.wlu.cp470.wellnest.data.remote.managers.FirebaseUserManager;
@@ -104,6 +105,8 @@ public class FriendsFragmentInstrumentedTest {
         // CRITICAL: Create a user_profile row so that currentUid() doesn't throw
         // Use a test UID that will be used for the current user context
         userManager.upsertUserProfile("testCurrentUser", "Test User", "test@test.com");
+        // Screens read the uid from the app-wide session, not from this test connection
+        DatabaseProvider.get(context).getSessionStore().onSignedIn("testCurrentUser", "Test User", "test@test.com");
         
         for (int i = 0; i < uids.length; i++) {
             String uid = uids[i];
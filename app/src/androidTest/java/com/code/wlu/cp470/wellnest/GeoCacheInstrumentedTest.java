@@ -0,0 +1,275 @@
+package com.code.wlu.cp470.wellnest;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import android.content.Context;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+import android.util.Log;
+
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.code.wlu.cp470.wellnest.data.ActivityJarModels.PlanContext;
+import com.code.wlu.cp470.wellnest.data.GeoCache;
+import com.code.wlu.cp470.wellnest.data.GeoCache.Kind;
+import com.code.wlu.cp470.wellnest.data.WellnestAiClient;
+import com.code.wlu.cp470.wellnest.data.local.WellnestDatabaseHelper;
+import com.code.wlu.cp470.wellnest.data.local.contracts.GeoCacheContract;
+import com.code.wlu.cp470.wellnest.data.local.managers.GeoCacheManager;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+/**
+ * Instrumented tests for the weather and geocoding cache: lookups are answered from memory,
+ * then from geo_cache after a restart, per kind TTL and location cell; and a Roamio walk
+ * followed by an ActivityJar plan for the same place makes the weather and geocoding round
+ * trips once.
+ */
+@RunWith(AndroidJUnit4.class)
+public class GeoCacheInstrumentedTest {
+
+    private static final String TAG = "GeoCacheTest";
+    private static final String OPEN_METEO = "/v1/forecast";
+
+    private static final double[] HERE = {43.4723, -80.5449};
+    // ~60 m away, in the same cells
+    private static final double[] NEXT_DOOR = {43.4727, -80.5444};
+    // Kitchener, ~8 km away
+    private static final double[] KITCHENER = {43.4516, -80.4925};
+
+    private WellnestDatabaseHelper helper;
+    private SQLiteDatabase db;
+    private GeoCacheManager store;
+    private MockWebServer server;
+    private final AtomicInteger weatherRequests = new AtomicInteger();
+    private long now = 1_000_000L;
+
+    @Before
+    public void setUp() throws Exception {
+        Context context = ApplicationProvider.getApplicationContext();
+        helper = new WellnestDatabaseHelper(context);
+        db = helper.getWritableDatabase();
+        helper.cleanDatabase(db);
+        store = new GeoCacheManager(db, () -> now);
+        server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                if (!OPEN_METEO.equals(request.getRequestUrl().encodedPath())) {
+                    return new MockResponse().setResponseCode(404);
+                }
+                weatherRequests.incrementAndGet();
+                return new MockResponse().setHeader("Content-Type", "application/json")
+                        .setBody(RecordedAiResponses.OPEN_METEO_FORECAST);
+            }
+        });
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+        helper.cleanDatabase(db);
+        if (db != null && db.isOpen()) db.close();
+        if (helper != null) helper.close();
+    }
+
+    private GeoCache cache() {
+        return new GeoCache(store, () -> now, GeoCache.MEMORY_ENTRIES);
+    }
+
+    /**
+     * A geocoder that counts its lookups.
+     */
+    private static final class CountingGeocoder implements WellnestAiClient.GeocoderProvider {
+        final AtomicInteger reverse = new AtomicInteger();
+        final AtomicInteger forward = new AtomicInteger();
+
+        @Override
+        public String locationName(double latitude, double longitude) {
+            reverse.incrementAndGet();
+            return latitude > 43.46 ? "Waterloo, Ontario" : "Kitchener, Ontario";
+        }
+
+        @Override
+        public double[] coordinatesOf(String address) {
+            forward.incrementAndGet();
+            return address.contains("nowhere") ? null : new double[]{43.4643, -80.5264};
+        }
+    }
+
+    private WellnestAiClient client(GeoCache cache, WellnestAiClient.GeocoderProvider geocoder) {
+        return new WellnestAiClient.Builder()
+                .endpoints(new WellnestAiClient.Endpoints(
+                        server.url("/").toString(), server.url(OPEN_METEO).toString()))
+                .location(new WellnestAiClient.LocationProvider() {
+                    @Override
+                    public boolean hasPermission() {
+                        return true;
+                    }
+
+                    @Override
+                    public double[] currentLocation() {
+                        return HERE;
+                    }
+                })
+                .geocoder(geocoder)
+                .geoCache(cache)
+                .build();
+    }
+
+    // ------------------------------------------------------------
+    // Two levels
+    // ------------------------------------------------------------
+
+    @Test
+    public void aStoredValue_isReadFromMemory_thenFromTheDatabaseAfterARestart() {
+        GeoCache cache = cache();
+        String cell = GeoCache.cellKey(Kind.LOCATION_NAME, HERE[0], HERE[1]);
+        cache.put(Kind.LOCATION_NAME, cell, "Waterloo, Ontario");
+
+        assertEquals("Waterloo, Ontario", cache.get(Kind.LOCATION_NAME, cell));
+        assertEquals(1, cache.stats(Kind.LOCATION_NAME).memoryHits);
+
+        // a new process starts with an empty memory level
+        GeoCache restarted = cache();
+        assertEquals("Waterloo, Ontario", restarted.get(Kind.LOCATION_NAME, cell));
+        assertEquals("Waterloo, Ontario", restarted.get(Kind.LOCATION_NAME, cell));
+        GeoCache.Stats stats = restarted.stats(Kind.LOCATION_NAME);
+        assertEquals(1, stats.storeHits);
+        assertEquals(1, stats.memoryHits);
+        assertEquals(0, stats.misses);
+        assertEquals(1.0, stats.hitRate(), 1e-9);
+    }
+
+    @Test
+    public void weather_expiresLongBeforeGeocodes() {
+        GeoCache cache = cache();
+        String weatherCell = GeoCache.cellKey(Kind.WEATHER, HERE[0], HERE[1]);
+        String nameCell = GeoCache.cellKey(Kind.LOCATION_NAME, HERE[0], HERE[1]);
+        cache.put(Kind.WEATHER, weatherCell, "{\"temperature\":21.0}");
+        cache.put(Kind.LOCATION_NAME, nameCell, "Waterloo, Ontario");
+
+        now += Kind.WEATHER.ttlMs - 1;
+        assertNotNull(cache.get(Kind.WEATHER, weatherCell));
+
+        now += 2;
+        assertNull(cache.get(Kind.WEATHER, weatherCell));
+        assertNull(cache().get(Kind.WEATHER, weatherCell)); // expired in the database too
+        assertEquals("Waterloo, Ontario", cache.get(Kind.LOCATION_NAME, nameCell));
+
+        now += TimeUnit.DAYS.toMillis(31);
+        assertNull(cache.get(Kind.LOCATION_NAME, nameCell));
+    }
+
+    @Test
+    public void eachKind_keepsItsOwnNewestEntries() {
+        GeoCache cache = cache();
+        cache.put(Kind.COORDINATES, "laurel trail", "43.4643,-80.5264");
+        for (int i = 0; i <= GeoCacheManager.MAX_ENTRIES_PER_KIND; i++) {
+            now++;
+            cache.put(Kind.WEATHER, "cell" + i, "{}");
+        }
+
+        assertEquals(GeoCacheManager.MAX_ENTRIES_PER_KIND, DatabaseUtils.queryNumEntries(db,
+                GeoCacheContract.Entries.TABLE, GeoCacheContract.Entries.Col.KIND + "=?",
+                new String[]{Kind.WEATHER.name()}));
+        assertNull(store.find(Kind.WEATHER, "cell0"));
+        assertNotNull(store.find(Kind.COORDINATES, "laurel trail"));
+    }
+
+    // ------------------------------------------------------------
+    // Keys
+    // ------------------------------------------------------------
+
+    @Test
+    public void nearbyPoints_shareACell_andTheNextTownDoesNot() {
+        for (Kind kind : new Kind[]{Kind.WEATHER, Kind.LOCATION_NAME}) {
+            assertEquals(GeoCache.cellKey(kind, HERE[0], HERE[1]),
+                    GeoCache.cellKey(kind, NEXT_DOOR[0], NEXT_DOOR[1]));
+            assertNotEquals(GeoCache.cellKey(kind, HERE[0], HERE[1]),
+                    GeoCache.cellKey(kind, KITCHENER[0], KITCHENER[1]));
+        }
+    }
+
+    @Test
+    public void addresses_areNormalized() {
+        assertEquals("waterloo park waterloo on", GeoCache.addressKey("Waterloo Park, Waterloo, ON"));
+        assertEquals("waterloo park waterloo on", GeoCache.addressKey("  waterloo park,  Waterloo ON. "));
+        assertNotEquals(GeoCache.addressKey("Waterloo Park"), GeoCache.addressKey("Victoria Park"));
+        assertNull(GeoCache.addressKey(" ,  "));
+    }
+
+    // ------------------------------------------------------------
+    // Through the client
+    // ------------------------------------------------------------
+
+    @Test
+    public void geocoder_asksOncePerCellAndAddress_andRetriesWhatItCouldNotFind() {
+        CountingGeocoder counting = new CountingGeocoder();
+        WellnestAiClient.GeocoderProvider geocoder = cache().geocoder(counting);
+
+        assertEquals("Waterloo, Ontario", geocoder.locationName(HERE[0], HERE[1]));
+        assertEquals("Waterloo, Ontario", geocoder.locationName(NEXT_DOOR[0], NEXT_DOOR[1]));
+        assertEquals("Kitchener, Ontario", geocoder.locationName(KITCHENER[0], KITCHENER[1]));
+        assertEquals(2, counting.reverse.get());
+
+        double[] park = geocoder.coordinatesOf("Waterloo Park, Waterloo, ON");
+        assertArrayEquals(park, geocoder.coordinatesOf("waterloo park waterloo on"), 1e-9);
+        assertEquals(1, counting.forward.get());
+
+        assertNull(geocoder.coordinatesOf("nowhere at all"));
+        assertNull(geocoder.coordinatesOf("nowhere at all"));
+        assertEquals(3, counting.forward.get());
+    }
+
+    @Test
+    public void aWalkThenAPlan_fetchTheWeatherAndPlaceNameOnce() throws Exception {
+        CountingGeocoder counting = new CountingGeocoder();
+        GeoCache cache = cache();
+        WellnestAiClient client = client(cache, counting);
+
+        // Roamio checks the weather where the user is...
+        client.getWeatherSummary(HERE[0], HERE[1]);
+        assertEquals(1, weatherRequests.get());
+
+        // ...and the jar, opened a few minutes later, finds it and the place name
+        now += TimeUnit.MINUTES.toMillis(10);
+        PlanContext first = client.getPlanContext();
+        PlanContext second = client.getPlanContext();
+        assertEquals(1, weatherRequests.get());
+        assertEquals(1, counting.reverse.get());
+        assertEquals(first.getWeatherSummary(), second.getWeatherSummary());
+        assertEquals("Waterloo, Ontario", second.getLocationName());
+
+        // after a restart the database answers
+        GeoCache restarted = cache();
+        client(restarted, counting).getPlanContext();
+        assertEquals(1, weatherRequests.get());
+        assertEquals(1, counting.reverse.get());
+        assertEquals(1, restarted.stats(Kind.WEATHER).storeHits);
+        Log.i(TAG, "weather " + cache.stats(Kind.WEATHER) + "; place names " + cache.stats(Kind.LOCATION_NAME));
+
+        // an hour on, the weather is fetched again but the place name is still known
+        now += Kind.WEATHER.ttlMs;
+        client.getPlanContext();
+        assertEquals(2, weatherRequests.get());
+        assertEquals(1, counting.reverse.get());
+    }
+}
@@ -0,0 +1,209 @@
+package com.code.wlu.cp470.wellnest;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Frozen copies of every wellnest.db schema that has shipped, for the migration tests.
+ * <p>
+ * These are literal SQL on purpose: they must keep describing what is on users' devices even
+ * after the contracts change. When you bump DATABASE_VERSION, add the schema you are leaving
+ * behind here as the next version.
+ */
+final class HistoricalSchemas {
+
+    static final int OLDEST_VERSION = 1;
+    static final int NEWEST_HISTORICAL_VERSION = 11;
+
+    private static final String[] V1 = {
+            "CREATE TABLE user_profile (uid TEXT PRIMARY KEY, Name TEXT NOT NULL, Email TEXT) WITHOUT ROWID",
+            "CREATE TABLE global_score (uid TEXT PRIMARY KEY, score INTEGER NOT NULL DEFAULT 0) WITHOUT ROWID",
+            "CREATE TABLE streak (id INTEGER PRIMARY KEY CHECK(id=1), count INTEGER NOT NULL DEFAULT 0)",
+            "CREATE TABLE friends (friend_uid TEXT PRIMARY KEY, friend_name TEXT NOT NULL, "
+                    + "friend_status TEXT DEFAULT 'pending') WITHOUT ROWID",
+            "CREATE TABLE badges (badge_uid TEXT PRIMARY KEY) WITHOUT ROWID",
+            "CREATE INDEX IF NOT EXISTS idx_friend_name ON friends(friend_name)",
+            "CREATE TABLE tasks(uid TEXT PRIMARY KEY, name TEXT NOT NULL, points INTEGER NOT NULL, "
+                    + "description TEXT DEFAULT '', completed BOOLEAN NOT NULL DEFAULT 0)",
+            "CREATE TABLE snapTask_score(id INTEGER PRIMARY KEY CHECK(id=1), score INTEGER NOT NULL DEFAULT 0)",
+            "CREATE TABLE walk_sessions(_id INTEGER PRIMARY KEY AUTOINCREMENT, uid TEXT NOT NULL, "
+                    + "started_at INTEGER NOT NULL, ended_at INTEGER NOT NULL, steps INTEGER NOT NULL DEFAULT 0, "
+                    + "distance_meters REAL NOT NULL DEFAULT 0.0, points_awarded INTEGER NOT NULL DEFAULT 0, "
+                    + "status TEXT NOT NULL DEFAULT 'COMPLETED')",
+            "CREATE TABLE current_walk(_id INTEGER PRIMARY KEY AUTOINCREMENT, uid TEXT NOT NULL, "
+                    + "status TEXT NOT NULL DEFAULT 'INACTIVE', started_at INTEGER NOT NULL, "
+                    + "start_step_count INTEGER NOT NULL DEFAULT 0, start_elapsed_realtime_ms INTEGER NOT NULL DEFAULT 0, "
+                    + "last_updated_ms INTEGER NOT NULL DEFAULT 0, last_known_steps INTEGER NOT NULL DEFAULT 0, "
+                    + "last_known_distance_meters REAL NOT NULL DEFAULT 0.0)",
+            "CREATE TABLE roamio_score(id INTEGER PRIMARY KEY CHECK(id=1), score INTEGER NOT NULL DEFAULT 0)",
+            // v1-v3 packed two CREATE INDEX statements into one execSQL; only this one ran
+            "CREATE INDEX idx_walk_sessions_uid ON walk_sessions(uid)",
+            "CREATE INDEX idx_current_walk_uid ON current_walk(uid)",
+            "CREATE TABLE activity_jar_score(id INTEGER PRIMARY KEY CHECK(id=1), score INTEGER NOT NULL DEFAULT 0)"
+    };
+
+    private static final String[] V2 = {
+            "CREATE TABLE activity_jar_cache(id INTEGER PRIMARY KEY, json_data TEXT, timestamp INTEGER, "
+                    + "weather_summary TEXT)"
+    };
+
+    private static final String[] V3 = {
+            "CREATE TABLE score_events (_id INTEGER PRIMARY KEY AUTOINCREMENT, micro_app TEXT NOT NULL, "
+                    + "delta INTEGER NOT NULL, created_at INTEGER NOT NULL, source TEXT NOT NULL)",
+            "CREATE INDEX IF NOT EXISTS idx_score_events_app_created ON score_events(micro_app, created_at)",
+            "CREATE TRIGGER IF NOT EXISTS trg_score_events_apply AFTER INSERT ON score_events BEGIN "
+                    + "INSERT OR IGNORE INTO snapTask_score (id, score) SELECT 1, 0 WHERE NEW.micro_app = 'snaptask'; "
+                    + "UPDATE snapTask_score SET score = score + NEW.delta WHERE id = 1 AND NEW.micro_app = 'snaptask' "
+                    + "AND NEW.source <> 'opening_balance'; "
+                    + "INSERT OR IGNORE INTO roamio_score (id, score) SELECT 1, 0 WHERE NEW.micro_app = 'roamio'; "
+                    + "UPDATE roamio_score SET score = score + NEW.delta WHERE id = 1 AND NEW.micro_app = 'roamio' "
+                    + "AND NEW.source <> 'opening_balance'; "
+                    + "INSERT OR IGNORE INTO activity_jar_score (id, score) SELECT 1, 0 WHERE NEW.micro_app = 'activity_jar'; "
+                    + "UPDATE activity_jar_score SET score = score + NEW.delta WHERE id = 1 AND NEW.micro_app = 'activity_jar' "
+                    + "AND NEW.source <> 'opening_balance'; "
+                    + "INSERT OR IGNORE INTO global_score (uid, score) SELECT uid, 0 FROM user_profile LIMIT 1; "
+                    + "UPDATE global_score SET score = MAX(score, IFNULL((SELECT score FROM snapTask_score), 0) + "
+                    + "IFNULL((SELECT score FROM roamio_score), 0) + IFNULL((SELECT score FROM activity_jar_score), 0)) "
+                    + "WHERE uid = (SELECT uid FROM user_profile LIMIT 1); END",
+            "CREATE TRIGGER IF NOT EXISTS trg_score_events_no_update BEFORE UPDATE ON score_events "
+                    + "BEGIN SELECT RAISE(ABORT, 'score_events is append-only'); END",
+            "CREATE TRIGGER IF NOT EXISTS trg_score_events_no_delete BEFORE DELETE ON score_events "
+                    + "BEGIN SELECT RAISE(ABORT, 'score_events is append-only'); END"
+    };
+
+    private static final String[] V4 = {
+            "DROP INDEX idx_walk_sessions_uid",
+            "CREATE INDEX IF NOT EXISTS idx_walk_sessions_ended_at ON walk_sessions(ended_at)",
+            "CREATE INDEX IF NOT EXISTS idx_walk_sessions_uid_ended_at ON walk_sessions(uid, ended_at, distance_meters)"
+    };
+
+    private static final String[] V5 = {
+            "ALTER TABLE current_walk ADD COLUMN walk_name TEXT",
+            "ALTER TABLE current_walk ADD COLUMN walk_story TEXT",
+            "ALTER TABLE current_walk ADD COLUMN start_address TEXT",
+            "ALTER TABLE current_walk ADD COLUMN end_address TEXT",
+            "ALTER TABLE current_walk ADD COLUMN walk_distance_meters REAL NOT NULL DEFAULT 0.0"
+    };
+
+    private static final String[] V6 = {
+            "CREATE INDEX IF NOT EXISTS idx_global_score_score ON global_score(score DESC, uid)"
+    };
+
+    private static final String[] V7 = {
+            "DROP TABLE IF EXISTS activity_jar_cache",
+            "CREATE TABLE activity_jar_batches(_id INTEGER PRIMARY KEY AUTOINCREMENT, created_at INTEGER NOT NULL, "
+                    + "weather_summary TEXT)",
+            "CREATE TABLE activity_jar_activities(_id INTEGER PRIMARY KEY AUTOINCREMENT, "
+                    + "batch_id INTEGER NOT NULL REFERENCES activity_jar_batches(_id) ON DELETE CASCADE, "
+                    + "category TEXT NOT NULL, position INTEGER NOT NULL, emoji TEXT, title TEXT NOT NULL, "
+                    + "description TEXT, address TEXT, url TEXT)",
+            "CREATE INDEX IF NOT EXISTS idx_activity_jar_activities_batch_category "
+                    + "ON activity_jar_activities(batch_id, category, position)",
+            "CREATE TABLE activity_jar_activity_tags(activity_id INTEGER NOT NULL "
+                    + "REFERENCES activity_jar_activities(_id) ON DELETE CASCADE, position INTEGER NOT NULL, "
+                    + "tag TEXT NOT NULL, PRIMARY KEY(activity_id, position)) WITHOUT ROWID"
+    };
+
+    private static final String[] V8 = {
+            "DROP TABLE IF EXISTS activity_jar_activity_tags",
+            "DROP TABLE IF EXISTS activity_jar_activities",
+            "DROP TABLE IF EXISTS activity_jar_batches",
+            "CREATE TABLE activity_jar_batches(_id INTEGER PRIMARY KEY AUTOINCREMENT, geohash TEXT NOT NULL, "
+                    + "time_window TEXT NOT NULL, weather_bucket TEXT NOT NULL, created_at INTEGER NOT NULL, "
+                    + "expires_at INTEGER NOT NULL, last_used_at INTEGER NOT NULL, weather_summary TEXT)",
+            "CREATE UNIQUE INDEX IF NOT EXISTS idx_activity_jar_batches_key "
+                    + "ON activity_jar_batches(geohash, time_window, weather_bucket)",
+            "CREATE TABLE activity_jar_activities(_id INTEGER PRIMARY KEY AUTOINCREMENT, "
+                    + "batch_id INTEGER NOT NULL REFERENCES activity_jar_batches(_id) ON DELETE CASCADE, "
+                    + "category TEXT NOT NULL, position INTEGER NOT NULL, emoji TEXT, title TEXT NOT NULL, "
+                    + "description TEXT, address TEXT, url TEXT)",
+            "CREATE INDEX IF NOT EXISTS idx_activity_jar_activities_batch_category "
+                    + "ON activity_jar_activities(batch_id, category, position)",
+            "CREATE TABLE activity_jar_activity_tags(activity_id INTEGER NOT NULL "
+                    + "REFERENCES activity_jar_activities(_id) ON DELETE CASCADE, position INTEGER NOT NULL, "
+                    + "tag TEXT NOT NULL, PRIMARY KEY(activity_id, position)) WITHOUT ROWID"
+    };
+
+    private static final String[] V9 = {
+            "CREATE TABLE snap_task_verdicts(_id INTEGER PRIMARY KEY AUTOINCREMENT, task_uid TEXT NOT NULL, "
+                    + "criteria_hash TEXT NOT NULL, before_dhash INTEGER NOT NULL, before_phash INTEGER NOT NULL, "
+                    + "after_dhash INTEGER NOT NULL, after_phash INTEGER NOT NULL, verdict TEXT NOT NULL, "
+                    + "created_at INTEGER NOT NULL)",
+            "CREATE INDEX IF NOT EXISTS idx_snap_task_verdicts_task "
+                    + "ON snap_task_verdicts(task_uid, criteria_hash, created_at)"
+    };
+
+    private static final String[] V10 = {
+            "CREATE TABLE geo_cache(kind TEXT NOT NULL, cache_key TEXT NOT NULL, value TEXT NOT NULL, "
+                    + "created_at INTEGER NOT NULL, expires_at INTEGER NOT NULL, "
+                    + "PRIMARY KEY(kind, cache_key)) WITHOUT ROWID"
+    };
+
+    private static final String[] V11 = {
+            "ALTER TABLE current_walk ADD COLUMN start_latitude REAL",
+            "ALTER TABLE current_walk ADD COLUMN start_longitude REAL",
+            "ALTER TABLE current_walk ADD COLUMN end_latitude REAL",
+            "ALTER TABLE current_walk ADD COLUMN end_longitude REAL"
+    };
+
+    private static final List<String[]> DELTAS = Arrays.asList(V1, V2, V3, V4, V5, V6, V7, V8, V9, V10, V11);
+
+    private HistoricalSchemas() {
+    }
+
+    /**
+     * Creates the schema of {@code version} in an empty database and stamps its user_version.
+     */
+    static void create(SQLiteDatabase db, int version) {
+        if (version < OLDEST_VERSION || version > NEWEST_HISTORICAL_VERSION)
+            throw new IllegalArgumentException("no historical schema for v" + version);
+        db.beginTransaction();
+        try {
+            for (int v = OLDEST_VERSION; v <= version; v++) {
+                for (String sql : DELTAS.get(v - 1)) db.execSQL(sql);
+            }
+            db.setVersion(version);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Comparable description of a schema: every table's columns, every index's columns and
+     * every trigger, keyed by name. Column order is ignored (ALTER TABLE appends).
+     */
+    static TreeMap<String, String> describe(SQLiteDatabase db) {
+        TreeMap<String, String> schema = new TreeMap<>();
+        List<String[]> objects = new ArrayList<>();
+        try (Cursor c = db.rawQuery("SELECT type, name, tbl_name FROM sqlite_master "
+                + "WHERE name NOT LIKE 'sqlite_%' AND name NOT LIKE 'android_%'", null)) {
+            while (c.moveToNext()) objects.add(new String[]{c.getString(0), c.getString(1), c.getString(2)});
+        }
+        for (String[] o : objects) {
+            String type = o[0];
+            String name = o[1];
+            TreeSet<String> parts = new TreeSet<>();
+            if ("table".equals(type)) {
+                try (Cursor c = db.rawQuery("PRAGMA table_info(" + name + ")", null)) {
+                    while (c.moveToNext()) {
+                        parts.add(c.getString(1) + " " + c.getString(2) + " notnull=" + c.getInt(3)
+                                + " default=" + c.getString(4) + " pk=" + c.getInt(5));
+                    }
+                }
+            } else if ("index".equals(type)) {
+                try (Cursor c = db.rawQuery("PRAGMA index_info(" + name + ")", null)) {
+                    while (c.moveToNext()) parts.add(c.getInt(0) + ":" + c.getString(2));
+                }
+            }
+            schema.put(type + " " + name + " on " + o[2], parts.toString());
+        }
+        return schema;
+    }
+}
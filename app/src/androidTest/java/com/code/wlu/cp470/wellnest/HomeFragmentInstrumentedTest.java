@@ -35,6 +35,7 @@ import androidx.test.espresso.ViewAction;
 import androidx.test.espresso.matcher.ViewMatchers.Visibility;
 import androidx.test.ext.junit.runners.AndroidJUnit4;
 
+import com.code.wlu.cp470.wellnest.data.local.DatabaseProvider;
 import com.code.wlu.cp470.wellnest.data.local.WellnestDatabaseHelper;
 import com.code.wlu.cp470.wellnest.data.local.managers.ActivityJarManager;
 import com.code.wlu.cp470.wellnest.data.local.managers.RoamioManager;
@@ -133,6 +134,8 @@ public class HomeFragmentInstrumentedTest {
 
         // Create a user profile so currentUid() doesn't throw
         userManager.upsertUserProfile("testCurrentUser", "Test User", "test@test.com");
+        // Screens read the uid from the app-wide session, not from this test connection
+        DatabaseProvider.get(context).getSessionStore().onSignedIn("testCurrentUser", "Test User", "test@test.com");
 
         // Seed micro app scores
         snapTaskManager.upsertSnapTaskScore(100);
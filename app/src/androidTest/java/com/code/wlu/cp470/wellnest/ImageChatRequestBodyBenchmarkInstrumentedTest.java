@@ -0,0 +1,186 @@
+package com.code.wlu.cp470.wellnest;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import android.os.Debug;
+import android.util.Base64;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.code.wlu.cp470.wellnest.data.ImageChatRequestBody;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Random;
+import java.util.concurrent.Callable;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+import okio.Okio;
+
+/**
+ * Benchmark for sending a SnapTask evaluation with a 2 MB and a 5 MB photo.
+ * <p>
+ * Sends the request for all three attempts once the old way (base64 Strings in a JSONObject,
+ * printed and wrapped in a RequestBody, rebuilt per attempt) and once as one
+ * ImageChatRequestBody written three times, into a sink that discards it. Logs the peak heap
+ * growth and the bytes allocated by each.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ImageChatRequestBodyBenchmarkInstrumentedTest {
+
+    private static final String TAG = "ImageChatRequestBench";
+    private static final MediaType JSON = MediaType.parse("application/json; charset=utf-8");
+    private static final int BEFORE_BYTES = 2 * 1024 * 1024;
+    private static final int AFTER_BYTES = 5 * 1024 * 1024;
+    private static final int ATTEMPTS = 3;
+    private static final String SYSTEM = "You are an image judge for household chores.";
+
+    private static byte[] photo(int size, long seed) {
+        byte[] bytes = new byte[size];
+        new Random(seed).nextBytes(bytes);
+        return bytes;
+    }
+
+    private static long send(RequestBody body) throws Exception {
+        BufferedSink sink = Okio.buffer(Okio.blackhole());
+        body.writeTo(sink);
+        sink.flush();
+        return body.contentLength();
+    }
+
+    private static JSONObject imagePart(byte[] jpeg) throws Exception {
+        String dataUrl = "data:image/jpeg;base64," + Base64.encodeToString(jpeg, Base64.NO_WRAP);
+        return new JSONObject()
+                .put("type", "image_url")
+                .put("image_url", new JSONObject().put("url", dataUrl).put("detail", "low"));
+    }
+
+    // What evaluateSnapTask used to do on every attempt
+    private static long legacy(byte[] before, byte[] after) throws Exception {
+        long sent = 0;
+        for (int attempt = 0; attempt < ATTEMPTS; attempt++) {
+            JSONArray content = new JSONArray()
+                    .put(new JSONObject().put("type", "text").put("text", "Criteria:\nMake the bed"))
+                    .put(new JSONObject().put("type", "text").put("text", "BEFORE photo:"))
+                    .put(imagePart(before))
+                    .put(new JSONObject().put("type", "text").put("text", "AFTER photo:"))
+                    .put(imagePart(after));
+            JSONObject req = new JSONObject()
+                    .put("model", "gpt-4o")
+                    .put("temperature", 0.0)
+                    .put("messages", new JSONArray()
+                            .put(new JSONObject().put("role", "system").put("content", SYSTEM))
+                            .put(new JSONObject().put("role", "user").put("content", content)));
+            sent += send(RequestBody.create(req.toString(), JSON));
+        }
+        return sent;
+    }
+
+    private static long streaming(byte[] before, byte[] after) throws Exception {
+        RequestBody body = new ImageChatRequestBody.Builder("gpt-4o", 0.0)
+                .system(SYSTEM)
+                .text("Criteria:\nMake the bed")
+                .text("BEFORE photo:")
+                .jpeg(before)
+                .text("AFTER photo:")
+                .jpeg(after)
+                .build();
+        long sent = 0;
+        for (int attempt = 0; attempt < ATTEMPTS; attempt++) {
+            sent += send(body);
+        }
+        return sent;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Runs {@code task} while sampling the heap, returning the most it grew over the
+     * post-GC baseline.
+     */
+    private static long peakHeapGrowth(Callable<?> task) throws Exception {
+        Runtime.getRuntime().gc();
+        Runtime.getRuntime().runFinalization();
+        Runtime.getRuntime().gc();
+        long baseline = usedHeap();
+        long[] peak = {baseline};
+        boolean[] done = {false};
+        Thread sampler = new Thread(() -> {
+            while (true) {
+                synchronized (peak) {
+                    if (done[0]) return;
+                    peak[0] = Math.max(peak[0], usedHeap());
+                }
+                try {
+                    Thread.sleep(1);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        });
+        sampler.start();
+        try {
+            task.call();
+        } finally {
+            synchronized (peak) {
+                peak[0] = Math.max(peak[0], usedHeap());
+                done[0] = true;
+            }
+            sampler.join();
+        }
+        return peak[0] - baseline;
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void benchmark_snapTaskUpload_streamingNeedsLessHeap() throws Exception {
+        byte[] before = photo(BEFORE_BYTES, 1);
+        byte[] after = photo(AFTER_BYTES, 2);
+        // warm up both paths
+        legacy(new byte[1024], new byte[1024]);
+        streaming(new byte[1024], new byte[1024]);
+
+        long legacyPeak = peakHeapGrowth(() -> legacy(before, after));
+        long streamingPeak = peakHeapGrowth(() -> streaming(before, after));
+
+        Debug.startAllocCounting();
+        try {
+            Debug.resetThreadAllocSize();
+            long start = System.nanoTime();
+            long legacySent = legacy(before, after);
+            long legacyNanos = System.nanoTime() - start;
+            long legacyBytes = Debug.getThreadAllocSize();
+
+            Debug.resetThreadAllocSize();
+            start = System.nanoTime();
+            long streamingSent = streaming(before, after);
+            long streamingNanos = System.nanoTime() - start;
+            long streamingBytes = Debug.getThreadAllocSize();
+
+            Log.i(TAG, String.format("%d + %d KB photos, %d attempts: before=peak +%d KB, %d KB allocated, %.1f ms; "
+                            + "after=peak +%d KB, %d KB allocated, %.1f ms",
+                    BEFORE_BYTES / 1024, AFTER_BYTES / 1024, ATTEMPTS,
+                    legacyPeak / 1024, legacyBytes / 1024, legacyNanos / 1e6,
+                    streamingPeak / 1024, streamingBytes / 1024, streamingNanos / 1e6));
+
+            // the old request escaped every "/" in the base64 as "\/", so it was the longer of the two
+            assertTrue(streamingSent <= legacySent);
+            assertTrue("streaming peaked at +" + streamingPeak + " vs +" + legacyPeak, streamingPeak < legacyPeak);
+            assumeTrue("allocation counting unavailable on this runtime", legacyBytes > 0);
+            assertTrue("streaming allocated " + streamingBytes + " vs " + legacyBytes,
+                    streamingBytes * 10 < legacyBytes);
+        } finally {
+            Debug.stopAllocCounting();
+        }
+    }
+}
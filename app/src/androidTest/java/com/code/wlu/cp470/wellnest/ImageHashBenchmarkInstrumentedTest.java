@@ -0,0 +1,63 @@
+package com.code.wlu.cp470.wellnest;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.code.wlu.cp470.wellnest.data.SnapTaskVerdictCache;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+
+/**
+ * Benchmark for keying a SnapTask submission by perceptual hash on the device.
+ * <p>
+ * Times the whole path the verdict cache takes per photo (sampled decode, luminance, both
+ * hashes) on a camera-sized JPEG, which needs the platform's JPEG decoder. Logs the median;
+ * it must stay within a few milliseconds so a cache lookup is always cheaper than the network
+ * call it saves. The hashes alone are timed on the JVM by ImageHashBenchmarkTest.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ImageHashBenchmarkInstrumentedTest {
+
+    private static final String TAG = "ImageHashBench";
+    private static final int WARMUP = 5;
+    private static final int RUNS = 21;
+
+    private interface Run {
+        long run();
+    }
+
+    // Median wall time of {@code run} in ns; the results are folded into {@code sink} so the
+    // work cannot be skipped
+    private static long medianNanos(Run run, long[] sink) {
+        for (int i = 0; i < WARMUP; i++) sink[0] ^= run.run();
+        long[] nanos = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            sink[0] ^= run.run();
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        return nanos[RUNS / 2];
+    }
+
+    @Test
+    public void benchmark_decodeAndHashCost() {
+        long[] sink = {0};
+        byte[] jpeg = TestPhotos.snapshot(1);
+        assertNotNull(SnapTaskVerdictCache.hashPhoto(jpeg));
+        long photoMedian = medianNanos(() -> {
+            long[] hashes = SnapTaskVerdictCache.hashPhoto(jpeg);
+            return hashes[0] ^ hashes[1];
+        }, sink);
+        Log.i(TAG, String.format("480x360 JPEG (%d KB) decode+hash=%.3f ms [%s]",
+                jpeg.length / 1024, photoMedian / 1e6, Long.toHexString(sink[0])));
+        assertTrue("hashing a photo took " + photoMedian / 1_000_000 + " ms", photoMedian < 20_000_000L);
+    }
+}
@@ -0,0 +1,63 @@
+package com.code.wlu.cp470.wellnest;
+
+import static org.junit.Assert.assertTrue;
+
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.code.wlu.cp470.wellnest.data.SnapTaskPhoto;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Throughput benchmark for the unchanged-photo pre-screen on the device.
+ * <p>
+ * Runs the whole pre-screen (decode both JPEGs, compare) as evaluateSnapTask does, which
+ * needs the platform's JPEG decoder, and logs pairs per second; it must stay far cheaper
+ * than the vision call it can save. The comparison alone is timed on the JVM by
+ * ImageSimilarityBenchmarkTest.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ImageSimilarityBenchmarkInstrumentedTest {
+
+    private static final String TAG = "ImageSimilarityBench";
+    private static final long RUN_NANOS = 500_000_000L;
+
+    private interface Pair {
+        double compare();
+    }
+
+    // Pairs compared per second over RUN_NANOS, after a warm-up of the same length
+    private static double pairsPerSecond(Pair pair) {
+        double sink = 0;
+        long end = System.nanoTime() + RUN_NANOS;
+        while (System.nanoTime() < end) sink += pair.compare();
+
+        long pairs = 0;
+        long start = System.nanoTime();
+        end = start + RUN_NANOS;
+        long now;
+        do {
+            sink += pair.compare();
+            pairs++;
+            now = System.nanoTime();
+        } while (now < end);
+        if (Double.isNaN(sink)) Log.i(TAG, "unexpected NaN");
+        return pairs * 1e9 / (now - start);
+    }
+
+    @Test
+    public void benchmark_preScreenThroughput() {
+        int[] fullAfter = TestScenes.luminance(1, 480, 360, 0, 2, true);
+        byte[] before = TestPhotos.snapshot(1);
+        byte[] after = TestPhotos.jpeg(fullAfter, 480, 360, 70);
+        double decoded = pairsPerSecond(() ->
+                SnapTaskPhoto.decode(after).worstBlockSsim(SnapTaskPhoto.decode(before)));
+
+        Log.i(TAG, String.format("pairs/s: 480x360 JPEG decode+compare=%.0f", decoded));
+        // at least 50 pairs a second: the pre-screen adds at most 20 ms to a submission
+        assertTrue("decode+compare ran at " + decoded + " pairs/s", decoded >= 50);
+    }
+}
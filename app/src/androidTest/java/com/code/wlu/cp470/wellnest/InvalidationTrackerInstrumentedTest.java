@@ -0,0 +1,209 @@
+package com.code.wlu.cp470.wellnest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.lifecycle.LiveData;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.code.wlu.cp470.wellnest.data.local.InvalidationTracker;
+import com.code.wlu.cp470.wellnest.data.local.WellnestDatabaseHelper;
+import com.code.wlu.cp470.wellnest.data.local.managers.RoamioManager;
+import com.code.wlu.cp470.wellnest.data.local.managers.SnapTaskManager;
+import com.code.wlu.cp470.wellnest.data.local.managers.UserManager;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Instrumented tests for InvalidationTracker: the triggers report exactly the tables a write
+ * touched, and observable queries only re-run when one of their tables changed.
+ */
+@RunWith(AndroidJUnit4.class)
+public class InvalidationTrackerInstrumentedTest {
+
+    private WellnestDatabaseHelper helper;
+    private SQLiteDatabase db;
+    private InvalidationTracker tracker;
+    private UserManager userManager;
+    private SnapTaskManager snapTaskManager;
+
+    @Before
+    public void setUp() {
+        Context context = ApplicationProvider.getApplicationContext();
+        helper = new WellnestDatabaseHelper(context);
+        db = helper.getWritableDatabase();
+        helper.cleanDatabase(db);
+        // run refreshes and queries inline so the test controls when they happen
+        tracker = new InvalidationTracker(db, Runnable::run, InvalidationTracker.DEFAULT_TABLES);
+        userManager = new UserManager(db);
+        snapTaskManager = new SnapTaskManager(db);
+        tracker.refreshNow(); // installs the triggers
+    }
+
+    @After
+    public void tearDown() {
+        helper.cleanDatabase(db);
+        if (db != null && db.isOpen()) db.close();
+        if (helper != null) helper.close();
+    }
+
+    private static Set<String> setOf(String... tables) {
+        return new HashSet<>(Arrays.asList(tables));
+    }
+
+    @Test
+    public void noWrites_reportsNothing() {
+        assertTrue(tracker.refreshNow().isEmpty());
+        snapTaskManager.getTasks();
+        userManager.getStreakCount();
+        assertTrue(tracker.refreshNow().isEmpty());
+    }
+
+    @Test
+    public void write_reportsOnlyTheTouchedTable_once() {
+        snapTaskManager.upsertTask("t1", "Stretch", 10, "desc", false);
+        assertEquals(setOf("tasks"), tracker.refreshNow());
+        assertTrue(tracker.refreshNow().isEmpty());
+
+        userManager.upsertFriend("f1", "Friend");
+        userManager.upsertFriend("f2", "Other");
+        assertEquals(setOf("friends"), tracker.refreshNow());
+    }
+
+    @Test
+    public void scoreWrite_reportsTablesChangedByTheLedgerTrigger() {
+        userManager.upsertUserProfile("me", "Me", "me@x.com");
+        userManager.ensureGlobalScore("me");
+        tracker.refreshNow();
+
+        new RoamioManager(db).addToRoamioScore(300);
+
+        Set<String> changed = tracker.refreshNow();
+        assertTrue(changed.toString(), changed.containsAll(setOf("roamio_score", "score_events", "global_score")));
+        assertTrue(changed.toString(), !changed.contains("tasks") && !changed.contains("friends"));
+    }
+
+    @Test
+    public void rolledBackWrite_reportsNothing() {
+        db.beginTransaction();
+        try {
+            snapTaskManager.upsertTask("t1", "Stretch", 10, "desc", false);
+            // no setTransactionSuccessful
+        } finally {
+            db.endTransaction();
+        }
+        assertTrue(tracker.refreshNow().isEmpty());
+    }
+
+    @Test
+    public void observers_onlyHearAboutTheirTables() {
+        List<Set<String>> taskEvents = new ArrayList<>();
+        List<Set<String>> friendEvents = new ArrayList<>();
+        tracker.addObserver(taskEvents::add, "tasks", "snapTask_score");
+        tracker.addObserver(friendEvents::add, "friends");
+
+        snapTaskManager.upsertTask("t1", "Stretch", 10, "desc", false);
+        snapTaskManager.addToSnapTaskScore(10);
+        tracker.refreshNow();
+
+        assertEquals(1, taskEvents.size());
+        assertEquals(setOf("tasks", "snapTask_score"), taskEvents.get(0));
+        assertTrue(friendEvents.isEmpty());
+    }
+
+    @Test
+    public void droppedTables_reinstallTriggersAndReportEverything() {
+        helper.cleanDatabase(db);
+        assertEquals(setOf(InvalidationTracker.DEFAULT_TABLES), tracker.refreshNow());
+
+        snapTaskManager.upsertTask("t1", "Stretch", 10, "desc", false);
+        assertEquals(setOf("tasks"), tracker.refreshNow());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void untrackedTable_isRejected() {
+        tracker.createLiveData(new String[]{"activity_jar_activities"}, () -> 0);
+    }
+
+    @Test
+    public void liveData_reRunsOnlyWhenItsTablesChange() {
+        AtomicInteger runs = new AtomicInteger();
+        LiveData<Integer> streak = tracker.createLiveData(new String[]{"streak"}, () -> {
+            runs.incrementAndGet();
+            return userManager.getStreakCount();
+        });
+        androidx.lifecycle.Observer<Integer> ui = value -> { };
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> streak.observeForever(ui));
+        assertEquals(1, runs.get()); // first activation always runs
+
+        // unrelated writes and empty refreshes don't re-run the query
+        snapTaskManager.upsertTask("t1", "Stretch", 10, "desc", false);
+        tracker.refreshNow();
+        tracker.refreshNow();
+        assertEquals(1, runs.get());
+
+        userManager.incrementStreak();
+        tracker.refreshNow();
+        assertEquals(2, runs.get());
+
+        // inactive: nothing runs; coming back re-runs once, and only because streak changed
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> streak.removeObserver(ui));
+        userManager.incrementStreak();
+        tracker.refreshNow();
+        assertEquals(2, runs.get());
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> streak.observeForever(ui));
+        assertEquals(3, runs.get());
+
+        // resuming with nothing changed is free
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> streak.removeObserver(ui));
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> streak.observeForever(ui));
+        assertEquals(3, runs.get());
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> streak.removeObserver(ui));
+    }
+
+    @Test
+    public void refreshAfterWrites_reEmitsActiveLiveDataWithoutAManualRefresh() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        InvalidationTracker writes = new InvalidationTracker(db, executor, InvalidationTracker.DEFAULT_TABLES);
+        writes.refreshAfterWrites();
+        LiveData<Integer> streak = writes.createLiveData(new String[]{"streak"},
+                userManager::getStreakCount);
+        BlockingQueue<Integer> emitted = new LinkedBlockingQueue<>();
+        androidx.lifecycle.Observer<Integer> ui = emitted::add;
+        try {
+            InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> streak.observeForever(ui));
+            assertEquals(Integer.valueOf(0), emitted.poll(5, TimeUnit.SECONDS));
+
+            userManager.incrementStreak();
+            assertEquals(Integer.valueOf(1), emitted.poll(5, TimeUnit.SECONDS));
+
+            // writes to other tables don't re-run it
+            snapTaskManager.upsertTask("t1", "Stretch", 10, "desc", false);
+            assertNull(emitted.poll(500, TimeUnit.MILLISECONDS));
+        } finally {
+            InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> streak.removeObserver(ui));
+            executor.shutdown(); // tearDown's helper.close() stops refreshing after writes to db
+        }
+    }
+}
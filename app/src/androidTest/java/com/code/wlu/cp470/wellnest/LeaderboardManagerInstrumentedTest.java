@@ -0,0 +1,241 @@
+package com.code.wlu.cp470.wellnest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.util.Log;
+
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.code.wlu.cp470.wellnest.data.UserModels.LeaderboardEntry;
+import com.code.wlu.cp470.wellnest.data.local.SessionStore;
+import com.code.wlu.cp470.wellnest.data.local.WellnestDatabaseHelper;
+import com.code.wlu.cp470.wellnest.data.local.managers.LeaderboardManager;
+import com.code.wlu.cp470.wellnest.data.local.managers.UserManager;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Instrumented tests for LeaderboardManager: who is on the board, ordering, keyset pages,
+ * ranks and the window around the user, plus timing the first and a deep page of a
+ * 5k-friend board.
+ */
+@RunWith(AndroidJUnit4.class)
+public class LeaderboardManagerInstrumentedTest {
+
+    private static final String TAG = "LeaderboardManagerTest";
+    private static final String ME = "uid_me";
+
+    private WellnestDatabaseHelper helper;
+    private SQLiteDatabase db;
+    private SessionStore session;
+    private UserManager userManager;
+    private LeaderboardManager leaderboard;
+
+    @Before
+    public void setUp() {
+        Context context = ApplicationProvider.getApplicationContext();
+        helper = new WellnestDatabaseHelper(context);
+        db = helper.getWritableDatabase();
+        helper.cleanDatabase(db);
+        session = new SessionStore(db);
+        userManager = new UserManager(db, session);
+        leaderboard = new LeaderboardManager(db, session);
+
+        userManager.upsertUserProfile(ME, "Me", "me@x.com");
+        session.onSignedIn(ME, "Me", "me@x.com");
+    }
+
+    @After
+    public void tearDown() {
+        helper.cleanDatabase(db);
+        if (db != null && db.isOpen()) db.close();
+        if (helper != null) helper.close();
+    }
+
+    private void friend(String uid, String status, int score) {
+        userManager.upsertFriend(uid, "Name " + uid, status);
+        userManager.setGlobalScore(uid, score);
+    }
+
+    private static List<String> uids(List<LeaderboardEntry> entries) {
+        List<String> out = new ArrayList<>();
+        for (LeaderboardEntry e : entries) out.add(e.getUid());
+        return out;
+    }
+
+    @Test
+    public void board_isMePlusAcceptedFriends_highestFirst() {
+        userManager.setGlobalScore(ME, 225);
+        friend("a", "accepted", 300);
+        friend("b", "accepted", 100);
+        friend("p", "pending", 999);
+        userManager.setGlobalScore("stranger", 5000); // score row without a friend row
+
+        List<LeaderboardEntry> top = leaderboard.getTop(10);
+        assertEquals(Arrays.asList("a", ME, "b"), uids(top));
+        assertEquals(1, top.get(0).getRank());
+        assertEquals("Name a", top.get(0).getName());
+        assertTrue(top.get(1).isMe());
+        assertEquals(225, top.get(1).getScore());
+        assertEquals(3, top.get(2).getRank());
+        assertEquals(3, leaderboard.getSize());
+    }
+
+    @Test
+    public void ties_areOrderedByUid() {
+        userManager.setGlobalScore(ME, 50);
+        friend("c", "accepted", 50);
+        friend("a", "accepted", 50);
+
+        assertEquals(Arrays.asList("a", "c", ME), uids(leaderboard.getTop(10)));
+        assertEquals(3, leaderboard.getRank(ME));
+        assertEquals(1, leaderboard.getRank("a"));
+    }
+
+    @Test
+    public void pages_coverTheBoardOnce_inOrder() {
+        userManager.setGlobalScore(ME, 37);
+        for (int i = 0; i < 100; i++) friend(String.format("f%03d", i), "accepted", i % 20);
+
+        List<LeaderboardEntry> all = new ArrayList<>();
+        List<LeaderboardEntry> page = leaderboard.getTop(7);
+        while (!page.isEmpty()) {
+            all.addAll(page);
+            page = leaderboard.getPageAfter(page.get(page.size() - 1), 7);
+        }
+
+        assertEquals(101, all.size());
+        Set<String> seen = new HashSet<>();
+        for (int i = 0; i < all.size(); i++) {
+            LeaderboardEntry e = all.get(i);
+            assertTrue("duplicate " + e.getUid(), seen.add(e.getUid()));
+            assertEquals(i + 1, e.getRank());
+            if (i > 0) {
+                LeaderboardEntry prev = all.get(i - 1);
+                assertTrue(prev.getScore() > e.getScore()
+                        || (prev.getScore() == e.getScore() && prev.getUid().compareTo(e.getUid()) < 0));
+            }
+        }
+        assertEquals(1, leaderboard.getRank(ME));
+    }
+
+    @Test
+    public void rankAndEntry_matchThePages() {
+        userManager.setGlobalScore(ME, 10);
+        for (int i = 0; i < 30; i++) friend("f" + i, "accepted", i * 3);
+
+        List<LeaderboardEntry> all = leaderboard.getTop(100);
+        for (LeaderboardEntry e : all) {
+            LeaderboardEntry single = leaderboard.getEntry(e.getUid());
+            assertEquals(e.getUid(), single.getUid());
+            assertEquals(e.getRank(), single.getRank());
+            assertEquals(e.getScore(), single.getScore());
+        }
+        assertEquals(leaderboard.getRank(ME), leaderboard.getMyEntry().getRank());
+    }
+
+    @Test
+    public void windowAround_isCenteredAndClippedAtTheEdges() {
+        for (int i = 0; i < 10; i++) friend("f" + i, "accepted", 100 - i * 10); // 100, 90, ... 10
+        userManager.setGlobalScore(ME, 55); // rank 6
+
+        List<LeaderboardEntry> window = leaderboard.getWindowAround(ME, 2);
+        assertEquals(Arrays.asList("f3", "f4", ME, "f5", "f6"), uids(window));
+        assertEquals(4, window.get(0).getRank());
+        assertEquals(8, window.get(4).getRank());
+
+        List<LeaderboardEntry> top = leaderboard.getWindowAround("f0", 2);
+        assertEquals(Arrays.asList("f0", "f1", "f2"), uids(top));
+        assertEquals(1, top.get(0).getRank());
+
+        assertTrue(leaderboard.getWindowAround("nobody", 2).isEmpty());
+    }
+
+    @Test
+    public void signedOut_boardIsFriendsOnly() {
+        userManager.setGlobalScore(ME, 1000);
+        friend("a", "accepted", 10);
+        session.onSignedOut();
+
+        assertEquals(Arrays.asList("a"), uids(leaderboard.getTop(10)));
+        assertNull(leaderboard.getMyEntry());
+        assertEquals(-1, leaderboard.getRank(ME));
+    }
+
+    @Test
+    public void benchmark_pageCostStaysFlat_andUsesTheIndex() {
+        int friends = 5_000;
+        db.beginTransaction();
+        try {
+            for (int i = 0; i < friends; i++) friend("f" + i, "accepted", (i * 7919) % 10_000);
+            userManager.setGlobalScore(ME, 1234);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+
+        // the entry just above the last full page, reached by paging
+        List<LeaderboardEntry> page = leaderboard.getTop(25);
+        LeaderboardEntry deep = page.get(page.size() - 1);
+        for (int i = 0; i < (friends / 25) - 2; i++) {
+            page = leaderboard.getPageAfter(deep, 25);
+            deep = page.get(page.size() - 1);
+        }
+
+        int reps = 50;
+        long t0 = System.nanoTime();
+        for (int i = 0; i < reps; i++) leaderboard.getTop(25);
+        long topNanos = (System.nanoTime() - t0) / reps;
+        t0 = System.nanoTime();
+        for (int i = 0; i < reps; i++) leaderboard.getPageAfter(deep, 25);
+        long deepNanos = (System.nanoTime() - t0) / reps;
+        t0 = System.nanoTime();
+        int rank = leaderboard.getRank(ME);
+        long rankNanos = System.nanoTime() - t0;
+        t0 = System.nanoTime();
+        userManager.listAllGlobalScores();
+        long listAllNanos = System.nanoTime() - t0;
+
+        Log.i(TAG, String.format("%d friends: top 25=%.1fus, deep page=%.1fus, my rank (%d)=%.1fus, "
+                        + "listAllGlobalScores=%.1fus",
+                friends, topNanos / 1000.0, deepNanos / 1000.0, rank, rankNanos / 1000.0,
+                listAllNanos / 1000.0));
+
+        // an OFFSET page or a full sort would grow with the board
+        assertTrue("deep page " + deepNanos + "ns vs top " + topNanos + "ns",
+                deepNanos < topNanos * 5 + 1_000_000);
+
+        String plan = explain("SELECT g.uid, f.friend_name, g.score FROM global_score g "
+                + "LEFT JOIN friends f ON f.friend_uid = g.uid "
+                + "WHERE (g.uid = ? OR f.friend_status = 'accepted') AND g.score <= ? "
+                + "AND (g.score < ? OR g.uid > ?) ORDER BY g.score DESC, g.uid ASC LIMIT ?",
+                ME, "10", "10", "x", "25");
+        assertTrue(plan, plan.contains("idx_global_score_score"));
+        assertFalse(plan, plan.contains("TEMP B-TREE"));
+    }
+
+    private String explain(String sql, String... args) {
+        StringBuilder plan = new StringBuilder();
+        try (Cursor c = db.rawQuery("EXPLAIN QUERY PLAN " + sql, args)) {
+            int detail = c.getColumnIndexOrThrow("detail");
+            while (c.moveToNext()) plan.append(c.getString(detail)).append('\n');
+        }
+        return plan.toString();
+    }
+}
@@ -0,0 +1,463 @@
+package com.code.wlu.cp470.wellnest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.code.wlu.cp470.wellnest.data.ResiliencePolicy;
+import com.code.wlu.cp470.wellnest.data.ResiliencePolicy.CircuitOpenException;
+import com.code.wlu.cp470.wellnest.data.ResiliencePolicy.HttpStatusException;
+import com.code.wlu.cp470.wellnest.data.WellnestAiClient;
+import com.code.wlu.cp470.wellnest.utils.CancellationToken;
+import com.code.wlu.cp470.wellnest.utils.Deadline;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+/**
+ * Instrumented tests for ResiliencePolicy against MockWebServer outages: how many requests a
+ * dead host still gets, how fast calls fail once its breaker opens, and how fast they recover
+ * once it is back. Delays are scaled down (10 ms backoff, 300 ms open period).
+ */
+@RunWith(AndroidJUnit4.class)
+public class ResiliencePolicyInstrumentedTest {
+
+    private static final String TAG = "ResiliencePolicyTest";
+    private static final long OPEN_MS = 300;
+    private static final int THRESHOLD = 3;
+
+    private final OkHttpClient http = new OkHttpClient.Builder()
+            .readTimeout(5, TimeUnit.SECONDS)
+            .build();
+
+    private MockWebServer server;
+    private final AtomicInteger hits = new AtomicInteger();
+    private volatile MockResponse response = ok();
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                hits.incrementAndGet();
+                return response;
+            }
+        });
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    private static MockResponse ok() {
+        return new MockResponse().setBody("ok");
+    }
+
+    private static MockResponse down() {
+        return new MockResponse().setResponseCode(503).setBody("Service Unavailable");
+    }
+
+    private static ResiliencePolicy.Builder policy() {
+        return new ResiliencePolicy.Builder()
+                .baseDelayMs(10)
+                .maxDelayMs(2_000)
+                .failureThreshold(THRESHOLD)
+                .openMs(OPEN_MS);
+    }
+
+    private String url() {
+        return server.url("/api/openai-chat").toString();
+    }
+
+    private String get(ResiliencePolicy policy, String url) throws IOException {
+        return policy.call(url, () -> {
+            try (Response resp = http.newCall(new Request.Builder().url(url).build()).execute()) {
+                if (!resp.isSuccessful()) throw policy.failure(resp, "HTTP " + resp.code());
+                return resp.body().string();
+            }
+        });
+    }
+
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // ------------------------------------------------------------
+    // Outage and recovery
+    // ------------------------------------------------------------
+
+    @Test
+    public void anOutage_opensTheBreaker_andLaterCallsFailFast() {
+        ResiliencePolicy policy = policy().build();
+        response = down();
+
+        // the first call uses its three attempts, which reach the threshold
+        try {
+            get(policy, url());
+            fail("expected the outage to fail the call");
+        } catch (IOException expected) {
+            assertTrue(expected instanceof HttpStatusException);
+        }
+        assertEquals(THRESHOLD, hits.get());
+        assertTrue(policy.isOpen(url()));
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 20; i++) {
+            try {
+                get(policy, url());
+                fail("expected the open breaker to refuse the call");
+            } catch (CircuitOpenException expected) {
+                assertTrue(expected.getRetryInMs() > 0);
+            } catch (IOException e) {
+                fail("expected a CircuitOpenException, got " + e);
+            }
+        }
+        long perCallMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start) / 20;
+
+        Log.i(TAG, "open breaker refused a call in " + perCallMicros + " us");
+        assertEquals("no request reaches a host whose breaker is open", THRESHOLD, hits.get());
+        assertTrue(perCallMicros < 5_000);
+    }
+
+    @Test
+    public void afterTheOpenPeriod_oneProbeClosesTheBreaker() throws Exception {
+        ResiliencePolicy policy = policy().build();
+        response = down();
+        try {
+            get(policy, url());
+        } catch (IOException expected) {
+            // opens the breaker
+        }
+        long outageEnded = System.nanoTime();
+        response = ok();
+
+        // poll like callers would until one gets through
+        String body = null;
+        while (body == null) {
+            try {
+                body = get(policy, url());
+            } catch (CircuitOpenException e) {
+                sleep(10);
+            }
+        }
+        long recoveryMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - outageEnded);
+
+        Log.i(TAG, "recovered " + recoveryMs + " ms after the outage ended (open period " + OPEN_MS + " ms)");
+        assertEquals("ok", body);
+        assertEquals(THRESHOLD + 1, hits.get());
+        assertFalse(policy.isOpen(url()));
+        assertTrue(recoveryMs >= OPEN_MS - 50);
+        assertTrue(recoveryMs < OPEN_MS + 500);
+    }
+
+    @Test
+    public void aFailedProbe_reopensTheBreaker() {
+        ResiliencePolicy policy = policy().build();
+        response = down();
+        try {
+            get(policy, url());
+        } catch (IOException expected) {
+            // opens the breaker
+        }
+        sleep(OPEN_MS + 50);
+
+        try {
+            get(policy, url());
+            fail("expected the probe to fail");
+        } catch (IOException expected) {
+            // the probe's own 503, not a CircuitOpenException
+            assertTrue(expected instanceof HttpStatusException);
+        }
+        assertEquals("the probe is a single request", THRESHOLD + 1, hits.get());
+        assertTrue(policy.isOpen(url()));
+    }
+
+    @Test
+    public void whileTheProbeRuns_otherCallersFailFast() throws Exception {
+        ResiliencePolicy policy = policy().build();
+        response = down();
+        try {
+            get(policy, url());
+        } catch (IOException expected) {
+            // opens the breaker
+        }
+        sleep(OPEN_MS + 50);
+        response = ok().setBodyDelay(500, TimeUnit.MILLISECONDS);
+        hits.set(0);
+
+        int callers = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(callers);
+        CountDownLatch go = new CountDownLatch(1);
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < callers; i++) {
+            results.add(pool.submit(() -> {
+                go.await();
+                try {
+                    return get(policy, url());
+                } catch (CircuitOpenException e) {
+                    return "refused";
+                }
+            }));
+        }
+        go.countDown();
+        int passed = 0;
+        for (Future<String> result : results) {
+            if ("ok".equals(result.get(5, TimeUnit.SECONDS))) passed++;
+        }
+        pool.shutdown();
+
+        assertEquals(1, hits.get());
+        assertEquals(1, passed);
+        assertFalse(policy.isOpen(url()));
+    }
+
+    @Test
+    public void eachHostHasItsOwnBreaker() throws Exception {
+        MockWebServer other = new MockWebServer();
+        other.enqueue(ok());
+        other.start();
+        try {
+            ResiliencePolicy policy = policy().build();
+            response = down();
+            try {
+                get(policy, url());
+            } catch (IOException expected) {
+                // opens this host's breaker
+            }
+
+            assertTrue(policy.isOpen(url()));
+            assertEquals("ok", get(policy, other.url("/v1/forecast").toString()));
+        } finally {
+            other.shutdown();
+        }
+    }
+
+    // ------------------------------------------------------------
+    // Status codes and Retry-After
+    // ------------------------------------------------------------
+
+    @Test
+    public void aClientError_isNotRetried_andLeavesTheBreakerClosed() {
+        ResiliencePolicy policy = policy().failureThreshold(1).build();
+        response = new MockResponse().setResponseCode(400).setBody("bad request");
+
+        try {
+            get(policy, url());
+            fail("expected the 400 to be thrown");
+        } catch (IOException expected) {
+            assertEquals(400, ((HttpStatusException) expected).getCode());
+        }
+        assertEquals(1, hits.get());
+        assertFalse(policy.isOpen(url()));
+    }
+
+    @Test
+    public void retryAfter_isWaitedOut() throws Exception {
+        ResiliencePolicy policy = policy().build();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                return hits.incrementAndGet() == 1
+                        ? new MockResponse().setResponseCode(429).setHeader("Retry-After", "1")
+                        : ok();
+            }
+        });
+
+        long start = System.nanoTime();
+        assertEquals("ok", get(policy, url()));
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        Log.i(TAG, "Retry-After: 1 answered after " + elapsedMs + " ms");
+        assertEquals(2, hits.get());
+        assertTrue(elapsedMs >= 1_000);
+    }
+
+    @Test
+    public void aLongRetryAfter_givesUp_andHoldsOffOtherCalls() {
+        ResiliencePolicy policy = policy().build();
+        response = new MockResponse().setResponseCode(503).setHeader("Retry-After", "120");
+
+        long start = System.nanoTime();
+        try {
+            get(policy, url());
+            fail("expected the call to give up");
+        } catch (IOException expected) {
+            assertEquals(120_000, ((HttpStatusException) expected).getRetryAfterMs());
+        }
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue("gave up after " + elapsedMs + " ms", elapsedMs < 1_000);
+        assertEquals(1, hits.get());
+
+        try {
+            get(policy, url());
+            fail("expected the host to be held off");
+        } catch (CircuitOpenException expected) {
+            assertTrue(expected.getRetryInMs() > 100_000);
+        } catch (IOException e) {
+            fail("expected a CircuitOpenException, got " + e);
+        }
+        assertEquals(1, hits.get());
+    }
+
+    // ------------------------------------------------------------
+    // Backoff
+    // ------------------------------------------------------------
+
+    @Test
+    public void backoff_isFullJitterUnderADoublingCeiling() {
+        List<Long> delays = new ArrayList<>();
+        ResiliencePolicy policy = new ResiliencePolicy.Builder()
+                .maxAttempts(8)
+                .baseDelayMs(100)
+                .maxDelayMs(1_000)
+                .failureThreshold(100)
+                .sleeper(delays::add)
+                .random(new Random(42))
+                .build();
+
+        try {
+            policy.call(url(), () -> {
+                throw new IOException("down");
+            });
+            fail("expected every attempt to fail");
+        } catch (IOException expected) {
+            assertEquals("down", expected.getMessage());
+        }
+
+        Log.i(TAG, "backoff delays: " + delays);
+        assertEquals(7, delays.size());
+        long ceiling = 100;
+        boolean spread = false;
+        for (long delay : delays) {
+            assertTrue(delay + " over " + ceiling, delay >= 0 && delay <= ceiling);
+            if (delay < ceiling / 2) spread = true;
+            ceiling = Math.min(1_000, ceiling * 2);
+        }
+        assertTrue("full jitter should not always wait near the ceiling", spread);
+    }
+
+    @Test
+    public void aBackoffPastTheDeadline_isNotWaited() {
+        List<Long> delays = new ArrayList<>();
+        ResiliencePolicy policy = new ResiliencePolicy.Builder()
+                .baseDelayMs(1_000)
+                .failureThreshold(100)
+                .sleeper(delays::add)
+                .random(new Random() {
+                    @Override
+                    public double nextDouble() {
+                        return 0.99;
+                    }
+                })
+                .build();
+        AtomicInteger attempts = new AtomicInteger();
+
+        try {
+            policy.call(url(), CancellationToken.NONE, Deadline.in(500), () -> {
+                attempts.incrementAndGet();
+                throw new IOException("down");
+            });
+            fail("expected the call to give up");
+        } catch (IOException expected) {
+            assertEquals("down", expected.getMessage());
+        }
+        assertEquals(1, attempts.get());
+        assertTrue("waited " + delays, delays.isEmpty());
+    }
+
+    // ------------------------------------------------------------
+    // Deadlines
+    // ------------------------------------------------------------
+
+    @Test
+    public void anExpiredDeadline_makesNoRequest() {
+        ResiliencePolicy policy = policy().build();
+
+        try {
+            policy.call(url(), CancellationToken.NONE, Deadline.in(0), () -> {
+                throw new AssertionError("no attempt after the deadline");
+            });
+            fail("expected the deadline to be reported");
+        } catch (IOException expected) {
+            assertTrue(expected instanceof Deadline.ExceededException);
+        }
+        assertEquals(0, hits.get());
+    }
+
+    @Test
+    public void anAttemptCutShortByTheDeadline_isNotHeldAgainstTheHost() {
+        ResiliencePolicy policy = policy().failureThreshold(1).build();
+        AtomicLong now = new AtomicLong();
+        Deadline deadline = Deadline.in(1_000, now::get);
+
+        try {
+            policy.call(url(), CancellationToken.NONE, deadline, () -> {
+                now.addAndGet(1_000); // like a read that hit the call timeout set from the deadline
+                throw new IOException("timeout");
+            });
+            fail("expected the deadline to be reported");
+        } catch (IOException expected) {
+            assertTrue(expected instanceof Deadline.ExceededException);
+            assertEquals("timeout", expected.getCause().getMessage());
+        }
+        assertFalse(policy.isOpen(url()));
+    }
+
+    // ------------------------------------------------------------
+    // Through the client
+    // ------------------------------------------------------------
+
+    @Test
+    public void duringAnOutage_theClientStopsCallingTheProxy() {
+        WellnestAiClient.setSnapTaskEvaluationOverride(null);
+        response = down();
+        WellnestAiClient client = new WellnestAiClient.Builder()
+                .endpoints(new WellnestAiClient.Endpoints(server.url("/").toString(), server.url("/v1/forecast").toString()))
+                .resilience(policy().build())
+                .build();
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 10; i++) {
+            // lenient while the model is unreachable
+            assertEquals("pass", client.evaluateSnapTask("Make the bed", new byte[]{1}, new byte[]{2}));
+        }
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        Log.i(TAG, "10 evaluations during an outage: " + hits.get() + " requests, " + elapsedMs + " ms");
+        assertEquals(THRESHOLD, hits.get());
+    }
+}
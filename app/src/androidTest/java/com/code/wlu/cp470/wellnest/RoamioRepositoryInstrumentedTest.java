@@ -14,6 +14,7 @@ import androidx.test.ext.junit.runners.AndroidJUnit4;
 
 import com.code.wlu.cp470.wellnest.data.RoamioModels;
 import com.code.wlu.cp470.wellnest.data.RoamioRepository;
+import com.code.wlu.cp470.wellnest.data.local.DatabaseProvider;
 import com.code.wlu.cp470.wellnest.data.local.WellnestDatabaseHelper;
 import com.code.wlu.cp470.wellnest.data.local.managers.RoamioManager;
 import com.code.wlu.cp470.wellnest.data.remote.managers.FirebaseRoamioManager;
@@ -34,9 +35,6 @@ import java.time.LocalDate;
 @RunWith(AndroidJUnit4.class)
 public class RoamioRepositoryInstrumentedTest {
 
-    private static final String USER_REPO_PREFS = "user_repo_prefs";
-    private static final String PREFS_UID = "uid";
-
     private Context context;
     private WellnestDatabaseHelper helper;
     private SQLiteDatabase db;
@@ -93,17 +91,15 @@ public class RoamioRepositoryInstrumentedTest {
         if (helper != null) {
             helper.close();
         }
-        // Clean up UserRepository prefs to avoid test pollution
-        context.getSharedPreferences(USER_REPO_PREFS, Context.MODE_PRIVATE)
-                .edit().clear().apply();
+        // Sign the seeded identity out to avoid test pollution
+        DatabaseProvider.get(context).getSessionStore().onSignedOut();
     }
 
     /**
-     * Helper method to seed the uid in UserRepository's SharedPreferences
+     * Helper method to sign {@code uid} in on the SessionStore the repository reads it from
      */
     private void seedUserRepoUid(String uid) {
-        context.getSharedPreferences(USER_REPO_PREFS, Context.MODE_PRIVATE)
-                .edit().putString(PREFS_UID, uid).apply();
+        DatabaseProvider.get(context).getSessionStore().onSignedIn(uid, null, null);
     }
 
     // ============================================================
@@ -558,7 +554,7 @@ public class RoamioRepositoryInstrumentedTest {
         String testUid = "roamio_sync_test_1";
         FakeFirebaseRoamioManager fakeRemote = (FakeFirebaseRoamioManager) remoteManager;
 
-        // Pre-seed UserRepository's SharedPreferences with test uid
+        // Sign the test uid in
         seedUserRepoUid(testUid);
 
         // Clear any existing sync date by setting it to a past day
@@ -591,7 +587,7 @@ public class RoamioRepositoryInstrumentedTest {
         String testUid = "roamio_sync_test_2";
         FakeFirebaseRoamioManager fakeRemote = (FakeFirebaseRoamioManager) remoteManager;
 
-        // Pre-seed UserRepository's SharedPreferences with test uid
+        // Sign the test uid in
         seedUserRepoUid(testUid);
 
         // Set sync date to today
@@ -619,7 +615,7 @@ public class RoamioRepositoryInstrumentedTest {
         String testUid = "roamio_sync_test_3";
         FakeFirebaseRoamioManager fakeRemote = (FakeFirebaseRoamioManager) remoteManager;
 
-        // Pre-seed UserRepository's SharedPreferences with test uid
+        // Sign the test uid in
         seedUserRepoUid(testUid);
 
         // Clear sync date
@@ -641,21 +637,15 @@ public class RoamioRepositoryInstrumentedTest {
     }
 
     /**
-     * Test that syncRoamioScoreOnceDaily handles null/empty uid gracefully.
+     * Test that syncRoamioScoreOnceDaily handles a signed-out session gracefully.
      */
     @Test
     public void testSyncRoamioScoreOnceDaily_nullUid_doesNotCrash() {
-        // Clear the uid from UserRepository prefs to simulate null/empty uid
-        context.getSharedPreferences(USER_REPO_PREFS, Context.MODE_PRIVATE)
-                .edit().remove(PREFS_UID).apply();
+        // Nobody signed in: the session has no uid
+        DatabaseProvider.get(context).getSessionStore().onSignedOut();
         
         // Should not throw, just return early
         repo.syncRoamioScoreOnceDaily();
-        
-        // Test with empty uid
-        context.getSharedPreferences(USER_REPO_PREFS, Context.MODE_PRIVATE)
-                .edit().putString(PREFS_UID, "").apply();
-        repo.syncRoamioScoreOnceDaily();
         // No assertions needed - just verifying no crash
     }
 }
\ No newline at end of file
@@ -0,0 +1,143 @@
+package com.code.wlu.cp470.wellnest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteException;
+
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.code.wlu.cp470.wellnest.data.UserModels.ScoreEvent;
+import com.code.wlu.cp470.wellnest.data.local.WellnestDatabaseHelper;
+import com.code.wlu.cp470.wellnest.data.local.contracts.ScoreContract;
+import com.code.wlu.cp470.wellnest.data.local.managers.ActivityJarManager;
+import com.code.wlu.cp470.wellnest.data.local.managers.RoamioManager;
+import com.code.wlu.cp470.wellnest.data.local.managers.ScoreLedgerManager;
+import com.code.wlu.cp470.wellnest.data.local.managers.SnapTaskManager;
+import com.code.wlu.cp470.wellnest.data.local.managers.UserManager;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.List;
+
+/**
+ * Instrumented tests for the score_events ledger and the trigger that keeps the micro-app
+ * scores and the current user's global score materialized.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ScoreLedgerManagerInstrumentedTest {
+
+    private static final String ME = "uid_me";
+
+    private WellnestDatabaseHelper helper;
+    private SQLiteDatabase db;
+    private UserManager userManager;
+    private SnapTaskManager snapTaskManager;
+    private RoamioManager roamioManager;
+    private ActivityJarManager activityJarManager;
+    private ScoreLedgerManager ledger;
+
+    @Before
+    public void setUp() {
+        Context context = ApplicationProvider.getApplicationContext();
+        helper = new WellnestDatabaseHelper(context);
+        db = helper.getWritableDatabase();
+        helper.cleanDatabase(db);
+
+        userManager = new UserManager(db);
+        snapTaskManager = new SnapTaskManager(db);
+        roamioManager = new RoamioManager(db);
+        activityJarManager = new ActivityJarManager(db);
+        ledger = new ScoreLedgerManager(db);
+
+        userManager.upsertUserProfile(ME, "Me", "me@x.com");
+        userManager.ensureGlobalScore(ME);
+    }
+
+    @After
+    public void tearDown() {
+        helper.cleanDatabase(db);
+        if (db != null && db.isOpen()) db.close();
+        if (helper != null) helper.close();
+    }
+
+    @Test
+    public void earnedPoints_updateMicroAppAndGlobalScore() {
+        assertEquals(30, snapTaskManager.addToSnapTaskScore(30));
+        roamioManager.addToRoamioScore(500);
+        assertEquals(20, activityJarManager.addToActivityJarScore(20));
+
+        assertEquals(30, (int) snapTaskManager.getSnapTaskScore());
+        assertEquals(500, roamioManager.getRoamioScore().getScore());
+        assertEquals(20, (int) activityJarManager.getActivityJarScore());
+        assertEquals(550, userManager.getGlobalScore());
+    }
+
+    @Test
+    public void globalScore_neverLoweredBelowSyncedRemoteValue() {
+        // Remote global pulled by syncGlobalScore is higher than the local micro-app total
+        userManager.setGlobalScore(ME, 1000);
+        snapTaskManager.addToSnapTaskScore(50);
+        assertEquals(1000, userManager.getGlobalScore());
+
+        // Absolute sync of a micro-app score: per-app total moves, global only rises if exceeded
+        snapTaskManager.upsertSnapTaskScore(1200);
+        assertEquals(1200, (int) snapTaskManager.getSnapTaskScore());
+        assertEquals(1200, userManager.getGlobalScore());
+        snapTaskManager.upsertSnapTaskScore(10);
+        assertEquals(10, (int) snapTaskManager.getSnapTaskScore());
+        assertEquals(1200, userManager.getGlobalScore());
+    }
+
+    @Test
+    public void ledger_sumsToMaterializedScoreAndKeepsHistory() {
+        snapTaskManager.addToSnapTaskScore(10);
+        snapTaskManager.addToSnapTaskScore(15);
+        snapTaskManager.upsertSnapTaskScore(100);
+
+        assertEquals((int) snapTaskManager.getSnapTaskScore(),
+                ledger.sumEvents(ScoreContract.MicroApp.SNAP_TASK));
+
+        List<ScoreEvent> events = ledger.getEvents(ScoreContract.MicroApp.SNAP_TASK, 0);
+        assertEquals(3, events.size());
+        assertEquals(10, events.get(0).getDelta());
+        assertEquals(ScoreContract.Source.EARNED, events.get(0).getSource());
+        assertEquals(75, events.get(2).getDelta());
+        assertEquals(ScoreContract.Source.SYNC, events.get(2).getSource());
+        assertEquals(0, ledger.getEvents(ScoreContract.MicroApp.ROAMIO, 0).size());
+    }
+
+    @Test
+    public void openingBalance_doesNotDoubleCount() {
+        snapTaskManager.addToSnapTaskScore(40);
+        ledger.recordEvent(ScoreContract.MicroApp.SNAP_TASK, 40, ScoreContract.Source.OPENING_BALANCE);
+        assertEquals(40, (int) snapTaskManager.getSnapTaskScore());
+    }
+
+    @Test
+    public void ledger_isAppendOnly() {
+        snapTaskManager.addToSnapTaskScore(5);
+        boolean updateRejected = false;
+        try {
+            db.execSQL("UPDATE " + ScoreContract.ScoreEvents.TABLE + " SET "
+                    + ScoreContract.ScoreEvents.Col.DELTA + " = 500");
+        } catch (SQLiteException e) {
+            updateRejected = true;
+        }
+        boolean deleteRejected = false;
+        try {
+            db.execSQL("DELETE FROM " + ScoreContract.ScoreEvents.TABLE);
+        } catch (SQLiteException e) {
+            deleteRejected = true;
+        }
+        assertTrue(updateRejected);
+        assertTrue(deleteRejected);
+        assertEquals(5, ledger.sumEvents(ScoreContract.MicroApp.SNAP_TASK));
+    }
+}
@@ -0,0 +1,169 @@
+package com.code.wlu.cp470.wellnest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.util.Log;
+
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.code.wlu.cp470.wellnest.data.UserModels.UserProfile;
+import com.code.wlu.cp470.wellnest.data.local.SessionStore;
+import com.code.wlu.cp470.wellnest.data.local.WellnestDatabaseHelper;
+import com.code.wlu.cp470.wellnest.data.local.managers.UserManager;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Instrumented tests for SessionStore: the identity is read from user_profile once and only
+ * re-read after the session changes, and currentUid() no longer costs a query per call.
+ */
+@RunWith(AndroidJUnit4.class)
+public class SessionStoreInstrumentedTest {
+
+    private static final String TAG = "SessionStoreBenchmark";
+    private static final int CALLS = 10_000;
+
+    private WellnestDatabaseHelper helper;
+    private SQLiteDatabase db;
+    private SessionStore session;
+    private UserManager userManager;
+
+    @Before
+    public void setUp() {
+        Context context = ApplicationProvider.getApplicationContext();
+        helper = new WellnestDatabaseHelper(context);
+        db = helper.getWritableDatabase();
+        helper.cleanDatabase(db);
+        session = new SessionStore(db);
+        userManager = new UserManager(db, session);
+    }
+
+    @After
+    public void tearDown() {
+        helper.cleanDatabase(db);
+        if (db != null && db.isOpen()) db.close();
+        if (helper != null) helper.close();
+    }
+
+    @Test
+    public void identity_isLoadedOnce() {
+        userManager.upsertUserProfile("me", "Me", "me@x.com");
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals("me", userManager.currentUid());
+            assertEquals("me", session.getUid());
+        }
+        UserProfile profile = session.getIdentity();
+        assertEquals("Me", profile.getName());
+        assertEquals("me@x.com", profile.getEmail());
+        assertEquals(1, session.getLoadCount());
+    }
+
+    @Test
+    public void noProfile_isSignedOut_untilAProfileIsWritten() {
+        assertNull(session.getUid());
+        assertFalse(session.isSignedIn());
+        assertNull(session.getIdentity());
+
+        userManager.upsertUserProfile("me", "Me", "me@x.com");
+        assertEquals("me", session.getUid());
+        assertEquals(2, session.getLoadCount());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void requireUid_throwsWhenSignedOut() {
+        session.requireUid();
+    }
+
+    @Test
+    public void signInAndOut_switchTheIdentityWithoutQuerying() {
+        session.onSignedIn("a", "A", "a@x.com");
+        assertEquals("a", session.getUid());
+
+        session.onSignedOut();
+        assertFalse(session.isSignedIn());
+
+        session.onSignedIn("b", "B", "b@x.com");
+        assertEquals("B", session.getIdentity().getName());
+        assertEquals(0, session.getLoadCount());
+    }
+
+    @Test
+    public void profileWrites_updateTheSignedInUser_only() {
+        userManager.upsertUserProfile("me", "Me", "me@x.com");
+        session.onSignedIn("me", "Me", "me@x.com");
+
+        userManager.upsertUserProfile("me", "Renamed", "new@x.com");
+        assertEquals("Renamed", session.getIdentity().getName());
+        assertEquals("new@x.com", session.getIdentity().getEmail());
+
+        // another uid being written doesn't change who is signed in
+        userManager.upsertUserProfile("other", "Other", "other@x.com");
+        assertEquals("me", session.getUid());
+        assertEquals(0, session.getLoadCount());
+    }
+
+    @Test
+    public void deleteProfile_invalidatesTheIdentity() {
+        userManager.upsertUserProfile("me", "Me", "me@x.com");
+        assertEquals("me", session.getUid());
+
+        userManager.deleteUserProfile();
+        assertNull(session.getUid());
+        assertEquals(2, session.getLoadCount());
+    }
+
+    @Test
+    public void invalidate_reloadsFromTheTable() {
+        userManager.upsertUserProfile("me", "Me", "me@x.com");
+        session.getUid();
+
+        session.invalidate();
+        assertEquals("me", session.getUid());
+        assertEquals(2, session.getLoadCount());
+    }
+
+    @Test
+    public void benchmark_currentUid_cachedVsQuery() {
+        userManager.upsertUserProfile("me", "Me", "me@x.com");
+        // warm up both paths
+        for (int i = 0; i < 500; i++) {
+            legacyCurrentUid();
+            userManager.currentUid();
+        }
+
+        long legacyStart = System.nanoTime();
+        for (int i = 0; i < CALLS; i++) legacyCurrentUid();
+        long legacyNanos = System.nanoTime() - legacyStart;
+
+        long cachedStart = System.nanoTime();
+        for (int i = 0; i < CALLS; i++) userManager.currentUid();
+        long cachedNanos = System.nanoTime() - cachedStart;
+
+        Log.i(TAG, String.format("%d currentUid calls: query=%.2fus/call (%d queries), "
+                        + "cached=%.2fus/call (%d queries)",
+                CALLS,
+                legacyNanos / 1000.0 / CALLS, CALLS + 500,
+                cachedNanos / 1000.0 / CALLS, session.getLoadCount()));
+
+        assertEquals(1, session.getLoadCount());
+        assertTrue("Cached uid should be cheaper than a query per call", cachedNanos < legacyNanos);
+    }
+
+    // the lookup UserManager.currentUid() ran on every call before SessionStore
+    private String legacyCurrentUid() {
+        try (Cursor c = db.rawQuery("SELECT uid FROM user_profile LIMIT 1", null)) {
+            return c.moveToFirst() ? c.getString(0) : null;
+        }
+    }
+}
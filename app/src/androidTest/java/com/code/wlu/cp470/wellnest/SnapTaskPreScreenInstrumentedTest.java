@@ -0,0 +1,90 @@
+package com.code.wlu.cp470.wellnest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.code.wlu.cp470.wellnest.data.SnapTaskPhoto;
+import com.code.wlu.cp470.wellnest.data.WellnestAiClient;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+
+/**
+ * Instrumented tests for the unchanged-photo pre-screen on decoded JPEGs ({@link TestPhotos}):
+ * a retake still looks unchanged and a done chore does not, and an unchanged pair fails
+ * without a request to the model. The luminance corpus itself is in ImageSimilarityTest.
+ */
+@RunWith(AndroidJUnit4.class)
+public class SnapTaskPreScreenInstrumentedTest {
+
+    private static final int W = 480;
+    private static final int H = 360;
+
+    private MockWebServer server;
+
+    @Before
+    public void setUp() throws Exception {
+        WellnestAiClient.setSnapTaskEvaluationOverride(null);
+        server = new MockWebServer();
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    private WellnestAiClient client() {
+        return new WellnestAiClient.Builder()
+                .endpoints(new WellnestAiClient.Endpoints(server.url("/").toString(), server.url("/v1/forecast").toString()))
+                .build();
+    }
+
+    // ------------------------------------------------------------
+    // Decoded photos
+    // ------------------------------------------------------------
+
+    @Test
+    public void decodedJpegs_keepTheDistinction() {
+        SnapTaskPhoto before = SnapTaskPhoto.decode(TestPhotos.snapshot(1));
+        SnapTaskPhoto retake = SnapTaskPhoto.decode(TestPhotos.jpeg(1, 400, 300, 90, 6, 101));
+        SnapTaskPhoto done = SnapTaskPhoto.decode(
+                TestPhotos.jpeg(TestScenes.luminance(1, W, H, 0, 301, true), W, H, 70));
+        assertNotNull(before);
+
+        assertTrue(retake.looksUnchangedFrom(before));
+        assertFalse(done.looksUnchangedFrom(before));
+    }
+
+    // ------------------------------------------------------------
+    // Through the client
+    // ------------------------------------------------------------
+
+    @Test
+    public void unchangedAfterPhoto_failsWithoutTheModel() throws Exception {
+        String verdict = client().evaluateSnapTask("Make the bed", TestPhotos.snapshot(1),
+                TestPhotos.jpeg(1, 400, 300, 90, 6, 101));
+
+        assertEquals("fail", verdict);
+        assertEquals(0, server.getRequestCount());
+    }
+
+    @Test
+    public void changedAfterPhoto_isSentToTheModel() throws Exception {
+        server.enqueue(new MockResponse().setHeader("Content-Type", "application/json")
+                .setBody(RecordedAiResponses.chatCompletion("gpt-4o-2024-08-06", "pass")));
+        byte[] done = TestPhotos.jpeg(TestScenes.luminance(1, W, H, 0, 301, true), W, H, 70);
+
+        assertEquals("pass", client().evaluateSnapTask("Make the bed", TestPhotos.snapshot(1), done));
+        assertEquals(1, server.getRequestCount());
+    }
+}
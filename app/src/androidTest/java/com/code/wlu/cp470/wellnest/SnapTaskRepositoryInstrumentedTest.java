@@ -13,6 +13,7 @@ import androidx.test.ext.junit.runners.AndroidJUnit4;
 
 import com.code.wlu.cp470.wellnest.data.SnapTaskModels;
 import com.code.wlu.cp470.wellnest.data.SnapTaskRepository;
+import com.code.wlu.cp470.wellnest.data.local.DatabaseProvider;
 import com.code.wlu.cp470.wellnest.data.local.WellnestDatabaseHelper;
 import com.code.wlu.cp470.wellnest.data.local.managers.SnapTaskManager;
 import com.code.wlu.cp470.wellnest.data.remote.managers.FirebaseSnapTaskManager;
@@ -31,9 +32,6 @@ import java.util.List;
 @RunWith(AndroidJUnit4.class)
 public class SnapTaskRepositoryInstrumentedTest {
 
-    private static final String USER_REPO_PREFS = "user_repo_prefs";
-    private static final String PREFS_UID = "uid";
-
     private Context context;
     private WellnestDatabaseHelper helper;
     private SQLiteDatabase db;
@@ -107,17 +105,15 @@ public class SnapTaskRepositoryInstrumentedTest {
         if (helper != null) {
             helper.close();
         }
-        // Clean up UserRepository prefs to avoid test pollution
-        context.getSharedPreferences(USER_REPO_PREFS, Context.MODE_PRIVATE)
-                .edit().clear().apply();
+        // Sign the seeded identity out to avoid test pollution
+        DatabaseProvider.get(context).getSessionStore().onSignedOut();
     }
 
     /**
-     * Helper method to seed the uid in UserRepository's SharedPreferences
+     * Helper method to sign {@code uid} in on the SessionStore the repository reads it from
      */
     private void seedUserRepoUid(String uid) {
-        context.getSharedPreferences(USER_REPO_PREFS, Context.MODE_PRIVATE)
-                .edit().putString(PREFS_UID, uid).apply();
+        DatabaseProvider.get(context).getSessionStore().onSignedIn(uid, null, null);
     }
 
     /**
@@ -226,7 +222,7 @@ public class SnapTaskRepositoryInstrumentedTest {
         String testUid = "sync_test_uid_1";
         FakeRemoteManager fakeRemote = (FakeRemoteManager) remoteManager;
 
-        // Pre-seed UserRepository's SharedPreferences with test uid
+        // Sign the test uid in
         seedUserRepoUid(testUid);
 
         // Clear any existing sync date by setting it to a past day
@@ -259,7 +255,7 @@ public class SnapTaskRepositoryInstrumentedTest {
         String testUid = "sync_test_uid_2";
         FakeRemoteManager fakeRemote = (FakeRemoteManager) remoteManager;
 
-        // Pre-seed UserRepository's SharedPreferences with test uid
+        // Sign the test uid in
         seedUserRepoUid(testUid);
 
         // Set sync date to today
@@ -289,7 +285,7 @@ public class SnapTaskRepositoryInstrumentedTest {
         String testUid = "sync_test_uid_3";
         FakeRemoteManager fakeRemote = (FakeRemoteManager) remoteManager;
 
-        // Pre-seed UserRepository's SharedPreferences with test uid
+        // Sign the test uid in
         seedUserRepoUid(testUid);
 
         // Clear sync date
@@ -310,21 +306,15 @@ public class SnapTaskRepositoryInstrumentedTest {
     }
 
     /**
-     * Test that syncSnapTaskScoreOnceDaily handles null/empty uid gracefully.
+     * Test that syncSnapTaskScoreOnceDaily handles a signed-out session gracefully.
      */
     @Test
     public void syncSnapTaskScoreOnceDaily_nullUid_doesNotCrash() {
-        // Clear the uid from UserRepository prefs to simulate null/empty uid
-        context.getSharedPreferences(USER_REPO_PREFS, Context.MODE_PRIVATE)
-                .edit().remove(PREFS_UID).apply();
+        // Nobody signed in: the session has no uid
+        DatabaseProvider.get(context).getSessionStore().onSignedOut();
         
         // Should not throw, just return early
         repo.syncSnapTaskScoreOnceDaily();
-        
-        // Test with empty uid
-        context.getSharedPreferences(USER_REPO_PREFS, Context.MODE_PRIVATE)
-                .edit().putString(PREFS_UID, "").apply();
-        repo.syncSnapTaskScoreOnceDaily();
         // No assertions needed - just verifying no crash
     }
 }
\ No newline at end of file
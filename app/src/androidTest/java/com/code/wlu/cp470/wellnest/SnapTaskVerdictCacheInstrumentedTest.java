@@ -0,0 +1,233 @@
+package com.code.wlu.cp470.wellnest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+import android.util.Log;
+
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.code.wlu.cp470.wellnest.data.SnapTaskModels.VerdictKey;
+import com.code.wlu.cp470.wellnest.data.SnapTaskVerdictCache;
+import com.code.wlu.cp470.wellnest.data.WellnestAiClient;
+import com.code.wlu.cp470.wellnest.data.local.WellnestDatabaseHelper;
+import com.code.wlu.cp470.wellnest.data.local.contracts.SnapTaskContract;
+import com.code.wlu.cp470.wellnest.data.local.managers.SnapTaskVerdictManager;
+import com.code.wlu.cp470.wellnest.utils.ImageHash;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+
+/**
+ * Instrumented tests for the SnapTask verdict cache: a resubmitted photo pair (re-encoded,
+ * rescaled, re-exposed) finds the stored verdict while a different photo, task or criteria
+ * does not, and WellnestAiClient answers a passed resubmission without calling the model but
+ * sends a failed one back to it, and never caches the lenient verdict it gives when the model
+ * cannot be reached.
+ */
+@RunWith(AndroidJUnit4.class)
+public class SnapTaskVerdictCacheInstrumentedTest {
+
+    private static final String TAG = "SnapTaskVerdictCache";
+    private static final String TASK = "task-make-bed";
+    private static final String CRITERIA = "Make the bed\\nUnmade bed\\nPillows stacked, duvet flat";
+
+    private WellnestDatabaseHelper helper;
+    private SQLiteDatabase db;
+    private SnapTaskVerdictCache cache;
+    private MockWebServer server;
+    private long now = 1_000_000L;
+
+    private final byte[] before = TestPhotos.snapshot(1);
+    private final byte[] after = TestPhotos.snapshot(2);
+
+    @Before
+    public void setUp() throws Exception {
+        Context context = ApplicationProvider.getApplicationContext();
+        helper = new WellnestDatabaseHelper(context);
+        db = helper.getWritableDatabase();
+        helper.cleanDatabase(db);
+        cache = new SnapTaskVerdictCache(new SnapTaskVerdictManager(db, () -> now++));
+        WellnestAiClient.setSnapTaskEvaluationOverride(null);
+        server = new MockWebServer();
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+        helper.cleanDatabase(db);
+        if (db != null && db.isOpen()) db.close();
+        if (helper != null) helper.close();
+    }
+
+    // The same scene as the camera flow would send it again: another size, quality, exposure
+    // and sensor noise
+    private static byte[] retake(int scene) {
+        return TestPhotos.jpeg(scene, 400, 300, 90, 8, scene + 100);
+    }
+
+    private WellnestAiClient client() {
+        return new WellnestAiClient.Builder()
+                .endpoints(new WellnestAiClient.Endpoints(server.url("/").toString(), server.url("/v1/forecast").toString()))
+                .verdictCache(cache)
+                .build();
+    }
+
+    private static MockResponse verdict(String verdict) {
+        return new MockResponse().setHeader("Content-Type", "application/json")
+                .setBody(RecordedAiResponses.chatCompletion("gpt-4o-2024-08-06", verdict));
+    }
+
+    private long storedVerdicts() {
+        return DatabaseUtils.queryNumEntries(db, SnapTaskContract.Verdicts.TABLE);
+    }
+
+    // ------------------------------------------------------------
+    // Hashing
+    // ------------------------------------------------------------
+
+    @Test
+    public void retakenPhotos_hashClose_andOtherPhotosFar() {
+        long[] original = SnapTaskVerdictCache.hashPhoto(TestPhotos.snapshot(1));
+        long[] retaken = SnapTaskVerdictCache.hashPhoto(retake(1));
+        long[] other = SnapTaskVerdictCache.hashPhoto(TestPhotos.snapshot(2));
+        assertNotNull(original);
+
+        int dSame = ImageHash.distance(original[0], retaken[0]);
+        int pSame = ImageHash.distance(original[1], retaken[1]);
+        int dOther = ImageHash.distance(original[0], other[0]);
+        int pOther = ImageHash.distance(original[1], other[1]);
+        Log.i(TAG, "retake: dHash " + dSame + " / pHash " + pSame + " bits; other photo: " + dOther + " / " + pOther);
+
+        assertTrue(dSame <= SnapTaskVerdictCache.MAX_HASH_DISTANCE);
+        assertTrue(pSame <= SnapTaskVerdictCache.MAX_HASH_DISTANCE);
+        assertTrue(dOther > SnapTaskVerdictCache.MAX_HASH_DISTANCE);
+        assertTrue(pOther > SnapTaskVerdictCache.MAX_HASH_DISTANCE);
+    }
+
+    @Test
+    public void undecodablePhotos_haveNoKey() {
+        assertNull(SnapTaskVerdictCache.hashPhoto(new byte[]{1, 2, 3}));
+        assertNull(cache.keyFor(TASK, CRITERIA, before, new byte[0]));
+        assertNull(cache.keyFor(null, CRITERIA, before, after));
+    }
+
+    // ------------------------------------------------------------
+    // Lookup
+    // ------------------------------------------------------------
+
+    @Test
+    public void nearDuplicateResubmission_findsTheStoredVerdict() {
+        cache.put(cache.keyFor(TASK, CRITERIA, before, after), "fail");
+
+        assertEquals("fail", cache.find(cache.keyFor(TASK, CRITERIA, before, after)));
+        assertEquals("fail", cache.find(cache.keyFor(TASK, CRITERIA, retake(1), retake(2))));
+    }
+
+    @Test
+    public void differentPhotoTaskOrCriteria_misses() {
+        cache.put(cache.keyFor(TASK, CRITERIA, before, after), "fail");
+
+        assertNull(cache.find(cache.keyFor(TASK, CRITERIA, before, TestPhotos.snapshot(3))));
+        assertNull(cache.find(cache.keyFor(TASK, CRITERIA, TestPhotos.snapshot(3), after)));
+        assertNull(cache.find(cache.keyFor("task-dishes", CRITERIA, before, after)));
+        assertNull(cache.find(cache.keyFor(TASK, CRITERIA + " and the curtains open", before, after)));
+    }
+
+    @Test
+    public void newestVerdictWins() {
+        VerdictKey key = cache.keyFor(TASK, CRITERIA, before, after);
+        cache.put(key, "fail");
+        cache.put(key, "pass");
+
+        assertEquals("pass", cache.find(key));
+    }
+
+    @Test
+    public void oldestVerdictsAreEvicted() {
+        VerdictKey first = cache.keyFor(TASK, CRITERIA, before, after);
+        cache.put(first, "pass");
+        for (int i = 0; i < SnapTaskVerdictManager.MAX_ENTRIES; i++) {
+            cache.put(new VerdictKey("task-" + i, VerdictKey.hashCriteria(CRITERIA), i, i, i, i), "pass");
+        }
+
+        assertEquals(SnapTaskVerdictManager.MAX_ENTRIES, storedVerdicts());
+        assertNull(cache.find(first));
+    }
+
+    // ------------------------------------------------------------
+    // Through the client
+    // ------------------------------------------------------------
+
+    @Test
+    public void passedResubmission_isAnsweredWithoutTheModel() throws Exception {
+        server.enqueue(verdict("pass"));
+        WellnestAiClient client = client();
+
+        assertEquals("pass", client.evaluateSnapTask(TASK, CRITERIA, before, after));
+        long start = System.nanoTime();
+        String again = client.evaluateSnapTask(TASK, CRITERIA, retake(1), retake(2));
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        Log.i(TAG, "cached resubmission answered in " + elapsedMs + " ms");
+        assertEquals("pass", again);
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void failedPair_thenALocallyChangedPhoto_goesToTheModel() throws Exception {
+        server.enqueue(verdict("fail"));
+        server.enqueue(verdict("pass"));
+        WellnestAiClient client = client();
+        // the same after scene with only the chore's blob cleared away
+        byte[] choreDone = TestPhotos.jpeg(TestScenes.luminance(2, 480, 360, 0, 2, true), 480, 360, 70);
+        long[] failed = SnapTaskVerdictCache.hashPhoto(after);
+        long[] changed = SnapTaskVerdictCache.hashPhoto(choreDone);
+        Log.i(TAG, "locally changed after photo: dHash " + ImageHash.distance(failed[0], changed[0])
+                + " / pHash " + ImageHash.distance(failed[1], changed[1]) + " bits");
+
+        assertEquals("fail", client.evaluateSnapTask(TASK, CRITERIA, before, after));
+        assertEquals(0, storedVerdicts());
+        assertEquals("pass", client.evaluateSnapTask(TASK, CRITERIA, before, choreDone));
+        assertEquals(2, server.getRequestCount());
+        assertEquals(1, storedVerdicts());
+    }
+
+    @Test
+    public void unreachableModel_isNotCached() throws Exception {
+        for (int i = 0; i < 3; i++) server.enqueue(new MockResponse().setResponseCode(502));
+        server.enqueue(verdict("fail"));
+        WellnestAiClient client = client();
+
+        // the lenient pass after three failures is not a verdict, so the next try asks again
+        assertEquals("pass", client.evaluateSnapTask(TASK, CRITERIA, before, after));
+        assertEquals(0, storedVerdicts());
+        assertEquals("fail", client.evaluateSnapTask(TASK, CRITERIA, before, after));
+        assertEquals(4, server.getRequestCount());
+        assertEquals(0, storedVerdicts());
+    }
+
+    @Test
+    public void withoutATaskId_nothingIsCached() throws Exception {
+        server.enqueue(verdict("pass"));
+        server.enqueue(verdict("pass"));
+        WellnestAiClient client = client();
+
+        assertEquals("pass", client.evaluateSnapTask(CRITERIA, before, after));
+        assertEquals("pass", client.evaluateSnapTask(CRITERIA, before, after));
+        assertEquals(2, server.getRequestCount());
+        assertEquals(0, storedVerdicts());
+    }
+}
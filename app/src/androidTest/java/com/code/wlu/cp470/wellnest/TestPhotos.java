@@ -0,0 +1,49 @@
+package com.code.wlu.cp470.wellnest;
+
+import android.graphics.Bitmap;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * Synthetic photos for the SnapTask image tests: the {@link TestScenes} images encoded like
+ * SnapTaskDetailActivity encodes camera thumbnails. The same {@code scene} at another size,
+ * quality or exposure is a near-duplicate; another {@code scene} is a different photo.
+ */
+final class TestPhotos {
+
+    private TestPhotos() {
+    }
+
+    /**
+     * {@code scene} as a JPEG of {@code width} x {@code height}.
+     */
+    static byte[] jpeg(int scene, int width, int height, int quality, int brightness, long noiseSeed) {
+        return jpeg(TestScenes.luminance(scene, width, height, brightness, noiseSeed), width, height, quality);
+    }
+
+    /**
+     * {@code luma} as a JPEG of {@code width} x {@code height}.
+     */
+    static byte[] jpeg(int[] luma, int width, int height, int quality) {
+        int[] argb = new int[luma.length];
+        for (int i = 0; i < luma.length; i++) {
+            int v = luma[i];
+            // a little colour, so the luminance conversion is exercised
+            int r = Math.min(255, v + 12);
+            int b = Math.max(0, v - 12);
+            argb[i] = 0xff000000 | r << 16 | v << 8 | b;
+        }
+        Bitmap bitmap = Bitmap.createBitmap(argb, width, height, Bitmap.Config.ARGB_8888);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        bitmap.compress(Bitmap.CompressFormat.JPEG, quality, out);
+        bitmap.recycle();
+        return out.toByteArray();
+    }
+
+    /**
+     * {@code scene} the way the camera flow submits it: 480 x 360 at JPEG quality 70.
+     */
+    static byte[] snapshot(int scene) {
+        return jpeg(scene, 480, 360, 70, 0, scene);
+    }
+}
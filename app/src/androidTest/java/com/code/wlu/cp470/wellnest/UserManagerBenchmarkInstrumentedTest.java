@@ -0,0 +1,274 @@
+package com.code.wlu.cp470.wellnest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.util.Log;
+
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.code.wlu.cp470.wellnest.data.local.StatementCache;
+import com.code.wlu.cp470.wellnest.data.local.WellnestDatabaseHelper;
+import com.code.wlu.cp470.wellnest.data.local.contracts.UserContract;
+import com.code.wlu.cp470.wellnest.data.local.managers.UserManager;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Benchmark for the UserManager hot paths.
+ * <p>
+ * Runs the same 10k mixed calls (score reads/writes, friend/badge lookups, currentUid and
+ * friend upserts) once through the old query()/update()/insert() shape and once through
+ * UserManager's cached statements, and logs the per-call cost of each.
+ */
+@RunWith(AndroidJUnit4.class)
+public class UserManagerBenchmarkInstrumentedTest {
+
+    private static final String TAG = "UserManagerBenchmark";
+    private static final int CALLS = 10_000;
+    private static final int FRIENDS = 100;
+    private static final String ME = "uid_me";
+
+    private WellnestDatabaseHelper helper;
+    private SQLiteDatabase db;
+    private UserManager userManager;
+
+    @Before
+    public void setUp() {
+        Context context = ApplicationProvider.getApplicationContext();
+        helper = new WellnestDatabaseHelper(context);
+        db = helper.getWritableDatabase();
+        helper.cleanDatabase(db);
+        userManager = new UserManager(db);
+
+        userManager.upsertUserProfile(ME, "Me", "me@x.com");
+        userManager.setGlobalScore(ME, 0);
+        for (int i = 0; i < FRIENDS; i++) {
+            userManager.upsertFriend("friend_" + i, "Friend " + i, "accepted");
+        }
+        userManager.addBadge("badge_0");
+    }
+
+    @After
+    public void tearDown() {
+        helper.cleanDatabase(db);
+        if (db != null && db.isOpen()) db.close();
+        if (helper != null) helper.close();
+    }
+
+    @Test
+    public void benchmark_mixedCalls_statementCacheIsCheaperPerCall() {
+        // warm up both paths
+        runLegacy(500);
+        runCached(500);
+
+        long legacyStart = System.nanoTime();
+        runLegacy(CALLS);
+        long legacyNanos = System.nanoTime() - legacyStart;
+
+        long cachedStart = System.nanoTime();
+        runCached(CALLS);
+        long cachedNanos = System.nanoTime() - cachedStart;
+
+        Log.i(TAG, String.format("%d mixed calls: before=%.2fus/call, after=%.2fus/call (%.1fx)",
+                CALLS,
+                legacyNanos / 1000.0 / CALLS,
+                cachedNanos / 1000.0 / CALLS,
+                (double) legacyNanos / Math.max(1, cachedNanos)));
+
+        assertTrue("Cached statements should be cheaper than re-parsed queries",
+                cachedNanos < legacyNanos);
+    }
+
+    @Test
+    public void cachedCalls_matchLegacyResults() {
+        userManager.setGlobalScore(ME, 42);
+        assertEquals(42, legacyGetScore(ME));
+        assertEquals(Integer.valueOf(42), userManager.getGlobalScore(ME));
+        assertEquals(legacyIsFriend("friend_3"), userManager.isFriend("friend_3"));
+        assertEquals(legacyIsFriend("stranger"), userManager.isFriend("stranger"));
+        assertEquals(legacyHasBadge("badge_0"), userManager.hasBadge("badge_0"));
+        assertEquals(legacyCurrentUid(), userManager.currentUid());
+
+        // status survives a name-only upsert
+        userManager.upsertFriend("friend_3", "Renamed");
+        assertTrue(userManager.isFriend("friend_3"));
+        assertEquals("accepted", userManager.getFriends().stream()
+                .filter(f -> f.getUid().equals("friend_3")).findFirst().get().getStatus());
+    }
+
+    @Test
+    public void statementsOfAFinishedThread_areReleasedByTheNextThread() throws Exception {
+        StatementCache cache = new StatementCache(db);
+        Thread worker = new Thread(() -> {
+            cache.queryLong("SELECT 1", -1);
+            cache.queryLong("SELECT 2", -1);
+        });
+        worker.start();
+        worker.join();
+        assertEquals(2, cache.size());
+
+        // this thread's first use releases the finished worker's two
+        assertEquals(1, cache.queryLong("SELECT 1", -1));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void closingTheHelper_releasesEveryThreadsStatements() throws Exception {
+        StatementCache cache = new StatementCache(db);
+        userManager.getGlobalScore(ME);
+        cache.queryLong("SELECT 1", -1);
+        Thread worker = new Thread(() -> cache.queryLong("SELECT 2", -1));
+        worker.start();
+        worker.join();
+
+        helper.close();
+        assertEquals(0, cache.size());
+        try {
+            userManager.getGlobalScore(ME);
+            fail("expected the manager's statements to be closed");
+        } catch (IllegalStateException expected) {
+            // released with the connection
+        }
+
+        // reopened for tearDown
+        db = helper.getWritableDatabase();
+    }
+
+    // ------------------------------------------------------------
+    // workloads
+    // ------------------------------------------------------------
+
+    private void runCached(int calls) {
+        for (int i = 0; i < calls; i++) {
+            String friend = "friend_" + (i % FRIENDS);
+            switch (i % 10) {
+                case 0: case 1: case 2: case 3:
+                    userManager.getGlobalScore(friend);
+                    break;
+                case 4: case 5:
+                    userManager.setGlobalScore(ME, i);
+                    break;
+                case 6:
+                    userManager.isFriend(friend);
+                    break;
+                case 7:
+                    userManager.hasBadge("badge_" + (i % 3));
+                    break;
+                case 8:
+                    userManager.currentUid();
+                    break;
+                default:
+                    userManager.upsertFriend(friend, "Friend " + i);
+                    break;
+            }
+        }
+    }
+
+    private void runLegacy(int calls) {
+        for (int i = 0; i < calls; i++) {
+            String friend = "friend_" + (i % FRIENDS);
+            switch (i % 10) {
+                case 0: case 1: case 2: case 3:
+                    legacyGetScore(friend);
+                    break;
+                case 4: case 5:
+                    legacySetScore(ME, i);
+                    break;
+                case 6:
+                    legacyIsFriend(friend);
+                    break;
+                case 7:
+                    legacyHasBadge("badge_" + (i % 3));
+                    break;
+                case 8:
+                    legacyCurrentUid();
+                    break;
+                default:
+                    legacyUpsertFriend(friend, "Friend " + i);
+                    break;
+            }
+        }
+    }
+
+    // ------------------------------------------------------------
+    // the previous UserManager implementations, kept here as the baseline
+    // ------------------------------------------------------------
+
+    private int legacyGetScore(String uid) {
+        try (Cursor c = db.query(UserContract.GlobalScore.TABLE,
+                new String[]{UserContract.GlobalScore.Col.SCORE},
+                UserContract.GlobalScore.Col.UID + "=?", new String[]{uid},
+                null, null, null)) {
+            if (!c.moveToFirst() || c.isNull(0)) return -1;
+            return c.getInt(0);
+        }
+    }
+
+    private boolean legacySetScore(String uid, int score) {
+        ContentValues cv = new ContentValues();
+        cv.put(UserContract.GlobalScore.Col.SCORE, score);
+        int rows = db.update(UserContract.GlobalScore.TABLE, cv,
+                UserContract.GlobalScore.Col.UID + "=?", new String[]{uid});
+        if (rows > 0) return true;
+        cv.put(UserContract.GlobalScore.Col.UID, uid);
+        return db.insert(UserContract.GlobalScore.TABLE, null, cv) != -1;
+    }
+
+    private boolean legacyIsFriend(String uid) {
+        try (Cursor c = db.query(UserContract.Friends.TABLE,
+                new String[]{UserContract.Friends.Col.FRIEND_UID},
+                UserContract.Friends.Col.FRIEND_UID + "=?", new String[]{uid},
+                null, null, null)) {
+            return c.moveToFirst();
+        }
+    }
+
+    private boolean legacyHasBadge(String badgeId) {
+        try (Cursor c = db.query(UserContract.Badges.TABLE,
+                new String[]{UserContract.Badges.Col.BADGE_ID},
+                UserContract.Badges.Col.BADGE_ID + "=?", new String[]{badgeId},
+                null, null, null)) {
+            return c.moveToFirst();
+        }
+    }
+
+    private String legacyCurrentUid() {
+        try (Cursor c = db.query(UserContract.UserProfile.TABLE,
+                new String[]{UserContract.UserProfile.Col.UID},
+                null, null, null, null, null)) {
+            if (!c.moveToFirst()) throw new IllegalStateException("No current user");
+            return c.getString(0);
+        }
+    }
+
+    private void legacyUpsertFriend(String uid, String name) {
+        String status = "pending";
+        try (Cursor c = db.query(UserContract.Friends.TABLE,
+                new String[]{UserContract.Friends.Col.FRIEND_STATUS},
+                UserContract.Friends.Col.FRIEND_UID + "=?", new String[]{uid},
+                null, null, null)) {
+            if (c.moveToFirst()) status = c.getString(0);
+        }
+        ContentValues cv = new ContentValues();
+        cv.put(UserContract.Friends.Col.FRIEND_UID, uid);
+        cv.put(UserContract.Friends.Col.FRIEND_NAME, name);
+        cv.put(UserContract.Friends.Col.FRIEND_STATUS, status);
+        db.insertWithOnConflict(UserContract.Friends.TABLE, null, cv, SQLiteDatabase.CONFLICT_REPLACE);
+        if (legacyGetScore(uid) == -1) {
+            ContentValues score = new ContentValues();
+            score.put(UserContract.GlobalScore.Col.UID, uid);
+            score.put(UserContract.GlobalScore.Col.SCORE, 0);
+            db.insert(UserContract.GlobalScore.TABLE, null, score);
+        }
+    }
+}
@@ -17,6 +17,7 @@ import com.code.wlu.cp470.wellnest.data.UserModels.Score;
 import com.code.wlu.cp470.wellnest.data.UserModels.UserProfile;
 import com.code.wlu.cp470.wellnest.data.local.WellnestDatabaseHelper;
 import com.code.wlu.cp470.wellnest.data.local.managers.UserManager;
+import com.code.wlu.cp470.wellnest.data.model.FriendSyncResult;
 
 import org.junit.After;
 import org.junit.Before;
@@ -24,6 +25,7 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -289,6 +291,44 @@ public class UserManagerInstrumentedTest {
         userManager.upsertFriend("", "Nobody");
     }
 
+    @Test
+    public void upsertFriends_bulkAppliesListAndRemovesStale() {
+        assertTrue(userManager.upsertFriend("friend_keep", "Keep", "pending"));
+        assertTrue(userManager.upsertFriend("friend_stale", "Stale", "accepted"));
+        userManager.setGlobalScore("friend_keep", 7);
+
+        FriendSyncResult result = userManager.upsertFriends(Arrays.asList(
+                new Friend("friend_keep", "Keep Renamed", "accepted", 0),
+                new Friend("friend_new", "New", null, 0)
+        ));
+
+        assertEquals(FriendSyncResult.Outcome.UPDATED, result.getOutcome("friend_keep"));
+        assertEquals(FriendSyncResult.Outcome.INSERTED, result.getOutcome("friend_new"));
+        assertEquals(FriendSyncResult.Outcome.REMOVED, result.getOutcome("friend_stale"));
+        assertFalse(result.hasFailures());
+
+        List<Friend> friends = userManager.getFriends();
+        assertEquals(2, friends.size());
+        Friend keep = findFriendByUid(friends, "friend_keep");
+        assertNotNull(keep);
+        assertEquals("Keep Renamed", keep.getName());
+        assertEquals("accepted", keep.getStatus());
+        assertEquals(7, keep.getScore()); // existing score row untouched
+        Friend added = findFriendByUid(friends, "friend_new");
+        assertNotNull(added);
+        assertEquals("pending", added.getStatus());
+        assertEquals(Integer.valueOf(0), userManager.getGlobalScore("friend_new"));
+        assertFalse(userManager.isFriend("friend_stale"));
+    }
+
+    @Test
+    public void upsertFriends_emptyListClearsFriends() {
+        assertTrue(userManager.upsertFriend("friend_a", "A", "accepted"));
+        FriendSyncResult result = userManager.upsertFriends(Collections.emptyList());
+        assertEquals(1, result.count(FriendSyncResult.Outcome.REMOVED));
+        assertTrue(userManager.getFriends().isEmpty());
+    }
+
     // ------------------------------------------------------------
     // badges
     // ------------------------------------------------------------
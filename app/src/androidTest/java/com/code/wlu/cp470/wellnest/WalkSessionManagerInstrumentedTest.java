@@ -0,0 +1,164 @@
+package com.code.wlu.cp470.wellnest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.code.wlu.cp470.wellnest.data.RoamioModels.WalkSession;
+import com.code.wlu.cp470.wellnest.data.RoamioModels.WeeklyWalkStats;
+import com.code.wlu.cp470.wellnest.data.local.WellnestDatabaseHelper;
+import com.code.wlu.cp470.wellnest.data.local.managers.WalkSessionManager;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Instrumented tests for WalkSessionManager: keyset-paged history and the walk aggregates.
+ * The 50k-walk paging benchmark is in WalkSessionManagerBenchmarkTest.
+ */
+@RunWith(AndroidJUnit4.class)
+public class WalkSessionManagerInstrumentedTest {
+
+    private static final String ME = "uid_me";
+    private static final String OTHER = "uid_other";
+    private static final long HOUR_MS = 60L * 60 * 1000;
+    private static final long DAY_MS = 24 * HOUR_MS;
+    // Monday 2024-01-01 00:00 UTC
+    private static final long MONDAY_UTC = 1704067200000L;
+
+    private WellnestDatabaseHelper helper;
+    private SQLiteDatabase db;
+    private WalkSessionManager manager;
+
+    @Before
+    public void setUp() {
+        Context context = ApplicationProvider.getApplicationContext();
+        helper = new WellnestDatabaseHelper(context);
+        db = helper.getWritableDatabase();
+        helper.cleanDatabase(db);
+        manager = new WalkSessionManager(db);
+    }
+
+    @After
+    public void tearDown() {
+        helper.cleanDatabase(db);
+        if (db != null && db.isOpen()) db.close();
+        if (helper != null) helper.close();
+    }
+
+    @Test
+    public void recordCompletedWalk_isReturnedInHistory() {
+        long id = manager.recordCompletedWalk(ME, MONDAY_UTC, MONDAY_UTC + HOUR_MS, 4200, 1500.5, 500);
+
+        List<WalkSession> page = manager.getHistoryPage(ME, 10);
+        assertEquals(1, page.size());
+        WalkSession s = page.get(0);
+        assertEquals(id, s.getId());
+        assertEquals(ME, s.getUid());
+        assertEquals(MONDAY_UTC, s.getStartedAt());
+        assertEquals(MONDAY_UTC + HOUR_MS, s.getEndedAt());
+        assertEquals(4200, s.getSteps());
+        assertEquals(1500.5, s.getDistanceMeters(), 0.001);
+        assertEquals(500, s.getPointsAwarded());
+        assertEquals(WalkSessionManager.STATUS_COMPLETED, s.getStatus());
+        assertTrue(manager.getHistoryPage(OTHER, 10).isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void recordCompletedWalk_endBeforeStart_throws() {
+        manager.recordCompletedWalk(ME, MONDAY_UTC, MONDAY_UTC - 1, 0, 0, 0);
+    }
+
+    @Test
+    public void history_pagesNewestFirstWithoutGapsOrDuplicates() {
+        // two walks per ended_at so the id tie-break is exercised on page boundaries
+        db.beginTransaction();
+        try {
+            for (int i = 0; i < 95; i++) {
+                long ended = MONDAY_UTC + (i / 2) * HOUR_MS;
+                manager.recordCompletedWalk(ME, ended - 1000, ended, 0, 100, 300);
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+
+        Set<Long> seen = new HashSet<>();
+        WalkSession previous = null;
+        WalkSession last = null;
+        int pages = 0;
+        while (true) {
+            List<WalkSession> page = manager.getHistoryPageAfter(ME, last, 10);
+            if (page.isEmpty()) break;
+            pages++;
+            for (WalkSession s : page) {
+                assertTrue("duplicate id " + s.getId(), seen.add(s.getId()));
+                if (previous != null) {
+                    assertTrue(s.getEndedAt() < previous.getEndedAt()
+                            || (s.getEndedAt() == previous.getEndedAt() && s.getId() < previous.getId()));
+                }
+                previous = s;
+            }
+            last = page.get(page.size() - 1);
+        }
+        assertEquals(95, seen.size());
+        assertEquals(10, pages);
+    }
+
+    @Test
+    public void aggregates_totalDistanceAndWalksPerWeek() {
+        // week 1: two walks, week 2: none, week 3: one walk (all UTC)
+        manager.recordCompletedWalk(ME, MONDAY_UTC, MONDAY_UTC + HOUR_MS, 0, 1000, 300);
+        manager.recordCompletedWalk(ME, MONDAY_UTC + 6 * DAY_MS, MONDAY_UTC + 6 * DAY_MS + HOUR_MS, 0, 2000, 500);
+        manager.recordCompletedWalk(ME, MONDAY_UTC + 14 * DAY_MS, MONDAY_UTC + 14 * DAY_MS + HOUR_MS, 0, 3000, 800);
+        manager.recordCompletedWalk(OTHER, MONDAY_UTC, MONDAY_UTC + HOUR_MS, 0, 9999, 800);
+
+        assertEquals(3, manager.getWalkCount(ME));
+        assertEquals(6000, manager.getTotalDistanceMeters(ME), 0.001);
+        assertEquals(0, manager.getTotalDistanceMeters("nobody"), 0.001);
+
+        List<WeeklyWalkStats> weeks = manager.getWeeklyStats(ME, MONDAY_UTC, 0);
+        assertEquals(2, weeks.size());
+        assertEquals(MONDAY_UTC + 14 * DAY_MS, weeks.get(0).getWeekStartMillis());
+        assertEquals(1, weeks.get(0).getWalkCount());
+        assertEquals(3000, weeks.get(0).getDistanceMeters(), 0.001);
+        assertEquals(MONDAY_UTC, weeks.get(1).getWeekStartMillis());
+        assertEquals(2, weeks.get(1).getWalkCount());
+        assertEquals(3000, weeks.get(1).getDistanceMeters(), 0.001);
+
+        // since only includes later walks
+        assertEquals(1, manager.getWeeklyStats(ME, MONDAY_UTC + 7 * DAY_MS, 0).size());
+    }
+
+    @Test
+    public void upgradeFromV3_createsMissingEndedAtIndex() {
+        // what a v3 install has: only the first of the two packed index statements ran
+        db.execSQL("DROP INDEX IF EXISTS idx_walk_sessions_ended_at");
+        db.execSQL("DROP INDEX IF EXISTS idx_walk_sessions_uid_ended_at");
+        db.execSQL("CREATE INDEX idx_walk_sessions_uid ON walk_sessions(uid)");
+
+        helper.onUpgrade(db, 3, 4);
+
+        Set<String> indexes = new HashSet<>();
+        try (Cursor c = db.rawQuery(
+                "SELECT name FROM sqlite_master WHERE type='index' AND tbl_name='walk_sessions'", null)) {
+            while (c.moveToNext()) indexes.add(c.getString(0));
+        }
+        assertTrue(indexes.contains("idx_walk_sessions_ended_at"));
+        assertTrue(indexes.contains("idx_walk_sessions_uid_ended_at"));
+        assertFalse(indexes.contains("idx_walk_sessions_uid"));
+    }
+}
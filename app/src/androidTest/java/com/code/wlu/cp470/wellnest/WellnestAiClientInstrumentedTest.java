@@ -0,0 +1,414 @@
+package com.code.wlu.cp470.wellnest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.code.wlu.cp470.wellnest.data.ActivityJarModels.Activity;
+import com.code.wlu.cp470.wellnest.data.ActivityJarModels.Category;
+import com.code.wlu.cp470.wellnest.data.ActivityJarModels.PlanContext;
+import com.code.wlu.cp470.wellnest.data.RoamioModels;
+import com.code.wlu.cp470.wellnest.data.WellnestAiClient;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+/**
+ * Instrumented tests for WellnestAiClient against a MockWebServer standing in for the Vercel
+ * proxy and Open-Meteo. By default the server replays {@link RecordedAiResponses}; a test can
+ * queue slow, failing or truncated responses for one endpoint ahead of them.
+ */
+@RunWith(AndroidJUnit4.class)
+public class WellnestAiClientInstrumentedTest {
+
+    private static final String TAG = "WellnestAiClientTest";
+
+    private static final String OPENAI = "/api/openai-chat";
+    private static final String TAVILY = "/api/tavily-search";
+    private static final String OPEN_METEO = "/v1/forecast";
+
+    private static final double[] HERE = {43.4723, -80.5449};
+    private static final long NOW = LocalDateTime.of(2025, 6, 2, 9, 30)
+            .atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+
+    private final Map<String, Deque<MockResponse>> scripted = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> hits = new ConcurrentHashMap<>();
+    private final Map<String, String> lastBody = new ConcurrentHashMap<>();
+
+    private MockWebServer server;
+
+    @Before
+    public void setUp() throws Exception {
+        WellnestAiClient.setSnapTaskEvaluationOverride(null);
+        server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                String path = request.getRequestUrl().encodedPath();
+                String body = request.getBody().clone().readUtf8();
+                hits.computeIfAbsent(path, p -> new AtomicInteger()).incrementAndGet();
+                lastBody.put(path, body);
+
+                Deque<MockResponse> queue = scripted.get(path);
+                synchronized (scripted) {
+                    if (queue != null && !queue.isEmpty()) return queue.poll();
+                }
+                return recorded(path, body);
+            }
+        });
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    private static MockResponse recorded(String path, String requestBody) {
+        switch (path) {
+            case OPEN_METEO:
+                return json(RecordedAiResponses.OPEN_METEO_FORECAST);
+            case TAVILY:
+                return json(RecordedAiResponses.TAVILY_SEARCH);
+            case OPENAI:
+                if (requestBody.contains("image judge")) {
+                    return json(RecordedAiResponses.chatCompletion("gpt-4o-2024-08-06", "pass"));
+                }
+                if (requestBody.contains("concise web search queries")) {
+                    return json(RecordedAiResponses.chatCompletion("gpt-5-nano-2025-08-07", RecordedAiResponses.SEARCH_QUERY));
+                }
+                if (requestBody.contains("walking location")) {
+                    return json(RecordedAiResponses.chatCompletion("gpt-5-nano-2025-08-07", RecordedAiResponses.WALK_JSON));
+                }
+                return json(RecordedAiResponses.chatCompletion("gpt-5-nano-2025-08-07", RecordedAiResponses.ACTIVITIES_JSON));
+            default:
+                return new MockResponse().setResponseCode(404);
+        }
+    }
+
+    private static MockResponse json(String body) {
+        return new MockResponse().setHeader("Content-Type", "application/json").setBody(body);
+    }
+
+    /**
+     * Serves {@code response} for the next request to {@code path}, ahead of the recording.
+     */
+    private void script(String path, MockResponse response) {
+        synchronized (scripted) {
+            scripted.computeIfAbsent(path, p -> new ArrayDeque<>()).add(response);
+        }
+    }
+
+    private int hitsOn(String path) {
+        AtomicInteger count = hits.get(path);
+        return count == null ? 0 : count.get();
+    }
+
+    private WellnestAiClient.Builder clientBuilder() {
+        return new WellnestAiClient.Builder()
+                .endpoints(new WellnestAiClient.Endpoints(
+                        server.url("/").toString(), server.url(OPEN_METEO).toString()))
+                .clock(() -> NOW)
+                .location(new WellnestAiClient.LocationProvider() {
+                    @Override
+                    public boolean hasPermission() {
+                        return true;
+                    }
+
+                    @Override
+                    public double[] currentLocation() {
+                        return HERE;
+                    }
+                })
+                .geocoder(new WellnestAiClient.GeocoderProvider() {
+                    @Override
+                    public String locationName(double latitude, double longitude) {
+                        return "Waterloo, Ontario";
+                    }
+
+                    @Override
+                    public double[] coordinatesOf(String address) {
+                        return address.startsWith("Waterloo Park")
+                                ? new double[]{43.4643, -80.5264}
+                                : new double[]{43.4668, -80.5224};
+                    }
+                });
+    }
+
+    private WellnestAiClient client() {
+        return clientBuilder().build();
+    }
+
+    private static PlanContext waterloo() {
+        return new PlanContext(HERE[0], HERE[1], "Mainly clear/Partly cloudy, 21°C, wind 11 km/h", 2,
+                "Waterloo, Ontario");
+    }
+
+    // ------------------------------------------------------------
+    // Recorded responses
+    // ------------------------------------------------------------
+
+    @Test
+    public void evaluateSnapTask_sendsBothPhotosToGpt4o_andReadsTheVerdict() {
+        String verdict = client().evaluateSnapTask("Make the bed", new byte[]{1, 2, 3}, new byte[]{4, 5, 6});
+
+        assertEquals("pass", verdict);
+        assertEquals(1, hitsOn(OPENAI));
+        String request = lastBody.get(OPENAI);
+        assertTrue(request.contains("\"model\":\"gpt-4o\""));
+        assertTrue(request.contains("Make the bed"));
+        assertEquals(2, request.split("data:image/jpeg;base64,", -1).length - 1);
+    }
+
+    @Test
+    public void getWeatherSummary_readsTheCurrentWeather() throws Exception {
+        assertEquals("Mainly clear/Partly cloudy, 21°C, wind 11 km/h", client().getWeatherSummary(HERE[0], HERE[1]));
+        RecordedRequest request = server.takeRequest(1, TimeUnit.SECONDS);
+        assertNotNull(request);
+        assertEquals("43.4723", request.getRequestUrl().queryParameter("latitude"));
+        assertEquals("true", request.getRequestUrl().queryParameter("current_weather"));
+    }
+
+    @Test
+    public void getPlanContext_combinesLocationWeatherAndPlaceName() throws Exception {
+        PlanContext context = client().getPlanContext();
+
+        assertNotNull(context);
+        assertEquals(HERE[0], context.getLatitude(), 1e-9);
+        assertEquals(2, context.getWeatherCode());
+        assertEquals("Waterloo, Ontario", context.getLocationName());
+    }
+
+    @Test
+    public void planThingsToDo_replaysTheRecordedPipeline() throws Exception {
+        Map<Category, List<Activity>> plan = client().planThingsToDo(waterloo());
+
+        assertNotNull(plan);
+        assertEquals(Category.values().length, plan.size());
+        assertEquals("Canadian Clay & Glass Gallery", plan.get(Category.Culture).get(0).getTitle());
+        assertEquals(1, hitsOn(TAVILY));
+        assertEquals(1, hitsOn(OPENAI));
+        assertEquals(0, hitsOn(OPEN_METEO)); // the weather came with the plan context
+        // the injected clock dates the search, and the Tavily results reach the synthesis
+        assertTrue(lastBody.get(TAVILY).contains("Waterloo, Ontario on 2025-06-02T09:30:00"));
+        assertTrue(lastBody.get(OPENAI).contains("Canadian Clay"));
+    }
+
+    @Test
+    public void pickWalkAndStory_usesTheInjectedLocationAndGeocoder() throws Exception {
+        RoamioModels.Walk walk = client().pickWalkAndStory();
+
+        assertNotNull(walk);
+        assertEquals("Laurel Trail", walk.getName());
+        assertEquals("Waterloo Park, Waterloo, ON", walk.getStartAddress());
+        assertTrue(walk.getDistanceMeters() > 0);
+        // the geocoded ends travel with the walk for the completion check
+        assertEquals(43.4643, walk.getStartLatitude(), 1e-9);
+        assertEquals(-80.5264, walk.getStartLongitude(), 1e-9);
+        assertEquals(43.4668, walk.getEndLatitude(), 1e-9);
+        assertEquals(-80.5224, walk.getEndLongitude(), 1e-9);
+        assertEquals(0f, walk.distanceToEndMeters(43.4668, -80.5224), 0.01f);
+        assertEquals(2, hitsOn(OPENAI)); // search query, then the pick
+        assertTrue(lastBody.get(TAVILY).contains(RecordedAiResponses.SEARCH_QUERY));
+        // only the results are read, so Tavily should not spend time writing an answer
+        assertTrue(lastBody.get(TAVILY).contains("\"include_answer\":false"));
+    }
+
+    @Test
+    public void withoutLocation_thePlanRefusesAndTheWalkIsNull() throws Exception {
+        WellnestAiClient client = new WellnestAiClient.Builder()
+                .endpoints(new WellnestAiClient.Endpoints(
+                        server.url("/").toString(), server.url(OPEN_METEO).toString()))
+                .build();
+
+        try {
+            client.getPlanContext();
+            fail("expected the missing permission to be reported");
+        } catch (IOException expected) {
+            assertEquals("Location permission not granted", expected.getMessage());
+        }
+        assertNull(client.pickWalkAndStory());
+        assertEquals(0, server.getRequestCount());
+    }
+
+    // ------------------------------------------------------------
+    // Slow, failing and truncated servers
+    // ------------------------------------------------------------
+
+    @Test
+    public void aFailingWeatherServer_isReportedAsUnavailable() throws Exception {
+        script(OPEN_METEO, new MockResponse().setResponseCode(503).setBody("upstream unavailable"));
+
+        assertEquals("weather unavailable", client().getWeatherSummary(HERE[0], HERE[1]));
+    }
+
+    @Test
+    public void aSlowWeatherServer_runsIntoTheTransportTimeout() {
+        script(OPEN_METEO, json(RecordedAiResponses.OPEN_METEO_FORECAST).setBodyDelay(3, TimeUnit.SECONDS));
+        WellnestAiClient client = clientBuilder()
+                .http(new OkHttpClient.Builder().readTimeout(300, TimeUnit.MILLISECONDS).build())
+                .build();
+
+        long start = System.nanoTime();
+        try {
+            client.getWeatherSummary(HERE[0], HERE[1]);
+            fail("expected the read to time out");
+        } catch (IOException expected) {
+            long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            Log.i(TAG, "slow weather gave up after " + elapsed + " ms");
+            assertTrue(elapsed < 2_000);
+        }
+    }
+
+    @Test
+    public void aSlowWeatherServer_isDroppedToKeepTheWalkWithinItsBudget() throws Exception {
+        script(OPEN_METEO, json(RecordedAiResponses.OPEN_METEO_FORECAST).setBodyDelay(5, TimeUnit.SECONDS));
+        // 3 s for the walk, of which the last 1.5 s are kept for picking it
+        WellnestAiClient client = clientBuilder()
+                .budgets(new WellnestAiClient.Budgets(25_000, 90_000, 3_000, 1_500))
+                .build();
+
+        long start = System.nanoTime();
+        RoamioModels.Walk walk = client.pickWalkAndStory();
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        Log.i(TAG, "walk within a 3000 ms budget: " + elapsed + " ms");
+
+        assertNotNull(walk);
+        assertEquals("Laurel Trail", walk.getName());
+        assertTrue("overran the budget: " + elapsed, elapsed < 3_500);
+        // no time was left to search, so the walk was picked from what the model knows
+        assertEquals(0, hitsOn(TAVILY));
+        assertEquals(1, hitsOn(OPENAI));
+        assertTrue(lastBody.get(OPENAI).contains("From what you know about the location"));
+    }
+
+    @Test
+    public void aFailingSearch_stillGetsAWalk() throws Exception {
+        script(TAVILY, new MockResponse().setResponseCode(503).setBody("upstream unavailable"));
+
+        RoamioModels.Walk walk = client().pickWalkAndStory();
+
+        assertNotNull(walk);
+        assertEquals("Laurel Trail", walk.getName());
+        assertEquals(1, hitsOn(TAVILY));
+        // the walk was picked from what the model knows instead of the search results
+        assertEquals(2, hitsOn(OPENAI));
+        assertTrue(lastBody.get(OPENAI).contains("From what you know about the location"));
+    }
+
+    @Test
+    public void aSlowLocationFix_failsThePlanContextWithinItsBudget() {
+        WellnestAiClient client = clientBuilder()
+                .budgets(new WellnestAiClient.Budgets(1_000, 90_000, 90_000, 30_000))
+                .location(new WellnestAiClient.LocationProvider() {
+                    @Override
+                    public boolean hasPermission() {
+                        return true;
+                    }
+
+                    @Override
+                    public double[] currentLocation() {
+                        try {
+                            Thread.sleep(5_000);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        return HERE;
+                    }
+                })
+                .build();
+
+        long start = System.nanoTime();
+        try {
+            client.getPlanContext();
+            fail("expected the location to run out of time");
+        } catch (IOException expected) {
+            long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            Log.i(TAG, "slow location gave up after " + elapsed + " ms");
+            assertTrue("overran the budget: " + elapsed, elapsed < 1_500);
+        }
+        assertEquals(0, server.getRequestCount());
+    }
+
+    @Test
+    public void aFailingOpenAiProxy_isRetried() throws Exception {
+        script(OPENAI, new MockResponse().setResponseCode(502).setBody("Bad Gateway"));
+        script(OPENAI, new MockResponse().setResponseCode(500).setBody("{\"error\":\"upstream\"}"));
+
+        Map<Category, List<Activity>> plan = client().planThingsToDo(waterloo());
+
+        assertNotNull(plan);
+        assertEquals(3, hitsOn(OPENAI));
+    }
+
+    @Test
+    public void aRetriedSnapTask_resendsTheSameRequest() throws Exception {
+        script(OPENAI, new MockResponse().setResponseCode(503).setBody("Service Unavailable"));
+        byte[] before = new byte[300_000];
+        byte[] after = new byte[500_001];
+        new Random(7).nextBytes(before);
+        new Random(8).nextBytes(after);
+
+        assertEquals("pass", client().evaluateSnapTask("Make the bed", before, after));
+
+        RecordedRequest first = server.takeRequest(1, TimeUnit.SECONDS);
+        RecordedRequest second = server.takeRequest(1, TimeUnit.SECONDS);
+        assertNotNull(first);
+        assertNotNull(second);
+        assertEquals(first.getBodySize(), second.getBodySize());
+        assertEquals(String.valueOf(first.getBodySize()), first.getHeader("Content-Length"));
+        assertEquals(first.getBody().readUtf8(), second.getBody().readUtf8());
+    }
+
+    @Test
+    public void aTruncatedTavilyResponse_failsThePlan() {
+        String truncated = RecordedAiResponses.TAVILY_SEARCH.substring(0, RecordedAiResponses.TAVILY_SEARCH.length() / 2);
+        script(TAVILY, json(truncated));
+
+        try {
+            client().planThingsToDo(waterloo());
+            fail("expected the truncated search results to fail the plan");
+        } catch (Exception expected) {
+            assertTrue(expected instanceof IOException);
+        }
+        assertEquals(0, hitsOn(OPENAI));
+    }
+
+    @Test
+    public void aTruncatedChatCompletion_leavesTheSnapTaskLenient() {
+        String completion = RecordedAiResponses.chatCompletion("gpt-4o-2024-08-06", "fail");
+        for (int i = 0; i < 3; i++) {
+            script(OPENAI, json(completion.substring(0, completion.indexOf("\"choices\""))));
+        }
+
+        // every attempt fails to parse; the client gives the user the benefit of the doubt
+        assertEquals("pass", client().evaluateSnapTask("Make the bed", new byte[]{1}, new byte[]{2}));
+        assertEquals(3, hitsOn(OPENAI));
+    }
+}
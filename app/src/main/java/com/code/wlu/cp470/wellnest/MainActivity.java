@@ -2,7 +2,6 @@ package com.code.wlu.cp470.wellnest;
 
 import android.content.Intent;
 import android.content.SharedPreferences;
-import android.database.sqlite.SQLiteDatabase;
 import android.os.Bundle;
 import android.util.Log;
 import android.view.View;
@@ -11,7 +10,6 @@ import androidx.appcompat.app.AppCompatActivity;
 import androidx.core.view.WindowCompat;
 import androidx.core.view.WindowInsetsCompat;
 import androidx.core.view.WindowInsetsControllerCompat;
-import androidx.localbroadcastmanager.content.LocalBroadcastManager;
 import androidx.navigation.NavController;
 import androidx.navigation.fragment.NavHostFragment;
 
@@ -19,11 +17,8 @@ import com.code.wlu.cp470.wellnest.data.ActivityJarRepository;
 import com.code.wlu.cp470.wellnest.data.RoamioRepository;
 import com.code.wlu.cp470.wellnest.data.SnapTaskRepository;
 import com.code.wlu.cp470.wellnest.data.UserRepository;
-import com.code.wlu.cp470.wellnest.data.local.WellnestDatabaseHelper;
-import com.code.wlu.cp470.wellnest.data.local.managers.ActivityJarManager;
-import com.code.wlu.cp470.wellnest.data.local.managers.RoamioManager;
+import com.code.wlu.cp470.wellnest.data.local.DatabaseProvider;
 import com.code.wlu.cp470.wellnest.data.local.managers.SnapTaskManager;
-import com.code.wlu.cp470.wellnest.data.local.managers.UserManager;
 import com.code.wlu.cp470.wellnest.data.remote.managers.FirebaseRoamioManager;
 import com.code.wlu.cp470.wellnest.data.remote.managers.FirebaseSnapTaskManager;
 import com.code.wlu.cp470.wellnest.data.remote.managers.FirebaseUserManager;
@@ -40,16 +35,11 @@ import java.util.concurrent.Executors;
 
 public class MainActivity extends AppCompatActivity {
 
-    /**
-     * Broadcast action sent when global score sync completes. HomeFragment listens for this.
-     */
-    public static final String ACTION_SCORE_SYNC_COMPLETE = "com.code.wlu.cp470.wellnest.ACTION_SCORE_SYNC_COMPLETE";
     private static final String TAG = "MainActivity";
     private static final String PREFS = "main_activity_prefs";
     private static final String KEY_LAST_STREAK_DATE = "last_streak_epoch_day";
     private SharedPreferences prefs;
-    private WellnestDatabaseHelper dbHelper;
-    private SQLiteDatabase db;
+    private DatabaseProvider databaseProvider;
     private UserRepository userRepository;
     private SnapTaskRepository snapTaskRepository;
     private RoamioRepository roamioRepository;
@@ -98,8 +88,7 @@ public class MainActivity extends AppCompatActivity {
         // Synchronization logic goes here
         prefs = this.getSharedPreferences(PREFS, MODE_PRIVATE);
 
-        dbHelper = new WellnestDatabaseHelper(this);
-        db = dbHelper.getWritableDatabase();
+        databaseProvider = DatabaseProvider.get(this);
 
 
         // Save date information
@@ -120,7 +109,7 @@ public class MainActivity extends AppCompatActivity {
         if (newDay) {
             Log.d(TAG, "onCreate: new day detected, starting background sync of snap tasks");
             new Thread(() -> {
-                SnapTaskManager snapTaskManager = new SnapTaskManager(db);
+                SnapTaskManager snapTaskManager = databaseProvider.getSnapTaskManager();
                 FirebaseSnapTaskManager snapTaskRemoteManager = new FirebaseSnapTaskManager();
                 SnapTaskRepository snapTaskRepository =
                         new SnapTaskRepository(getApplicationContext(), snapTaskManager, snapTaskRemoteManager);
@@ -166,36 +155,27 @@ public class MainActivity extends AppCompatActivity {
             return;
         }
 
-        // Save UID immediately to SharedPreferences before sync methods run
-        FirebaseUser currentUser = firebaseAuth.getCurrentUser();
-        if (currentUser != null) {
-            String uid = currentUser.getUid();
-            SharedPreferences userRepoPrefs = getSharedPreferences("user_repo_prefs", MODE_PRIVATE);
-            userRepoPrefs.edit().putString("uid", uid).apply();
-            Log.d(TAG, "initializeUserDependentServices: Saved UID to SharedPreferences: " + uid);
-        }
-
         Log.d(TAG, "initializeUserDependentServices: Starting user-dependent service initialization");
 
         try {
             // Create Repositories (this requires an authenticated user)
-            userRepository = new UserRepository(this, new UserManager(db), new FirebaseUserManager());
-            snapTaskRepository = new SnapTaskRepository(this, new SnapTaskManager(db), new FirebaseSnapTaskManager());
-            roamioRepository = new RoamioRepository(this, new RoamioManager(db), new FirebaseRoamioManager());
+            userRepository = new UserRepository(this, databaseProvider.getUserManager(), new FirebaseUserManager());
+            snapTaskRepository = new SnapTaskRepository(this, databaseProvider.getSnapTaskManager(), new FirebaseSnapTaskManager());
+            roamioRepository = new RoamioRepository(this, databaseProvider.getRoamioManager(), new FirebaseRoamioManager());
             activityJarRepository = new ActivityJarRepository(
                     this,
-                    new ActivityJarManager(db),
+                    databaseProvider.getActivityJarManager(),
                     new FirebaseUserManager()
             );
 
-            // Ensure local SQLite user profile exists before any score operations
+            // Ensure local SQLite user profile exists before any score operations, and make the
+            // Firebase user the session identity every repository reads the uid from
             FirebaseUser currentUserForProfile = firebaseAuth.getCurrentUser();
             if (currentUserForProfile != null) {
-                userRepository.upsertUserProfile(
-                    currentUserForProfile.getUid(),
-                    currentUserForProfile.getDisplayName() != null ? currentUserForProfile.getDisplayName() : "",
-                    currentUserForProfile.getEmail() != null ? currentUserForProfile.getEmail() : ""
-                );
+                String name = currentUserForProfile.getDisplayName() != null ? currentUserForProfile.getDisplayName() : "";
+                String email = currentUserForProfile.getEmail() != null ? currentUserForProfile.getEmail() : "";
+                userRepository.upsertUserProfile(currentUserForProfile.getUid(), name, email);
+                databaseProvider.getSessionStore().onSignedIn(currentUserForProfile.getUid(), name, email);
                 Log.d(TAG, "initializeUserDependentServices: Created local user profile for uid=" + currentUserForProfile.getUid());
             }
 
@@ -203,19 +183,9 @@ public class MainActivity extends AppCompatActivity {
             ExecutorService executor = Executors.newSingleThreadExecutor();
             executor.execute(() -> {
                 try {
+                    // No recompute needed: the score ledger keeps global_score up to date locally
                     Log.d(TAG, "[INIT] initializeUserDependentServices: Starting syncGlobalScore");
 
-                    int snapScore = snapTaskRepository.getSnapTaskScore();
-                    int roamioScore = roamioRepository.getRoamioScore().getScore();
-                    int activityScore = activityJarRepository.getActivityJarScore();
-                    Log.d(TAG, "[INIT] initializeUserDependentServices: snapScore=" + snapScore
-                            + ", roamioScore=" + roamioScore
-                            + ", activityScore=" + activityScore
-                            + ", globalScore should be =" + (snapScore + roamioScore + activityScore));
-                    int globalScore = snapScore + roamioScore + activityScore;
-                    userRepository.setGlobalScore(globalScore);
-                    Log.d(TAG, "[INIT] initializeUserDependentServices: setGlobalScore complete, starting actual syncs");
-
                     try {
                         Log.d(TAG, "[INIT] initializeUserDependentServices: calling syncGlobalScore()");
                         userRepository.syncGlobalScore();
@@ -335,10 +305,9 @@ public class MainActivity extends AppCompatActivity {
                     userServicesInitialized = true;
                     Log.d(TAG, "[INIT] initializeUserDependentServices: All user-dependent services initialized successfully");
 
-                    // Broadcast that score sync is complete so UI can refresh
-                    Intent syncCompleteIntent = new Intent(ACTION_SCORE_SYNC_COMPLETE);
-                    LocalBroadcastManager.getInstance(MainActivity.this).sendBroadcast(syncCompleteIntent);
-                    Log.d(TAG, "[INIT] initializeUserDependentServices: Sent ACTION_SCORE_SYNC_COMPLETE broadcast");
+                    // Screens observing the synced tables (score, streak, friends) re-query once
+                    databaseProvider.getInvalidationTracker().refreshAsync();
+                    Log.d(TAG, "[INIT] initializeUserDependentServices: Requested invalidation refresh after sync");
                 } catch (Exception e) {
                     Log.e(TAG, "[INIT] initializeUserDependentServices: EXCEPTION during initialization!", e);
                 }
@@ -382,34 +351,7 @@ public class MainActivity extends AppCompatActivity {
         Intent i = new Intent(this, MusicService.class);
         i.setAction(MusicService.ACTION_RESUME);
         startService(i);
-
-        // Skip score update if repositories aren't initialized yet
-        if (snapTaskRepository == null || roamioRepository == null ||
-            activityJarRepository == null || userRepository == null) {
-            Log.w(TAG, "onResume: Repositories not initialized yet, skipping score update");
-            return;
-        }
-
-        ExecutorService executor = Executors.newSingleThreadExecutor();
-        executor.execute(() -> {
-                    try {
-                        Log.d(TAG, "[RESUME] onResume: Starting score recalculation");
-
-                        int snapScore = snapTaskRepository.getSnapTaskScore();
-                        int roamioScore = roamioRepository.getRoamioScore().getScore();
-                        int activityScore = activityJarRepository.getActivityJarScore();
-                        Log.d(TAG, "[RESUME] onResume: snapScore=" + snapScore
-                                + ", roamioScore=" + roamioScore
-                                + ", activityScore=" + activityScore
-                                + ", globalScore should be =" + (snapScore + roamioScore + activityScore));
-                        int globalScore = snapScore + roamioScore + activityScore;
-                        userRepository.setGlobalScore(globalScore);
-                    } catch (Exception e) {
-                        Log.e(TAG, "[RESUME] onResume: EXCEPTION during score recalculation!", e);
-                    }
-                }
-        );
-        executor.shutdown();
+        // Global score no longer needs recomputing here; score_events keeps it materialized.
     }
 
 
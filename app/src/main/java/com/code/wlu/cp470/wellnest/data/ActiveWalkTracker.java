@@ -0,0 +1,155 @@
+package com.code.wlu.cp470.wellnest.data;
+
+import android.location.Location;
+
+import com.code.wlu.cp470.wellnest.data.local.managers.ActiveWalkManager;
+
+import java.util.concurrent.Executor;
+import java.util.function.LongSupplier;
+
+/**
+ * Keeps the progress of the walk in progress and checkpoints it to current_walk.
+ * <p>
+ * Location fixes arrive every few seconds, so progress is kept in memory and only written
+ * when at least {@code minIntervalMs} has passed or the walker has covered another
+ * {@code minDistanceMeters} since the last write; fixes in between are coalesced into the
+ * next write. {@link #flush()} writes whatever is pending (call it when the screen goes to
+ * the background). If the process dies, at most one interval of progress is lost.
+ * <p>
+ * Checkpoints are handed to {@code writer} (a background executor in the app) so the
+ * location callbacks never wait on the database; {@link #flushNow()} writes on the calling
+ * thread for when that executor has already been shut down.
+ * <p>
+ * Not thread-safe: feed it from one thread (the location callbacks run on the main looper).
+ */
+public final class ActiveWalkTracker {
+
+    public static final long DEFAULT_MIN_INTERVAL_MS = 15_000L;
+    public static final double DEFAULT_MIN_DISTANCE_METERS = 50d;
+
+    private final ActiveWalkManager store;
+    private final RoamioModels.ActiveWalk activeWalk;
+    private final Executor writer;
+    private final LongSupplier clock;
+    private final long minIntervalMs;
+    private final double minDistanceMeters;
+
+    private int steps;
+    private double distanceMeters;
+    private boolean dirty;
+    private long lastWriteMs;
+    private double lastWrittenDistanceMeters;
+    private double lastLatitude = Double.NaN;
+    private double lastLongitude = Double.NaN;
+    private int writeCount;
+
+    public ActiveWalkTracker(ActiveWalkManager store, RoamioModels.ActiveWalk activeWalk, Executor writer) {
+        this(store, activeWalk, writer, System::currentTimeMillis, DEFAULT_MIN_INTERVAL_MS,
+                DEFAULT_MIN_DISTANCE_METERS);
+    }
+
+    public ActiveWalkTracker(ActiveWalkManager store, RoamioModels.ActiveWalk activeWalk, Executor writer,
+                             LongSupplier clock, long minIntervalMs, double minDistanceMeters) {
+        if (store == null) throw new IllegalArgumentException("store == null");
+        if (activeWalk == null) throw new IllegalArgumentException("activeWalk == null");
+        if (writer == null) throw new IllegalArgumentException("writer == null");
+        if (clock == null) throw new IllegalArgumentException("clock == null");
+        this.store = store;
+        this.activeWalk = activeWalk;
+        this.writer = writer;
+        this.clock = clock;
+        this.minIntervalMs = minIntervalMs;
+        this.minDistanceMeters = minDistanceMeters;
+
+        // resume from the last checkpoint (a restored walk) or from zero (a new one)
+        this.steps = activeWalk.getLastKnownSteps();
+        this.distanceMeters = activeWalk.getLastKnownDistanceMeters();
+        this.lastWriteMs = activeWalk.getLastUpdatedMs();
+        this.lastWrittenDistanceMeters = distanceMeters;
+    }
+
+    public RoamioModels.ActiveWalk getActiveWalk() {
+        return activeWalk;
+    }
+
+    public int getSteps() {
+        return steps;
+    }
+
+    public double getDistanceMeters() {
+        return distanceMeters;
+    }
+
+    /**
+     * Number of checkpoints handed to the writer (for tests/logging).
+     */
+    public int getWriteCount() {
+        return writeCount;
+    }
+
+    /**
+     * Adds the distance from the previous fix. The first fix after a start or restore only
+     * sets the reference point.
+     */
+    public void onLocationFix(double latitude, double longitude) {
+        if (!Double.isNaN(lastLatitude)) {
+            float[] results = new float[1];
+            Location.distanceBetween(lastLatitude, lastLongitude, latitude, longitude, results);
+            distanceMeters += results[0];
+        }
+        lastLatitude = latitude;
+        lastLongitude = longitude;
+        onProgress(steps, distanceMeters);
+    }
+
+    /**
+     * Records the latest totals for the walk, writing them if the throttle allows.
+     */
+    public void onProgress(int steps, double distanceMeters) {
+        this.steps = steps;
+        this.distanceMeters = distanceMeters;
+        dirty = true;
+
+        long now = clock.getAsLong();
+        if (now - lastWriteMs >= minIntervalMs
+                || distanceMeters - lastWrittenDistanceMeters >= minDistanceMeters) {
+            write(now);
+        }
+    }
+
+    /**
+     * Writes any progress that has not been checkpointed yet.
+     */
+    public void flush() {
+        if (dirty) write(clock.getAsLong());
+    }
+
+    /**
+     * Writes the latest progress on the calling thread, whether or not it is pending: a
+     * checkpoint queued on a writer that has since been shut down may never have run. A
+     * queued checkpoint that runs later is older, so current_walk ignores it.
+     */
+    public void flushNow() {
+        long now = clock.getAsLong();
+        store.checkpoint(activeWalk.getId(), steps, distanceMeters, now);
+        record(now);
+    }
+
+    private void write(long now) {
+        long id = activeWalk.getId();
+        int steps = this.steps;
+        double distanceMeters = this.distanceMeters;
+        writer.execute(() -> store.checkpoint(id, steps, distanceMeters, now));
+        record(now);
+    }
+
+    private void record(long now) {
+        activeWalk.setLastKnownSteps(steps);
+        activeWalk.setLastKnownDistanceMeters(distanceMeters);
+        activeWalk.setLastUpdatedMs(now);
+        lastWriteMs = now;
+        lastWrittenDistanceMeters = distanceMeters;
+        dirty = false;
+        writeCount++;
+    }
+}
@@ -1,5 +1,10 @@
 package com.code.wlu.cp470.wellnest.data;
 
+import com.code.wlu.cp470.wellnest.utils.GeoHash;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
 public class ActivityJarModels {
 
     public static enum Category {
@@ -37,6 +42,8 @@ public class ActivityJarModels {
     }
 
     public static final class Activity {
+        // activity_jar_activities row id; 0 until the activity is cached
+        private long id;
         private String category;
         private String emoji;
         private String title;
@@ -55,6 +62,14 @@ public class ActivityJarModels {
             this.url = url;
         }
 
+        public long getId() {
+            return id;
+        }
+
+        public void setId(long id) {
+            this.id = id;
+        }
+
         public String getCategory() {
             return category;
         }
@@ -112,4 +127,159 @@ public class ActivityJarModels {
             this.url = url;
         }
     }
+
+    /**
+     * Part of the day a set of activities was planned for. Together the windows cover all 24
+     * hours, so late at night is a window of its own rather than "no window".
+     */
+    public static enum TimeWindow {
+        Morning,   // 08:00-12:59
+        Afternoon, // 13:00-17:59
+        Evening,   // 18:00-20:59
+        Night;     // 21:00-07:59
+
+        public static TimeWindow of(LocalTime time) {
+            int hour = time.getHour();
+            if (hour >= 8 && hour < 13) return Morning;
+            if (hour >= 13 && hour < 18) return Afternoon;
+            if (hour >= 18 && hour < 21) return Evening;
+            return Night;
+        }
+    }
+
+    /**
+     * Coarse weather, as far as it changes which activities make sense.
+     */
+    public static enum WeatherBucket {
+        Clear,
+        Cloudy,
+        Wet,
+        Snow,
+        Storm,
+        Unknown;
+
+        /**
+         * Buckets an Open-Meteo / WMO weather code (-1 if unknown).
+         */
+        public static WeatherBucket fromWeatherCode(int code) {
+            if (code < 0) return Unknown;
+            if (code <= 2) return Clear;
+            if (code == 3 || (code >= 45 && code <= 48)) return Cloudy;
+            if ((code >= 51 && code <= 67) || (code >= 80 && code <= 82)) return Wet;
+            if ((code >= 71 && code <= 77) || (code >= 85 && code <= 86)) return Snow;
+            if (code >= 95) return Storm;
+            return Unknown;
+        }
+    }
+
+    /**
+     * Where the user is and what the weather is like there: everything the activity plan
+     * depends on apart from the time.
+     */
+    public static final class PlanContext {
+        private final double latitude;
+        private final double longitude;
+        private final String weatherSummary;
+        private final int weatherCode;
+        private final String locationName;
+
+        public PlanContext(double latitude, double longitude, String weatherSummary, int weatherCode) {
+            this(latitude, longitude, weatherSummary, weatherCode, null);
+        }
+
+        public PlanContext(double latitude, double longitude, String weatherSummary, int weatherCode,
+                           String locationName) {
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.weatherSummary = weatherSummary;
+            this.weatherCode = weatherCode;
+            this.locationName = locationName;
+        }
+
+        public double getLatitude() {
+            return latitude;
+        }
+
+        public double getLongitude() {
+            return longitude;
+        }
+
+        public String getWeatherSummary() {
+            return weatherSummary;
+        }
+
+        /**
+         * The WMO weather code, or -1 if the weather could not be fetched.
+         */
+        public int getWeatherCode() {
+            return weatherCode;
+        }
+
+        /**
+         * The place name, or null if it was not looked up or could not be resolved.
+         */
+        public String getLocationName() {
+            return locationName;
+        }
+    }
+
+    /**
+     * Identifies a cached set of activities: the geohash cell the user was in, the time window
+     * and the weather bucket. Activities planned under the same key are interchangeable.
+     */
+    public static final class CacheKey {
+        // ~1.2 x 0.6 km: home and work land in different cells, a walk around the block does not
+        public static final int GEOHASH_PRECISION = 6;
+
+        private final String geohash;
+        private final TimeWindow timeWindow;
+        private final WeatherBucket weatherBucket;
+
+        public CacheKey(String geohash, TimeWindow timeWindow, WeatherBucket weatherBucket) {
+            if (geohash == null || timeWindow == null || weatherBucket == null)
+                throw new IllegalArgumentException("cache key parts cannot be null");
+            this.geohash = geohash;
+            this.timeWindow = timeWindow;
+            this.weatherBucket = weatherBucket;
+        }
+
+        public static CacheKey of(PlanContext context, LocalDateTime when) {
+            return new CacheKey(
+                    GeoHash.encode(context.getLatitude(), context.getLongitude(), GEOHASH_PRECISION),
+                    TimeWindow.of(when.toLocalTime()),
+                    WeatherBucket.fromWeatherCode(context.getWeatherCode()));
+        }
+
+        public String getGeohash() {
+            return geohash;
+        }
+
+        public TimeWindow getTimeWindow() {
+            return timeWindow;
+        }
+
+        public WeatherBucket getWeatherBucket() {
+            return weatherBucket;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof CacheKey)) return false;
+            CacheKey other = (CacheKey) o;
+            return geohash.equals(other.geohash)
+                    && timeWindow == other.timeWindow
+                    && weatherBucket == other.weatherBucket;
+        }
+
+        @Override
+        public int hashCode() {
+            return (geohash.hashCode() * 31 + timeWindow.hashCode()) * 31 + weatherBucket.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return geohash + "/" + timeWindow + "/" + weatherBucket;
+        }
+    }
 }
@@ -0,0 +1,226 @@
+package com.code.wlu.cp470.wellnest.data;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+
+import com.code.wlu.cp470.wellnest.data.local.DatabaseProvider;
+import com.code.wlu.cp470.wellnest.data.local.managers.ActivityJarCacheManager;
+import com.code.wlu.cp470.wellnest.utils.CancellationToken;
+import com.code.wlu.cp470.wellnest.utils.SingleFlight;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Application-scoped entry point for generating activity jar plans.
+ * <p>
+ * The startup prefetch and the jar screen both need the activities for the same
+ * {@link ActivityJarModels.CacheKey}. Plans go through a {@link SingleFlight} keyed on it: while
+ * one caller runs the pipeline (location name, web search, two model calls), any other caller
+ * for that key waits for and shares its result instead of starting a second pipeline, and
+ * the result is cached exactly once. {@link #getProgress()} reports how far the running plan
+ * is, whoever started it. Looking up the location and weather that make up the key is
+ * shared the same way.
+ * <p>
+ * A caller that no longer wants a plan (its screen went away) cancels its token and returns
+ * at once. The shared run is only cancelled once every caller waiting for it has cancelled,
+ * so the jar screen closing does not abort a plan the startup prefetch is also waiting for.
+ */
+public final class ActivityJarPlanner {
+
+    private static final String TAG = "ActivityJarPlanner";
+
+    private static volatile ActivityJarPlanner instance;
+
+    private final ActivityJarCacheManager cache;
+    private final Locator locator;
+    private final Pipeline pipeline;
+    private final SingleFlight<String, ActivityJarModels.PlanContext> locating = new SingleFlight<>();
+    private final SingleFlight<ActivityJarModels.CacheKey,
+            Map<ActivityJarModels.Category, List<ActivityJarModels.Activity>>> flights = new SingleFlight<>();
+    private final MutableLiveData<Progress> progress = new MutableLiveData<>();
+
+    /**
+     * @param locator  Gets the user's location and weather ({@link WellnestAiClient#getPlanContext}).
+     * @param pipeline Plans activities for a location and weather.
+     */
+    public ActivityJarPlanner(ActivityJarCacheManager cache,
+                              Locator locator, Pipeline pipeline) {
+        if (cache == null) throw new IllegalArgumentException("cache == null");
+        if (locator == null) throw new IllegalArgumentException("locator == null");
+        if (pipeline == null) throw new IllegalArgumentException("pipeline == null");
+        this.cache = cache;
+        this.locator = locator;
+        this.pipeline = pipeline;
+    }
+
+    /**
+     * Returns the process-wide planner, backed by {@link WellnestAiClient#planThingsToDo}.
+     */
+    public static ActivityJarPlanner get(Context context) {
+        ActivityJarPlanner local = instance;
+        if (local == null) {
+            synchronized (ActivityJarPlanner.class) {
+                local = instance;
+                if (local == null) {
+                    Context appContext = context.getApplicationContext();
+                    WellnestAiClient client = WellnestAiClient.get(appContext);
+                    local = new ActivityJarPlanner(
+                            DatabaseProvider.get(appContext).getActivityJarCacheManager(),
+                            client::getPlanContext,
+                            client::planThingsToDo);
+                    instance = local;
+                }
+            }
+        }
+        return local;
+    }
+
+    /**
+     * The user's location and the weather there, to build a {@link ActivityJarModels.CacheKey}
+     * from. Callers that ask while a lookup is running share it.
+     * <p>
+     * Blocks; call from a background thread.
+     *
+     * @return The location and weather, or null if the location cannot be obtained.
+     * @throws Exception If location permission is missing or the lookup failed.
+     */
+    public ActivityJarModels.PlanContext locate() throws Exception {
+        return locate(CancellationToken.NONE);
+    }
+
+    /**
+     * {@link #locate()} for a caller that may cancel.
+     *
+     * @throws CancellationToken.CancelledException If {@code token} was cancelled first.
+     */
+    public ActivityJarModels.PlanContext locate(CancellationToken token) throws Exception {
+        return locating.run("current", locator::locate, token);
+    }
+
+    /**
+     * Returns the activities for {@code key}: the cached ones if there are any, otherwise the
+     * result of running the pipeline, which is then cached. If a plan for {@code key} is
+     * already running, waits for it and returns its result instead.
+     * <p>
+     * Blocks; call from a background thread.
+     *
+     * @return The activities by category, or null if the pipeline produced none.
+     * @throws Exception Whatever the pipeline failed with.
+     */
+    public Map<ActivityJarModels.Category, List<ActivityJarModels.Activity>> plan(
+            ActivityJarModels.CacheKey key, ActivityJarModels.PlanContext planContext) throws Exception {
+        return plan(key, planContext, CancellationToken.NONE);
+    }
+
+    /**
+     * {@link #plan(ActivityJarModels.CacheKey, ActivityJarModels.PlanContext)} for a caller
+     * that may cancel.
+     *
+     * @throws CancellationToken.CancelledException If {@code token} was cancelled first.
+     */
+    public Map<ActivityJarModels.Category, List<ActivityJarModels.Activity>> plan(
+            ActivityJarModels.CacheKey key, ActivityJarModels.PlanContext planContext,
+            CancellationToken token) throws Exception {
+        if (key == null) throw new IllegalArgumentException("key == null");
+        if (planContext == null) throw new IllegalArgumentException("planContext == null");
+        if (flights.isInFlight(key)) Log.d(TAG, "plan: joining the plan already running for " + key);
+
+        return flights.run(key, flight -> {
+            // A plan that finished just before this one started has already filled the cache
+            ActivityJarCacheManager.CacheEntry cached = cache.getCachedData(key);
+            if (cached != null && !cached.activities.isEmpty()) return cached.activities;
+
+            progress.postValue(new Progress(key, 0, "Starting...", true));
+            try {
+                Map<ActivityJarModels.Category, List<ActivityJarModels.Activity>> result =
+                        pipeline.plan(planContext, (percent, message) ->
+                                progress.postValue(new Progress(key, percent, message, true)), flight);
+                if (result != null) {
+                    // first, so the cards carry their row ids
+                    cache.saveCache(key, result, planContext.getWeatherSummary());
+                }
+                progress.postValue(new Progress(key, 100, result != null ? "Ready!" : "No activities found", false));
+                return result;
+            } catch (CancellationToken.CancelledException e) {
+                progress.postValue(new Progress(key, 100, "Cancelled", false));
+                throw e;
+            } catch (Exception e) {
+                progress.postValue(new Progress(key, 100, "Failed: " + e.getMessage(), false));
+                throw e;
+            }
+        }, token);
+    }
+
+    /**
+     * Whether a plan for {@code key} is running right now.
+     */
+    public boolean isPlanning(ActivityJarModels.CacheKey key) {
+        return flights.isInFlight(key);
+    }
+
+    /**
+     * Progress of the most recently started plan.
+     */
+    public LiveData<Progress> getProgress() {
+        return progress;
+    }
+
+    /**
+     * Looks up the location and weather: {@link WellnestAiClient#getPlanContext} outside of tests.
+     */
+    public interface Locator {
+        /**
+         * @param token Cancelled once no caller wants the result any more.
+         */
+        ActivityJarModels.PlanContext locate(CancellationToken token) throws Exception;
+    }
+
+    /**
+     * The network part of a plan: {@link WellnestAiClient#planThingsToDo} outside of tests.
+     */
+    public interface Pipeline {
+        /**
+         * @param token Cancelled once no caller wants the plan any more.
+         */
+        Map<ActivityJarModels.Category, List<ActivityJarModels.Activity>> plan(
+                ActivityJarModels.PlanContext planContext, WellnestAiClient.ProgressCallback callback,
+                CancellationToken token) throws Exception;
+    }
+
+    /**
+     * Where a plan is up to.
+     */
+    public static final class Progress {
+        private final ActivityJarModels.CacheKey key;
+        private final int percent;
+        private final String message;
+        private final boolean running;
+
+        public Progress(ActivityJarModels.CacheKey key, int percent, String message, boolean running) {
+            this.key = key;
+            this.percent = percent;
+            this.message = message;
+            this.running = running;
+        }
+
+        public ActivityJarModels.CacheKey getKey() {
+            return key;
+        }
+
+        public int getPercent() {
+            return percent;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        public boolean isRunning() {
+            return running;
+        }
+    }
+}
@@ -5,6 +5,8 @@ import android.content.SharedPreferences;
 import android.database.sqlite.SQLiteDatabase;
 import android.util.Log;
 
+import com.code.wlu.cp470.wellnest.data.local.DatabaseProvider;
+import com.code.wlu.cp470.wellnest.data.local.SessionStore;
 import com.code.wlu.cp470.wellnest.data.local.managers.ActivityJarManager;
 import com.code.wlu.cp470.wellnest.data.remote.managers.FirebaseUserManager;
 
@@ -20,8 +22,6 @@ public class ActivityJarRepository {
 
     private static final String TAG = "ActivityJarRepository";
     private static final String PREFS = "activityJar_repo_prefs";
-    private static final String USER_REPO_PREFS = "user_repo_prefs";
-    private static final String PREFS_UID = "uid";
     private static final String KEY_LAST_SYNC_ACTIVITY_JAR_SCORE_DAY_PREFIX = "last_sync_activity_jar_score_epoch_day_";
 
     private final ActivityJarManager activityJarManager;
@@ -29,6 +29,7 @@ public class ActivityJarRepository {
     private final Context context;
     private final SharedPreferences prefs;
     private final FirebaseUserManager remote;
+    private final SessionStore session;
 
     /**
      * Constructor for full dependency injection (recommended for production).
@@ -42,17 +43,27 @@ public class ActivityJarRepository {
         this.remote = remoteManager;
         this.executor = Executors.newSingleThreadExecutor();
         this.prefs = this.context.getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+        this.session = DatabaseProvider.get(this.context).getSessionStore();
     }
 
     /**
      * Legacy constructor for backwards compatibility (creates its own local manager).
      */
     public ActivityJarRepository(SQLiteDatabase db) {
-        this.activityJarManager = new ActivityJarManager(db);
+        this(new ActivityJarManager(db));
+    }
+
+    /**
+     * Local-only constructor that reuses an existing (shared) local manager.
+     */
+    public ActivityJarRepository(ActivityJarManager localManager) {
+        if (localManager == null) throw new IllegalArgumentException("localManager == null");
+        this.activityJarManager = localManager;
         this.executor = Executors.newSingleThreadExecutor();
         this.context = null;
         this.prefs = null;
         this.remote = null;
+        this.session = null;
     }
 
     public void addScore(int points, ScoreCallback callback) {
@@ -85,11 +96,9 @@ public class ActivityJarRepository {
         }
 
         try {
-            // Get UID from UserRepository's SharedPreferences
-            SharedPreferences userPrefs = context.getSharedPreferences(USER_REPO_PREFS, Context.MODE_PRIVATE);
-            String uid = userPrefs.getString(PREFS_UID, null);
+            String uid = session.getUid();
 
-            if (uid == null || uid.isEmpty()) {
+            if (uid == null) {
                 Log.w(TAG, "syncScoreToFirebaseAsync: uid is null/empty, skipping Firebase sync");
                 return;
             }
@@ -170,12 +179,10 @@ public class ActivityJarRepository {
             return;
         }
 
-        // Read uid from UserRepository's SharedPreferences
-        SharedPreferences userPrefs = context.getSharedPreferences(USER_REPO_PREFS, Context.MODE_PRIVATE);
-        String uid = userPrefs.getString(PREFS_UID, null);
+        String uid = session.getUid();
 
-        if (uid == null || uid.isEmpty()) {
-            Log.w(TAG, "syncActivityJarScoreOnceDaily: uid is null/empty in UserRepository prefs, skipping");
+        if (uid == null) {
+            Log.w(TAG, "syncActivityJarScoreOnceDaily: nobody is signed in, skipping");
             return;
         }
 
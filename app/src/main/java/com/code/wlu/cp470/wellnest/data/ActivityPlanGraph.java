@@ -0,0 +1,491 @@
+package com.code.wlu.cp470.wellnest.data;
+
+import android.util.Log;
+
+import com.code.wlu.cp470.wellnest.utils.Deadline;
+import com.code.wlu.cp470.wellnest.utils.StageGraph;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.LongSupplier;
+
+/**
+ * The "things to do" pipeline behind {@link WellnestAiClient#planThingsToDo}, run as a
+ * {@link StageGraph}:
+ * <pre>
+ *   location ──► weather ────────────────────────────┐
+ *       └──────► location name ──► web search ───────┴──► synthesis
+ * </pre>
+ * Weather and reverse geocoding only need the coordinates, and the search query only needs the
+ * place name, so the weather fetch overlaps geocoding and the search; a plan takes as long as
+ * its longest chain instead of the sum of all five calls.
+ * <p>
+ * Weather and the place name are nice-to-haves: if either fails or times out the plan goes on
+ * without it ("weather unavailable", or the coordinates instead of a name). The location, the
+ * search and the synthesis are required.
+ * <p>
+ * A plan may be given a {@link Deadline}. Every stage's timeout is then cut to the time left,
+ * and the stages before the synthesis must leave it {@link Timeouts#synthesisReserveMs}: the
+ * optional ones are skipped when that is gone, and a search that runs out of time is dropped,
+ * the synthesis falling back to a prompt that does without search results.
+ */
+public final class ActivityPlanGraph {
+
+    private static final String TAG = "ActivityPlanGraph";
+
+    // Shared by every plan; the stages are network calls, a handful at a time is plenty
+    private static final ExecutorService STAGE_EXECUTOR = Executors.newFixedThreadPool(4);
+    private static final ScheduledExecutorService TIMEOUTS = Executors.newSingleThreadScheduledExecutor();
+
+    private final Stages stages;
+    private final Timeouts timeouts;
+    private final ExecutorService executor;
+    private final ScheduledExecutorService timer;
+    private final LongSupplier clock;
+    private final SearchResultCompactor compactor;
+
+    /**
+     * @param clock     Wall-clock time in ms since the epoch, for the date in the prompts.
+     * @param compactor Fits the search results into the synthesis prompt's budget.
+     */
+    public ActivityPlanGraph(Stages stages, LongSupplier clock, SearchResultCompactor compactor) {
+        this(stages, Timeouts.DEFAULT, STAGE_EXECUTOR, TIMEOUTS, clock, compactor);
+    }
+
+    public ActivityPlanGraph(Stages stages, Timeouts timeouts,
+                             ExecutorService executor, ScheduledExecutorService timer) {
+        this(stages, timeouts, executor, timer, System::currentTimeMillis);
+    }
+
+    public ActivityPlanGraph(Stages stages, Timeouts timeouts, ExecutorService executor,
+                             ScheduledExecutorService timer, LongSupplier clock) {
+        this(stages, timeouts, executor, timer, clock, SearchResultCompactor.DEFAULT);
+    }
+
+    public ActivityPlanGraph(Stages stages, Timeouts timeouts, ExecutorService executor,
+                             ScheduledExecutorService timer, LongSupplier clock,
+                             SearchResultCompactor compactor) {
+        if (stages == null) throw new IllegalArgumentException("stages == null");
+        if (timeouts == null) throw new IllegalArgumentException("timeouts == null");
+        if (clock == null) throw new IllegalArgumentException("clock == null");
+        if (compactor == null) throw new IllegalArgumentException("compactor == null");
+        this.stages = stages;
+        this.timeouts = timeouts;
+        this.executor = executor;
+        this.timer = timer;
+        this.clock = clock;
+        this.compactor = compactor;
+    }
+
+    // ------------------------------------------------------------
+    // Entry points
+    // ------------------------------------------------------------
+
+    /**
+     * Location, then weather and place name side by side.
+     *
+     * @return The plan context, or null if the location cannot be obtained.
+     */
+    public ActivityJarModels.PlanContext locate(WellnestAiClient.ProgressCallback callback) throws Exception {
+        return locate(callback, Deadline.NONE);
+    }
+
+    /**
+     * {@link #locate(WellnestAiClient.ProgressCallback)} within {@code deadline}.
+     */
+    public ActivityJarModels.PlanContext locate(WellnestAiClient.ProgressCallback callback, Deadline deadline)
+            throws Exception {
+        StageGraph graph = new StageGraph(executor, timer);
+        CompletableFuture<double[]> where = locationStage(graph, deadline, callback);
+        CompletableFuture<JSONObject> weather = weatherStage(graph, deadline, where, callback);
+        CompletableFuture<String> name = locationNameStage(graph, deadline, where);
+
+        double[] coordinates = StageGraph.await(where);
+        if (coordinates == null) return null;
+        JSONObject currentWeather = StageGraph.await(weather);
+        String locationName = StageGraph.await(name);
+        Log.d(TAG, "locate: finished at (ms) " + graph.getFinishTimes());
+        return new ActivityJarModels.PlanContext(coordinates[0], coordinates[1],
+                WellnestAiClient.weatherSummary(currentWeather),
+                currentWeather != null ? currentWeather.optInt("weathercode", -1) : -1,
+                locationName);
+    }
+
+    /**
+     * The whole graph, from the user's location to categorized activities.
+     *
+     * @return Activities by category, or null if the model's answer was not usable JSON.
+     * @throws IOException If the location cannot be obtained or a required stage failed.
+     */
+    public Map<ActivityJarModels.Category, List<ActivityJarModels.Activity>> plan(
+            WellnestAiClient.ProgressCallback callback) throws Exception {
+        return plan(callback, Deadline.NONE);
+    }
+
+    /**
+     * {@link #plan(WellnestAiClient.ProgressCallback)} within {@code deadline}.
+     */
+    public Map<ActivityJarModels.Category, List<ActivityJarModels.Activity>> plan(
+            WellnestAiClient.ProgressCallback callback, Deadline deadline) throws Exception {
+        StageGraph graph = new StageGraph(executor, timer);
+        String isoDate = WellnestAiClient.isoDateTime(clock.getAsLong());
+        Deadline beforeSynthesis = deadline.reserving(timeouts.synthesisReserveMs);
+
+        CompletableFuture<double[]> where = locationStage(graph, deadline, callback);
+        CompletableFuture<String> weatherSummary =
+                weatherStage(graph, beforeSynthesis, where, callback).thenApply(WellnestAiClient::weatherSummary);
+        CompletableFuture<String> name = locationNameStage(graph, beforeSynthesis, where);
+        CompletableFuture<JSONObject> results =
+                searchStage(graph, beforeSynthesis, where, name, isoDate, callback);
+        CompletableFuture<Map<ActivityJarModels.Category, List<ActivityJarModels.Activity>>> plan =
+                synthesisStage(graph, deadline, name, weatherSummary, results, isoDate, callback);
+        return finish(graph, plan, callback);
+    }
+
+    /**
+     * The graph after {@link #locate}: the place name if it is not known yet, the search and
+     * the synthesis.
+     *
+     * @return Activities by category, or null if the model's answer was not usable JSON.
+     */
+    public Map<ActivityJarModels.Category, List<ActivityJarModels.Activity>> plan(
+            ActivityJarModels.PlanContext planContext, WellnestAiClient.ProgressCallback callback)
+            throws Exception {
+        return plan(planContext, callback, Deadline.NONE);
+    }
+
+    /**
+     * {@link #plan(ActivityJarModels.PlanContext, WellnestAiClient.ProgressCallback)} within
+     * {@code deadline}.
+     */
+    public Map<ActivityJarModels.Category, List<ActivityJarModels.Activity>> plan(
+            ActivityJarModels.PlanContext planContext, WellnestAiClient.ProgressCallback callback,
+            Deadline deadline) throws Exception {
+        StageGraph graph = new StageGraph(executor, timer);
+        String isoDate = WellnestAiClient.isoDateTime(clock.getAsLong());
+        Deadline beforeSynthesis = deadline.reserving(timeouts.synthesisReserveMs);
+
+        CompletableFuture<double[]> where = StageGraph.known(
+                new double[]{planContext.getLatitude(), planContext.getLongitude()});
+        CompletableFuture<String> name = planContext.getLocationName() != null
+                ? StageGraph.known(planContext.getLocationName())
+                : locationNameStage(graph, beforeSynthesis, where);
+        CompletableFuture<JSONObject> results =
+                searchStage(graph, beforeSynthesis, where, name, isoDate, callback);
+        CompletableFuture<Map<ActivityJarModels.Category, List<ActivityJarModels.Activity>>> plan =
+                synthesisStage(graph, deadline, name, StageGraph.known(planContext.getWeatherSummary()),
+                        results, isoDate, callback);
+        return finish(graph, plan, callback);
+    }
+
+    private static Map<ActivityJarModels.Category, List<ActivityJarModels.Activity>> finish(
+            StageGraph graph,
+            CompletableFuture<Map<ActivityJarModels.Category, List<ActivityJarModels.Activity>>> plan,
+            WellnestAiClient.ProgressCallback callback) throws Exception {
+        try {
+            Map<ActivityJarModels.Category, List<ActivityJarModels.Activity>> result = StageGraph.await(plan);
+            if (callback != null) callback.onProgress(90, "Filling the jar...");
+            return result;
+        } finally {
+            Log.d(TAG, "plan: finished at (ms) " + graph.getFinishTimes());
+        }
+    }
+
+    // ------------------------------------------------------------
+    // Stages
+    // ------------------------------------------------------------
+
+    private CompletableFuture<double[]> locationStage(StageGraph graph, Deadline deadline,
+                                                      WellnestAiClient.ProgressCallback callback) {
+        return graph.stage("location", () -> deadline.cap(timeouts.locationMs), null, () -> {
+            if (callback != null) callback.onProgress(10, "Finding your location...");
+            return stages.locate();
+        });
+    }
+
+    private CompletableFuture<JSONObject> weatherStage(StageGraph graph, Deadline deadline,
+                                                       CompletableFuture<double[]> where,
+                                                       WellnestAiClient.ProgressCallback callback) {
+        return graph.stage("weather", () -> deadline.cap(timeouts.weatherMs), cause -> {
+            Log.w(TAG, "weather: going on without it", cause);
+            return null;
+        }, () -> {
+            double[] c = StageGraph.valueOf(where);
+            if (c == null) return null;
+            if (callback != null) callback.onProgress(20, "Checking weather conditions...");
+            return stages.currentWeather(c[0], c[1]);
+        }, where);
+    }
+
+    private CompletableFuture<String> locationNameStage(StageGraph graph, Deadline deadline,
+                                                        CompletableFuture<double[]> where) {
+        return graph.stage("location name", () -> deadline.cap(timeouts.locationNameMs), cause -> {
+            Log.w(TAG, "location name: going on with coordinates", cause);
+            return null;
+        }, () -> {
+            double[] c = StageGraph.valueOf(where);
+            return c == null ? null : stages.locationName(c[0], c[1]);
+        }, where);
+    }
+
+    // Resolves to null if the deadline left no time to search
+    private CompletableFuture<JSONObject> searchStage(StageGraph graph, Deadline deadline,
+                                                      CompletableFuture<double[]> where,
+                                                      CompletableFuture<String> name, String isoDate,
+                                                      WellnestAiClient.ProgressCallback callback) {
+        return graph.stage("search", () -> deadline.cap(timeouts.searchMs), cause -> {
+            if (!(cause instanceof TimeoutException) || !deadline.isBounded()) throw cause;
+            Log.w(TAG, "search: out of time, planning without results", cause);
+            return null;
+        }, () -> {
+            double[] c = StageGraph.valueOf(where);
+            if (c == null) throw new IOException("Unable to obtain current location");
+            if (callback != null) callback.onProgress(40, "Searching for things to do...");
+            return stages.search(searchQuery(place(StageGraph.valueOf(name), c), isoDate));
+        }, where, name);
+    }
+
+    private CompletableFuture<Map<ActivityJarModels.Category, List<ActivityJarModels.Activity>>> synthesisStage(
+            StageGraph graph, Deadline deadline, CompletableFuture<String> name,
+            CompletableFuture<String> weatherSummary, CompletableFuture<JSONObject> results, String isoDate,
+            WellnestAiClient.ProgressCallback callback) {
+        return graph.stage("synthesis", () -> deadline.cap(timeouts.synthesisMs), null, () -> {
+            if (callback != null) callback.onProgress(60, "Picking the best spots...");
+            JSONObject found = StageGraph.valueOf(results);
+            String prompt = found != null
+                    ? compactor.buildPrompt(synthesisPrompt(StageGraph.valueOf(name), isoDate,
+                    StageGraph.valueOf(weatherSummary)), found)
+                    : offlineSynthesisPrompt(StageGraph.valueOf(name), isoDate, StageGraph.valueOf(weatherSummary));
+            return parseActivities(stages.synthesize(prompt));
+        }, name, weatherSummary, results);
+    }
+
+    // ------------------------------------------------------------
+    // Prompts and parsing
+    // ------------------------------------------------------------
+
+    private static String place(String locationName, double[] coordinates) {
+        if (locationName != null) return locationName;
+        return String.format(Locale.US, "the area around %.4f, %.4f", coordinates[0], coordinates[1]);
+    }
+
+    // Only the place and date: the weather is applied when the results are synthesized
+    static String searchQuery(String place, String isoDate) {
+        return String.format(Locale.US,
+                "Best local things to do in %s on %s. " +
+                        "Include outdoor hikes and nature spots, nightlife bars and live music, " +
+                        "active recreation like sports or arcades, cozy coffee shops or chill " +
+                        "indoor spaces, and cultural places like museums or notable restaurants. " +
+                        "Use current, official sources.",
+                place, isoDate);
+    }
+
+    /**
+     * The synthesis prompt up to the search results, which {@link SearchResultCompactor}
+     * appends within the prompt budget.
+     */
+    static String synthesisPrompt(String locationName, String isoDate, String weatherSummary) {
+        return "Using the Tavily results (JSON below) and the context, return ONLY a valid JSON object with exactly these top-level keys: " +
+                "[\"Explore\",\"Nightlife\",\"Play\",\"Cozy\",\"Culture\"]. No commentary.\n\n" +
+
+                PLAN_SHAPE +
+
+                "Rules:\n" +
+                "- Choose ONE source URL per activity from Tavily results (prefer official sites). Use full http(s) URLs.\n" +
+                "- Activities must be realistic given the provided dateTime and weather.\n" +
+                "- Tags may include one or more of: solo, friends, family.\n" +
+                "- The emoji field must contain EXACTLY ONE emoji that best represents the activity.\n" +
+                "- Do not invent places not justified by Tavily data.\n\n" +
+
+                context(locationName, isoDate, weatherSummary) +
+                "Tavily JSON:\n";
+    }
+
+    /**
+     * The synthesis prompt for when there are no search results to go on (the deadline left no
+     * time to search): well-known places only, so the model has less to make up.
+     */
+    static String offlineSynthesisPrompt(String locationName, String isoDate, String weatherSummary) {
+        return "Using what you know about the location and the context, return ONLY a valid JSON object with exactly these top-level keys: " +
+                "[\"Explore\",\"Nightlife\",\"Play\",\"Cozy\",\"Culture\"]. No commentary.\n\n" +
+
+                PLAN_SHAPE +
+
+                "Rules:\n" +
+                "- Only suggest well-known, long-established places; if unsure of one, suggest a kind of activity instead and leave the address empty.\n" +
+                "- Use a place's official website as the url if you know it, otherwise an empty string.\n" +
+                "- Activities must be realistic given the provided dateTime and weather.\n" +
+                "- Tags may include one or more of: solo, friends, family.\n" +
+                "- The emoji field must contain EXACTLY ONE emoji that best represents the activity.\n\n" +
+
+                context(locationName, isoDate, weatherSummary);
+    }
+
+    private static String context(String locationName, String isoDate, String weatherSummary) {
+        return "Context:\n" +
+                "location: " + locationName + "\n" +
+                "dateTime: " + isoDate + "\n" +
+                "weather: " + weatherSummary + "\n\n";
+    }
+
+    // The shape of the answer, shared by both synthesis prompts
+    private static final String PLAN_SHAPE =
+                "Each key maps to an array of 3–5 objects with this exact shape:\n" +
+                "{\n" +
+                "  \"emoji\": string,\n" +
+                "  \"title\": string,\n" +
+                "  \"description\": string,\n" +
+                "  \"address\": string,\n" +
+                "  \"tags\": [\"solo\",\"friends\",\"family\"],\n" +
+                "  \"url\": string\n" +
+                "}\n\n" +
+
+                "CATEGORY DEFINITIONS (STRICT):\n" +
+                "- Explore: Outdoor, adventure-style activities (hikes, trails, viewpoints, nature walks, scenic exploration)\n" +
+                "- Nightlife: After-dark social activities (bars, lounges, live music, nightlife venues, late-night events)\n" +
+                "- Play: Active & recreational fun (sports, arcades, bowling, mini golf, physical games)\n" +
+                "- Cozy: Relaxed, low-energy comfort activities (coffee shops, reading spots, at-home vibes, calm spaces)\n" +
+                "- Culture: Intellectual & culinary experiences (museums, galleries, cultural sites, notable restaurants)\n\n";
+
+    /**
+     * Reads the synthesis answer into activities by category.
+     *
+     * @return The activities, or null if {@code json} is not a JSON object.
+     */
+    static Map<ActivityJarModels.Category, List<ActivityJarModels.Activity>> parseActivities(String json)
+            throws JSONException {
+        JSONObject root;
+        try {
+            root = new JSONObject(json);
+        } catch (Exception e) {
+            Log.e(TAG, "parseActivities: Failed to parse GPT response JSON", e);
+            return null;
+        }
+
+        Map<ActivityJarModels.Category, List<ActivityJarModels.Activity>> byCategory =
+                new EnumMap<>(ActivityJarModels.Category.class);
+
+        for (ActivityJarModels.Category category : ActivityJarModels.Category.values()) {
+
+            if (!root.has(category.name())) continue;
+
+            JSONArray activitiesArray = root.getJSONArray(category.name());
+            List<ActivityJarModels.Activity> activities = new ArrayList<>();
+
+            for (int i = 0; i < activitiesArray.length(); i++) {
+                JSONObject a = activitiesArray.getJSONObject(i);
+
+                JSONArray tagsJson = a.optJSONArray("tags");
+                String[] tags = new String[tagsJson != null ? tagsJson.length() : 0];
+                for (int t = 0; t < tags.length; t++) {
+                    tags[t] = tagsJson.getString(t);
+                }
+
+                activities.add(new ActivityJarModels.Activity(
+                        category.name(),
+                        a.optString("emoji"),
+                        a.optString("title"),
+                        a.optString("description"),
+                        a.optString("address"),
+                        tags,
+                        a.optString("url")));
+            }
+
+            byCategory.put(category, activities);
+        }
+
+        return byCategory;
+    }
+
+    // ------------------------------------------------------------
+    // Seams
+    // ------------------------------------------------------------
+
+    /**
+     * The calls the graph is made of. {@link WellnestAiClient} supplies the real ones
+     * (FusedLocationProvider, Open-Meteo, Geocoder, Tavily, OpenAI).
+     */
+    public interface Stages {
+        /**
+         * The user's {latitude, longitude}, or null if it cannot be obtained.
+         */
+        double[] locate() throws Exception;
+
+        /**
+         * Open-Meteo's "current_weather" object, or null if unavailable.
+         */
+        JSONObject currentWeather(double latitude, double longitude) throws Exception;
+
+        /**
+         * A human-readable place name, or null if unknown.
+         */
+        String locationName(double latitude, double longitude) throws Exception;
+
+        /**
+         * Web search results for {@code query}.
+         */
+        JSONObject search(String query) throws Exception;
+
+        /**
+         * The model's answer to {@code prompt}, expected to be a JSON object.
+         */
+        String synthesize(String prompt) throws Exception;
+    }
+
+    /**
+     * How long each stage may take, in ms.
+     */
+    public static final class Timeouts {
+        /**
+         * Time kept for the synthesis under a deadline unless set: one model call, no retries.
+         */
+        public static final long DEFAULT_SYNTHESIS_RESERVE_MS = TimeUnit.SECONDS.toMillis(20);
+
+        public static final Timeouts DEFAULT = new Timeouts(
+                TimeUnit.SECONDS.toMillis(20),   // location: the provider itself waits up to 15 s
+                TimeUnit.SECONDS.toMillis(8),
+                TimeUnit.SECONDS.toMillis(5),
+                TimeUnit.SECONDS.toMillis(45),
+                TimeUnit.SECONDS.toMillis(150)); // synthesis: includes the client's retries
+
+        final long locationMs;
+        final long weatherMs;
+        final long locationNameMs;
+        final long searchMs;
+        final long synthesisMs;
+        final long synthesisReserveMs;
+
+        public Timeouts(long locationMs, long weatherMs, long locationNameMs, long searchMs, long synthesisMs) {
+            this(locationMs, weatherMs, locationNameMs, searchMs, synthesisMs,
+                    Math.min(synthesisMs, DEFAULT_SYNTHESIS_RESERVE_MS));
+        }
+
+        /**
+         * @param synthesisReserveMs How much of a plan's deadline the stages before the
+         *                           synthesis must leave to it.
+         */
+        public Timeouts(long locationMs, long weatherMs, long locationNameMs, long searchMs, long synthesisMs,
+                        long synthesisReserveMs) {
+            this.locationMs = locationMs;
+            this.weatherMs = weatherMs;
+            this.locationNameMs = locationNameMs;
+            this.searchMs = searchMs;
+            this.synthesisMs = synthesisMs;
+            this.synthesisReserveMs = synthesisReserveMs;
+        }
+    }
+}
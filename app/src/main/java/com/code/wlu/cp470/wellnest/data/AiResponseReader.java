@@ -0,0 +1,169 @@
+package com.code.wlu.cp470.wellnest.data;
+
+import android.util.JsonReader;
+import android.util.JsonToken;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Decodes OpenAI and Tavily responses straight from the response stream with a
+ * {@link JsonReader}, keeping only the fields the client uses and skipping the rest without
+ * materializing it.
+ * <p>
+ * A Tavily response with raw page content runs to megabytes; reading it into a String and a
+ * JSONObject tree first (then printing the whole tree back into a prompt) allocates several
+ * times that for a handful of titles, URLs and snippets.
+ */
+public final class AiResponseReader {
+
+    private AiResponseReader() {
+        throw new AssertionError("AiResponseReader is a utility class and should not be instantiated");
+    }
+
+    /**
+     * Reads the model's text from a chat completion ({@code choices[0].message.content}) or a
+     * Responses API reply (every {@code output[].content[].text}, concatenated).
+     *
+     * @param in Response body; not closed
+     * @return The text, untrimmed
+     * @throws IOException If the body is not JSON or holds no text
+     */
+    public static String readModelText(Reader in) throws IOException {
+        JsonReader reader = new JsonReader(in);
+        try {
+            String choiceContent = null;
+            StringBuilder outputText = null;
+
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                if ("choices".equals(name) && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        String content = readChoiceContent(reader);
+                        if (choiceContent == null) choiceContent = content;
+                    }
+                    reader.endArray();
+                } else if ("output".equals(name) && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                    outputText = new StringBuilder();
+                    readOutputText(reader, outputText);
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+
+            if (choiceContent != null) return choiceContent;
+            if (outputText != null && outputText.length() > 0) return outputText.toString();
+            throw new IOException("OpenAI: no choices");
+        } catch (IllegalStateException | NumberFormatException e) {
+            throw new IOException("OpenAI parse error: " + e.getMessage(), e);
+        }
+    }
+
+    // {"index":0,"message":{"role":"assistant","content":"..."},...} -> content, or "" if absent
+    private static String readChoiceContent(JsonReader reader) throws IOException {
+        String content = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if ("message".equals(reader.nextName()) && reader.peek() == JsonToken.BEGIN_OBJECT) {
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    if ("content".equals(reader.nextName()) && reader.peek() == JsonToken.STRING) {
+                        content = reader.nextString();
+                    } else {
+                        reader.skipValue();
+                    }
+                }
+                reader.endObject();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return content != null ? content : "";
+    }
+
+    // [{"type":"message","content":[{"type":"output_text","text":"..."}]}, ...]
+    private static void readOutputText(JsonReader reader, StringBuilder out) throws IOException {
+        reader.beginArray();
+        while (reader.hasNext()) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if ("content".equals(reader.nextName()) && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        reader.beginObject();
+                        while (reader.hasNext()) {
+                            if ("text".equals(reader.nextName()) && reader.peek() == JsonToken.STRING) {
+                                out.append(reader.nextString());
+                            } else {
+                                reader.skipValue();
+                            }
+                        }
+                        reader.endObject();
+                    }
+                    reader.endArray();
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+        }
+        reader.endArray();
+    }
+
+    /**
+     * Reads a Tavily search response down to
+     * {@code {"results":[{"title","url","content","score"}]}}, skipping raw page content, images
+     * and everything else. The score is kept so {@link SearchResultCompactor} can rank by it.
+     *
+     * @param in Response body; not closed
+     * @throws IOException If the body is not a Tavily response
+     */
+    public static JSONObject readSearchResults(Reader in) throws IOException {
+        JsonReader reader = new JsonReader(in);
+        try {
+            JSONArray results = new JSONArray();
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if ("results".equals(reader.nextName()) && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        results.put(readSearchResult(reader));
+                    }
+                    reader.endArray();
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+            return new JSONObject().put("results", results);
+        } catch (IllegalStateException | NumberFormatException | JSONException e) {
+            throw new IOException("Tavily parse error: " + e.getMessage(), e);
+        }
+    }
+
+    private static JSONObject readSearchResult(JsonReader reader) throws IOException, JSONException {
+        JSONObject result = new JSONObject();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (("title".equals(name) || "url".equals(name) || "content".equals(name))
+                    && reader.peek() == JsonToken.STRING) {
+                result.put(name, reader.nextString());
+            } else if ("score".equals(name) && reader.peek() == JsonToken.NUMBER) {
+                result.put(name, reader.nextDouble());
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return result;
+    }
+}
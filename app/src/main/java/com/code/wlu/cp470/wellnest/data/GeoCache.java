@@ -0,0 +1,285 @@
+package com.code.wlu.cp470.wellnest.data;
+
+import android.util.Log;
+
+import com.code.wlu.cp470.wellnest.data.local.managers.GeoCacheManager;
+import com.code.wlu.cp470.wellnest.utils.GeoHash;
+
+import java.text.Normalizer;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Remembers weather readings and geocoding results, so an ActivityJar plan and a Roamio walk
+ * for the same neighbourhood on the same afternoon make those round trips once.
+ * <p>
+ * Two levels: a small in-memory LRU in front of the geo_cache table
+ * ({@link GeoCacheManager}), which keeps results across app restarts. Coordinates are keyed by
+ * the {@link GeoHash} cell they fall in (see {@link Kind#precision}), addresses by a
+ * normalized form of the string, and each {@link Kind} expires after its own TTL.
+ * <p>
+ * Thread-safe. Reads may hit the database, so call it off the main thread.
+ */
+public class GeoCache {
+
+    private static final String TAG = "GeoCache";
+
+    public static final int MEMORY_ENTRIES = 64;
+
+    /**
+     * Caches nothing; every lookup misses.
+     */
+    public static final GeoCache NONE = new GeoCache(null, System::currentTimeMillis, 0);
+
+    /**
+     * What is cached, with how long it stays valid and how finely coordinates are bucketed.
+     */
+    public enum Kind {
+        /**
+         * Open-Meteo's "current_weather" object, as JSON. Its model updates hourly.
+         */
+        WEATHER(TimeUnit.HOURS.toMillis(1), 5),         // ~4.9 x 4.9 km
+        /**
+         * A reverse geocode ("Waterloo, Ontario").
+         */
+        LOCATION_NAME(TimeUnit.DAYS.toMillis(30), 6),   // ~1.2 x 0.6 km
+        /**
+         * A forward geocode, as "latitude,longitude"; keyed by address.
+         */
+        COORDINATES(TimeUnit.DAYS.toMillis(30), 0);
+
+        public final long ttlMs;
+        /**
+         * Geohash characters in a coordinate key; 0 for kinds keyed by address.
+         */
+        public final int precision;
+
+        Kind(long ttlMs, int precision) {
+            this.ttlMs = ttlMs;
+            this.precision = precision;
+        }
+    }
+
+    private final GeoCacheManager store;
+    private final LongSupplier clock;
+    private final int memoryEntries;
+    private final LinkedHashMap<String, GeoCacheManager.Entry> memory;
+    private final Map<Kind, Counters> counters = new EnumMap<>(Kind.class);
+
+    public GeoCache(GeoCacheManager store) {
+        this(store, System::currentTimeMillis, MEMORY_ENTRIES);
+    }
+
+    /**
+     * @param store         The persistent level, or null to cache in memory only.
+     * @param clock         Current time in epoch ms, the same clock as {@code store}'s.
+     * @param memoryEntries Most entries kept in memory, across kinds.
+     */
+    public GeoCache(GeoCacheManager store, LongSupplier clock, int memoryEntries) {
+        if (clock == null) throw new IllegalArgumentException("clock cannot be null");
+        if (memoryEntries < 0) throw new IllegalArgumentException("memoryEntries < 0");
+        this.store = store;
+        this.clock = clock;
+        this.memoryEntries = memoryEntries;
+        this.memory = new LinkedHashMap<String, GeoCacheManager.Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, GeoCacheManager.Entry> eldest) {
+                return size() > GeoCache.this.memoryEntries;
+            }
+        };
+        for (Kind kind : Kind.values()) counters.put(kind, new Counters());
+    }
+
+    // ------------------------------------------------------------
+    // Keys
+    // ------------------------------------------------------------
+
+    /**
+     * The key of ({@code latitude}, {@code longitude}) for a coordinate-keyed kind: the cell
+     * it falls in.
+     */
+    public static String cellKey(Kind kind, double latitude, double longitude) {
+        if (kind.precision == 0) throw new IllegalArgumentException(kind + " is keyed by address");
+        return GeoHash.encode(latitude, longitude, kind.precision);
+    }
+
+    /**
+     * The key of an address: case, Unicode form, punctuation between words and extra whitespace
+     * do not matter. Null if there is nothing to look up.
+     */
+    public static String addressKey(String address) {
+        if (address == null) return null;
+        String key = Normalizer.normalize(address, Normalizer.Form.NFKC)
+                .toLowerCase(Locale.ROOT)
+                .replaceAll("[\\s,.;]+", " ")
+                .trim();
+        return key.isEmpty() ? null : key;
+    }
+
+    // ------------------------------------------------------------
+    // Lookups
+    // ------------------------------------------------------------
+
+    /**
+     * The unexpired value under ({@code kind}, {@code key}), from memory or else the database,
+     * or null if there is none.
+     */
+    public String get(Kind kind, String key) {
+        if (key == null || (store == null && memoryEntries == 0)) return null;
+        Counters count = counters.get(kind);
+        long now = clock.getAsLong();
+        String memoryKey = memoryKey(kind, key);
+        synchronized (memory) {
+            GeoCacheManager.Entry entry = memory.get(memoryKey);
+            if (entry != null && entry.expiresAt > now) {
+                count.memoryHits.incrementAndGet();
+                return entry.value;
+            }
+            if (entry != null) memory.remove(memoryKey);
+        }
+
+        GeoCacheManager.Entry stored = find(kind, key);
+        if (stored == null) {
+            count.misses.incrementAndGet();
+            Log.d(TAG, kind + " miss; " + stats(kind));
+            return null;
+        }
+        count.storeHits.incrementAndGet();
+        remember(memoryKey, stored);
+        return stored.value;
+    }
+
+    /**
+     * Stores {@code value} under ({@code kind}, {@code key}) for {@link Kind#ttlMs}. Failing
+     * to store only costs a lookup next time, so errors are logged and dropped.
+     */
+    public void put(Kind kind, String key, String value) {
+        if (key == null || value == null) return;
+        long expiresAt = clock.getAsLong() + kind.ttlMs;
+        if (store != null) {
+            try {
+                expiresAt = store.put(kind, key, value, kind.ttlMs);
+            } catch (RuntimeException e) {
+                Log.w(TAG, "Could not store " + kind, e);
+            }
+        }
+        remember(memoryKey(kind, key), new GeoCacheManager.Entry(value, expiresAt));
+    }
+
+    /**
+     * {@code geocoder} with both of its lookups answered from this cache when possible. Only
+     * results are cached; a lookup that found nothing is asked again next time.
+     */
+    public WellnestAiClient.GeocoderProvider geocoder(WellnestAiClient.GeocoderProvider geocoder) {
+        if (this == NONE) return geocoder;
+        return new WellnestAiClient.GeocoderProvider() {
+            @Override
+            public String locationName(double latitude, double longitude) {
+                String key = cellKey(Kind.LOCATION_NAME, latitude, longitude);
+                String name = get(Kind.LOCATION_NAME, key);
+                if (name != null) return name;
+                name = geocoder.locationName(latitude, longitude);
+                put(Kind.LOCATION_NAME, key, name);
+                return name;
+            }
+
+            @Override
+            public double[] coordinatesOf(String address) {
+                String key = addressKey(address);
+                double[] coordinates = parseCoordinates(get(Kind.COORDINATES, key));
+                if (coordinates != null) return coordinates;
+                coordinates = geocoder.coordinatesOf(address);
+                if (coordinates != null) {
+                    put(Kind.COORDINATES, key, coordinates[0] + "," + coordinates[1]);
+                }
+                return coordinates;
+            }
+        };
+    }
+
+    /**
+     * How lookups of {@code kind} have fared since this cache was created.
+     */
+    public Stats stats(Kind kind) {
+        Counters count = counters.get(kind);
+        return new Stats(count.memoryHits.get(), count.storeHits.get(), count.misses.get());
+    }
+
+    private GeoCacheManager.Entry find(Kind kind, String key) {
+        if (store == null) return null;
+        try {
+            return store.find(kind, key);
+        } catch (RuntimeException e) {
+            Log.w(TAG, kind + " lookup failed", e);
+            return null;
+        }
+    }
+
+    private void remember(String memoryKey, GeoCacheManager.Entry entry) {
+        if (memoryEntries == 0) return;
+        synchronized (memory) {
+            memory.put(memoryKey, entry);
+        }
+    }
+
+    private static String memoryKey(Kind kind, String key) {
+        return kind.name() + '|' + key;
+    }
+
+    private static double[] parseCoordinates(String value) {
+        if (value == null) return null;
+        int comma = value.indexOf(',');
+        if (comma < 0) return null;
+        try {
+            return new double[]{
+                    Double.parseDouble(value.substring(0, comma)),
+                    Double.parseDouble(value.substring(comma + 1))};
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static final class Counters {
+        final AtomicLong memoryHits = new AtomicLong();
+        final AtomicLong storeHits = new AtomicLong();
+        final AtomicLong misses = new AtomicLong();
+    }
+
+    /**
+     * Hit counts of one kind.
+     */
+    public static final class Stats {
+        public final long memoryHits;
+        public final long storeHits;
+        public final long misses;
+
+        public Stats(long memoryHits, long storeHits, long misses) {
+            this.memoryHits = memoryHits;
+            this.storeHits = storeHits;
+            this.misses = misses;
+        }
+
+        public long lookups() {
+            return memoryHits + storeHits + misses;
+        }
+
+        /**
+         * The share of lookups answered from either level, 0 before the first.
+         */
+        public double hitRate() {
+            long lookups = lookups();
+            return lookups == 0 ? 0 : (double) (memoryHits + storeHits) / lookups;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "hit rate %.0f%% of %d (memory %d, database %d)",
+                    hitRate() * 100, lookups(), memoryHits, storeHits);
+        }
+    }
+}
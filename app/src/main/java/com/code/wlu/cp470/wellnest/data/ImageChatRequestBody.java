@@ -0,0 +1,184 @@
+package com.code.wlu.cp470.wellnest.data;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+
+/**
+ * A chat completion request with JPEG photos, written straight into the connection.
+ * <p>
+ * The JSON around the photos is encoded once, up front; each photo is base64-encoded into the
+ * sink a few KB at a time as the request goes out. Building the same request as a JSONObject
+ * holds the base64 String, the data URL, the printed JSON and its UTF-8 bytes at once, roughly
+ * four copies of every photo, and rebuilds all of them for each retry. This body holds only
+ * the JPEG bytes it was given and can be written any number of times, so one instance serves
+ * every attempt.
+ * <p>
+ * The request has the shape
+ * {@code {"model":..,"temperature":..,"messages":[{"role":"system","content":..},
+ * {"role":"user","content":[parts]}]}}, where each part is text or a low-detail
+ * {@code image_url} holding a {@code data:image/jpeg;base64,} URL.
+ */
+public final class ImageChatRequestBody extends RequestBody {
+
+    private static final MediaType JSON = MediaType.parse("application/json; charset=utf-8");
+
+    private static final byte[] BASE64 =
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/"
+                    .getBytes(StandardCharsets.US_ASCII);
+
+    // Multiple of 4, so only the last group of a photo can leave a partial buffer
+    private static final int CHUNK_BYTES = 8192;
+
+    // Literal JSON as UTF-8 (byte[]) and photos to encode in between (Jpeg), in order
+    private final List<Object> segments;
+    private final long contentLength;
+
+    private ImageChatRequestBody(List<Object> segments) {
+        this.segments = segments;
+        long length = 0;
+        for (Object segment : segments) {
+            length += segment instanceof Jpeg
+                    ? base64Length(((Jpeg) segment).bytes.length)
+                    : ((byte[]) segment).length;
+        }
+        this.contentLength = length;
+    }
+
+    @Override
+    public MediaType contentType() {
+        return JSON;
+    }
+
+    @Override
+    public long contentLength() {
+        return contentLength;
+    }
+
+    @Override
+    public void writeTo(BufferedSink sink) throws IOException {
+        byte[] chunk = null;
+        for (Object segment : segments) {
+            if (segment instanceof Jpeg) {
+                if (chunk == null) chunk = new byte[CHUNK_BYTES];
+                writeBase64(sink, ((Jpeg) segment).bytes, chunk);
+            } else {
+                sink.write((byte[]) segment);
+            }
+        }
+    }
+
+    /**
+     * Length of {@code n} bytes in padded base64.
+     */
+    static long base64Length(int n) {
+        return 4L * ((n + 2) / 3);
+    }
+
+    private static void writeBase64(BufferedSink sink, byte[] data, byte[] chunk) throws IOException {
+        int pos = 0;
+        int i = 0;
+        int whole = data.length - data.length % 3;
+        while (i < whole) {
+            int group = (data[i] & 0xff) << 16 | (data[i + 1] & 0xff) << 8 | (data[i + 2] & 0xff);
+            i += 3;
+            chunk[pos++] = BASE64[group >>> 18];
+            chunk[pos++] = BASE64[(group >>> 12) & 0x3f];
+            chunk[pos++] = BASE64[(group >>> 6) & 0x3f];
+            chunk[pos++] = BASE64[group & 0x3f];
+            if (pos == chunk.length) {
+                sink.write(chunk, 0, pos);
+                pos = 0;
+            }
+        }
+        int rest = data.length - whole;
+        if (rest > 0) {
+            int group = (data[i] & 0xff) << 16 | (rest == 2 ? (data[i + 1] & 0xff) << 8 : 0);
+            chunk[pos++] = BASE64[group >>> 18];
+            chunk[pos++] = BASE64[(group >>> 12) & 0x3f];
+            chunk[pos++] = rest == 2 ? BASE64[(group >>> 6) & 0x3f] : (byte) '=';
+            chunk[pos++] = '=';
+        }
+        if (pos > 0) sink.write(chunk, 0, pos);
+    }
+
+    private static final class Jpeg {
+        final byte[] bytes;
+
+        Jpeg(byte[] bytes) {
+            this.bytes = bytes;
+        }
+    }
+
+    /**
+     * Collects the system prompt and the user message's parts, in order.
+     */
+    public static final class Builder {
+        private final String model;
+        private final double temperature;
+        private String system;
+        private final List<Object> parts = new ArrayList<>();
+
+        public Builder(String model, double temperature) {
+            if (model == null) throw new IllegalArgumentException("model == null");
+            this.model = model;
+            this.temperature = temperature;
+        }
+
+        public Builder system(String prompt) {
+            this.system = prompt;
+            return this;
+        }
+
+        public Builder text(String text) {
+            parts.add(text);
+            return this;
+        }
+
+        /**
+         * Adds a photo. The array is kept, not copied, and must not change while the body is in
+         * use.
+         */
+        public Builder jpeg(byte[] jpegBytes) {
+            if (jpegBytes == null) throw new IllegalArgumentException("jpegBytes == null");
+            parts.add(new Jpeg(jpegBytes));
+            return this;
+        }
+
+        public ImageChatRequestBody build() throws JSONException {
+            List<Object> segments = new ArrayList<>();
+            StringBuilder json = new StringBuilder()
+                    .append("{\"model\":").append(JSONObject.quote(model))
+                    .append(",\"temperature\":").append(JSONObject.numberToString(temperature))
+                    .append(",\"messages\":[");
+            if (system != null) {
+                json.append("{\"role\":\"system\",\"content\":").append(JSONObject.quote(system)).append("},");
+            }
+            json.append("{\"role\":\"user\",\"content\":[");
+            for (int i = 0; i < parts.size(); i++) {
+                if (i > 0) json.append(',');
+                Object part = parts.get(i);
+                if (part instanceof Jpeg) {
+                    json.append("{\"type\":\"image_url\",\"image_url\":{\"url\":\"data:image/jpeg;base64,");
+                    segments.add(json.toString().getBytes(StandardCharsets.UTF_8));
+                    segments.add(part);
+                    json.setLength(0);
+                    json.append("\",\"detail\":\"low\"}}");
+                } else {
+                    json.append("{\"type\":\"text\",\"text\":").append(JSONObject.quote((String) part)).append('}');
+                }
+            }
+            json.append("]}]}");
+            segments.add(json.toString().getBytes(StandardCharsets.UTF_8));
+            return new ImageChatRequestBody(segments);
+        }
+    }
+}
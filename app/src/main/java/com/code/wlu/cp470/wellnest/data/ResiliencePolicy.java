@@ -0,0 +1,454 @@
+package com.code.wlu.cp470.wellnest.data;
+
+import android.util.Log;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.LongSupplier;
+
+import com.code.wlu.cp470.wellnest.utils.CancellationToken;
+import com.code.wlu.cp470.wellnest.utils.Deadline;
+
+import okhttp3.Response;
+
+/**
+ * How WellnestAiClient calls its servers: retries with full-jitter exponential backoff, and a
+ * circuit breaker per host.
+ * <p>
+ * After {@link Builder#failureThreshold} failures in a row on a host, its breaker opens and
+ * every call to that host fails at once with a {@link CircuitOpenException}, instead of each
+ * caller waiting out its own timeouts and retries against a dead server. Once
+ * {@link Builder#openMs} has passed, one call is let through as a probe: if it succeeds the
+ * breaker closes, otherwise it stays open for another period.
+ * <p>
+ * A 429 or 503 with a Retry-After header holds off every call to the host until then. A caller
+ * retries after it if the wait is within {@link Builder#maxDelayMs}, and gives up otherwise.
+ * <p>
+ * Thread-safe; share one policy between all calls of a client.
+ */
+public final class ResiliencePolicy {
+
+    private static final String TAG = "ResiliencePolicy";
+
+    public static final int DEFAULT_MAX_ATTEMPTS = 3;
+    public static final long DEFAULT_BASE_DELAY_MS = 1000L;
+    public static final long DEFAULT_MAX_DELAY_MS = 8000L;
+    public static final int DEFAULT_FAILURE_THRESHOLD = 5;
+    public static final long DEFAULT_OPEN_MS = 30_000L;
+
+    private final int maxAttempts;
+    private final long baseDelayMs;
+    private final long maxDelayMs;
+    private final int failureThreshold;
+    private final long openMs;
+    private final LongSupplier clock;
+    private final Sleeper sleeper;
+    private final Random random;
+
+    private static final Sleeper DEFAULT_SLEEPER = Thread::sleep;
+
+    private final Map<String, Breaker> breakers = new HashMap<>();
+
+    private ResiliencePolicy(Builder builder) {
+        this.maxAttempts = builder.maxAttempts;
+        this.baseDelayMs = builder.baseDelayMs;
+        this.maxDelayMs = builder.maxDelayMs;
+        this.failureThreshold = builder.failureThreshold;
+        this.openMs = builder.openMs;
+        this.clock = builder.clock;
+        this.sleeper = builder.sleeper;
+        this.random = builder.random;
+    }
+
+    /**
+     * Runs {@code attempt} against the host of {@code url}, retrying failures up to the
+     * policy's attempt limit.
+     */
+    public <T> T call(String url, Attempt<T> attempt) throws IOException {
+        return call(url, maxAttempts, attempt);
+    }
+
+    /**
+     * {@link #call(String, Attempt)} that stops once {@code token} is cancelled.
+     */
+    public <T> T call(String url, CancellationToken token, Attempt<T> attempt) throws IOException {
+        return call(url, maxAttempts, token, Deadline.NONE, attempt);
+    }
+
+    /**
+     * {@link #call(String, CancellationToken, Attempt)} within {@code deadline}.
+     */
+    public <T> T call(String url, CancellationToken token, Deadline deadline, Attempt<T> attempt)
+            throws IOException {
+        return call(url, maxAttempts, token, deadline, attempt);
+    }
+
+    /**
+     * Runs {@code attempt} against the host of {@code url} at most {@code attempts} times.
+     * <p>
+     * Any IOException counts as a failure of the host, except an {@link HttpStatusException}
+     * for a status that retrying cannot fix (a 4xx other than 408 and 429), which is thrown at
+     * once.
+     *
+     * @throws CircuitOpenException If the host's breaker is open before the first attempt
+     * @throws IOException          The last attempt's failure
+     */
+    public <T> T call(String url, int attempts, Attempt<T> attempt) throws IOException {
+        return call(url, attempts, CancellationToken.NONE, attempt);
+    }
+
+    /**
+     * {@link #call(String, int, Attempt)} that stops once {@code token} is cancelled: before
+     * the next attempt, during a backoff wait, or when an attempt fails after it was cancelled
+     * (the attempt is expected to abort its own request). A cancelled attempt does not count
+     * against the host.
+     *
+     * @throws CancellationToken.CancelledException If the token was cancelled
+     */
+    public <T> T call(String url, int attempts, CancellationToken token, Attempt<T> attempt) throws IOException {
+        return call(url, attempts, token, Deadline.NONE, attempt);
+    }
+
+    /**
+     * {@link #call(String, int, CancellationToken, Attempt)} that also stops at
+     * {@code deadline}: no attempt starts after it, no retry is waited for that would end past
+     * it, and an attempt failing once it has passed (the attempt is expected to cap its own
+     * request at the time left) is not held against the host.
+     *
+     * @throws Deadline.ExceededException If the deadline passed before or during an attempt
+     */
+    public <T> T call(String url, int attempts, CancellationToken token, Deadline deadline, Attempt<T> attempt)
+            throws IOException {
+        String host = hostOf(url);
+        Breaker breaker = breakerFor(host);
+        IOException last = null;
+        for (int i = 1; ; i++) {
+            token.throwIfCancelled();
+            deadline.throwIfExpired();
+            try {
+                breaker.acquire(host, clock.getAsLong());
+            } catch (CircuitOpenException e) {
+                // the breaker opened under an earlier attempt; its failure says more
+                if (last != null) throw last;
+                throw e;
+            }
+
+            long retryAfterMs = -1;
+            try {
+                T result = attempt.run();
+                breaker.onSuccess();
+                return result;
+            } catch (IOException e) {
+                if (token.isCancelled()) {
+                    // our own abort, not the host's fault
+                    breaker.release();
+                    throw new CancellationToken.CancelledException();
+                }
+                if (!(e instanceof HttpStatusException)) {
+                    if (Thread.currentThread().isInterrupted()) {
+                        breaker.release();
+                        throw e;
+                    }
+                    if (deadline.isExpired()) {
+                        // cut short by the caller's budget, which says little about the host
+                        breaker.release();
+                        Deadline.ExceededException exceeded = new Deadline.ExceededException();
+                        exceeded.initCause(e);
+                        throw exceeded;
+                    }
+                    breaker.onFailure(clock.getAsLong(), -1);
+                    last = e;
+                } else {
+                    HttpStatusException status = (HttpStatusException) e;
+                    if (!status.isRetryable()) {
+                        // the host is up; it just refused this request
+                        breaker.onSuccess();
+                        throw status;
+                    }
+                    retryAfterMs = status.getRetryAfterMs();
+                    breaker.onFailure(clock.getAsLong(), retryAfterMs);
+                    last = status;
+                }
+            } catch (RuntimeException e) {
+                breaker.release();
+                throw e;
+            }
+
+            if (i >= attempts) throw last;
+            long delay = backoffMs(i);
+            if (retryAfterMs >= 0) {
+                if (retryAfterMs > maxDelayMs) {
+                    Log.w(TAG, host + " asked to retry after " + retryAfterMs + " ms; giving up");
+                    throw last;
+                }
+                delay = Math.max(delay, retryAfterMs);
+            }
+            if (delay >= deadline.remainingMs()) {
+                Log.w(TAG, host + " attempt " + i + " failed; no time left to retry");
+                throw last;
+            }
+            Log.d(TAG, host + " attempt " + i + " failed; retrying in " + delay + " ms");
+            try {
+                if (sleeper == DEFAULT_SLEEPER) {
+                    token.sleep(delay);
+                } else {
+                    sleeper.sleep(delay);
+                    token.throwIfCancelled();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                InterruptedIOException interrupted = new InterruptedIOException("interrupted during backoff");
+                interrupted.initCause(last);
+                throw interrupted;
+            }
+        }
+    }
+
+    /**
+     * The error for an unsuccessful {@code resp}, carrying its status and Retry-After.
+     */
+    public HttpStatusException failure(Response resp, String message) {
+        return new HttpStatusException(message, resp.code(), retryAfterMs(resp));
+    }
+
+    /**
+     * Whether calls to the host of {@code url} are failing fast right now.
+     */
+    public boolean isOpen(String url) {
+        return breakerFor(hostOf(url)).isOpen(clock.getAsLong());
+    }
+
+    // Full jitter: uniform in [0, min(max, base * 2^(attempt - 1))]
+    private long backoffMs(int attempt) {
+        long ceiling = baseDelayMs << Math.min(attempt - 1, 20);
+        if (ceiling <= 0 || ceiling > maxDelayMs) ceiling = maxDelayMs;
+        return (long) (random.nextDouble() * (ceiling + 1));
+    }
+
+    // Retry-After in ms from now, or -1 if absent or unreadable
+    private long retryAfterMs(Response resp) {
+        String value = resp.header("Retry-After");
+        if (value == null) return -1;
+        value = value.trim();
+        try {
+            return Math.max(0, Long.parseLong(value) * 1000L);
+        } catch (NumberFormatException e) {
+            Date date = resp.headers().getDate("Retry-After");
+            return date == null ? -1 : Math.max(0, date.getTime() - clock.getAsLong());
+        }
+    }
+
+    private synchronized Breaker breakerFor(String host) {
+        Breaker breaker = breakers.get(host);
+        if (breaker == null) {
+            breaker = new Breaker();
+            breakers.put(host, breaker);
+        }
+        return breaker;
+    }
+
+    private static String hostOf(String url) {
+        try {
+            URI uri = URI.create(url);
+            return uri.getHost() + ":" + uri.getPort();
+        } catch (IllegalArgumentException e) {
+            return url;
+        }
+    }
+
+    /**
+     * One host's breaker. Closed while {@code openUntil} is 0; open until then; half-open
+     * after it, letting a single probe through.
+     */
+    private final class Breaker {
+        private int failures;
+        private long openUntil;
+        private boolean probing;
+
+        synchronized void acquire(String host, long now) throws CircuitOpenException {
+            if (openUntil == 0) return;
+            if (now < openUntil) throw new CircuitOpenException(host, openUntil - now);
+            if (probing) throw new CircuitOpenException(host, 0);
+            probing = true;
+        }
+
+        synchronized void onSuccess() {
+            failures = 0;
+            openUntil = 0;
+            probing = false;
+        }
+
+        synchronized void onFailure(long now, long retryAfterMs) {
+            failures++;
+            if (probing || failures >= failureThreshold) {
+                openUntil = now + Math.max(openMs, retryAfterMs);
+            } else if (retryAfterMs > 0) {
+                openUntil = Math.max(openUntil, now + retryAfterMs);
+            }
+            probing = false;
+        }
+
+        synchronized void release() {
+            probing = false;
+        }
+
+        synchronized boolean isOpen(long now) {
+            return openUntil != 0 && (now < openUntil || probing);
+        }
+    }
+
+    /**
+     * One try of a call.
+     */
+    public interface Attempt<T> {
+        T run() throws IOException;
+    }
+
+    /**
+     * Waits between attempts; {@code Thread::sleep} outside tests. The default wait also ends
+     * early when the call's token is cancelled; a custom one is checked after it returns.
+     */
+    public interface Sleeper {
+        void sleep(long ms) throws InterruptedException;
+    }
+
+    /**
+     * A call refused because its host's breaker is open.
+     */
+    public static final class CircuitOpenException extends IOException {
+        private final long retryInMs;
+
+        CircuitOpenException(String host, long retryInMs) {
+            super("Circuit open for " + host + (retryInMs > 0 ? "; next probe in " + retryInMs + " ms" : "; probe in flight"));
+            this.retryInMs = retryInMs;
+        }
+
+        /**
+         * How long until the breaker lets a probe through, or 0 if a probe is in flight.
+         */
+        public long getRetryInMs() {
+            return retryInMs;
+        }
+    }
+
+    /**
+     * An unsuccessful HTTP response.
+     */
+    public static final class HttpStatusException extends IOException {
+        private final int code;
+        private final long retryAfterMs;
+
+        public HttpStatusException(String message, int code, long retryAfterMs) {
+            super(message);
+            this.code = code;
+            this.retryAfterMs = retryAfterMs;
+        }
+
+        public int getCode() {
+            return code;
+        }
+
+        /**
+         * The server's Retry-After in ms, or -1 if it sent none.
+         */
+        public long getRetryAfterMs() {
+            return retryAfterMs;
+        }
+
+        /**
+         * Whether another try may succeed: timeouts, rate limits and server errors.
+         */
+        public boolean isRetryable() {
+            return code == 408 || code == 429 || code >= 500;
+        }
+    }
+
+    public static final class Builder {
+        private int maxAttempts = DEFAULT_MAX_ATTEMPTS;
+        private long baseDelayMs = DEFAULT_BASE_DELAY_MS;
+        private long maxDelayMs = DEFAULT_MAX_DELAY_MS;
+        private int failureThreshold = DEFAULT_FAILURE_THRESHOLD;
+        private long openMs = DEFAULT_OPEN_MS;
+        private LongSupplier clock = System::currentTimeMillis;
+        private Sleeper sleeper = DEFAULT_SLEEPER;
+        private Random random = new Random();
+
+        /**
+         * Tries per call, the first included.
+         */
+        public Builder maxAttempts(int maxAttempts) {
+            if (maxAttempts < 1) throw new IllegalArgumentException("maxAttempts < 1");
+            this.maxAttempts = maxAttempts;
+            return this;
+        }
+
+        /**
+         * Backoff ceiling before the second try; it doubles per try up to {@link #maxDelayMs}.
+         */
+        public Builder baseDelayMs(long baseDelayMs) {
+            if (baseDelayMs < 0) throw new IllegalArgumentException("baseDelayMs < 0");
+            this.baseDelayMs = baseDelayMs;
+            return this;
+        }
+
+        /**
+         * Longest wait between tries, including one asked for by Retry-After.
+         */
+        public Builder maxDelayMs(long maxDelayMs) {
+            if (maxDelayMs < 0) throw new IllegalArgumentException("maxDelayMs < 0");
+            this.maxDelayMs = maxDelayMs;
+            return this;
+        }
+
+        /**
+         * Failures in a row that open a host's breaker.
+         */
+        public Builder failureThreshold(int failureThreshold) {
+            if (failureThreshold < 1) throw new IllegalArgumentException("failureThreshold < 1");
+            this.failureThreshold = failureThreshold;
+            return this;
+        }
+
+        /**
+         * How long an open breaker fails calls before letting a probe through.
+         */
+        public Builder openMs(long openMs) {
+            if (openMs < 0) throw new IllegalArgumentException("openMs < 0");
+            this.openMs = openMs;
+            return this;
+        }
+
+        /**
+         * Current time in epoch ms; times the breakers and reads Retry-After dates.
+         */
+        public Builder clock(LongSupplier clock) {
+            if (clock == null) throw new IllegalArgumentException("clock == null");
+            this.clock = clock;
+            return this;
+        }
+
+        public Builder sleeper(Sleeper sleeper) {
+            if (sleeper == null) throw new IllegalArgumentException("sleeper == null");
+            this.sleeper = sleeper;
+            return this;
+        }
+
+        /**
+         * Source of the backoff jitter.
+         */
+        public Builder random(Random random) {
+            if (random == null) throw new IllegalArgumentException("random == null");
+            this.random = random;
+            return this;
+        }
+
+        public ResiliencePolicy build() {
+            return new ResiliencePolicy(this);
+        }
+    }
+}
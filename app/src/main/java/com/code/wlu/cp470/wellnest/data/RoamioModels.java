@@ -1,5 +1,7 @@
 package com.code.wlu.cp470.wellnest.data;
 
+import android.location.Location;
+
 public class RoamioModels {
     public static final class Walk {
         private String uid;
@@ -9,6 +11,11 @@ public class RoamioModels {
         private String end_address;
         private float distanceMeters;
         private boolean completed;
+        // Resolved when the walk was generated; NaN if unknown
+        private double startLatitude;
+        private double startLongitude;
+        private double endLatitude;
+        private double endLongitude;
 
 
         public Walk(
@@ -19,6 +26,22 @@ public class RoamioModels {
                 String end_address,
                 float distanceMeters,
                 boolean completed) {
+            this(uid, name, story, start_address, end_address, distanceMeters, completed,
+                    Double.NaN, Double.NaN, Double.NaN, Double.NaN);
+        }
+
+        public Walk(
+                String uid,
+                String name,
+                String story,
+                String start_address,
+                String end_address,
+                float distanceMeters,
+                boolean completed,
+                double startLatitude,
+                double startLongitude,
+                double endLatitude,
+                double endLongitude) {
             this.uid = uid;
             this.name = name;
             this.story = story;
@@ -26,6 +49,10 @@ public class RoamioModels {
             this.end_address = end_address;
             this.distanceMeters = distanceMeters;
             this.completed = completed;
+            this.startLatitude = startLatitude;
+            this.startLongitude = startLongitude;
+            this.endLatitude = endLatitude;
+            this.endLongitude = endLongitude;
         }
 
         public String getUid() {
@@ -83,6 +110,43 @@ public class RoamioModels {
         public void setCompleted(boolean completed) {
             this.completed = completed;
         }
+
+        public double getStartLatitude() {
+            return startLatitude;
+        }
+
+        public double getStartLongitude() {
+            return startLongitude;
+        }
+
+        public double getEndLatitude() {
+            return endLatitude;
+        }
+
+        public double getEndLongitude() {
+            return endLongitude;
+        }
+
+        public boolean hasEndCoordinates() {
+            return !Double.isNaN(endLatitude) && !Double.isNaN(endLongitude);
+        }
+
+        public void setEndCoordinates(double latitude, double longitude) {
+            this.endLatitude = latitude;
+            this.endLongitude = longitude;
+        }
+
+        /**
+         * Straight-line distance in metres from ({@code latitude}, {@code longitude}) to the end
+         * of the walk, or NaN if its end coordinates are unknown. Pure arithmetic, so it is safe
+         * on the main thread.
+         */
+        public float distanceToEndMeters(double latitude, double longitude) {
+            if (!hasEndCoordinates()) return Float.NaN;
+            float[] results = new float[1];
+            Location.distanceBetween(latitude, longitude, endLatitude, endLongitude, results);
+            return results[0];
+        }
     }
 
     public static final class RoamioScore {
@@ -111,4 +175,166 @@ public class RoamioModels {
             this.score = score;
         }
     }
+
+    /**
+     * A completed walk as stored in walk_sessions.
+     */
+    public static final class WalkSession {
+        private final long id;
+        private final String uid;
+        private final long startedAt;
+        private final long endedAt;
+        private final int steps;
+        private final double distanceMeters;
+        private final int pointsAwarded;
+        private final String status;
+
+        public WalkSession(long id, String uid, long startedAt, long endedAt, int steps,
+                           double distanceMeters, int pointsAwarded, String status) {
+            this.id = id;
+            this.uid = uid;
+            this.startedAt = startedAt;
+            this.endedAt = endedAt;
+            this.steps = steps;
+            this.distanceMeters = distanceMeters;
+            this.pointsAwarded = pointsAwarded;
+            this.status = status;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public String getUid() {
+            return uid;
+        }
+
+        public long getStartedAt() {
+            return startedAt;
+        }
+
+        public long getEndedAt() {
+            return endedAt;
+        }
+
+        public int getSteps() {
+            return steps;
+        }
+
+        public double getDistanceMeters() {
+            return distanceMeters;
+        }
+
+        public int getPointsAwarded() {
+            return pointsAwarded;
+        }
+
+        public String getStatus() {
+            return status;
+        }
+    }
+
+    /**
+     * Walk count and distance for one week (weeks start on Monday).
+     */
+    public static final class WeeklyWalkStats {
+        private final long weekStartMillis;
+        private final int walkCount;
+        private final double distanceMeters;
+
+        public WeeklyWalkStats(long weekStartMillis, int walkCount, double distanceMeters) {
+            this.weekStartMillis = weekStartMillis;
+            this.walkCount = walkCount;
+            this.distanceMeters = distanceMeters;
+        }
+
+        public long getWeekStartMillis() {
+            return weekStartMillis;
+        }
+
+        public int getWalkCount() {
+            return walkCount;
+        }
+
+        public double getDistanceMeters() {
+            return distanceMeters;
+        }
+    }
+
+    /**
+     * The walk in progress as checkpointed in current_walk.
+     */
+    public static final class ActiveWalk {
+        private final long id;
+        private final String uid;
+        private final Walk walk;
+        private final long startedAt;
+        private final int startStepCount;
+        private final long startElapsedRealtimeMs;
+        private long lastUpdatedMs;
+        private int lastKnownSteps;
+        private double lastKnownDistanceMeters;
+
+        public ActiveWalk(long id, String uid, Walk walk, long startedAt, int startStepCount,
+                          long startElapsedRealtimeMs, long lastUpdatedMs, int lastKnownSteps,
+                          double lastKnownDistanceMeters) {
+            this.id = id;
+            this.uid = uid;
+            this.walk = walk;
+            this.startedAt = startedAt;
+            this.startStepCount = startStepCount;
+            this.startElapsedRealtimeMs = startElapsedRealtimeMs;
+            this.lastUpdatedMs = lastUpdatedMs;
+            this.lastKnownSteps = lastKnownSteps;
+            this.lastKnownDistanceMeters = lastKnownDistanceMeters;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public String getUid() {
+            return uid;
+        }
+
+        public Walk getWalk() {
+            return walk;
+        }
+
+        public long getStartedAt() {
+            return startedAt;
+        }
+
+        public int getStartStepCount() {
+            return startStepCount;
+        }
+
+        public long getStartElapsedRealtimeMs() {
+            return startElapsedRealtimeMs;
+        }
+
+        public long getLastUpdatedMs() {
+            return lastUpdatedMs;
+        }
+
+        public void setLastUpdatedMs(long lastUpdatedMs) {
+            this.lastUpdatedMs = lastUpdatedMs;
+        }
+
+        public int getLastKnownSteps() {
+            return lastKnownSteps;
+        }
+
+        public void setLastKnownSteps(int lastKnownSteps) {
+            this.lastKnownSteps = lastKnownSteps;
+        }
+
+        public double getLastKnownDistanceMeters() {
+            return lastKnownDistanceMeters;
+        }
+
+        public void setLastKnownDistanceMeters(double lastKnownDistanceMeters) {
+            this.lastKnownDistanceMeters = lastKnownDistanceMeters;
+        }
+    }
 }
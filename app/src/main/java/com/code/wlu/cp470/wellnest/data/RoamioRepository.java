@@ -2,36 +2,60 @@ package com.code.wlu.cp470.wellnest.data;
 
 import android.content.Context;
 import android.content.SharedPreferences;
+import android.os.SystemClock;
 import android.util.Log;
 
 import com.code.wlu.cp470.wellnest.data.auth.AuthRepository;
+import com.code.wlu.cp470.wellnest.data.local.DatabaseProvider;
+import com.code.wlu.cp470.wellnest.data.local.SessionStore;
+import com.code.wlu.cp470.wellnest.data.local.managers.ActiveWalkManager;
 import com.code.wlu.cp470.wellnest.data.local.managers.RoamioManager;
+import com.code.wlu.cp470.wellnest.data.local.managers.WalkSessionManager;
 import com.code.wlu.cp470.wellnest.data.remote.managers.FirebaseRoamioManager;
+import com.code.wlu.cp470.wellnest.utils.CancellationToken;
 
+import java.util.Collections;
+import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.Executor;
 import java.time.LocalDate;
 
 public class RoamioRepository {
 
     private static final String PREFS = AuthRepository.PREFS;
-    private static final String USER_REPO_PREFS = "user_repo_prefs";
-    private static final String PREFS_UID = "uid";
     private static final String TAG = "RoamioRepository";
     private static final String KEY_LAST_SYNC_ROAMIO_SCORE_DAY_PREFIX = "last_sync_roamio_score_epoch_day_";
     private final Context context;
     private final SharedPreferences prefs;
     private final FirebaseRoamioManager remote;
     private final RoamioManager local;
+    private final WalkSessionManager walkSessions;
+    private final ActiveWalkManager activeWalks;
+    private final SessionStore session;
 
     public RoamioRepository(Context context, RoamioManager localManager, FirebaseRoamioManager remoteManager) {
+        this(context, localManager,
+                context == null ? null : DatabaseProvider.get(context).getWalkSessionManager(),
+                context == null ? null : DatabaseProvider.get(context).getActiveWalkManager(),
+                remoteManager);
+    }
+
+    public RoamioRepository(Context context, RoamioManager localManager,
+                            WalkSessionManager walkSessionManager, ActiveWalkManager activeWalkManager,
+                            FirebaseRoamioManager remoteManager) {
         if (context == null) throw new IllegalArgumentException("context == null");
         if (localManager == null) throw new IllegalArgumentException("localManager == null");
+        if (walkSessionManager == null) throw new IllegalArgumentException("walkSessionManager == null");
+        if (activeWalkManager == null) throw new IllegalArgumentException("activeWalkManager == null");
         if (remoteManager == null) throw new IllegalArgumentException("remoteManager == null");
         this.context = context;
         this.local = localManager;
+        this.walkSessions = walkSessionManager;
+        this.activeWalks = activeWalkManager;
         this.remote = remoteManager;
         this.prefs = context.getApplicationContext()
                 .getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+        this.session = DatabaseProvider.get(context).getSessionStore();
     }
 
     // ------------------------------------------------------------
@@ -39,8 +63,8 @@ public class RoamioRepository {
     // ------------------------------------------------------------
 
     public void syncScore() {
-        String uid = prefs.getString("uid", null);
-        Log.d(TAG, "syncScore: uid from prefs = " + uid);
+        String uid = session.getUid();
+        Log.d(TAG, "syncScore: uid from session = " + uid);
 
         if (uid == null) {
             uid = "test_uid"; // Fallback for test environment
@@ -52,17 +76,15 @@ public class RoamioRepository {
 
     /**
      * Once-daily Roamio micro-app score sync between local SQLite and Firestore.
-     * Reads the uid from UserRepository's SharedPreferences.
+     * Reads the uid from the {@link SessionStore}.
      * Uses the same "higher score wins" strategy as {@link #syncScore()},
      * but gated so it runs at most once per day per user.
      */
     public void syncRoamioScoreOnceDaily() {
-        // Read uid from UserRepository's SharedPreferences
-        SharedPreferences userPrefs = context.getSharedPreferences(USER_REPO_PREFS, Context.MODE_PRIVATE);
-        String uid = userPrefs.getString(PREFS_UID, null);
-        
-        if (uid == null || uid.isEmpty()) {
-            Log.w(TAG, "syncRoamioScoreOnceDaily: uid is null/empty in UserRepository prefs, skipping");
+        String uid = session.getUid();
+
+        if (uid == null) {
+            Log.w(TAG, "syncRoamioScoreOnceDaily: nobody is signed in, skipping");
             return;
         }
 
@@ -164,8 +186,7 @@ public class RoamioRepository {
         new Thread(() -> {
             try {
                 // Get UID from UserRepository's SharedPreferences
-                SharedPreferences userPrefs = context.getSharedPreferences(USER_REPO_PREFS, Context.MODE_PRIVATE);
-                String uid = userPrefs.getString(PREFS_UID, null);
+                String uid = currentUid();
                 
                 if (uid == null || uid.isEmpty()) {
                     Log.w(TAG, "syncScoreToFirebaseAsync: uid is null/empty, skipping Firebase sync");
@@ -185,6 +206,111 @@ public class RoamioRepository {
         }).start();
     }
 
+    // ------------------------------------------------------------
+    // Active walk
+    // ------------------------------------------------------------
+
+    /**
+     * Persists {@code walk} as the user's walk in progress so it survives process death.
+     *
+     * @return the active walk, or null if there is no signed-in user to file it under
+     */
+    public RoamioModels.ActiveWalk startWalk(RoamioModels.Walk walk) {
+        String uid = currentUid();
+        if (uid == null || uid.isEmpty()) {
+            Log.w(TAG, "startWalk: uid is null/empty, walk progress will not be saved");
+            return null;
+        }
+        return activeWalks.startWalk(uid, walk, System.currentTimeMillis(),
+                SystemClock.elapsedRealtime(), 0);
+    }
+
+    /**
+     * The walk the user started and has not finished yet (e.g. before the app was killed).
+     */
+    public RoamioModels.ActiveWalk getActiveWalk() {
+        return activeWalks.getActiveWalk(currentUid());
+    }
+
+    /**
+     * Tracks {@code activeWalk}, handing its checkpoints to {@code writer}.
+     */
+    public ActiveWalkTracker trackWalk(RoamioModels.ActiveWalk activeWalk, Executor writer) {
+        return new ActiveWalkTracker(activeWalks, activeWalk, writer);
+    }
+
+    /**
+     * Makes sure {@code walk} knows where it ends. A walk saved before its coordinates were
+     * kept has its end address geocoded (through the geo cache), and the result is stored on
+     * {@code activeWalk}, if given, so later checks do not ask again.
+     * <p>
+     * May block on the geocoder; call it off the main thread.
+     *
+     * @return whether the walk's end coordinates are known
+     */
+    public boolean resolveDestination(RoamioModels.Walk walk, RoamioModels.ActiveWalk activeWalk) {
+        if (walk.hasEndCoordinates()) return true;
+        double[] end;
+        try {
+            end = WellnestAiClient.get(context).coordinatesOf(walk.getEndAddress());
+        } catch (Exception e) {
+            Log.e(TAG, "resolveDestination: geocoding failed", e);
+            return false;
+        }
+        if (end == null) {
+            Log.w(TAG, "resolveDestination: could not geocode " + walk.getEndAddress());
+            return false;
+        }
+        walk.setEndCoordinates(end[0], end[1]);
+        if (activeWalk != null) activeWalks.setEndCoordinates(activeWalk.getId(), end[0], end[1]);
+        return true;
+    }
+
+    /**
+     * Awards the walk's points and moves it from current_walk into the walk history
+     * (with the progress checkpointed by its tracker).
+     *
+     * @return the new walk_sessions row id
+     */
+    public long completeWalk(ActiveWalkTracker tracker, long endedAtMs, int points) {
+        tracker.flushNow();
+        addToRoamioScore(points);
+        return activeWalks.finishWalk(tracker.getActiveWalk().getId(), endedAtMs, points);
+    }
+
+    // ------------------------------------------------------------
+    // Walk history
+    // ------------------------------------------------------------
+
+    /**
+     * Awards the walk's points and stores it in the walk history. For walks that were never
+     * persisted as active (see {@link #startWalk}).
+     *
+     * @return the new walk_sessions row id, or -1 if there is no signed-in user to file it under
+     *         (the points are still awarded)
+     */
+    public long completeWalk(RoamioModels.Walk walk, long startedAtMs, long endedAtMs, int points) {
+        addToRoamioScore(points);
+
+        String uid = currentUid();
+        if (uid == null || uid.isEmpty()) {
+            Log.w(TAG, "completeWalk: uid is null/empty, walk not added to history");
+            return -1L;
+        }
+        return walkSessions.recordCompletedWalk(uid, startedAtMs, endedAtMs, 0,
+                walk.getDistanceMeters(), points);
+    }
+
+    public List<RoamioModels.WalkSession> getWalkHistoryPage(RoamioModels.WalkSession last, int limit) {
+        String uid = currentUid();
+        if (uid == null || uid.isEmpty()) return Collections.emptyList();
+        return walkSessions.getHistoryPageAfter(uid, last, limit);
+    }
+
+    private String currentUid() {
+        return session.getUid();
+    }
+
     // ------------------------------------------------------------
     // AI Generation
     // ------------------------------------------------------------
@@ -220,9 +346,17 @@ public class RoamioRepository {
      * @return A Walk object with all attributes set including calculated distance, or null if generation fails
      */
     public RoamioModels.Walk generateWalk(WellnestAiClient.ProgressCallback callback) {
+        return generateWalk(callback, CancellationToken.NONE);
+    }
+
+    /**
+     * {@link #generateWalk(WellnestAiClient.ProgressCallback)} that gives up once
+     * {@code token} is cancelled, returning null.
+     */
+    public RoamioModels.Walk generateWalk(WellnestAiClient.ProgressCallback callback, CancellationToken token) {
         try {
             // Call WellnestAiClient which now returns a fully constructed Walk object
-            RoamioModels.Walk walk = WellnestAiClient.pickWalkAndStory(context, callback);
+            RoamioModels.Walk walk = WellnestAiClient.get(context).pickWalkAndStory(callback, token);
             
             if (walk == null) {
                 Log.e(TAG, "generateWalk: pickWalkAndStory returned null (likely permission, location, or geocoding issue)");
@@ -233,6 +367,9 @@ public class RoamioRepository {
                     walk.getName(), walk.getDistanceMeters()));
             
             return walk;
+        } catch (CancellationToken.CancelledException e) {
+            Log.d(TAG, "generateWalk: cancelled");
+            return null;
         } catch (Exception e) {
             Log.e(TAG, "generateWalk failed", e);
             return null;
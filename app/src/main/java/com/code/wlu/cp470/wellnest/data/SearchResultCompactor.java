@@ -0,0 +1,249 @@
+package com.code.wlu.cp470.wellnest.data;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Shrinks Tavily search results to what a synthesis prompt needs and fits the prompt into a
+ * byte budget.
+ * <p>
+ * Results are ranked (by score where present, otherwise in Tavily's order), deduplicated by
+ * URL and title, capped in number, and reduced to title, URL and a whitespace-collapsed
+ * snippet. If the prompt is still over budget, snippets are shortened step by step and then
+ * the lowest-ranked results dropped. The output depends only on the input, so prompts are
+ * reproducible.
+ */
+public final class SearchResultCompactor {
+
+    /**
+     * ~4k input tokens at roughly four bytes per token.
+     */
+    public static final int DEFAULT_PROMPT_BUDGET_BYTES = 16_000;
+    public static final int DEFAULT_MAX_RESULTS = 8;
+    public static final int DEFAULT_SNIPPET_CHARS = 400;
+
+    public static final SearchResultCompactor DEFAULT = new SearchResultCompactor(
+            DEFAULT_PROMPT_BUDGET_BYTES, DEFAULT_MAX_RESULTS, DEFAULT_SNIPPET_CHARS);
+
+    // Snippets are not shortened below this before results start being dropped
+    private static final int MIN_SNIPPET_CHARS = 80;
+
+    private final int promptBudgetBytes;
+    private final int maxResults;
+    private final int snippetChars;
+
+    /**
+     * @param promptBudgetBytes Upper bound on a whole prompt, in UTF-8 bytes
+     * @param maxResults        Most results to keep
+     * @param snippetChars      Longest snippet to keep per result, before budget trimming
+     */
+    public SearchResultCompactor(int promptBudgetBytes, int maxResults, int snippetChars) {
+        if (promptBudgetBytes <= 0) throw new IllegalArgumentException("promptBudgetBytes <= 0");
+        if (maxResults <= 0) throw new IllegalArgumentException("maxResults <= 0");
+        if (snippetChars <= 0) throw new IllegalArgumentException("snippetChars <= 0");
+        this.promptBudgetBytes = promptBudgetBytes;
+        this.maxResults = maxResults;
+        this.snippetChars = snippetChars;
+    }
+
+    public int getPromptBudgetBytes() {
+        return promptBudgetBytes;
+    }
+
+    /**
+     * Appends the compacted results to {@code prefix}, trimming them until the whole prompt
+     * fits the budget. If {@code prefix} alone is over budget the results are left out.
+     *
+     * @param prefix  The prompt up to where the results go
+     * @param results A Tavily response, or anything with a "results" array of
+     *                title/url/content(/score) objects
+     */
+    public String buildPrompt(String prefix, JSONObject results) {
+        int available = promptBudgetBytes - utf8Length(prefix);
+        return prefix + compact(results, available);
+    }
+
+    /**
+     * The results as a compact JSON array of {"title","url","content"}, at most
+     * {@code maxBytes} UTF-8 bytes ("[]" if not even one result fits).
+     */
+    public String compact(JSONObject results, int maxBytes) {
+        List<Result> ranked = rank(results);
+        int snippet = snippetChars;
+        int keep = ranked.size();
+        while (true) {
+            String json = toJson(ranked, keep, snippet);
+            if (utf8Length(json) <= maxBytes || keep == 0) {
+                return keep == 0 ? "[]" : json;
+            }
+            if (snippet > MIN_SNIPPET_CHARS) {
+                snippet = Math.max(MIN_SNIPPET_CHARS, snippet * 3 / 4);
+            } else {
+                keep--;
+            }
+        }
+    }
+
+    private List<Result> rank(JSONObject response) {
+        JSONArray array = response != null ? response.optJSONArray("results") : null;
+        List<Result> all = new ArrayList<>();
+        if (array == null) return all;
+
+        for (int i = 0; i < array.length(); i++) {
+            JSONObject o = array.optJSONObject(i);
+            if (o == null) continue;
+            String url = text(o, "url");
+            String title = collapse(text(o, "title"));
+            if (url.isEmpty() && title.isEmpty()) continue;
+            all.add(new Result(i, o.optDouble("score", Double.NaN), title, url,
+                    collapse(text(o, "content"))));
+        }
+        // higher score first; unscored results keep Tavily's order after the scored ones
+        Collections.sort(all, (a, b) -> {
+            boolean aScored = !Double.isNaN(a.score);
+            boolean bScored = !Double.isNaN(b.score);
+            if (aScored && bScored && a.score != b.score) return Double.compare(b.score, a.score);
+            if (aScored != bScored) return aScored ? -1 : 1;
+            return Integer.compare(a.index, b.index);
+        });
+
+        List<Result> kept = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        for (Result r : all) {
+            String urlKey = r.url.isEmpty() ? null : "u:" + normalizeUrl(r.url);
+            String titleKey = r.title.isEmpty() ? null : "t:" + r.title.toLowerCase(Locale.ROOT);
+            if ((urlKey != null && seen.contains(urlKey)) || (titleKey != null && seen.contains(titleKey))) {
+                continue;
+            }
+            if (urlKey != null) seen.add(urlKey);
+            if (titleKey != null) seen.add(titleKey);
+            kept.add(r);
+            if (kept.size() == maxResults) break;
+        }
+        return kept;
+    }
+
+    private static String toJson(List<Result> results, int count, int snippetChars) {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < count; i++) {
+            Result r = results.get(i);
+            if (i > 0) sb.append(',');
+            sb.append("{\"title\":");
+            appendQuoted(sb, r.title);
+            sb.append(",\"url\":");
+            appendQuoted(sb, r.url);
+            sb.append(",\"content\":");
+            appendQuoted(sb, truncate(r.content, snippetChars));
+            sb.append('}');
+        }
+        return sb.append(']').toString();
+    }
+
+    /**
+     * Cuts {@code text} to at most {@code max} chars, at a word boundary where there is one
+     * in the last fifth, marking the cut with "…".
+     */
+    static String truncate(String text, int max) {
+        if (text.length() <= max) return text;
+        int cut = max - 1;
+        if (Character.isLowSurrogate(text.charAt(cut))) cut--;
+        int space = text.lastIndexOf(' ', cut);
+        if (space > max * 4 / 5) cut = space;
+        return text.substring(0, cut).trim() + "…";
+    }
+
+    // scheme, "www.", fragments, tracking parameters and trailing slashes do not make a new page;
+    // only the scheme and host are case-insensitive, paths and queries may not be
+    static String normalizeUrl(String url) {
+        String u = url.trim();
+        int scheme = u.indexOf("://");
+        int hostStart = scheme < 0 ? 0 : scheme + 3;
+        int hostEnd = hostStart;
+        while (hostEnd < u.length() && "/?#".indexOf(u.charAt(hostEnd)) < 0) hostEnd++;
+        u = u.substring(0, hostEnd).toLowerCase(Locale.ROOT) + u.substring(hostEnd);
+        int hash = u.indexOf('#');
+        if (hash >= 0) u = u.substring(0, hash);
+        int query = u.indexOf('?');
+        if (query >= 0) {
+            StringBuilder kept = new StringBuilder();
+            for (String param : u.substring(query + 1).split("&")) {
+                if (param.isEmpty() || param.regionMatches(true, 0, "utm_", 0, 4)) continue;
+                kept.append(kept.length() == 0 ? '?' : '&').append(param);
+            }
+            u = u.substring(0, query) + kept;
+        }
+        if (u.startsWith("https://")) u = u.substring(8);
+        else if (u.startsWith("http://")) u = u.substring(7);
+        if (u.startsWith("www.")) u = u.substring(4);
+        while (u.endsWith("/")) u = u.substring(0, u.length() - 1);
+        return u;
+    }
+
+    private static String text(JSONObject o, String name) {
+        return o.isNull(name) ? "" : o.optString(name, "").trim();
+    }
+
+    private static String collapse(String text) {
+        return text.trim().replaceAll("\\s+", " ");
+    }
+
+    // JSON string escaping without org.json's "\/", which only costs bytes in a prompt
+    private static void appendQuoted(StringBuilder sb, String s) {
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format(Locale.ROOT, "\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        sb.append('"');
+    }
+
+    static int utf8Length(String s) {
+        return s.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    private static final class Result {
+        final int index;
+        final double score;
+        final String title;
+        final String url;
+        final String content;
+
+        Result(int index, double score, String title, String url, String content) {
+            this.index = index;
+            this.score = score;
+            this.title = title;
+            this.url = url;
+            this.content = content;
+        }
+    }
+}
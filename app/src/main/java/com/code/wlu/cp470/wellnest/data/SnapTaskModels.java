@@ -1,5 +1,12 @@
 package com.code.wlu.cp470.wellnest.data;
 
+import com.code.wlu.cp470.wellnest.utils.ImageHash;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Locale;
+
 public class SnapTaskModels {
     public static final class Task {
         private String uid;
@@ -83,4 +90,80 @@ public class SnapTaskModels {
             this.score = score;
         }
     }
+
+    /**
+     * What a SnapTask verdict is cached under: the task, a hash of the criteria it was judged
+     * against and perceptual hashes of the before and after photos (see {@link ImageHash}).
+     */
+    public static final class VerdictKey {
+        private final String taskUid;
+        private final String criteriaHash;
+        private final long beforeDHash;
+        private final long beforePHash;
+        private final long afterDHash;
+        private final long afterPHash;
+
+        public VerdictKey(String taskUid, String criteriaHash,
+                          long beforeDHash, long beforePHash, long afterDHash, long afterPHash) {
+            if (taskUid == null || criteriaHash == null)
+                throw new IllegalArgumentException("taskUid and criteriaHash cannot be null");
+            this.taskUid = taskUid;
+            this.criteriaHash = criteriaHash;
+            this.beforeDHash = beforeDHash;
+            this.beforePHash = beforePHash;
+            this.afterDHash = afterDHash;
+            this.afterPHash = afterPHash;
+        }
+
+        /**
+         * SHA-256 of the criteria text, as lowercase hex.
+         */
+        public static String hashCriteria(String criteria) {
+            try {
+                byte[] digest = MessageDigest.getInstance("SHA-256")
+                        .digest(String.valueOf(criteria).getBytes(StandardCharsets.UTF_8));
+                StringBuilder hex = new StringBuilder(digest.length * 2);
+                for (byte b : digest) hex.append(String.format(Locale.ROOT, "%02x", b));
+                return hex.toString();
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 unavailable", e);
+            }
+        }
+
+        /**
+         * True if the given hashes of a before/after pair are each within {@code maxDistance}
+         * bits of this key's. Task and criteria are not compared.
+         */
+        public boolean photosMatch(long beforeDHash, long beforePHash, long afterDHash, long afterPHash,
+                                   int maxDistance) {
+            return ImageHash.distance(this.beforeDHash, beforeDHash) <= maxDistance
+                    && ImageHash.distance(this.beforePHash, beforePHash) <= maxDistance
+                    && ImageHash.distance(this.afterDHash, afterDHash) <= maxDistance
+                    && ImageHash.distance(this.afterPHash, afterPHash) <= maxDistance;
+        }
+
+        public String getTaskUid() {
+            return taskUid;
+        }
+
+        public String getCriteriaHash() {
+            return criteriaHash;
+        }
+
+        public long getBeforeDHash() {
+            return beforeDHash;
+        }
+
+        public long getBeforePHash() {
+            return beforePHash;
+        }
+
+        public long getAfterDHash() {
+            return afterDHash;
+        }
+
+        public long getAfterPHash() {
+            return afterPHash;
+        }
+    }
 }
@@ -0,0 +1,100 @@
+package com.code.wlu.cp470.wellnest.data;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+
+import com.code.wlu.cp470.wellnest.utils.ImageHash;
+import com.code.wlu.cp470.wellnest.utils.ImageSimilarity;
+
+/**
+ * A submitted SnapTask photo as a small grey thumbnail, which is all the on-device checks
+ * look at: the unchanged-photo pre-screen ({@link #looksUnchangedFrom}) and the verdict cache.
+ * <p>
+ * The JPEG is decoded at a power-of-two fraction of its size, which the decoder does almost
+ * for free, so decoding a camera photo takes a few milliseconds. Still, call it off the main
+ * thread.
+ */
+public final class SnapTaskPhoto {
+
+    /**
+     * An after photo whose every block is at least this similar (SSIM) to the before photo
+     * shows no change: a retake from the same spot scores above 0.85, while doing a chore in even
+     * one part of the frame drops that part's block well below.
+     */
+    public static final double UNCHANGED_SSIM = 0.8;
+
+    // Thumbnails keep at least this short side: a few pixels per cell of the 64 x 64 SSIM grid
+    private static final int MIN_DECODED_SIDE = 128;
+
+    private final int[] luma;
+    private final int width;
+    private final int height;
+
+    private SnapTaskPhoto(int[] luma, int width, int height) {
+        this.luma = luma;
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * The thumbnail of a JPEG, or null if it cannot be decoded.
+     */
+    public static SnapTaskPhoto decode(byte[] jpeg) {
+        if (jpeg == null || jpeg.length == 0) return null;
+
+        BitmapFactory.Options bounds = new BitmapFactory.Options();
+        bounds.inJustDecodeBounds = true;
+        BitmapFactory.decodeByteArray(jpeg, 0, jpeg.length, bounds);
+        if (bounds.outWidth <= 0 || bounds.outHeight <= 0) return null;
+
+        int shortSide = Math.min(bounds.outWidth, bounds.outHeight);
+        int sample = 1;
+        while (shortSide / (sample * 2) >= MIN_DECODED_SIDE) sample *= 2;
+
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inSampleSize = sample;
+        options.inPreferredConfig = Bitmap.Config.ARGB_8888;
+        Bitmap bitmap = BitmapFactory.decodeByteArray(jpeg, 0, jpeg.length, options);
+        if (bitmap == null) return null;
+        try {
+            int width = bitmap.getWidth();
+            int height = bitmap.getHeight();
+            int[] pixels = new int[width * height];
+            bitmap.getPixels(pixels, 0, width, 0, 0, width, height);
+            return new SnapTaskPhoto(ImageHash.luminance(pixels), width, height);
+        } finally {
+            bitmap.recycle();
+        }
+    }
+
+    /**
+     * SSIM of the least similar block of this photo and {@code other}; see
+     * {@link ImageSimilarity#worstBlockSsim}.
+     */
+    public double worstBlockSsim(SnapTaskPhoto other) {
+        return ImageSimilarity.worstBlockSsim(luma, width, height, other.luma, other.width, other.height);
+    }
+
+    /**
+     * True if this (after) photo shows the same scene as {@code before} with nothing changed,
+     * so no chore can have been done.
+     */
+    public boolean looksUnchangedFrom(SnapTaskPhoto before) {
+        return worstBlockSsim(before) >= UNCHANGED_SSIM;
+    }
+
+    /**
+     * Luminance (0-255) of the thumbnail, row-major.
+     */
+    public int[] getLuma() {
+        return luma;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+}
@@ -5,6 +5,8 @@ import android.content.SharedPreferences;
 import android.util.Log;
 
 import com.code.wlu.cp470.wellnest.data.SnapTaskModels.Task;
+import com.code.wlu.cp470.wellnest.data.local.DatabaseProvider;
+import com.code.wlu.cp470.wellnest.data.local.SessionStore;
 import com.code.wlu.cp470.wellnest.data.local.managers.SnapTaskManager;
 import com.code.wlu.cp470.wellnest.data.remote.managers.FirebaseSnapTaskManager;
 
@@ -13,12 +15,11 @@ import java.util.List;
 
 public class SnapTaskRepository {
     private static final String PREFS = "snapTask_repo_prefs";
-    private static final String USER_REPO_PREFS = "user_repo_prefs";
-    private static final String PREFS_UID = "uid";
     private final SharedPreferences prefs;
     private final Context context;
     private final FirebaseSnapTaskManager remote;
     private final SnapTaskManager local;
+    private final SessionStore session;
 
     public SnapTaskRepository(Context context, SnapTaskManager localManager, FirebaseSnapTaskManager remoteManager) {
         if (context == null) throw new IllegalArgumentException("context == null");
@@ -29,6 +30,7 @@ public class SnapTaskRepository {
         this.remote = remoteManager;
         this.prefs = context.getApplicationContext()
                 .getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+        this.session = DatabaseProvider.get(context).getSessionStore();
     }
 
     // ------------------------------------------------------------
@@ -91,11 +93,9 @@ public class SnapTaskRepository {
     private void syncScoreToFirebaseAsync(int score) {
         new Thread(() -> {
             try {
-                // Get UID from UserRepository's SharedPreferences
-                SharedPreferences userPrefs = context.getSharedPreferences(USER_REPO_PREFS, Context.MODE_PRIVATE);
-                String uid = userPrefs.getString(PREFS_UID, null);
+                String uid = session.getUid();
 
-                if (uid == null || uid.isEmpty()) {
+                if (uid == null) {
                     Log.w("SnapTaskRepository", "syncScoreToFirebaseAsync: uid is null/empty, skipping Firebase sync");
                     return;
                 }
@@ -128,12 +128,10 @@ public class SnapTaskRepository {
     // ------------------------------------------------------------
     public void syncSnapTaskScoreOnceDaily() {
         Log.d("SnapTaskRepository", "syncSnapTaskScoreOnceDaily: === METHOD ENTERED ===");
-        // Read uid from UserRepository's SharedPreferences
-        SharedPreferences userPrefs = context.getSharedPreferences(USER_REPO_PREFS, Context.MODE_PRIVATE);
-        String uid = userPrefs.getString(PREFS_UID, null);
+        String uid = session.getUid();
 
-        if (uid == null || uid.isEmpty()) {
-            Log.w("SnapTaskRepository", "syncSnapTaskScoreOnceDaily: uid is null/empty in UserRepository prefs, skipping");
+        if (uid == null) {
+            Log.w("SnapTaskRepository", "syncSnapTaskScoreOnceDaily: nobody is signed in, skipping");
             return;
         }
 
@@ -0,0 +1,99 @@
+package com.code.wlu.cp470.wellnest.data;
+
+import android.util.Log;
+
+import com.code.wlu.cp470.wellnest.data.SnapTaskModels.VerdictKey;
+import com.code.wlu.cp470.wellnest.data.local.managers.SnapTaskVerdictManager;
+import com.code.wlu.cp470.wellnest.utils.ImageHash;
+
+/**
+ * Remembers the verdict on each submitted SnapTask photo pair, so resubmitting the same
+ * before/after photos (after a network failure, or a rejected upload) gets the stored verdict
+ * instead of another gpt-4o call. WellnestAiClient only stores and reuses "pass": a near
+ * duplicate of a failed pair can still differ where it matters.
+ * <p>
+ * Photos are matched by perceptual hash ({@link ImageHash}), which survives the re-encoding
+ * and rescaling a resubmitted photo goes through. They are hashed from a
+ * {@link SnapTaskPhoto} thumbnail, so keying a pair takes a few milliseconds. Call it off the
+ * main thread all the same; it also reads the database.
+ */
+public class SnapTaskVerdictCache {
+
+    private static final String TAG = "SnapTaskVerdictCache";
+
+    /**
+     * Most bits a resubmitted photo may differ by, on each hash, and still count as the same.
+     */
+    public static final int MAX_HASH_DISTANCE = 10;
+
+    private final SnapTaskVerdictManager store;
+
+    public SnapTaskVerdictCache(SnapTaskVerdictManager store) {
+        if (store == null) throw new IllegalArgumentException("store cannot be null");
+        this.store = store;
+    }
+
+    /**
+     * The key of a submission, or null if either photo cannot be decoded.
+     */
+    public VerdictKey keyFor(String taskUid, String criteria, byte[] beforeJpeg, byte[] afterJpeg) {
+        if (taskUid == null) return null;
+        return keyFor(taskUid, criteria, SnapTaskPhoto.decode(beforeJpeg), SnapTaskPhoto.decode(afterJpeg));
+    }
+
+    /**
+     * The key of a submission whose photos are already decoded, or null if either is null.
+     */
+    public VerdictKey keyFor(String taskUid, String criteria, SnapTaskPhoto beforePhoto, SnapTaskPhoto afterPhoto) {
+        if (taskUid == null) return null;
+        long[] before = hashPhoto(beforePhoto);
+        long[] after = hashPhoto(afterPhoto);
+        if (before == null || after == null) return null;
+        return new VerdictKey(taskUid, VerdictKey.hashCriteria(criteria), before[0], before[1], after[0], after[1]);
+    }
+
+    /**
+     * The stored verdict for a near-duplicate of {@code key}'s photos, or null if there is none
+     * (or the database cannot be read).
+     */
+    public String find(VerdictKey key) {
+        if (key == null) return null;
+        try {
+            return store.findVerdict(key, MAX_HASH_DISTANCE);
+        } catch (RuntimeException e) {
+            Log.w(TAG, "Verdict lookup failed", e);
+            return null;
+        }
+    }
+
+    /**
+     * Stores the model's verdict on {@code key}'s photos. Failing to store only costs a
+     * network call next time, so errors are logged and dropped.
+     */
+    public void put(VerdictKey key, String verdict) {
+        if (key == null || verdict == null) return;
+        try {
+            store.putVerdict(key, verdict);
+        } catch (RuntimeException e) {
+            Log.w(TAG, "Could not store verdict", e);
+        }
+    }
+
+    /**
+     * {dHash, pHash} of a JPEG, or null if it cannot be decoded.
+     */
+    public static long[] hashPhoto(byte[] jpeg) {
+        return hashPhoto(SnapTaskPhoto.decode(jpeg));
+    }
+
+    /**
+     * {dHash, pHash} of a decoded photo, or null if it is null.
+     */
+    public static long[] hashPhoto(SnapTaskPhoto photo) {
+        if (photo == null) return null;
+        int[] luma = photo.getLuma();
+        return new long[]{
+                ImageHash.dHash(luma, photo.getWidth(), photo.getHeight()),
+                ImageHash.pHash(luma, photo.getWidth(), photo.getHeight())};
+    }
+}
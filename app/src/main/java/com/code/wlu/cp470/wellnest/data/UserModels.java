@@ -108,4 +108,86 @@ public final class UserModels {
             this.score = score;
         }
     }
+
+    /**
+     * One row of the friends leaderboard: an accepted friend or the signed-in user.
+     * Ranks are 1-based; equal scores are ordered by uid, so every entry has its own rank.
+     */
+    public static final class LeaderboardEntry {
+        private final String uid;
+        private final String name;
+        private final int score;
+        private final int rank;
+        private final boolean me;
+
+        public LeaderboardEntry(String uid, String name, int score, int rank, boolean me) {
+            this.uid = uid;
+            this.name = name;
+            this.score = score;
+            this.rank = rank;
+            this.me = me;
+        }
+
+        public String getUid() {
+            return uid;
+        }
+
+        /**
+         * The friend's name; null for the signed-in user's own entry.
+         */
+        public String getName() {
+            return name;
+        }
+
+        public int getScore() {
+            return score;
+        }
+
+        public int getRank() {
+            return rank;
+        }
+
+        public boolean isMe() {
+            return me;
+        }
+    }
+
+    /**
+     * One row of the score_events ledger.
+     */
+    public static final class ScoreEvent {
+        private final long id;
+        private final String microApp;
+        private final int delta;
+        private final long createdAt;
+        private final String source;
+
+        public ScoreEvent(long id, String microApp, int delta, long createdAt, String source) {
+            this.id = id;
+            this.microApp = microApp;
+            this.delta = delta;
+            this.createdAt = createdAt;
+            this.source = source;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public String getMicroApp() {
+            return microApp;
+        }
+
+        public int getDelta() {
+            return delta;
+        }
+
+        public long getCreatedAt() {
+            return createdAt;
+        }
+
+        public String getSource() {
+            return source;
+        }
+    }
 }
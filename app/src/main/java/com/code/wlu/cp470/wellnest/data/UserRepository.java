@@ -1,7 +1,6 @@
 package com.code.wlu.cp470.wellnest.data;
 
 import android.content.Context;
-import android.content.SharedPreferences;
 import android.os.Handler;
 import android.os.Looper;
 import android.util.Log;
@@ -14,8 +13,10 @@ import com.code.wlu.cp470.wellnest.R;
 import com.code.wlu.cp470.wellnest.data.UserModels.Friend;
 import com.code.wlu.cp470.wellnest.data.UserModels.Score;
 import com.code.wlu.cp470.wellnest.data.UserModels.UserProfile;
+import com.code.wlu.cp470.wellnest.data.local.SessionStore;
 import com.code.wlu.cp470.wellnest.data.local.managers.UserManager;
 import com.code.wlu.cp470.wellnest.data.model.FriendRequestResult;
+import com.code.wlu.cp470.wellnest.data.model.FriendSyncResult;
 import com.code.wlu.cp470.wellnest.data.remote.managers.FirebaseUserManager;
 import com.google.android.gms.common.ConnectionResult;
 import com.google.android.gms.common.GoogleApiAvailability;
@@ -37,13 +38,11 @@ import java.util.concurrent.ExecutionException;
 public final class UserRepository {
 
     private static final String TAG = "UserRepository";
-    private static final String PREFS = "user_repo_prefs";
-    private static final String PREFS_UID = "uid";
     private static final String KEY_LAST_GLOBAL_PUSH_DAY = "last_global_push_epoch_day";
 
     private final UserManager local;   // SQLite UserManager
     private final FirebaseUserManager remote;  // FirebaseUserManager
-    private final SharedPreferences prefs;
+    private final SessionStore session;
     private final Context context;
     private final Handler mainHandler;
 
@@ -54,11 +53,17 @@ public final class UserRepository {
         this.local = localManager;
         this.remote = remoteManager;
         this.context = context.getApplicationContext();
-        this.prefs = this.context.getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+        this.session = localManager.getSessionStore();
         this.mainHandler = new Handler(Looper.getMainLooper());
 
         // Don't get currentUid during construction - it may not exist yet during auth flow
-        // The UID will be stored when needed by methods that require it
+    }
+
+    /**
+     * The signed-in identity shared with the local UserManager.
+     */
+    public SessionStore getSessionStore() {
+        return session;
     }
 
     // ------------------------------------------------------------
@@ -69,8 +74,6 @@ public final class UserRepository {
         Log.d(TAG, "syncGlobalScore: === METHOD ENTERED ===");
         // Get current UID when method is called (not during construction)
         String uid = local.currentUid();
-        // Also cache it in prefs for reference
-        prefs.edit().putString(PREFS_UID, uid).apply();
 
         Log.d(TAG, "syncGlobalScore: Starting sync for uid=" + uid);
 
@@ -112,8 +115,8 @@ public final class UserRepository {
         Log.d(TAG, "syncStreak: === METHOD ENTERED ===");
         // Get current UID when method is called (not during construction)
         Log.d(TAG, "Sync streak called");
-        String uid = prefs.getString(PREFS_UID, "-1");
-        if (uid.equals("-1")) {
+        String uid = session.getUid();
+        if (uid == null) {
             Log.e(TAG, "syncStreak: No current UID available, cannot sync streak");
             return;
         }
@@ -176,14 +179,18 @@ public final class UserRepository {
 
 
     public String getUserName() {
-        String uid = local.currentUid();
-        return local.getUserName(uid);
+        return requireIdentity().getName();
     }
 
 
     public String getUserEmail() {
-        String uid = local.currentUid();
-        return local.getUserEmail(uid);
+        return requireIdentity().getEmail();
+    }
+
+    private UserProfile requireIdentity() {
+        UserProfile identity = session.getIdentity();
+        if (identity == null) throw new IllegalStateException("No current user");
+        return identity;
     }
 
 
@@ -369,39 +376,20 @@ public final class UserRepository {
 
             Log.d(TAG, "syncFriendsFromFirebase: Current user UID = " + currentUid);
 
-            // Fetch friends from Firebase
-            List<Friend> firebaseFriends = remote.getFriends(currentUid);
+            // Fetch friends from Firebase (throws instead of returning an empty list on failure,
+            // so a network error never looks like "all friends were removed")
+            List<Friend> firebaseFriends = remote.fetchFriends(currentUid);
             Log.d(TAG, "syncFriendsFromFirebase: Found " + firebaseFriends.size() + " friends in Firebase");
 
-            int syncedCount = 0;
-            int failedCount = 0;
-
-            // Sync each friend to local database
-            for (Friend friend : firebaseFriends) {
-                try {
-                    boolean success = local.upsertFriend(
-                            friend.getUid(),
-                            friend.getName(),
-                            friend.getStatus()
-                    );
-
-                    if (success) {
-                        syncedCount++;
-                        Log.d(TAG, "syncFriendsFromFirebase: Synced friend " + friend.getName() +
-                                " (" + friend.getUid() + ") with status " + friend.getStatus());
-                    } else {
-                        failedCount++;
-                        Log.w(TAG, "syncFriendsFromFirebase: Failed to sync friend " + friend.getName() +
-                                " (" + friend.getUid() + ")");
-                    }
-                } catch (Exception e) {
-                    failedCount++;
-                    Log.e(TAG, "syncFriendsFromFirebase: Error syncing friend " + friend.getName(), e);
-                }
-            }
+            // Apply the whole list (and drop friends removed remotely) in one local transaction
+            FriendSyncResult result = local.upsertFriends(firebaseFriends);
+            int failedCount = result.count(FriendSyncResult.Outcome.FAILED);
 
             Log.i(TAG, "syncFriendsFromFirebase: Sync completed. " +
-                    "Synced: " + syncedCount + ", Failed: " + failedCount + ", Total: " + firebaseFriends.size());
+                    "Inserted: " + result.count(FriendSyncResult.Outcome.INSERTED) +
+                    ", Updated: " + result.count(FriendSyncResult.Outcome.UPDATED) +
+                    ", Removed: " + result.count(FriendSyncResult.Outcome.REMOVED) +
+                    ", Failed: " + failedCount + ", Total: " + firebaseFriends.size());
 
             return failedCount == 0; // Return true only if all synced successfully
 
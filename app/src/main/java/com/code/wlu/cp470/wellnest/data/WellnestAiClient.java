@@ -10,9 +10,13 @@ import android.util.Log;
 
 import androidx.core.app.ActivityCompat;
 
+import com.code.wlu.cp470.wellnest.data.local.DatabaseProvider;
+import com.code.wlu.cp470.wellnest.utils.CancellationToken;
+import com.code.wlu.cp470.wellnest.utils.Deadline;
 import com.google.android.gms.location.FusedLocationProviderClient;
 import com.google.android.gms.location.LocationServices;
 import com.google.android.gms.location.Priority;
+import com.google.android.gms.tasks.CancellationTokenSource;
 import com.google.android.gms.tasks.Task;
 import com.google.android.gms.tasks.Tasks;
 
@@ -21,15 +25,18 @@ import org.json.JSONException;
 import org.json.JSONObject;
 
 import java.io.IOException;
-import java.time.LocalDateTime;
+import java.io.InterruptedIOException;
+import java.time.Instant;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
-import java.util.EnumMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.Callable;
 import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
 
+import okhttp3.Call;
 import okhttp3.Headers;
 import okhttp3.MediaType;
 import okhttp3.OkHttpClient;
@@ -38,7 +45,7 @@ import okhttp3.RequestBody;
 import okhttp3.Response;
 
 /**
- * WellnestAiClient - A utility class for AI-powered functionality in the Wellnest app.
+ * WellnestAiClient - The client for AI-powered functionality in the Wellnest app.
  * <p>
  * This client handles three main AI-powered features:
  * 1. SnapTask evaluation using GPT-4o vision
@@ -48,7 +55,9 @@ import okhttp3.Response;
  * All OpenAI and Tavily API calls are proxied through Vercel to keep API keys secure.
  * Open-Meteo weather API is accessed directly as it requires no authentication.
  * <p>
- * This is a stateless utility class with static methods. It cannot be instantiated.
+ * The app uses the shared instance from {@link #get(Context)}. Tests build their own with
+ * {@link Builder}, pointing the transport and {@link Endpoints} at a local server and
+ * supplying the clock, location and geocoding.
  */
 public final class WellnestAiClient {
 
@@ -61,16 +70,6 @@ public final class WellnestAiClient {
      */
     private static final String VERCEL_BASE_URL = "https://wellnest-proxy.vercel.app/";
 
-    /**
-     * Vercel proxy endpoint for OpenAI Chat API
-     */
-    private static final String OPENAI_PROXY_URL = VERCEL_BASE_URL + "/api/openai-chat";
-
-    /**
-     * Vercel proxy endpoint for Tavily Search API
-     */
-    private static final String TAVILY_PROXY_URL = VERCEL_BASE_URL + "/api/tavily-search";
-
     /**
      * Direct endpoint for Open-Meteo weather API (no authentication required)
      */
@@ -81,43 +80,12 @@ public final class WellnestAiClient {
      */
     private static final MediaType JSON = MediaType.parse("application/json; charset=utf-8");
 
-    /**
-     * Maximum number of retry attempts for GPT API calls
-     */
-    private static final int GPT_RETRY_MAX = 3;
-
-    /**
-     * Base delay in milliseconds between retry attempts
-     */
-    private static final long GPT_RETRY_DELAY_MS = 1200L;
-
     /**
      * Logging tag for debugging
      */
     private static final String TAG = "WellnestAiClient";
 
-    // ============================================================
-    // HTTP CLIENT CONFIGURATION
-    // ============================================================
-
-    /**
-     * Configured OkHttpClient with generous timeouts for AI API calls.
-     * Features:
-     * - Connection timeout: 20 seconds
-     * - Write timeout: 40 seconds
-     * - Read timeout: 60 seconds
-     * - Total call timeout: 120 seconds
-     * - Automatic retry on connection failure
-     * - Periodic ping to keep connection alive
-     */
-    private static final OkHttpClient http = new OkHttpClient.Builder()
-            .connectTimeout(30, TimeUnit.SECONDS)
-            .writeTimeout(60, TimeUnit.SECONDS)
-            .readTimeout(120, TimeUnit.SECONDS)
-            .callTimeout(180, TimeUnit.SECONDS)
-            .retryOnConnectionFailure(true)
-            .pingInterval(15, TimeUnit.SECONDS)
-            .build();
+    private static volatile WellnestAiClient instance;
 
     // ============================================================
     // TEST HOOKS
@@ -130,12 +98,78 @@ public final class WellnestAiClient {
      */
     private static volatile SnapTaskEvaluationOverride snapTaskEvaluationOverride = null;
 
+    // ============================================================
+    // DEPENDENCIES
+    // ============================================================
+
+    private final OkHttpClient http;
+    private final Endpoints endpoints;
+    private final LongSupplier clock;
+    private final LocationProvider location;
+    private final GeocoderProvider geocoder;
+    private final SearchResultCompactor compactor;
+    private final SnapTaskVerdictCache verdictCache;
+    private final ResiliencePolicy resilience;
+    private final Budgets budgets;
+    private final GeoCache geoCache;
+
+    private WellnestAiClient(Builder builder) {
+        this.http = builder.http != null ? builder.http : defaultHttpClient();
+        this.endpoints = builder.endpoints;
+        this.clock = builder.clock;
+        this.location = builder.location;
+        this.geocoder = builder.geoCache.geocoder(builder.geocoder);
+        this.compactor = builder.compactor;
+        this.verdictCache = builder.verdictCache;
+        this.resilience = builder.resilience != null ? builder.resilience : new ResiliencePolicy.Builder().build();
+        this.budgets = builder.budgets;
+        this.geoCache = builder.geoCache;
+    }
+
+    /**
+     * Returns the process-wide client, backed by the Vercel proxy, Open-Meteo, the fused
+     * location provider and the platform Geocoder.
+     */
+    public static WellnestAiClient get(Context context) {
+        WellnestAiClient local = instance;
+        if (local == null) {
+            synchronized (WellnestAiClient.class) {
+                local = instance;
+                if (local == null) {
+                    Context appContext = context.getApplicationContext();
+                    local = new Builder()
+                            .location(new FusedLocationProvider(appContext))
+                            .geocoder(new AndroidGeocoder(appContext))
+                            .verdictCache(new SnapTaskVerdictCache(
+                                    DatabaseProvider.get(appContext).getSnapTaskVerdictManager()))
+                            .geoCache(new GeoCache(DatabaseProvider.get(appContext).getGeoCacheManager()))
+                            .build();
+                    instance = local;
+                }
+            }
+        }
+        return local;
+    }
+
     /**
-     * Private constructor to prevent instantiation.
-     * This is a utility class with only static methods.
+     * Configured OkHttpClient with generous timeouts for AI API calls.
+     * Features:
+     * - Connection timeout: 30 seconds
+     * - Write timeout: 60 seconds
+     * - Read timeout: 120 seconds
+     * - Total call timeout: 180 seconds
+     * - Automatic retry on connection failure
+     * - Periodic ping to keep connection alive
      */
-    private WellnestAiClient() {
-        throw new AssertionError("WellnestAiClient is a utility class and should not be instantiated");
+    private static OkHttpClient defaultHttpClient() {
+        return new OkHttpClient.Builder()
+                .connectTimeout(30, TimeUnit.SECONDS)
+                .writeTimeout(60, TimeUnit.SECONDS)
+                .readTimeout(120, TimeUnit.SECONDS)
+                .callTimeout(180, TimeUnit.SECONDS)
+                .retryOnConnectionFailure(true)
+                .pingInterval(15, TimeUnit.SECONDS)
+                .build();
     }
 
     /**
@@ -160,17 +194,53 @@ public final class WellnestAiClient {
      * the before and after photos to assess whether meaningful progress was made.
      * <p>
      * Features:
-     * - Automatic retry logic (up to 3 attempts)
+     * - Fails an after photo that shows no change from the before photo without asking the
+     * model (see {@link SnapTaskPhoto#looksUnchangedFrom})
+     * - Automatic retry logic (see {@link ResiliencePolicy})
      * - Test hook for instrumented testing
      * - Graceful fallback to "pass" on repeated failures
      * - Zero-temperature for consistent results
      *
+     * <p>
+     * Verdicts are not cached; use {@link #evaluateSnapTask(String, String, byte[], byte[])}
+     * with the task's id for that.
+     *
      * @param criteria   The acceptance criteria describing what constitutes task completion
      * @param beforeJpeg JPEG image data showing the state before the task
      * @param afterJpeg  JPEG image data showing the state after the task
      * @return "pass" if the task was completed successfully, "fail" otherwise
      */
-    public static String evaluateSnapTask(String criteria, byte[] beforeJpeg, byte[] afterJpeg) {
+    public String evaluateSnapTask(String criteria, byte[] beforeJpeg, byte[] afterJpeg) {
+        return evaluateSnapTask(null, criteria, beforeJpeg, afterJpeg);
+    }
+
+    /**
+     * Evaluates a SnapTask like {@link #evaluateSnapTask(String, byte[], byte[])}, first
+     * checking the verdict cache (see {@link SnapTaskVerdictCache}) for the same task,
+     * criteria and near-duplicate photos. A cached "pass" is returned without a network call,
+     * and only a "pass" from the model is cached: a retake close enough to match a failed pair
+     * may be the one where the chore was finally done, so it goes back to the model. The
+     * lenient "pass" given when the model cannot be reached is not cached either, so the next
+     * submission asks again.
+     *
+     * @param taskUid    The task's id; null skips the cache
+     * @param criteria   The acceptance criteria describing what constitutes task completion
+     * @param beforeJpeg JPEG image data showing the state before the task
+     * @param afterJpeg  JPEG image data showing the state after the task
+     * @return "pass" if the task was completed successfully, "fail" otherwise
+     */
+    public String evaluateSnapTask(String taskUid, String criteria, byte[] beforeJpeg, byte[] afterJpeg) {
+        return evaluateSnapTask(taskUid, criteria, beforeJpeg, afterJpeg, CancellationToken.NONE);
+    }
+
+    /**
+     * {@link #evaluateSnapTask(String, String, byte[], byte[])} that gives up once
+     * {@code token} is cancelled, aborting the model request and any backoff wait.
+     *
+     * @return "pass" or "fail", or null if the token was cancelled first
+     */
+    public String evaluateSnapTask(String taskUid, String criteria, byte[] beforeJpeg, byte[] afterJpeg,
+                                   CancellationToken token) {
         // Check for test-only override to avoid hitting the real network in androidTest
         SnapTaskEvaluationOverride override = snapTaskEvaluationOverride;
         if (override != null) {
@@ -188,65 +258,80 @@ public final class WellnestAiClient {
                 ", beforeBytes=" + (beforeJpeg == null ? "null" : beforeJpeg.length) +
                 ", afterBytes=" + (afterJpeg == null ? "null" : afterJpeg.length));
 
-        // Retry logic with exponential backoff
-        for (int attempt = 1; attempt <= GPT_RETRY_MAX; attempt++) {
-            try {
-                Log.d(TAG, "evaluateSnapTask() attempt " + attempt);
-
-                // Build GPT-4o request with vision content
-                JSONObject req = new JSONObject()
-                        .put("model", "gpt-4o")
-                        .put("temperature", 0.0);
-
-                // Construct system message with evaluation instructions
-                JSONArray messages = new JSONArray();
-                messages.put(new JSONObject()
-                        .put("role", "system")
-                        .put("content",
-                                "You are an image judge for household chores. " +
-                                        "You will receive: (1) acceptance criteria text, (2) BEFORE photo, (3) AFTER photo. " +
-                                        "Decide if the AFTER photo satisfies the criteria compared to BEFORE. " +
-                                        "Reply with exactly one word: pass or fail. No punctuation, no explanation."));
-
-                // Construct user message with criteria and images
-                JSONArray content = new JSONArray()
-                        .put(new JSONObject().put("type", "text").put("text", "Criteria:\n" + criteria))
-                        .put(new JSONObject().put("type", "text").put("text", "BEFORE photo:"))
-                        .put(createImageUrlPart(beforeJpeg))
-                        .put(new JSONObject().put("type", "text").put("text", "AFTER photo:"))
-                        .put(createImageUrlPart(afterJpeg));
-
-                messages.put(new JSONObject().put("role", "user").put("content", content));
-                req.put("messages", messages);
-
-                String text = callOpenAIText(req);
-                Log.d(TAG, "evaluateSnapTask() got raw response: " + text);
-                return normalizePassFail(text);
-            } catch (Exception e) {
-                Log.e(TAG, "evaluateSnapTask() error on attempt " + attempt, e);
-                if (attempt == GPT_RETRY_MAX) {
-                    // After all retries fail, return "pass" to be lenient
-                    return "pass";
-                }
-                try {
-                    Thread.sleep(GPT_RETRY_DELAY_MS * attempt);
-                } catch (InterruptedException ie) {
-                    Thread.currentThread().interrupt();
-                    return "pass";
-                }
-            }
+        // Both on-device checks work on the same decoded thumbnails
+        SnapTaskPhoto before = SnapTaskPhoto.decode(beforeJpeg);
+        SnapTaskPhoto after = SnapTaskPhoto.decode(afterJpeg);
+        if (before != null && after != null && after.looksUnchangedFrom(before)) {
+            Log.d(TAG, "evaluateSnapTask() after photo shows no change; failing without the model");
+            return "fail";
+        }
+
+        SnapTaskModels.VerdictKey key = verdictCache != null
+                ? verdictCache.keyFor(taskUid, criteria, before, after)
+                : null;
+        String cached = verdictCache != null ? verdictCache.find(key) : null;
+        if ("pass".equals(cached)) {
+            Log.d(TAG, "evaluateSnapTask() reusing cached verdict: " + cached);
+            return cached;
+        }
+
+        String verdict = requestSnapTaskVerdict(criteria, beforeJpeg, afterJpeg, token);
+        if (token.isCancelled()) {
+            Log.d(TAG, "evaluateSnapTask() cancelled");
+            return null;
+        }
+        if (verdict == null) {
+            // After all retries fail, return "pass" to be lenient
+            return "pass";
+        }
+        if (key != null && "pass".equals(verdict)) verdictCache.put(key, verdict);
+        return verdict;
+    }
+
+    /**
+     * Asks gpt-4o for a verdict, retrying per the resilience policy. Returns null if no attempt
+     * got an answer.
+     */
+    private String requestSnapTaskVerdict(String criteria, byte[] beforeJpeg, byte[] afterJpeg,
+                                          CancellationToken token) {
+        // Build the request once: the photos are streamed from their byte arrays on each attempt
+        RequestBody request;
+        try {
+            request = new ImageChatRequestBody.Builder("gpt-4o", 0.0)
+                    .system("You are an image judge for household chores. " +
+                            "You will receive: (1) acceptance criteria text, (2) BEFORE photo, (3) AFTER photo. " +
+                            "Decide if the AFTER photo satisfies the criteria compared to BEFORE. " +
+                            "Reply with exactly one word: pass or fail. No punctuation, no explanation.")
+                    .text("Criteria:\n" + criteria)
+                    .text("BEFORE photo:")
+                    .jpeg(beforeJpeg)
+                    .text("AFTER photo:")
+                    .jpeg(afterJpeg)
+                    .build();
+        } catch (IllegalArgumentException | JSONException e) {
+            Log.e(TAG, "evaluateSnapTask() could not build the request", e);
+            return null;
+        }
+
+        try {
+            String text = resilience.call(endpoints.openAiUrl, token,
+                    () -> callOpenAIText(request, token, Deadline.NONE));
+            Log.d(TAG, "evaluateSnapTask() got raw response: " + text);
+            return normalizePassFail(text);
+        } catch (IOException | RuntimeException e) {
+            Log.e(TAG, "evaluateSnapTask() gave up", e);
+            return null;
         }
-        return "pass";
     }
 
     /**
      * Plans things to do at a location based on date, time, and weather conditions.
      * <p>
      * This method combines multiple data sources to generate personalized activity
-     * recommendations:
-     * 1. Fetches current weather for the location
-     * 2. Uses AI to create a targeted search query
-     * 3. Searches the web for current local activities
+     * recommendations, run as an {@link ActivityPlanGraph} so independent steps overlap:
+     * 1. Gets the user's location
+     * 2. Fetches current weather and resolves the place name, side by side
+     * 3. Searches the web for current local activities (only needs the place name)
      * 4. Synthesizes results into categorized recommendations
      * <p>
      * Each activity includes:
@@ -260,146 +345,142 @@ public final class WellnestAiClient {
      * @return Map of {@link ActivityJarModels.Category} to a list of {@link ActivityJarModels.Activity}
      * @throws IOException If network requests fail or data cannot be retrieved
      */
-    public static Map<ActivityJarModels.Category, List<ActivityJarModels.Activity>> planThingsToDo(
-            Context context) throws IOException, JSONException {
-
-        Log.d(TAG, "planThingsToDo: Starting...");
-
-        if (!hasLocationPermission(context)) {
+    public Map<ActivityJarModels.Category, List<ActivityJarModels.Activity>> planThingsToDo()
+            throws IOException, JSONException {
+        if (!location.hasPermission()) {
             Log.e(TAG, "planThingsToDo: Location permission not granted");
             throw new IOException("Location permission not granted");
         }
+        Log.d(TAG, "planThingsToDo: Starting...");
+        Deadline deadline = Deadline.in(budgets.locateMs + budgets.planMs);
+        return runGraph(() -> planGraph(CancellationToken.NONE, deadline).plan(null, deadline));
+    }
 
-        // Get current location
-        Log.d(TAG, "planThingsToDo: Getting location...");
-        Location location = getCurrentLocation(context);
-        if (location == null) {
-            Log.e(TAG, "planThingsToDo: Unable to obtain current location");
-            return null;
+    /**
+     * Gets the user's location, the current weather there and the place name: the cheap first
+     * step of {@link #planThingsToDo()}, which is enough to look up cached activities
+     * (see {@link ActivityJarModels.CacheKey}) before committing to the full pipeline.
+     *
+     * @return The location and weather, or null if the location cannot be obtained. If the
+     * weather cannot be fetched its code is -1.
+     * @throws IOException If location permission has not been granted
+     */
+    public ActivityJarModels.PlanContext getPlanContext() throws IOException {
+        return getPlanContext(CancellationToken.NONE);
+    }
+
+    /**
+     * {@link #getPlanContext()} that stops once {@code token} is cancelled, aborting the
+     * location request and the weather call.
+     *
+     * @throws CancellationToken.CancelledException If the token was cancelled first
+     */
+    public ActivityJarModels.PlanContext getPlanContext(CancellationToken token) throws IOException {
+        if (!location.hasPermission()) {
+            Log.e(TAG, "getPlanContext: Location permission not granted");
+            throw new IOException("Location permission not granted");
         }
-        Log.d(TAG, "planThingsToDo: Location obtained: " + location.getLatitude() + ", " + location.getLongitude());
-
-        double latitude = location.getLatitude();
-        double longitude = location.getLongitude();
-
-        String isoDate = LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
-
-        // Fetch current weather conditions for the location
-        Log.d(TAG, "planThingsToDo: Fetching weather...");
-        String weatherSummary = fetchWeatherSummary(latitude, longitude);
-        String locationName = getLocationName(context, latitude, longitude);
-        Log.d(TAG, "planThingsToDo: Weather: " + weatherSummary + ", Location: " + locationName);
-
-
-        // Generate a targeted search query using AI
-        Log.d(TAG, "planThingsToDo: Asking Nano for query...");
-        String query = String.format(Locale.US,
-                "Best local things to do in %s on %s considering %s. " +
-                        "Include outdoor hikes and nature spots, nightlife bars and live music, " +
-                        "active recreation like sports or arcades, cozy coffee shops or chill " +
-                        "indoor spaces, and cultural places like museums or notable restaurants. " +
-                        "Use current, official sources.",
-                locationName, isoDate, weatherSummary);
-
-
-        // Search the web for relevant activities
-        Log.d(TAG, "planThingsToDo: Searching Tavily...");
-        JSONObject tavilyResults = tavilySearch(query);
-        Log.d(TAG, "planThingsToDo: Tavily search complete");
-
-        // Synthesize search results into categorized recommendations
-        Log.d(TAG, "planThingsToDo: Synthesizing results...");
-        String synthPrompt =
-                "Using the Tavily results (JSON below) and the context, return ONLY a valid JSON object with exactly these top-level keys: " +
-                        "[\"Explore\",\"Nightlife\",\"Play\",\"Cozy\",\"Culture\"]. No commentary.\n\n" +
-
-                        "Each key maps to an array of 3–5 objects with this exact shape:\n" +
-                        "{\n" +
-                        "  \"emoji\": string,\n" +
-                        "  \"title\": string,\n" +
-                        "  \"description\": string,\n" +
-                        "  \"address\": string,\n" +
-                        "  \"tags\": [\"solo\",\"friends\",\"family\"],\n" +
-                        "  \"url\": string\n" +
-                        "}\n\n" +
-
-                        "CATEGORY DEFINITIONS (STRICT):\n" +
-                        "- Explore: Outdoor, adventure-style activities (hikes, trails, viewpoints, nature walks, scenic exploration)\n" +
-                        "- Nightlife: After-dark social activities (bars, lounges, live music, nightlife venues, late-night events)\n" +
-                        "- Play: Active & recreational fun (sports, arcades, bowling, mini golf, physical games)\n" +
-                        "- Cozy: Relaxed, low-energy comfort activities (coffee shops, reading spots, at-home vibes, calm spaces)\n" +
-                        "- Culture: Intellectual & culinary experiences (museums, galleries, cultural sites, notable restaurants)\n\n" +
-
-                        "Rules:\n" +
-                        "- Choose ONE source URL per activity from Tavily results (prefer official sites). Use full http(s) URLs.\n" +
-                        "- Activities must be realistic given the provided dateTime and weather.\n" +
-                        "- Tags may include one or more of: solo, friends, family.\n" +
-                        "- The emoji field must contain EXACTLY ONE emoji that best represents the activity.\n" +
-                        "- Do not invent places not justified by Tavily data.\n\n" +
-
-                        "Context:\n" +
-                        "location: " + locationName + "\n" +
-                        "dateTime: " + isoDate + "\n" +
-                        "weather: " + weatherSummary + "\n\n" +
-                        "Tavily JSON:\n" + tavilyResults.toString();
-
-
-        String jsonResponse = askNanoForStrictJson(synthPrompt);
-
-        JSONObject root;
+        Log.d(TAG, "getPlanContext: Getting location...");
         try {
-            root = new JSONObject(jsonResponse);
-        } catch (Exception e) {
-            Log.e(TAG, "planThingsToDo: Failed to parse GPT response JSON", e);
-            return null;
+            Deadline deadline = Deadline.in(budgets.locateMs);
+            ActivityJarModels.PlanContext context =
+                    runGraph(() -> planGraph(token, deadline).locate(null, deadline));
+            // a cancelled location request reads as "no location"
+            token.throwIfCancelled();
+            return context;
+        } catch (JSONException e) {
+            throw new IOException(e);
         }
+    }
 
-        Map<ActivityJarModels.Category, List<ActivityJarModels.Activity>> byCategory =
-                new EnumMap<>(ActivityJarModels.Category.class);
-
-        for (ActivityJarModels.Category category : ActivityJarModels.Category.values()) {
+    /**
+     * {@link #planThingsToDo()} for a location and weather already obtained with
+     * {@link #getPlanContext()}.
+     *
+     * @param planContext Where the user is and the weather there
+     * @return Map of {@link ActivityJarModels.Category} to a list of {@link ActivityJarModels.Activity}
+     * @throws IOException If network requests fail or data cannot be retrieved
+     */
+    public Map<ActivityJarModels.Category, List<ActivityJarModels.Activity>> planThingsToDo(
+            ActivityJarModels.PlanContext planContext) throws IOException, JSONException {
+        return planThingsToDo(planContext, null);
+    }
 
-            if (!root.has(category.name())) continue;
+    /**
+     * {@link #planThingsToDo(ActivityJarModels.PlanContext)} with progress reporting.
+     *
+     * @param planContext Where the user is and the weather there
+     * @param callback    Optional callback for progress updates (can be null); may be called
+     *                    from background threads
+     * @return Map of {@link ActivityJarModels.Category} to a list of {@link ActivityJarModels.Activity}
+     * @throws IOException If network requests fail or data cannot be retrieved
+     */
+    public Map<ActivityJarModels.Category, List<ActivityJarModels.Activity>> planThingsToDo(
+            ActivityJarModels.PlanContext planContext, ProgressCallback callback)
+            throws IOException, JSONException {
+        return planThingsToDo(planContext, callback, CancellationToken.NONE);
+    }
 
-            JSONArray activitiesArray = root.getJSONArray(category.name());
-            List<ActivityJarModels.Activity> activities = new ArrayList<>();
+    /**
+     * {@link #planThingsToDo(ActivityJarModels.PlanContext, ProgressCallback)} that stops once
+     * {@code token} is cancelled, aborting the search and model requests in flight.
+     *
+     * @throws CancellationToken.CancelledException If the token was cancelled first
+     */
+    public Map<ActivityJarModels.Category, List<ActivityJarModels.Activity>> planThingsToDo(
+            ActivityJarModels.PlanContext planContext, ProgressCallback callback, CancellationToken token)
+            throws IOException, JSONException {
+        Log.d(TAG, "planThingsToDo: Starting for " + planContext.getWeatherSummary()
+                + ", " + planContext.getLocationName());
+        Deadline deadline = Deadline.in(budgets.planMs);
+        return runGraph(() -> planGraph(token, deadline).plan(planContext, callback, deadline));
+    }
 
-            for (int i = 0; i < activitiesArray.length(); i++) {
-                JSONObject a = activitiesArray.getJSONObject(i);
+    // Every stage stops once the token is cancelled; the network ones abort their request. The
+    // graph cuts each stage's timeout to the deadline, and its calls end by then too.
+    private ActivityPlanGraph planGraph(CancellationToken token, Deadline deadline) {
+        return new ActivityPlanGraph(new ActivityPlanGraph.Stages() {
+            @Override
+            public double[] locate() throws IOException {
+                token.throwIfCancelled();
+                return location.currentLocation(token, deadline);
+            }
 
-                String emoji = a.optString("emoji");
-                String title = a.optString("title");
-                String description = a.optString("description");
-                String address = a.optString("address");
-                String url = a.optString("url");
+            @Override
+            public JSONObject currentWeather(double latitude, double longitude) throws IOException {
+                return fetchCurrentWeather(latitude, longitude, token, deadline);
+            }
 
-                JSONArray tagsJson = a.optJSONArray("tags");
-                String[] tags = new String[tagsJson != null ? tagsJson.length() : 0];
+            @Override
+            public String locationName(double latitude, double longitude) throws IOException {
+                token.throwIfCancelled();
+                return geocoder.locationName(latitude, longitude);
+            }
 
-                if (tagsJson != null) {
-                    for (int t = 0; t < tagsJson.length(); t++) {
-                        tags[t] = tagsJson.getString(t);
-                    }
-                }
+            @Override
+            public JSONObject search(String query) throws IOException {
+                return tavilySearch(query, token, deadline);
+            }
 
-                ActivityJarModels.Activity activity =
-                        new ActivityJarModels.Activity(
-                                category.name(),
-                                emoji,
-                                title,
-                                description,
-                                address,
-                                tags,
-                                url
-                        );
-
-                activities.add(activity);
+            @Override
+            public String synthesize(String prompt) throws IOException {
+                return askNanoForStrictJson(prompt, token, deadline);
             }
+        }, clock, compactor);
+    }
 
-            byCategory.put(category, activities);
+    // The graph's stages throw whatever their calls threw; keep this class's IOException contract
+    private static <T> T runGraph(Callable<T> graph) throws IOException, JSONException {
+        try {
+            return graph.call();
+        } catch (IOException | JSONException | RuntimeException e) {
+            throw e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while planning");
+        } catch (Exception e) {
+            throw new IOException(e.getMessage(), e);
         }
-
-        return byCategory;
     }
 
     /**
@@ -407,8 +488,8 @@ public final class WellnestAiClient {
      * <p>
      * This method automatically obtains the user's current location and combines
      * web search and AI to find and describe interesting walking locations:
-     * 1. Gets current location using FusedLocationProviderClient
-     * 2. Converts coordinates to human-readable location name via Geocoder
+     * 1. Gets current location from the {@link LocationProvider}
+     * 2. Converts coordinates to human-readable location name via the {@link GeocoderProvider}
      * 3. Fetches current weather for the location
      * 4. Searches for scenic walking spots nearby
      * 5. Selects the best option with detailed addresses
@@ -435,20 +516,32 @@ public final class WellnestAiClient {
      * - Returns null if GPT response parsing fails
      * - Returns null if distance calculation fails
      *
-     * @param context  Android Context for location services and geocoding
      * @param callback Optional callback for progress updates (can be null)
      * @return Walk object with all attributes set, or null on error
      */
-    public static RoamioModels.Walk pickWalkAndStory(Context context, ProgressCallback callback) throws IOException {
-        if (context == null) {
-            Log.e(TAG, "pickWalkAndStory: context is null");
-            return null;
-        }
+    public RoamioModels.Walk pickWalkAndStory(ProgressCallback callback) throws IOException {
+        return pickWalkAndStory(callback, CancellationToken.NONE);
+    }
 
+    /**
+     * {@link #pickWalkAndStory(ProgressCallback)} that stops once {@code token} is cancelled,
+     * aborting the location request, the network call in flight and any backoff wait.
+     * <p>
+     * The whole pipeline runs within {@link Budgets#walkMs}. The weather, the search query and
+     * the search must leave {@link Budgets#walkReserveMs} of it for picking the walk: once that
+     * is gone they are skipped (a plain search query; picking from what the model knows instead
+     * of search results), and a step that fails or runs out of time is dropped the same way.
+     *
+     * @throws CancellationToken.CancelledException If the token was cancelled first
+     */
+    public RoamioModels.Walk pickWalkAndStory(ProgressCallback callback, CancellationToken token)
+            throws IOException {
+        Deadline deadline = Deadline.in(budgets.walkMs);
+        Deadline beforePick = deadline.reserving(budgets.walkReserveMs);
         if (callback != null) callback.onProgress(5, "Checking permissions...");
 
         // Check location permissions
-        if (!hasLocationPermission(context)) {
+        if (!location.hasPermission()) {
             Log.e(TAG, "pickWalkAndStory: Location permission not granted");
             return null;
         }
@@ -456,20 +549,22 @@ public final class WellnestAiClient {
         if (callback != null) callback.onProgress(10, "Finding your location...");
 
         // Get current location
-        Location location = getCurrentLocation(context);
-        if (location == null) {
+        double[] here = location.currentLocation(token, deadline);
+        token.throwIfCancelled();
+        if (here == null) {
             Log.e(TAG, "pickWalkAndStory: Unable to obtain current location");
             return null;
         }
 
-        double latitude = location.getLatitude();
-        double longitude = location.getLongitude();
+        double latitude = here[0];
+        double longitude = here[1];
         Log.d(TAG, String.format(Locale.CANADA, "pickWalkAndStory: Got location: %.6f, %.6f", latitude, longitude));
 
         if (callback != null) callback.onProgress(20, "Identifying neighborhood...");
 
         // Get location name via reverse geocoding
-        String locationName = getLocationName(context, latitude, longitude);
+        token.throwIfCancelled();
+        String locationName = geocoder.locationName(latitude, longitude);
         if (locationName == null) {
             Log.e(TAG, "pickWalkAndStory: Unable to get location name from coordinates");
             return null;
@@ -477,17 +572,22 @@ public final class WellnestAiClient {
         Log.d(TAG, "pickWalkAndStory: Location name: " + locationName);
 
         // Generate current ISO time
-        String isoTime = LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+        String isoTime = isoDateTime(clock.getAsLong());
 
         if (callback != null) callback.onProgress(30, "Checking weather conditions...");
 
         // Fetch weather for the location
-        String weatherSummary;
-        try {
-            weatherSummary = fetchWeatherSummary(latitude, longitude);
-        } catch (IOException e) {
-            Log.w(TAG, "pickWalkAndStory: Weather fetch failed, using fallback", e);
-            weatherSummary = "current conditions";
+        String weatherSummary = "current conditions";
+        if (beforePick.isExpired()) {
+            Log.w(TAG, "pickWalkAndStory: No time left for the weather, using fallback");
+        } else {
+            try {
+                weatherSummary = fetchWeatherSummary(latitude, longitude, token, beforePick);
+            } catch (CancellationToken.CancelledException e) {
+                throw e;
+            } catch (IOException e) {
+                Log.w(TAG, "pickWalkAndStory: Weather fetch failed, using fallback", e);
+            }
         }
 
         if (callback != null) callback.onProgress(40, "Searching for scenic spots...");
@@ -497,10 +597,36 @@ public final class WellnestAiClient {
                 "Create one concise web search query to find scenic, safe walking spots in %s around %s. " +
                         "Prefer parks, river paths, waterfronts, or historic districts. " +
                         "Return ONLY the query text.", locationName, isoTime);
-        String query = askNanoForQuery(qPrompt);
+        String query = null;
+        if (!beforePick.isExpired()) {
+            try {
+                query = askNanoForQuery(qPrompt, token, beforePick);
+            } catch (CancellationToken.CancelledException e) {
+                throw e;
+            } catch (IOException e) {
+                // only a cancelled or expired pipeline gives up; a failed step is dropped
+                token.throwIfCancelled();
+                if (deadline.isExpired()) throw e;
+                Log.w(TAG, "pickWalkAndStory: Query generation failed, using a plain query", e);
+            }
+        }
+        if (query == null) query = walkSearchQuery(locationName);
 
-        // Search for walking spots
-        JSONObject tavilyResults = tavilySearch(query);
+        // Search for walking spots; without results the walk is picked from what the model knows
+        JSONObject tavilyResults = null;
+        if (beforePick.isExpired()) {
+            Log.w(TAG, "pickWalkAndStory: No time left to search");
+        } else {
+            try {
+                tavilyResults = tavilySearch(query, token, beforePick);
+            } catch (CancellationToken.CancelledException e) {
+                throw e;
+            } catch (IOException e) {
+                token.throwIfCancelled();
+                if (deadline.isExpired()) throw e;
+                Log.w(TAG, "pickWalkAndStory: Search failed, going on without it", e);
+            }
+        }
 
         if (callback != null) callback.onProgress(60, "Crafting your adventure...");
 
@@ -515,11 +641,17 @@ public final class WellnestAiClient {
                 "Context:\n" +
                 "location: " + locationName + "\n" +
                 "weather: " + weatherSummary + "\n" +
-                "Tavily JSON:\n" + tavilyResults.toString();
+                "Tavily JSON:\n";
+
+        String pickPrompt = tavilyResults != null
+                ? compactor.buildPrompt(choosePrompt.replace("//", "#"), tavilyResults)
+                : offlineWalkPrompt(locationName, weatherSummary);
 
         String jsonResponse;
         try {
-            jsonResponse = askNanoForStrictJson(choosePrompt.replace("//", "#"));
+            jsonResponse = askNanoForStrictJson(pickPrompt, token, deadline);
+        } catch (CancellationToken.CancelledException e) {
+            throw e;
         } catch (IOException e) {
             Log.e(TAG, "pickWalkAndStory: Failed to get GPT response", e);
             return null;
@@ -538,14 +670,15 @@ public final class WellnestAiClient {
             String endAddress = pick.optString("end_address", locationName);
 
             // Geocode start address to coordinates
-            double[] startCoords = geocodeAddress(context, startAddress);
+            token.throwIfCancelled();
+            double[] startCoords = geocoder.coordinatesOf(startAddress);
             if (startCoords == null) {
                 Log.e(TAG, "pickWalkAndStory: Failed to geocode start address: " + startAddress);
                 return null;
             }
 
             // Geocode end address to coordinates
-            double[] endCoords = geocodeAddress(context, endAddress);
+            double[] endCoords = geocoder.coordinatesOf(endAddress);
             if (endCoords == null) {
                 Log.e(TAG, "pickWalkAndStory: Failed to geocode end address: " + endAddress);
                 return null;
@@ -565,7 +698,11 @@ public final class WellnestAiClient {
                     startAddress,
                     endAddress,
                     distance,
-                    false  // completed - false for new walks
+                    false,  // completed - false for new walks
+                    startCoords[0],
+                    startCoords[1],
+                    endCoords[0],   // kept so the completion check never geocodes again
+                    endCoords[1]
             );
         } catch (JSONException e) {
             Log.e(TAG, "pickWalkAndStory: Failed to parse GPT response JSON", e);
@@ -573,11 +710,45 @@ public final class WellnestAiClient {
         }
     }
 
+    /**
+     * Geocodes {@code address} through the client's geocoder, answered from the geo cache when
+     * it was looked up before. Used to resolve the destination of a walk that was saved without
+     * its coordinates.
+     * <p>
+     * Blocks on the geocoder; call it off the main thread.
+     *
+     * @return {latitude, longitude}, or null if the address could not be found.
+     */
+    public double[] coordinatesOf(String address) {
+        if (address == null || address.trim().isEmpty()) return null;
+        return geocoder.coordinatesOf(address);
+    }
+
+    // The search query used when there is no time to have the model write one
+    static String walkSearchQuery(String locationName) {
+        return "scenic walking trails, parks and waterfront paths in " + locationName;
+    }
+
+    // Picking a walk without search results: well-known places only, so the model has less to make up
+    static String offlineWalkPrompt(String locationName, String weatherSummary) {
+        return "From what you know about the location, pick ONE well-known, long-established walking location " +
+                "(a major park, trail, waterfront or historic district). Return ONLY JSON with:\n" +
+                "{\n" +
+                "  \"query\": string,\n" +
+                "  \"pick\": {\"name\": string, \"start_address\": string, \"end_address\": string},\n" +
+                "  \"story\": string  # an interesting backstory & history in 4–7 sentences, friendly tone\n" +
+                "}\n\n" +
+                "Use addresses a map can find. Keep fields concise.\n\n" +
+                "Context:\n" +
+                "location: " + locationName + "\n" +
+                "weather: " + weatherSummary + "\n";
+    }
+
     /**
      * Overload for backward compatibility or when no callback is needed.
      */
-    public static RoamioModels.Walk pickWalkAndStory(Context context) throws IOException {
-        return pickWalkAndStory(context, null);
+    public RoamioModels.Walk pickWalkAndStory() throws IOException {
+        return pickWalkAndStory(null);
     }
 
     /**
@@ -591,8 +762,8 @@ public final class WellnestAiClient {
      * @return Weather summary string (e.g., "Clear, 22°C, wind 15 km/h")
      * @throws IOException If the weather API request fails
      */
-    public static String getWeatherSummary(double lat, double lon) throws IOException {
-        return fetchWeatherSummary(lat, lon);
+    public String getWeatherSummary(double lat, double lon) throws IOException {
+        return fetchWeatherSummary(lat, lon, CancellationToken.NONE, Deadline.NONE);
     }
 
     /**
@@ -620,75 +791,69 @@ public final class WellnestAiClient {
      * Calls the OpenAI API via Vercel proxy to get a text response.
      * <p>
      * This method handles the network communication with the Vercel proxy,
-     * which injects the API key server-side to keep it secure.
+     * which injects the API key server-side to keep it secure. The reply is decoded
+     * as it streams in; only the answer text is kept.
      *
-     * @param chatRequest JSON object containing the chat completion request
+     * @param body     The encoded chat completion request, such as an {@link ImageChatRequestBody};
+     *                 it is written once per call, so a reusable body may be passed to every attempt
+     * @param token    Cancels the call, wherever it is
+     * @param deadline The call ends by it
      * @return The text content from the AI's response
      * @throws IOException If the request fails or response cannot be parsed
      */
-    private static String callOpenAIText(JSONObject chatRequest) throws IOException {
+    private String callOpenAIText(RequestBody body, CancellationToken token, Deadline deadline)
+            throws IOException {
         Headers headers = new Headers.Builder()
                 .add("Content-Type", "application/json")
                 .add("User-Agent", "Wellnest/1.0 (Android)")
                 .build();
 
-        RequestBody body = RequestBody.create(chatRequest.toString(), JSON);
         Request req = new Request.Builder()
-                .url(OPENAI_PROXY_URL)
+                .url(endpoints.openAiUrl)
                 .headers(headers)
                 .post(body)
                 .build();
 
-        try (Response resp = http.newCall(req).execute()) {
+        Call call = newCall(req, deadline);
+        try (CancellationToken.Registration ignored = token.onCancel(call::cancel);
+             Response resp = call.execute()) {
             if (!resp.isSuccessful()) {
-                throw new IOException("OpenAI proxy error: " + resp.code() + " " + safeBody(resp));
+                throw resilience.failure(resp, "OpenAI proxy error: " + resp.code() + " " + safeBody(resp));
             }
-            String text = safeBody(resp);
-            try {
-                JSONObject root = new JSONObject(text);
-                JSONArray choices = root.optJSONArray("choices");
-                if (choices == null || choices.length() == 0) {
-                    throw new IOException("OpenAI: no choices");
-                }
-                JSONObject message = choices.getJSONObject(0).getJSONObject("message");
-                return message.optString("content", "").trim();
-            } catch (JSONException je) {
-                throw new IOException("OpenAI parse error: " + je.getMessage() + "\n" + text);
+            if (resp.body() == null) {
+                throw new IOException("OpenAI: empty response");
             }
+            return AiResponseReader.readModelText(resp.body().charStream()).trim();
         }
     }
 
+    // A call that ends by the deadline, whatever the client's own timeouts
+    private Call newCall(Request req, Deadline deadline) throws IOException {
+        deadline.throwIfExpired();
+        Call call = http.newCall(req);
+        if (deadline.isBounded()) {
+            // 0 would mean no timeout at all
+            call.timeout().timeout(Math.max(1, deadline.remainingMs()), TimeUnit.MILLISECONDS);
+        }
+        return call;
+    }
+
     // ============================================================
     // PRIVATE HELPERS - OpenAI Integration
     // ============================================================
 
     /**
-     * Calls OpenAI with retry logic for improved reliability.
-     * <p>
-     * Retries failed requests with exponential backoff to handle transient
-     * network issues or rate limits.
+     * Calls OpenAI through the resilience policy: failures are retried with jittered backoff,
+     * and fail fast while the proxy's circuit breaker is open.
      *
      * @param chatRequest JSON object containing the chat completion request
-     * @param maxAttempts Maximum number of retry attempts
      * @return The text content from the AI's response
-     * @throws IOException If all retry attempts fail
+     * @throws IOException If every attempt fails, or the breaker is open
      */
-    private static String callOpenAITextWithRetry(JSONObject chatRequest, int maxAttempts) throws IOException {
-        IOException lastException = null;
-        for (int i = 1; i <= maxAttempts; i++) {
-            try {
-                return callOpenAIText(chatRequest);
-            } catch (IOException ioe) {
-                lastException = ioe;
-                try {
-                    Thread.sleep(800L * i);
-                } catch (InterruptedException ie) {
-                    Thread.currentThread().interrupt();
-                    throw (lastException != null ? lastException : new IOException("interrupted"));
-                }
-            }
-        }
-        throw lastException != null ? lastException : new IOException("unknown failure");
+    private String callOpenAITextWithRetry(JSONObject chatRequest, CancellationToken token, Deadline deadline)
+            throws IOException {
+        RequestBody body = RequestBody.create(chatRequest.toString(), JSON);
+        return resilience.call(endpoints.openAiUrl, token, deadline, () -> callOpenAIText(body, token, deadline));
     }
 
     /**
@@ -701,7 +866,8 @@ public final class WellnestAiClient {
      * @return A concise search query string
      * @throws IOException If the request fails
      */
-    private static String askNanoForQuery(String instruction) throws IOException {
+    private String askNanoForQuery(String instruction, CancellationToken token, Deadline deadline)
+            throws IOException {
         try {
             JSONObject req = new JSONObject().put("model", "gpt-5-nano");
             JSONArray messages = new JSONArray()
@@ -712,7 +878,7 @@ public final class WellnestAiClient {
                             .put("role", "user")
                             .put("content", instruction));
             req.put("messages", messages);
-            return callOpenAITextWithRetry(req, 3).trim().replace("\n", " ");
+            return callOpenAITextWithRetry(req, token, deadline).trim().replace("\n", " ");
         } catch (JSONException e) {
             throw new IOException(e);
         }
@@ -728,7 +894,8 @@ public final class WellnestAiClient {
      * @return Strict JSON string (without code fences or commentary)
      * @throws IOException If the request fails or JSON cannot be extracted
      */
-    private static String askNanoForStrictJson(String instruction) throws IOException {
+    private String askNanoForStrictJson(String instruction, CancellationToken token, Deadline deadline)
+            throws IOException {
         try {
             JSONObject req = new JSONObject().put("model", "gpt-5-nano");
             JSONArray messages = new JSONArray()
@@ -739,7 +906,7 @@ public final class WellnestAiClient {
                             .put("role", "user")
                             .put("content", instruction));
             req.put("messages", messages);
-            String out = callOpenAITextWithRetry(req, 3).trim();
+            String out = callOpenAITextWithRetry(req, token, deadline).trim();
 
             // Strip code fences if present
             if (out.startsWith("```")) {
@@ -759,35 +926,44 @@ public final class WellnestAiClient {
      * Performs a web search using Tavily API via Vercel proxy.
      * <p>
      * Tavily is optimized for AI applications and returns structured results
-     * suitable for synthesis by language models.
+     * suitable for synthesis by language models. Only each result's title, URL and
+     * snippet are kept, decoded as the response streams in.
      *
      * @param query The search query string
-     * @return JSON object containing search results
+     * @return JSON object of the form {"results":[{"title","url","content"}]}
      * @throws IOException If the search request fails
      */
-    private static JSONObject tavilySearch(String query) throws IOException {
+    private JSONObject tavilySearch(String query, CancellationToken token, Deadline deadline) throws IOException {
         try {
             // Build request (no api_key here; proxy injects it)
             JSONObject payload = new JSONObject()
                     .put("query", query)
                     .put("search_depth", "basic")
-                    .put("include_answer", true)
+                    .put("include_answer", false)
                     .put("include_images", false)
                     .put("max_results", 12);
 
             RequestBody body = RequestBody.create(payload.toString(), JSON);
             Request req = new Request.Builder()
-                    .url(TAVILY_PROXY_URL)
+                    .url(endpoints.tavilyUrl)
                     .post(body)
                     .build();
 
-            try (Response resp = http.newCall(req).execute()) {
-                if (!resp.isSuccessful()) {
-                    throw new IOException("Tavily proxy error: " + resp.code() + " " + safeBody(resp));
+            // One attempt: the plan graph has its own deadline. The breaker still fails it fast
+            // while the proxy is down.
+            return resilience.call(endpoints.tavilyUrl, 1, token, deadline, () -> {
+                Call call = newCall(req, deadline);
+                try (CancellationToken.Registration ignored = token.onCancel(call::cancel);
+                     Response resp = call.execute()) {
+                    if (!resp.isSuccessful()) {
+                        throw resilience.failure(resp, "Tavily proxy error: " + resp.code() + " " + safeBody(resp));
+                    }
+                    if (resp.body() == null) {
+                        throw new IOException("Tavily: empty response");
+                    }
+                    return AiResponseReader.readSearchResults(resp.body().charStream());
                 }
-                String text = safeBody(resp);
-                return new JSONObject(text);
-            }
+            });
         } catch (JSONException e) {
             throw new IOException(e);
         }
@@ -808,37 +984,78 @@ public final class WellnestAiClient {
      * @return Human-readable weather summary (e.g., "Clear, 22°C, wind 15 km/h")
      * @throws IOException If the weather API request fails
      */
-    private static String fetchWeatherSummary(double lat, double lon) throws IOException {
-        String url = OPEN_METEO_URL +
+    private String fetchWeatherSummary(double lat, double lon, CancellationToken token, Deadline deadline)
+            throws IOException {
+        return weatherSummary(fetchCurrentWeather(lat, lon, token, deadline));
+    }
+
+    /**
+     * Fetches the "current_weather" object from Open-Meteo, unless the {@link GeoCache} has a
+     * recent reading for the same area.
+     *
+     * @return The current weather, or null if the request or its response was unusable
+     * @throws IOException If the weather API request fails
+     */
+    private JSONObject fetchCurrentWeather(double lat, double lon, CancellationToken token, Deadline deadline)
+            throws IOException {
+        String cell = GeoCache.cellKey(GeoCache.Kind.WEATHER, lat, lon);
+        String cached = geoCache.get(GeoCache.Kind.WEATHER, cell);
+        if (cached != null) {
+            try {
+                return new JSONObject(cached);
+            } catch (JSONException e) {
+                Log.w(TAG, "fetchCurrentWeather: Ignoring unreadable cached weather", e);
+            }
+        }
+
+        String url = endpoints.openMeteoUrl +
                 "?latitude=" + lat +
                 "&longitude=" + lon +
                 "&current_weather=true" +
                 "&hourly=temperature_2m,precipitation_probability,weathercode,wind_speed_10m";
 
         Request req = new Request.Builder().url(url).get().build();
-        try (Response resp = http.newCall(req).execute()) {
-            if (!resp.isSuccessful()) {
-                return "weather unavailable";
-            }
-            String text = safeBody(resp);
-            try {
-                JSONObject root = new JSONObject(text);
-                JSONObject cw = root.optJSONObject("current_weather");
-                if (cw == null) {
-                    return "weather unavailable";
-                }
-                double temp = cw.optDouble("temperature", Double.NaN);
-                double wind = cw.optDouble("windspeed", Double.NaN);
-                int wcode = cw.optInt("weathercode", -1);
-                String desc = weatherCodeToText(wcode);
-                if (!Double.isNaN(temp) && !Double.isNaN(wind)) {
-                    return String.format(Locale.US, "%s, %.0f°C, wind %.0f km/h", desc, temp, wind);
+        String text;
+        try {
+            // One attempt, as the weather is optional; the breaker fails it fast while Open-Meteo is down
+            text = resilience.call(url, 1, token, deadline, () -> {
+                Call call = newCall(req, deadline);
+                try (CancellationToken.Registration ignored = token.onCancel(call::cancel);
+                     Response resp = call.execute()) {
+                    if (!resp.isSuccessful()) {
+                        throw resilience.failure(resp, "Open-Meteo error: " + resp.code());
+                    }
+                    return safeBody(resp);
                 }
-                return desc;
-            } catch (JSONException e) {
-                return "weather unavailable";
-            }
+            });
+        } catch (ResiliencePolicy.HttpStatusException e) {
+            return null;
+        }
+        JSONObject current;
+        try {
+            current = new JSONObject(text).optJSONObject("current_weather");
+        } catch (JSONException e) {
+            return null;
+        }
+        if (current != null) geoCache.put(GeoCache.Kind.WEATHER, cell, current.toString());
+        return current;
+    }
+
+    /**
+     * Formats an Open-Meteo "current_weather" object (e.g., "Clear, 22°C, wind 15 km/h").
+     */
+    static String weatherSummary(JSONObject cw) {
+        if (cw == null) {
+            return "weather unavailable";
+        }
+        double temp = cw.optDouble("temperature", Double.NaN);
+        double wind = cw.optDouble("windspeed", Double.NaN);
+        int wcode = cw.optInt("weathercode", -1);
+        String desc = weatherCodeToText(wcode);
+        if (!Double.isNaN(temp) && !Double.isNaN(wind)) {
+            return String.format(Locale.US, "%s, %.0f°C, wind %.0f km/h", desc, temp, wind);
         }
+        return desc;
     }
 
     // ============================================================
@@ -900,225 +1117,475 @@ public final class WellnestAiClient {
     }
 
     /**
-     * Creates a JSON object representing an image URL part for GPT vision.
-     * <p>
-     * Encodes JPEG bytes as a base64 data URL suitable for GPT-4o's vision API.
+     * Formats a wall-clock time as an ISO local date-time (e.g., "2025-06-02T09:30:00") for prompts.
      *
-     * @param jpegBytes JPEG image data as byte array
-     * @return JSON object with image_url structure
-     * @throws JSONException If JSON creation fails
+     * @param epochMillis Time in ms since the epoch, usually from the client's clock
+     * @return The time in the device's time zone
      */
-    private static JSONObject createImageUrlPart(byte[] jpegBytes) throws JSONException {
-        String dataUrl = "data:image/jpeg;base64," +
-                android.util.Base64.encodeToString(jpegBytes, android.util.Base64.NO_WRAP);
-        return new JSONObject()
-                .put("type", "image_url")
-                .put("image_url", new JSONObject()
-                        .put("url", dataUrl)
-                        .put("detail", "low"));
+    static String isoDateTime(long epochMillis) {
+        return Instant.ofEpochMilli(epochMillis)
+                .atZone(ZoneId.systemDefault())
+                .toLocalDateTime()
+                .format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
     }
-    // ============================================================
-    // PRIVATE HELPERS - Location Services
-    // ============================================================
 
     /**
-     * Checks if the app has location permissions.
+     * Calculates the distance between two geographic coordinates.
+     * <p>
+     * Uses Android's Location.distanceBetween() method to calculate the distance
+     * in meters between two points specified by their latitude and longitude.
      *
-     * @param context Android Context
-     * @return true if either FINE or COARSE location permission is granted
+     * @param startLat Starting point latitude
+     * @param startLon Starting point longitude
+     * @param endLat   Ending point latitude
+     * @param endLon   Ending point longitude
+     * @return Distance in meters between the two points
      */
-    private static boolean hasLocationPermission(Context context) {
-        return ActivityCompat.checkSelfPermission(context, Manifest.permission.ACCESS_FINE_LOCATION)
-                == PackageManager.PERMISSION_GRANTED ||
-                ActivityCompat.checkSelfPermission(context, Manifest.permission.ACCESS_COARSE_LOCATION)
-                        == PackageManager.PERMISSION_GRANTED;
+    private static float calculateDistance(double startLat, double startLon, double endLat, double endLon) {
+        float[] results = new float[1];
+        Location.distanceBetween(startLat, startLon, endLat, endLon, results);
+        return results[0];
     }
 
+
     /**
-     * Gets the current location using FusedLocationProviderClient.
-     * <p>
-     * This method uses a synchronous approach with a timeout to get the location.
-     * It prioritizes accuracy using PRIORITY_HIGH_ACCURACY.
-     *
-     * @param context Android Context for location services
-     * @return Current Location object, or null if location cannot be obtained
+     * Test hook interface for overriding SnapTask evaluation.
+     * Implement this interface in tests to provide custom evaluation logic.
      */
-    private static Location getCurrentLocation(Context context) {
-        try {
-            FusedLocationProviderClient fusedLocationClient =
-                    LocationServices.getFusedLocationProviderClient(context);
+    public interface SnapTaskEvaluationOverride {
+        /**
+         * Evaluates whether a SnapTask was completed successfully.
+         *
+         * @param criteria   The acceptance criteria for the task
+         * @param beforeJpeg JPEG image data before task completion
+         * @param afterJpeg  JPEG image data after task completion
+         * @return "pass" or "fail" evaluation result
+         */
+        String evaluate(String criteria, byte[] beforeJpeg, byte[] afterJpeg);
+    }
 
-            // Check permissions again (defensive programming)
-            if (!hasLocationPermission(context)) {
-                return null;
-            }
+    /**
+     * Callback interface for reporting progress during long-running AI operations.
+     */
+    public interface ProgressCallback {
+        /**
+         * Called to report progress.
+         *
+         * @param percent Progress percentage (0-100)
+         * @param message Status message describing the current step
+         */
+        void onProgress(int percent, String message);
+    }
 
-            // Get current location with high accuracy priority
-            @SuppressWarnings("MissingPermission")
-            Task<Location> locationTask = fusedLocationClient.getCurrentLocation(
-                    Priority.PRIORITY_HIGH_ACCURACY,
-                    null
-            );
+    // ============================================================
+    // SEAMS - Transport, Endpoints, Location and Geocoding
+    // ============================================================
 
-            // Wait for the result with a timeout (10 seconds)
-            Location location = Tasks.await(locationTask, 10, TimeUnit.SECONDS);
+    /**
+     * How long each multi-stage pipeline may take end to end, in ms. Each stage's own timeout is
+     * cut to what is left of its pipeline's budget, and optional stages are skipped or cut short
+     * to leave time for the ones that matter (see {@link Deadline}).
+     */
+    public static final class Budgets {
+        public static final Budgets DEFAULT = new Budgets(
+                TimeUnit.SECONDS.toMillis(25),   // getPlanContext: location, then weather and place name
+                TimeUnit.SECONDS.toMillis(90),   // planThingsToDo from a plan context
+                TimeUnit.SECONDS.toMillis(90),   // pickWalkAndStory
+                TimeUnit.SECONDS.toMillis(30));  // of which kept for the walk's final model call
+
+        final long locateMs;
+        final long planMs;
+        final long walkMs;
+        final long walkReserveMs;
 
-            if (location == null) {
-                Log.w(TAG, "getCurrentLocation: FusedLocationProviderClient returned null, trying last known location");
-                // Fallback to last known location
-                @SuppressWarnings("MissingPermission")
-                Task<Location> lastLocationTask = fusedLocationClient.getLastLocation();
-                location = Tasks.await(lastLocationTask, 5, TimeUnit.SECONDS);
+        /**
+         * @param walkReserveMs How much of {@code walkMs} the steps before the walk is picked
+         *                      (weather, search query, search) must leave to it.
+         */
+        public Budgets(long locateMs, long planMs, long walkMs, long walkReserveMs) {
+            if (locateMs < 0 || planMs < 0 || walkMs < 0 || walkReserveMs < 0) {
+                throw new IllegalArgumentException("negative budget");
             }
-
-            return location;
-        } catch (Exception e) {
-            Log.e(TAG, "getCurrentLocation: Failed to get location", e);
-            return null;
+            this.locateMs = locateMs;
+            this.planMs = planMs;
+            this.walkMs = walkMs;
+            this.walkReserveMs = walkReserveMs;
         }
     }
 
     /**
-     * Converts latitude and longitude to a human-readable location name.
-     * <p>
-     * Uses Android's Geocoder to perform reverse geocoding. Returns the most
-     * specific available location information (locality > admin area > country).
-     *
-     * @param context   Android Context for Geocoder
-     * @param latitude  Latitude coordinate
-     * @param longitude Longitude coordinate
-     * @return Human-readable location name (e.g., "Toronto, Ontario"), or null if geocoding fails
+     * Where the client sends its requests.
      */
-    private static String getLocationName(Context context, double latitude, double longitude) {
-        try {
-            Geocoder geocoder = new Geocoder(context, Locale.getDefault());
+    public static final class Endpoints {
+        public static final Endpoints DEFAULT = new Endpoints(VERCEL_BASE_URL, OPEN_METEO_URL);
 
-            // Check if Geocoder is present (not available on all devices/emulators)
-            if (!Geocoder.isPresent()) {
-                Log.e(TAG, "getLocationName: Geocoder not available on this device");
-                return null;
-            }
+        final String openAiUrl;
+        final String tavilyUrl;
+        final String openMeteoUrl;
 
-            List<Address> addresses = geocoder.getFromLocation(latitude, longitude, 1);
-            if (addresses == null || addresses.isEmpty()) {
-                Log.w(TAG, "getLocationName: No addresses found for coordinates");
-                return null;
-            }
-
-            Address address = addresses.get(0);
-
-            // Build location name from most specific to least specific
-            // Priority: Locality (city) > Admin Area (state/province) > Country
-            String locality = address.getLocality();
-            String adminArea = address.getAdminArea();
-            String countryName = address.getCountryName();
-
-            if (locality != null && adminArea != null) {
-                return locality + ", " + adminArea;
-            } else if (locality != null) {
-                return locality;
-            } else if (adminArea != null) {
-                return adminArea + (countryName != null ? ", " + countryName : "");
-            } else if (countryName != null) {
-                return countryName;
-            } else {
-                // Fallback to formatted address
-                String fullAddress = address.getAddressLine(0);
-                return fullAddress != null ? fullAddress : "Unknown Location";
-            }
-        } catch (IOException e) {
-            Log.e(TAG, "getLocationName: Geocoder IOException", e);
-            return null;
-        } catch (Exception e) {
-            Log.e(TAG, "getLocationName: Unexpected error", e);
-            return null;
+        /**
+         * @param proxyBaseUrl Base URL of the proxy serving /api/openai-chat and /api/tavily-search
+         * @param openMeteoUrl Open-Meteo forecast endpoint
+         */
+        public Endpoints(String proxyBaseUrl, String openMeteoUrl) {
+            if (proxyBaseUrl == null) throw new IllegalArgumentException("proxyBaseUrl == null");
+            if (openMeteoUrl == null) throw new IllegalArgumentException("openMeteoUrl == null");
+            String base = proxyBaseUrl.endsWith("/")
+                    ? proxyBaseUrl.substring(0, proxyBaseUrl.length() - 1)
+                    : proxyBaseUrl;
+            this.openAiUrl = base + "/api/openai-chat";
+            this.tavilyUrl = base + "/api/tavily-search";
+            this.openMeteoUrl = openMeteoUrl;
         }
     }
 
     /**
-     * Geocodes an address string to latitude and longitude coordinates.
-     * <p>
-     * Uses Android's Geocoder to convert a human-readable address to coordinates.
-     *
-     * @param context Android Context for Geocoder
-     * @param address The address string to geocode
-     * @return Array with [latitude, longitude], or null if geocoding fails
+     * Supplies the user's location.
      */
-    private static double[] geocodeAddress(Context context, String address) {
-        try {
-            Geocoder geocoder = new Geocoder(context, Locale.getDefault());
+    public interface LocationProvider {
+        /**
+         * Whether the app may ask for the location at all.
+         */
+        boolean hasPermission();
 
-            if (!Geocoder.isPresent()) {
-                Log.e(TAG, "geocodeAddress: Geocoder not available on this device");
-                return null;
-            }
+        /**
+         * The current {latitude, longitude}, or null if it cannot be obtained.
+         */
+        double[] currentLocation();
 
-            List<Address> addresses = geocoder.getFromLocationName(address, 1);
-            if (addresses == null || addresses.isEmpty()) {
-                Log.w(TAG, "geocodeAddress: No coordinates found for address: " + address);
-                return null;
-            }
+        /**
+         * {@link #currentLocation()}, giving up (with null) once {@code token} is cancelled or
+         * {@code deadline} has passed. Providers that cannot abort a request just finish it.
+         */
+        default double[] currentLocation(CancellationToken token, Deadline deadline) {
+            return currentLocation();
+        }
+    }
 
-            Address addr = addresses.get(0);
-            double latitude = addr.getLatitude();
-            double longitude = addr.getLongitude();
+    /**
+     * Converts between coordinates and addresses.
+     */
+    public interface GeocoderProvider {
+        /**
+         * A human-readable location name (e.g., "Toronto, Ontario"), or null if unknown.
+         */
+        String locationName(double latitude, double longitude);
 
-            Log.d(TAG, String.format(Locale.US, "geocodeAddress: %s -> [%.6f, %.6f]", address, latitude, longitude));
-            return new double[]{latitude, longitude};
-        } catch (IOException e) {
-            Log.e(TAG, "geocodeAddress: IOException for address: " + address, e);
-            return null;
-        } catch (Exception e) {
-            Log.e(TAG, "geocodeAddress: Unexpected error for address: " + address, e);
-            return null;
-        }
+        /**
+         * The {latitude, longitude} of {@code address}, or null if it cannot be found.
+         */
+        double[] coordinatesOf(String address);
     }
 
     /**
-     * Calculates the distance between two geographic coordinates.
-     * <p>
-     * Uses Android's Location.distanceBetween() method to calculate the distance
-     * in meters between two points specified by their latitude and longitude.
-     *
-     * @param startLat Starting point latitude
-     * @param startLon Starting point longitude
-     * @param endLat   Ending point latitude
-     * @param endLon   Ending point longitude
-     * @return Distance in meters between the two points
+     * Builds a client. Anything not set falls back to the production default, except
+     * location and geocoding, which report nothing unless supplied.
      */
-    private static float calculateDistance(double startLat, double startLon, double endLat, double endLon) {
-        float[] results = new float[1];
-        Location.distanceBetween(startLat, startLon, endLat, endLon, results);
-        return results[0];
+    public static final class Builder {
+        private OkHttpClient http;
+        private Endpoints endpoints = Endpoints.DEFAULT;
+        private LongSupplier clock = System::currentTimeMillis;
+        private LocationProvider location = NO_LOCATION;
+        private GeocoderProvider geocoder = NO_GEOCODER;
+        private SearchResultCompactor compactor = SearchResultCompactor.DEFAULT;
+        private SnapTaskVerdictCache verdictCache;
+        private ResiliencePolicy resilience;
+        private Budgets budgets = Budgets.DEFAULT;
+        private GeoCache geoCache = GeoCache.NONE;
+
+        public Builder http(OkHttpClient http) {
+            this.http = http;
+            return this;
+        }
+
+        public Builder endpoints(Endpoints endpoints) {
+            if (endpoints == null) throw new IllegalArgumentException("endpoints == null");
+            this.endpoints = endpoints;
+            return this;
+        }
+
+        /**
+         * Wall-clock time in ms since the epoch, used for the dates in prompts.
+         */
+        public Builder clock(LongSupplier clock) {
+            if (clock == null) throw new IllegalArgumentException("clock == null");
+            this.clock = clock;
+            return this;
+        }
+
+        public Builder location(LocationProvider location) {
+            if (location == null) throw new IllegalArgumentException("location == null");
+            this.location = location;
+            return this;
+        }
+
+        public Builder geocoder(GeocoderProvider geocoder) {
+            if (geocoder == null) throw new IllegalArgumentException("geocoder == null");
+            this.geocoder = geocoder;
+            return this;
+        }
+
+        /**
+         * How search results are trimmed to fit the prompt budget.
+         */
+        public Builder compactor(SearchResultCompactor compactor) {
+            if (compactor == null) throw new IllegalArgumentException("compactor == null");
+            this.compactor = compactor;
+            return this;
+        }
+
+        /**
+         * Where SnapTask verdicts are remembered; without one every submission asks the model.
+         */
+        public Builder verdictCache(SnapTaskVerdictCache verdictCache) {
+            this.verdictCache = verdictCache;
+            return this;
+        }
+
+        /**
+         * Retries and circuit breakers for every server call; by default
+         * {@link ResiliencePolicy}'s defaults, private to the client.
+         */
+        public Builder resilience(ResiliencePolicy resilience) {
+            if (resilience == null) throw new IllegalArgumentException("resilience == null");
+            this.resilience = resilience;
+            return this;
+        }
+
+        /**
+         * How long each pipeline may take end to end; {@link Budgets#DEFAULT} by default.
+         */
+        public Builder budgets(Budgets budgets) {
+            if (budgets == null) throw new IllegalArgumentException("budgets == null");
+            this.budgets = budgets;
+            return this;
+        }
+
+        /**
+         * Where weather readings and geocodes are remembered; {@link GeoCache#NONE} (every
+         * lookup made afresh) by default.
+         */
+        public Builder geoCache(GeoCache geoCache) {
+            if (geoCache == null) throw new IllegalArgumentException("geoCache == null");
+            this.geoCache = geoCache;
+            return this;
+        }
+
+        public WellnestAiClient build() {
+            return new WellnestAiClient(this);
+        }
     }
 
+    private static final LocationProvider NO_LOCATION = new LocationProvider() {
+        @Override
+        public boolean hasPermission() {
+            return false;
+        }
+
+        @Override
+        public double[] currentLocation() {
+            return null;
+        }
+    };
+
+    private static final GeocoderProvider NO_GEOCODER = new GeocoderProvider() {
+        @Override
+        public String locationName(double latitude, double longitude) {
+            return null;
+        }
+
+        @Override
+        public double[] coordinatesOf(String address) {
+            return null;
+        }
+    };
 
     /**
-     * Test hook interface for overriding SnapTask evaluation.
-     * Implement this interface in tests to provide custom evaluation logic.
+     * The device's location through FusedLocationProviderClient.
      */
-    public interface SnapTaskEvaluationOverride {
+    static final class FusedLocationProvider implements LocationProvider {
+        private final Context context;
+
+        FusedLocationProvider(Context context) {
+            this.context = context;
+        }
+
         /**
-         * Evaluates whether a SnapTask was completed successfully.
+         * Checks if the app has location permissions.
          *
-         * @param criteria   The acceptance criteria for the task
-         * @param beforeJpeg JPEG image data before task completion
-         * @param afterJpeg  JPEG image data after task completion
-         * @return "pass" or "fail" evaluation result
+         * @return true if either FINE or COARSE location permission is granted
          */
-        String evaluate(String criteria, byte[] beforeJpeg, byte[] afterJpeg);
+        @Override
+        public boolean hasPermission() {
+            return ActivityCompat.checkSelfPermission(context, Manifest.permission.ACCESS_FINE_LOCATION)
+                    == PackageManager.PERMISSION_GRANTED ||
+                    ActivityCompat.checkSelfPermission(context, Manifest.permission.ACCESS_COARSE_LOCATION)
+                            == PackageManager.PERMISSION_GRANTED;
+        }
+
+        /**
+         * Gets the current location using FusedLocationProviderClient.
+         * <p>
+         * This method uses a synchronous approach with a timeout to get the location.
+         * It prioritizes accuracy using PRIORITY_HIGH_ACCURACY.
+         *
+         * @return Current {latitude, longitude}, or null if location cannot be obtained
+         */
+        @Override
+        public double[] currentLocation() {
+            return currentLocation(CancellationToken.NONE, Deadline.NONE);
+        }
+
+        /**
+         * {@link #currentLocation()}; cancelling {@code token} cancels the location request,
+         * which ends the wait for it. Neither wait goes past {@code deadline}.
+         */
+        @Override
+        public double[] currentLocation(CancellationToken token, Deadline deadline) {
+            CancellationTokenSource request = new CancellationTokenSource();
+            try (CancellationToken.Registration ignored = token.onCancel(request::cancel)) {
+                FusedLocationProviderClient fusedLocationClient =
+                        LocationServices.getFusedLocationProviderClient(context);
+
+                // Check permissions again (defensive programming)
+                if (!hasPermission()) {
+                    return null;
+                }
+
+                // Get current location with high accuracy priority
+                @SuppressWarnings("MissingPermission")
+                Task<Location> locationTask = fusedLocationClient.getCurrentLocation(
+                        Priority.PRIORITY_HIGH_ACCURACY,
+                        request.getToken()
+                );
+
+                // Wait for the result with a timeout (10 seconds)
+                Location location = Tasks.await(locationTask,
+                        deadline.cap(TimeUnit.SECONDS.toMillis(10)), TimeUnit.MILLISECONDS);
+
+                if (location == null && !token.isCancelled() && !deadline.isExpired()) {
+                    Log.w(TAG, "getCurrentLocation: FusedLocationProviderClient returned null, trying last known location");
+                    // Fallback to last known location
+                    @SuppressWarnings("MissingPermission")
+                    Task<Location> lastLocationTask = fusedLocationClient.getLastLocation();
+                    location = Tasks.await(lastLocationTask,
+                            deadline.cap(TimeUnit.SECONDS.toMillis(5)), TimeUnit.MILLISECONDS);
+                }
+
+                return location != null
+                        ? new double[]{location.getLatitude(), location.getLongitude()}
+                        : null;
+            } catch (Exception e) {
+                Log.e(TAG, "getCurrentLocation: Failed to get location", e);
+                return null;
+            }
+        }
     }
 
     /**
-     * Callback interface for reporting progress during long-running AI operations.
+     * Geocoding through Android's Geocoder.
      */
-    public interface ProgressCallback {
+    static final class AndroidGeocoder implements GeocoderProvider {
+        private final Context context;
+
+        AndroidGeocoder(Context context) {
+            this.context = context;
+        }
+
         /**
-         * Called to report progress.
+         * Converts latitude and longitude to a human-readable location name.
+         * <p>
+         * Uses Android's Geocoder to perform reverse geocoding. Returns the most
+         * specific available location information (locality > admin area > country).
          *
-         * @param percent Progress percentage (0-100)
-         * @param message Status message describing the current step
+         * @param latitude  Latitude coordinate
+         * @param longitude Longitude coordinate
+         * @return Human-readable location name (e.g., "Toronto, Ontario"), or null if geocoding fails
          */
-        void onProgress(int percent, String message);
+        @Override
+        public String locationName(double latitude, double longitude) {
+            try {
+                Geocoder geocoder = new Geocoder(context, Locale.getDefault());
+
+                // Check if Geocoder is present (not available on all devices/emulators)
+                if (!Geocoder.isPresent()) {
+                    Log.e(TAG, "getLocationName: Geocoder not available on this device");
+                    return null;
+                }
+
+                List<Address> addresses = geocoder.getFromLocation(latitude, longitude, 1);
+                if (addresses == null || addresses.isEmpty()) {
+                    Log.w(TAG, "getLocationName: No addresses found for coordinates");
+                    return null;
+                }
+
+                Address address = addresses.get(0);
+
+                // Build location name from most specific to least specific
+                // Priority: Locality (city) > Admin Area (state/province) > Country
+                String locality = address.getLocality();
+                String adminArea = address.getAdminArea();
+                String countryName = address.getCountryName();
+
+                if (locality != null && adminArea != null) {
+                    return locality + ", " + adminArea;
+                } else if (locality != null) {
+                    return locality;
+                } else if (adminArea != null) {
+                    return adminArea + (countryName != null ? ", " + countryName : "");
+                } else if (countryName != null) {
+                    return countryName;
+                } else {
+                    // Fallback to formatted address
+                    String fullAddress = address.getAddressLine(0);
+                    return fullAddress != null ? fullAddress : "Unknown Location";
+                }
+            } catch (IOException e) {
+                Log.e(TAG, "getLocationName: Geocoder IOException", e);
+                return null;
+            } catch (Exception e) {
+                Log.e(TAG, "getLocationName: Unexpected error", e);
+                return null;
+            }
+        }
+
+        /**
+         * Geocodes an address string to latitude and longitude coordinates.
+         * <p>
+         * Uses Android's Geocoder to convert a human-readable address to coordinates.
+         *
+         * @param address The address string to geocode
+         * @return Array with [latitude, longitude], or null if geocoding fails
+         */
+        @Override
+        public double[] coordinatesOf(String address) {
+            try {
+                Geocoder geocoder = new Geocoder(context, Locale.getDefault());
+
+                if (!Geocoder.isPresent()) {
+                    Log.e(TAG, "geocodeAddress: Geocoder not available on this device");
+                    return null;
+                }
+
+                List<Address> addresses = geocoder.getFromLocationName(address, 1);
+                if (addresses == null || addresses.isEmpty()) {
+                    Log.w(TAG, "geocodeAddress: No coordinates found for address: " + address);
+                    return null;
+                }
+
+                Address addr = addresses.get(0);
+                double latitude = addr.getLatitude();
+                double longitude = addr.getLongitude();
+
+                Log.d(TAG, String.format(Locale.US, "geocodeAddress: %s -> [%.6f, %.6f]", address, latitude, longitude));
+                return new double[]{latitude, longitude};
+            } catch (IOException e) {
+                Log.e(TAG, "geocodeAddress: IOException for address: " + address, e);
+                return null;
+            } catch (Exception e) {
+                Log.e(TAG, "geocodeAddress: Unexpected error for address: " + address, e);
+                return null;
+            }
+        }
     }
 }
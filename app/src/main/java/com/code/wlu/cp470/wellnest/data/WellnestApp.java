@@ -2,14 +2,19 @@ package com.code.wlu.cp470.wellnest.data;
 
 import android.app.Application;
 
-import com.code.wlu.cp470.wellnest.data.local.WellnestDatabaseHelper;
+import com.code.wlu.cp470.wellnest.data.local.DatabaseProvider;
 
 public final class WellnestApp extends Application {
+    private DatabaseProvider databaseProvider;
+
     @Override
     public void onCreate() {
         super.onCreate();
-        // Open DB so Database Inspector can see it
-        WellnestDatabaseHelper helper = new WellnestDatabaseHelper(getApplicationContext());
-        helper.getWritableDatabase(); // ensures wellnest.db is created/opened
+        // Open the shared DB once for the whole process (also lets Database Inspector see it)
+        databaseProvider = DatabaseProvider.get(this);
+    }
+
+    public DatabaseProvider getDatabaseProvider() {
+        return databaseProvider;
     }
 }
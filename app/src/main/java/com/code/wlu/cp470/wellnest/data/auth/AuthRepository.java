@@ -1,9 +1,6 @@
 package com.code.wlu.cp470.wellnest.data.auth;
 
-import static android.content.Context.MODE_PRIVATE;
-
 import android.content.Context;
-import android.content.SharedPreferences;
 import android.util.Log;
 
 import com.code.wlu.cp470.wellnest.data.UserRepository;
@@ -33,14 +30,10 @@ import java.util.Map;
 public class AuthRepository {
 
     public static String PREFS = "user_prefs";
-    /** SharedPreferences name used by microapp repositories to read uid */
-    public static final String USER_REPO_PREFS = "user_repo_prefs";
-    private static final String PREFS_UID = "uid";
     private final FirebaseAuth auth;
     private final Context context;
     private final FirebaseFirestore db = FirebaseFirestore.getInstance();
     private final UserRepository userRepo;
-    SharedPreferences prefs;
 
     /**
      * Preferred: inject a ready UserRepository (constructed with your LOCAL + REMOTE managers).
@@ -49,7 +42,6 @@ public class AuthRepository {
         this.auth = FirebaseAuth.getInstance();
         this.context = context.getApplicationContext();
         this.userRepo = userRepository;
-        prefs = context.getSharedPreferences(PREFS, MODE_PRIVATE);
     }
 
     /**
@@ -58,7 +50,6 @@ public class AuthRepository {
      */
     public AuthRepository(Context context, UserManager localManager, FirebaseUserManager remoteManager) {
         this(context, new UserRepository(context.getApplicationContext(), localManager, remoteManager));
-        prefs = context.getSharedPreferences(PREFS, MODE_PRIVATE);
     }
 
     private String mapAuthError(Exception e) {
@@ -97,11 +88,10 @@ public class AuthRepository {
                         // even if this fails, keep the user signed in; you can retry later
                         persistLocalUser(uid, u.getDisplayName(), email);
                         userRepo.ensureGlobalScore(uid);
-                        
-                        // Save UID to both SharedPreferences files INSIDE the callback
-                        // so it's available immediately for microapp repositories
-                        saveUidToBothPrefs(uid);
-                        
+
+                        // Repositories read the uid from the session, so set it before reporting success
+                        userRepo.getSessionStore().onSignedIn(uid, u.getDisplayName(), email);
+
                         cb.onResult(u, null);
                     });
                 });
@@ -139,11 +129,10 @@ public class AuthRepository {
                         userRepo.upsertUserProfile(uid, name, user.getEmail());
                         // if not present, create a local score row for this uid (0 initial)
                         userRepo.ensureGlobalScore(uid); // contract: create if missing
-                        
-                        // Save UID to both SharedPreferences files INSIDE the callback
-                        // so it's available immediately for microapp repositories
-                        saveUidToBothPrefs(uid);
-                        
+
+                        // Repositories read the uid from the session, so set it before reporting success
+                        userRepo.getSessionStore().onSignedIn(uid, name, user.getEmail());
+
                         cb.onResult(user, null);
                     });
                 });
@@ -158,34 +147,6 @@ public class AuthRepository {
         // Optional: userRepo.refreshFriendsScoresFromCloud();
     }
     
-    /**
-     * Saves the UID to both SharedPreferences files:
-     * 1. "user_prefs" - used by AuthRepository
-     * 2. "user_repo_prefs" - used by microapp repositories (ActivityJar, Roamio, SnapTask)
-     *
-     * This ensures the UID is immediately available for Firebase sync operations
-     * after login/signup completes.
-     */
-    private void saveUidToBothPrefs(String uid) {
-        if (uid == null || uid.isEmpty()) {
-            Log.w("AuthRepository", "saveUidToBothPrefs: uid is null/empty, skipping");
-            return;
-        }
-        
-        // Save to user_prefs (existing behavior)
-        SharedPreferences.Editor editor = prefs.edit();
-        editor.putString(PREFS_UID, uid);
-        editor.apply();
-        Log.d("AuthRepository", "saveUidToBothPrefs: saved uid to " + PREFS);
-        
-        // Save to user_repo_prefs (new - for microapp repositories)
-        SharedPreferences userRepoPrefs = context.getSharedPreferences(USER_REPO_PREFS, MODE_PRIVATE);
-        SharedPreferences.Editor userRepoEditor = userRepoPrefs.edit();
-        userRepoEditor.putString(PREFS_UID, uid);
-        userRepoEditor.apply();
-        Log.d("AuthRepository", "saveUidToBothPrefs: saved uid to " + USER_REPO_PREFS);
-    }
-
     private void bootstrapUserDocument(String uid, String displayName, String email, Callback<Void> cb) {
         Map<String, Object> doc = new HashMap<>();
         doc.put("Name", displayName == null ? "" : displayName); // exact key
@@ -205,7 +166,7 @@ public class AuthRepository {
 
     public void signOut() {
         auth.signOut();
-
+        userRepo.getSessionStore().onSignedOut();
     }
 
     public void deleteAccount() {
@@ -0,0 +1,165 @@
+package com.code.wlu.cp470.wellnest.data.local;
+
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.annotation.VisibleForTesting;
+
+import com.code.wlu.cp470.wellnest.data.local.managers.ActiveWalkManager;
+import com.code.wlu.cp470.wellnest.data.local.managers.ActivityJarCacheManager;
+import com.code.wlu.cp470.wellnest.data.local.managers.ActivityJarManager;
+import com.code.wlu.cp470.wellnest.data.local.managers.GeoCacheManager;
+import com.code.wlu.cp470.wellnest.data.local.managers.LeaderboardManager;
+import com.code.wlu.cp470.wellnest.data.local.managers.RoamioManager;
+import com.code.wlu.cp470.wellnest.data.local.managers.SnapTaskManager;
+import com.code.wlu.cp470.wellnest.data.local.managers.SnapTaskVerdictManager;
+import com.code.wlu.cp470.wellnest.data.local.managers.UserManager;
+import com.code.wlu.cp470.wellnest.data.local.managers.WalkSessionManager;
+
+import java.util.concurrent.Executors;
+
+/**
+ * Application-scoped owner of the single {@code wellnest.db} connection.
+ * <p>
+ * The database is opened once (with write-ahead logging, see {@link WellnestDatabaseHelper})
+ * and every screen, view model and background job shares the same {@link SQLiteDatabase}
+ * and the same manager instances. Nothing outside of this class should close the database;
+ * it lives for as long as the process does.
+ */
+public final class DatabaseProvider {
+
+    private static volatile DatabaseProvider instance;
+
+    private final WellnestDatabaseHelper helper;
+    private final SQLiteDatabase db;
+    private final InvalidationTracker invalidationTracker;
+    private final SessionStore sessionStore;
+
+    private UserManager userManager;
+    private LeaderboardManager leaderboardManager;
+    private SnapTaskManager snapTaskManager;
+    private RoamioManager roamioManager;
+    private WalkSessionManager walkSessionManager;
+    private ActiveWalkManager activeWalkManager;
+    private ActivityJarManager activityJarManager;
+    private ActivityJarCacheManager activityJarCacheManager;
+    private SnapTaskVerdictManager snapTaskVerdictManager;
+    private GeoCacheManager geoCacheManager;
+
+    private DatabaseProvider(Context appContext) {
+        this.helper = new WellnestDatabaseHelper(appContext);
+        this.db = helper.getWritableDatabase();
+        this.invalidationTracker = new InvalidationTracker(db,
+                Executors.newSingleThreadExecutor(), InvalidationTracker.DEFAULT_TABLES);
+        this.invalidationTracker.refreshAfterWrites();
+        this.sessionStore = new SessionStore(db);
+    }
+
+    /**
+     * Returns the process-wide provider, opening the database on first use.
+     * {@link com.code.wlu.cp470.wellnest.data.WellnestApp} calls this at startup so the
+     * open cost is paid once, before any screen needs it.
+     */
+    public static DatabaseProvider get(Context context) {
+        DatabaseProvider local = instance;
+        if (local == null) {
+            synchronized (DatabaseProvider.class) {
+                local = instance;
+                if (local == null) {
+                    local = new DatabaseProvider(context.getApplicationContext());
+                    instance = local;
+                }
+            }
+        }
+        return local;
+    }
+
+    /**
+     * Closes the shared connection and forgets the provider so the next {@link #get} opens a
+     * new one. Only for JVM tests, where every test runs against a fresh application.
+     */
+    @VisibleForTesting
+    public static void resetForTests() {
+        synchronized (DatabaseProvider.class) {
+            if (instance != null) instance.helper.close();
+            instance = null;
+        }
+    }
+
+    public WellnestDatabaseHelper getHelper() {
+        return helper;
+    }
+
+    public SQLiteDatabase getDatabase() {
+        return db;
+    }
+
+    /**
+     * Table-change tracker for {@link #getDatabase()}; screens observe queries created by it
+     * instead of re-reading on every resume.
+     */
+    public InvalidationTracker getInvalidationTracker() {
+        return invalidationTracker;
+    }
+
+    /**
+     * The signed-in identity; every repository reads the current uid from here.
+     */
+    public SessionStore getSessionStore() {
+        return sessionStore;
+    }
+
+    // ---------------------------------------------------------------------
+    // managers (lazily created singletons)
+    // ---------------------------------------------------------------------
+
+    public synchronized UserManager getUserManager() {
+        if (userManager == null) userManager = new UserManager(db, sessionStore);
+        return userManager;
+    }
+
+    public synchronized LeaderboardManager getLeaderboardManager() {
+        if (leaderboardManager == null) leaderboardManager = new LeaderboardManager(db, sessionStore);
+        return leaderboardManager;
+    }
+
+    public synchronized SnapTaskManager getSnapTaskManager() {
+        if (snapTaskManager == null) snapTaskManager = new SnapTaskManager(db);
+        return snapTaskManager;
+    }
+
+    public synchronized RoamioManager getRoamioManager() {
+        if (roamioManager == null) roamioManager = new RoamioManager(db);
+        return roamioManager;
+    }
+
+    public synchronized WalkSessionManager getWalkSessionManager() {
+        if (walkSessionManager == null) walkSessionManager = new WalkSessionManager(db);
+        return walkSessionManager;
+    }
+
+    public synchronized ActiveWalkManager getActiveWalkManager() {
+        if (activeWalkManager == null) activeWalkManager = new ActiveWalkManager(db, getWalkSessionManager());
+        return activeWalkManager;
+    }
+
+    public synchronized ActivityJarManager getActivityJarManager() {
+        if (activityJarManager == null) activityJarManager = new ActivityJarManager(db);
+        return activityJarManager;
+    }
+
+    public synchronized ActivityJarCacheManager getActivityJarCacheManager() {
+        if (activityJarCacheManager == null) activityJarCacheManager = new ActivityJarCacheManager(db);
+        return activityJarCacheManager;
+    }
+
+    public synchronized SnapTaskVerdictManager getSnapTaskVerdictManager() {
+        if (snapTaskVerdictManager == null) snapTaskVerdictManager = new SnapTaskVerdictManager(db);
+        return snapTaskVerdictManager;
+    }
+
+    public synchronized GeoCacheManager getGeoCacheManager() {
+        if (geoCacheManager == null) geoCacheManager = new GeoCacheManager(db);
+        return geoCacheManager;
+    }
+}
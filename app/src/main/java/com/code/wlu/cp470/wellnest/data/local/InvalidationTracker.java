@@ -0,0 +1,276 @@
+package com.code.wlu.cp470.wellnest.data.local;
+
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+import android.util.Log;
+
+import androidx.annotation.WorkerThread;
+import androidx.lifecycle.LiveData;
+
+import com.code.wlu.cp470.wellnest.data.local.contracts.ActivityJarContract;
+import com.code.wlu.cp470.wellnest.data.local.contracts.RoamioContract;
+import com.code.wlu.cp470.wellnest.data.local.contracts.ScoreContract;
+import com.code.wlu.cp470.wellnest.data.local.contracts.SnapTaskContract;
+import com.code.wlu.cp470.wellnest.data.local.contracts.UserContract;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tracks which tables of wellnest.db have been written to, so screens only re-query when the
+ * data they show actually changed.
+ * <p>
+ * Every tracked table gets TEMP triggers that flag it in a small TEMP log table whenever a row
+ * is inserted, updated or deleted. That covers every write path (managers, the score_events
+ * trigger, migrations) without the managers having to report anything, and a rolled-back
+ * transaction rolls its flags back with it. {@link #refreshAsync()} reads and clears the flags
+ * and notifies the {@link Observer}s of the tables that changed. Once
+ * {@link #refreshAfterWrites()} is on, the managers' write methods schedule that refresh
+ * themselves through {@link #onWrite}.
+ * <p>
+ * TEMP objects live on a single connection. Android runs every transaction on the primary
+ * (write) connection, so the triggers are installed and the log is read inside a transaction;
+ * that also means a refresh waits for any write in progress to commit before it looks.
+ * <p>
+ * Use {@link #createLiveData} for queries a screen observes: the query runs when the LiveData
+ * becomes active and again only after one of its tables changed.
+ */
+public final class InvalidationTracker {
+
+    private static final String TAG = "InvalidationTracker";
+
+    /**
+     * The tables screens observe. The activity jar cache tables are left out on purpose.
+     */
+    public static final String[] DEFAULT_TABLES = {
+            UserContract.UserProfile.TABLE,
+            UserContract.GlobalScore.TABLE,
+            UserContract.Streak.TABLE,
+            UserContract.Friends.TABLE,
+            UserContract.Badges.TABLE,
+            SnapTaskContract.SnapTask_Score.TABLE,
+            SnapTaskContract.Tasks.TABLE,
+            RoamioContract.Roamio_Score.TABLE,
+            RoamioContract.Walk_Sessions.TABLE,
+            RoamioContract.Current_Walk.TABLE,
+            ActivityJarContract.Activity_Jar_Score.TABLE,
+            ScoreContract.ScoreEvents.TABLE
+    };
+
+    private static final String LOG_TABLE = "wellnest_invalidation_log";
+    private static final String TRIGGER_PREFIX = "wellnest_invalidate_";
+    private static final String[] TRIGGER_OPS = {"INSERT", "UPDATE", "DELETE"};
+
+    // The tracker refreshed by the writes to each database; see refreshAfterWrites()
+    private static final Map<SQLiteDatabase, InvalidationTracker> AFTER_WRITES = new IdentityHashMap<>();
+
+    /**
+     * Receives the subset of its tables that changed. Called on the tracker's executor.
+     */
+    public interface Observer {
+        void onInvalidated(Set<String> tables);
+    }
+
+    private final SQLiteDatabase db;
+    private final Executor executor;
+    private final String[] tables;
+    // table -> number of times it was seen changed; the map itself never changes after construction
+    private final Map<String, AtomicLong> versions = new HashMap<>();
+    private final CopyOnWriteArrayList<ObserverEntry> observers = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean refreshPending = new AtomicBoolean();
+
+    public InvalidationTracker(SQLiteDatabase db, Executor executor, String... tables) {
+        if (db == null) throw new IllegalArgumentException("db cannot be null");
+        if (executor == null) throw new IllegalArgumentException("executor cannot be null");
+        if (tables == null || tables.length == 0) throw new IllegalArgumentException("no tables to track");
+        this.db = db;
+        this.executor = executor;
+        this.tables = tables.clone();
+        for (String table : this.tables) versions.put(table, new AtomicLong());
+    }
+
+    public void addObserver(Observer observer, String... tables) {
+        if (observer == null) throw new IllegalArgumentException("observer cannot be null");
+        observers.add(new ObserverEntry(observer, checkTables(tables)));
+    }
+
+    public void removeObserver(Observer observer) {
+        for (ObserverEntry entry : observers) {
+            if (entry.observer == observer) observers.remove(entry);
+        }
+    }
+
+    /**
+     * A LiveData holding the result of {@code query}, re-run on the tracker's executor when it
+     * becomes active (only if {@code tables} changed since the last run) and whenever one of
+     * {@code tables} changes while it is active.
+     */
+    public <T> LiveData<T> createLiveData(String[] tables, Callable<T> query) {
+        if (query == null) throw new IllegalArgumentException("query cannot be null");
+        return new TableLiveData<>(this, checkTables(tables), query, executor);
+    }
+
+    /**
+     * Sum of the change counters of {@code tables}; it changes whenever any of them changed.
+     */
+    long version(Set<String> tables) {
+        long sum = 0;
+        for (String table : tables) sum += versions.get(table).get();
+        return sum;
+    }
+
+    Executor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Makes every write reported through {@link #onWrite} for this tracker's database schedule
+     * a {@link #refreshAsync()}, so observers hear about it without anyone refreshing by hand.
+     * DatabaseProvider turns this on for the app-wide tracker.
+     */
+    public void refreshAfterWrites() {
+        synchronized (AFTER_WRITES) {
+            AFTER_WRITES.put(db, this);
+        }
+    }
+
+    /**
+     * Called by the managers after they wrote to {@code db}, inside or after their transaction.
+     * Schedules a refresh of the tracker registered through {@link #refreshAfterWrites()}, if
+     * any; the refresh waits for a transaction in progress to commit, and the writes made before
+     * it gets to look are coalesced into it.
+     */
+    public static void onWrite(SQLiteDatabase db) {
+        InvalidationTracker tracker;
+        synchronized (AFTER_WRITES) {
+            tracker = AFTER_WRITES.get(db);
+        }
+        if (tracker != null) tracker.refreshAsync();
+    }
+
+    /**
+     * Stops refreshing after writes to {@code db}; called before the connection is closed.
+     */
+    static void forget(SQLiteDatabase db) {
+        synchronized (AFTER_WRITES) {
+            AFTER_WRITES.remove(db);
+        }
+    }
+
+    /**
+     * Schedules a check for writes since the last one. Calls made while a check is already
+     * queued, or while it waits for a write transaction to commit, are coalesced into it.
+     */
+    public void refreshAsync() {
+        if (refreshPending.compareAndSet(false, true)) {
+            executor.execute(() -> {
+                try {
+                    refreshNow();
+                } catch (RuntimeException e) {
+                    Log.w(TAG, "refresh failed", e);
+                }
+            });
+        }
+    }
+
+    /**
+     * Reads and clears the change flags, bumps the versions of the changed tables and notifies
+     * their observers. Returns the tables that changed.
+     * <p>
+     * The first call installs the triggers and reports every table, as does any call that finds
+     * them missing (e.g. after the tables were dropped and re-created).
+     */
+    @WorkerThread
+    public Set<String> refreshNow() {
+        Set<String> changed = new LinkedHashSet<>();
+        db.beginTransactionNonExclusive();
+        try {
+            // Cleared only once no write can run until this check is done, so the writes of the
+            // transaction this one waited for don't queue another check
+            refreshPending.set(false);
+            if (!triggersInstalled()) {
+                installTriggers();
+                changed.addAll(Arrays.asList(tables));
+            } else {
+                try (Cursor c = db.rawQuery(
+                        "SELECT table_id FROM " + LOG_TABLE + " WHERE invalidated = 1", null)) {
+                    while (c.moveToNext()) changed.add(tables[c.getInt(0)]);
+                }
+                if (!changed.isEmpty()) {
+                    db.execSQL("UPDATE " + LOG_TABLE + " SET invalidated = 0 WHERE invalidated = 1");
+                }
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+
+        if (changed.isEmpty()) return Collections.emptySet();
+        for (String table : changed) versions.get(table).incrementAndGet();
+        for (ObserverEntry entry : observers) {
+            Set<String> mine = new HashSet<>(entry.tables);
+            mine.retainAll(changed);
+            if (!mine.isEmpty()) entry.observer.onInvalidated(Collections.unmodifiableSet(mine));
+        }
+        return Collections.unmodifiableSet(changed);
+    }
+
+    private boolean triggersInstalled() {
+        return DatabaseUtils.longForQuery(db,
+                "SELECT COUNT(*) FROM sqlite_temp_master WHERE type = 'trigger' AND name LIKE ?",
+                new String[]{TRIGGER_PREFIX + "%"}) == (long) tables.length * TRIGGER_OPS.length;
+    }
+
+    private void installTriggers() {
+        db.execSQL("CREATE TEMP TABLE IF NOT EXISTS " + LOG_TABLE + " ("
+                + "table_id INTEGER PRIMARY KEY, "
+                + "invalidated INTEGER NOT NULL DEFAULT 0)");
+        db.execSQL("DELETE FROM " + LOG_TABLE);
+        for (int i = 0; i < tables.length; i++) {
+            db.execSQL("INSERT INTO " + LOG_TABLE + " (table_id, invalidated) VALUES (" + i + ", 0)");
+            for (String op : TRIGGER_OPS) {
+                String name = TRIGGER_PREFIX + tables[i] + "_" + op.toLowerCase(Locale.ROOT);
+                // Re-create rather than IF NOT EXISTS so a partially installed set is replaced
+                db.execSQL("DROP TRIGGER IF EXISTS temp." + name);
+                db.execSQL("CREATE TEMP TRIGGER " + name
+                        + " AFTER " + op + " ON main.`" + tables[i] + "` BEGIN"
+                        + " UPDATE " + LOG_TABLE + " SET invalidated = 1"
+                        + " WHERE table_id = " + i + " AND invalidated = 0;"
+                        + " END");
+            }
+        }
+    }
+
+    private Set<String> checkTables(String[] requested) {
+        if (requested == null || requested.length == 0) throw new IllegalArgumentException("no tables given");
+        Set<String> set = new HashSet<>();
+        for (String table : requested) {
+            if (!versions.containsKey(table)) throw new IllegalArgumentException("table is not tracked: " + table);
+            set.add(table);
+        }
+        return Collections.unmodifiableSet(set);
+    }
+
+    private static final class ObserverEntry {
+        final Observer observer;
+        final Set<String> tables;
+
+        ObserverEntry(Observer observer, Set<String> tables) {
+            this.observer = observer;
+            this.tables = tables;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.code.wlu.cp470.wellnest.data.local;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import com.code.wlu.cp470.wellnest.data.UserModels.UserProfile;
+import com.code.wlu.cp470.wellnest.data.local.contracts.UserContract;
+
+/**
+ * In-memory copy of the signed-in identity (uid, name, email), the one place repositories and
+ * managers get the current uid from.
+ * <p>
+ * The identity is read from user_profile the first time it is needed and then kept until
+ * the session changes: {@link #onSignedIn} replaces it (AuthRepository at sign-in/sign-up,
+ * MainActivity on start), {@link #onSignedOut} clears it, and {@link #invalidate()} drops it
+ * so the next read goes back to the table (UserManager does this when the profile is
+ * deleted).
+ * <p>
+ * Thread-safe; reads after the first one do not touch the database.
+ */
+public final class SessionStore {
+
+    private static final String SQL_LOAD =
+            "SELECT " + UserContract.UserProfile.Col.UID + ", " +
+                    UserContract.UserProfile.Col.NAME + ", " +
+                    UserContract.UserProfile.Col.EMAIL +
+                    " FROM " + UserContract.UserProfile.TABLE + " LIMIT 1";
+
+    private static final Identity SIGNED_OUT = new Identity(null, null, null);
+
+    private final SQLiteDatabase db;
+    // null = not loaded yet (or invalidated); SIGNED_OUT = loaded, nobody signed in
+    private volatile Identity identity;
+    private int loadCount;
+
+    public SessionStore(SQLiteDatabase db) {
+        if (db == null) throw new IllegalArgumentException("db cannot be null");
+        this.db = db;
+    }
+
+    /**
+     * The signed-in user's uid, or null if nobody is signed in.
+     */
+    public String getUid() {
+        return current().uid;
+    }
+
+    /**
+     * The signed-in user's uid.
+     *
+     * @throws IllegalStateException if nobody is signed in
+     */
+    public String requireUid() {
+        String uid = current().uid;
+        if (uid == null) throw new IllegalStateException("No current user");
+        return uid;
+    }
+
+    public boolean isSignedIn() {
+        return current().uid != null;
+    }
+
+    /**
+     * A copy of the signed-in user's profile, or null if nobody is signed in.
+     */
+    public UserProfile getIdentity() {
+        Identity id = current();
+        return id.uid == null ? null : new UserProfile(id.uid, id.name, id.email);
+    }
+
+    /**
+     * Makes {@code uid} the signed-in user. Call after its user_profile row was written.
+     */
+    public synchronized void onSignedIn(String uid, String name, String email) {
+        if (uid == null || uid.isEmpty()) throw new IllegalArgumentException("uid cannot be null/empty");
+        identity = new Identity(uid, name, email);
+    }
+
+    /**
+     * Keeps the cache in step with a user_profile upsert: the signed-in user's new name/email
+     * are taken over, and a store that found no profile loads again. Writes for other uids
+     * don't change who is signed in.
+     */
+    public synchronized void onProfileWritten(String uid, String name, String email) {
+        Identity id = identity;
+        if (id == null) return;
+        if (id.uid == null) {
+            identity = null;
+        } else if (id.uid.equals(uid)) {
+            identity = new Identity(uid, name, email);
+        }
+    }
+
+    /**
+     * Nobody is signed in until the next {@link #onSignedIn}; the profile row is kept.
+     */
+    public synchronized void onSignedOut() {
+        identity = SIGNED_OUT;
+    }
+
+    /**
+     * Forgets the cached identity; the next read loads it from user_profile again.
+     */
+    public synchronized void invalidate() {
+        identity = null;
+    }
+
+    /**
+     * How many times the identity was read from the database (for tests/benchmarks).
+     */
+    public synchronized int getLoadCount() {
+        return loadCount;
+    }
+
+    private Identity current() {
+        Identity id = identity;
+        if (id != null) return id;
+        synchronized (this) {
+            if (identity == null) identity = load();
+            return identity;
+        }
+    }
+
+    private Identity load() {
+        loadCount++;
+        try (Cursor c = db.rawQuery(SQL_LOAD, null)) {
+            if (!c.moveToFirst() || c.isNull(0)) return SIGNED_OUT;
+            return new Identity(c.getString(0), c.getString(1), c.getString(2));
+        }
+    }
+
+    private static final class Identity {
+        final String uid;
+        final String name;
+        final String email;
+
+        Identity(String uid, String name, String email) {
+            this.uid = uid;
+            this.name = name;
+            this.email = email;
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.code.wlu.cp470.wellnest.data.local;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteDoneException;
+import android.database.sqlite.SQLiteStatement;
+
+import androidx.annotation.VisibleForTesting;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Compiles each SQL string into a {@link SQLiteStatement} once and reuses it.
+ * <p>
+ * Managers are shared across threads (see {@link DatabaseProvider}) but a statement's bindings
+ * are not thread-safe, so every thread gets its own set of compiled statements. Locking a shared
+ * statement instead would deadlock as soon as one thread holds a transaction and another is
+ * waiting on the same statement for the write connection.
+ * <p>
+ * Each compiled statement holds a reference on the connection. The statements of a thread
+ * that has finished are released the next time a new thread uses the cache, and
+ * {@link WellnestDatabaseHelper#close()} releases all of them through {@link #closeAll}.
+ */
+public final class StatementCache {
+
+    // Every open cache by the database it compiles against
+    private static final Map<SQLiteDatabase, Map<StatementCache, Boolean>> OPEN = new IdentityHashMap<>();
+
+    private final SQLiteDatabase db;
+    // The statements of every thread that has used this cache; guarded by itself
+    private final Map<Thread, Map<String, SQLiteStatement>> byThread = new HashMap<>();
+    private final ThreadLocal<Map<String, SQLiteStatement>> statements =
+            ThreadLocal.withInitial(this::register);
+    private volatile boolean closed;
+
+    public StatementCache(SQLiteDatabase db) {
+        if (db == null) throw new IllegalArgumentException("db cannot be null");
+        this.db = db;
+        synchronized (OPEN) {
+            Map<StatementCache, Boolean> caches = OPEN.get(db);
+            if (caches == null) {
+                caches = new IdentityHashMap<>();
+                OPEN.put(db, caches);
+            }
+            caches.put(this, Boolean.TRUE);
+        }
+    }
+
+    /**
+     * Closes every cache compiled against {@code db}; called before the connection is closed.
+     */
+    static void closeAll(SQLiteDatabase db) {
+        Map<StatementCache, Boolean> caches;
+        synchronized (OPEN) {
+            caches = OPEN.remove(db);
+        }
+        if (caches == null) return;
+        for (StatementCache cache : caches.keySet()) cache.close();
+    }
+
+    /**
+     * Releases the compiled statements of every thread. The cache cannot be used afterwards;
+     * only call this once no thread is running one of its statements.
+     */
+    public void close() {
+        if (closed) return;
+        closed = true;
+        synchronized (byThread) {
+            for (Map<String, SQLiteStatement> cache : byThread.values()) closeStatements(cache);
+            byThread.clear();
+        }
+        synchronized (OPEN) {
+            Map<StatementCache, Boolean> caches = OPEN.get(db);
+            if (caches != null) {
+                caches.remove(this);
+                if (caches.isEmpty()) OPEN.remove(db);
+            }
+        }
+    }
+
+    /**
+     * Compiled statements currently held, across threads.
+     */
+    @VisibleForTesting
+    public int size() {
+        synchronized (byThread) {
+            int size = 0;
+            for (Map<String, SQLiteStatement> cache : byThread.values()) size += cache.size();
+            return size;
+        }
+    }
+
+    /**
+     * Returns the compiled statement for {@code sql} on the calling thread, with its previous
+     * bindings cleared.
+     *
+     * @throws IllegalStateException if the cache has been closed
+     */
+    public SQLiteStatement get(String sql) {
+        if (closed) throw new IllegalStateException("StatementCache is closed");
+        Map<String, SQLiteStatement> cache = statements.get();
+        SQLiteStatement st = cache.get(sql);
+        if (st == null) {
+            st = db.compileStatement(sql);
+            synchronized (byThread) {
+                cache.put(sql, st);
+            }
+        } else {
+            st.clearBindings();
+        }
+        return st;
+    }
+
+    // ----------------------------------------------------------------------
+    // one-shot helpers (bind + execute)
+    // ----------------------------------------------------------------------
+
+    /**
+     * Runs a single-value query and returns it, or {@code fallback} if no row matched.
+     */
+    public long queryLong(String sql, long fallback, Object... args) {
+        SQLiteStatement st = bind(get(sql), args);
+        try {
+            return st.simpleQueryForLong();
+        } catch (SQLiteDoneException e) {
+            return fallback;
+        }
+    }
+
+    /**
+     * Runs a single-value query and returns it, or null if no row matched.
+     */
+    public String queryString(String sql, Object... args) {
+        SQLiteStatement st = bind(get(sql), args);
+        try {
+            return st.simpleQueryForString();
+        } catch (SQLiteDoneException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Executes an INSERT/UPDATE/DELETE and returns the number of rows it changed. A change is
+     * reported to {@link InvalidationTracker#onWrite}.
+     */
+    public int executeUpdateDelete(String sql, Object... args) {
+        int rows = bind(get(sql), args).executeUpdateDelete();
+        if (rows > 0) InvalidationTracker.onWrite(db);
+        return rows;
+    }
+
+    // The calling thread's first use: releases what finished threads left behind
+    private Map<String, SQLiteStatement> register() {
+        Map<String, SQLiteStatement> cache = new HashMap<>();
+        synchronized (byThread) {
+            if (closed) throw new IllegalStateException("StatementCache is closed");
+            Iterator<Map.Entry<Thread, Map<String, SQLiteStatement>>> it = byThread.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<Thread, Map<String, SQLiteStatement>> entry = it.next();
+                if (!entry.getKey().isAlive()) {
+                    closeStatements(entry.getValue());
+                    it.remove();
+                }
+            }
+            byThread.put(Thread.currentThread(), cache);
+        }
+        return cache;
+    }
+
+    private static void closeStatements(Map<String, SQLiteStatement> cache) {
+        for (SQLiteStatement st : cache.values()) st.close();
+        cache.clear();
+    }
+
+    private static SQLiteStatement bind(SQLiteStatement st, Object... args) {
+        for (int i = 0; i < args.length; i++) {
+            Object arg = args[i];
+            int index = i + 1;
+            if (arg == null) {
+                st.bindNull(index);
+            } else if (arg instanceof Integer || arg instanceof Long) {
+                st.bindLong(index, ((Number) arg).longValue());
+            } else if (arg instanceof Double || arg instanceof Float) {
+                st.bindDouble(index, ((Number) arg).doubleValue());
+            } else {
+                st.bindString(index, arg.toString());
+            }
+        }
+        return st;
+    }
+}
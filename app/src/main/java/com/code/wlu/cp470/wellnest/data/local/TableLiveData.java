@@ -0,0 +1,66 @@
+package com.code.wlu.cp470.wellnest.data.local;
+
+import android.util.Log;
+
+import androidx.lifecycle.LiveData;
+
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+
+/**
+ * LiveData backed by a query over a fixed set of tables (see
+ * {@link InvalidationTracker#createLiveData}).
+ * <p>
+ * It remembers the tables' version from its last run and skips the query while that is
+ * unchanged, so a screen coming back to the foreground costs one flag check instead of a
+ * re-read. It only listens to the tracker while it has active observers.
+ */
+final class TableLiveData<T> extends LiveData<T> {
+
+    private static final String TAG = "TableLiveData";
+    private static final long NEVER_RUN = -1L;
+
+    private final InvalidationTracker tracker;
+    private final Set<String> tables;
+    private final Callable<T> query;
+    private final Executor executor;
+    private final InvalidationTracker.Observer observer;
+    private final Runnable compute = this::computeIfStale;
+
+    // only touched on the executor
+    private long computedVersion = NEVER_RUN;
+
+    TableLiveData(InvalidationTracker tracker, Set<String> tables, Callable<T> query, Executor executor) {
+        this.tracker = tracker;
+        this.tables = tables;
+        this.query = query;
+        this.executor = executor;
+        this.observer = changed -> executor.execute(compute);
+    }
+
+    @Override
+    protected void onActive() {
+        tracker.addObserver(observer, tables.toArray(new String[0]));
+        // look for writes made while we were inactive, then re-run only if they touched our tables
+        tracker.refreshAsync();
+        executor.execute(compute);
+    }
+
+    @Override
+    protected void onInactive() {
+        tracker.removeObserver(observer);
+    }
+
+    private void computeIfStale() {
+        long version = tracker.version(tables);
+        if (version == computedVersion) return;
+        try {
+            T value = query.call();
+            computedVersion = version;
+            postValue(value);
+        } catch (Exception e) {
+            Log.w(TAG, "query over " + tables + " failed", e);
+        }
+    }
+}
@@ -4,17 +4,42 @@ import android.content.Context;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
 
+import androidx.annotation.VisibleForTesting;
+
 import com.code.wlu.cp470.wellnest.data.local.contracts.ActivityJarContract;
+import com.code.wlu.cp470.wellnest.data.local.contracts.GeoCacheContract;
 import com.code.wlu.cp470.wellnest.data.local.contracts.RoamioContract;
+import com.code.wlu.cp470.wellnest.data.local.contracts.ScoreContract;
 import com.code.wlu.cp470.wellnest.data.local.contracts.SnapTaskContract;
 import com.code.wlu.cp470.wellnest.data.local.contracts.UserContract;
+import com.code.wlu.cp470.wellnest.data.local.migration.LogcatMigrationMetrics;
+import com.code.wlu.cp470.wellnest.data.local.migration.MigrationMetrics;
+import com.code.wlu.cp470.wellnest.data.local.migration.MigrationRunner;
+import com.code.wlu.cp470.wellnest.data.local.migration.WellnestMigrations;
 
 public class WellnestDatabaseHelper extends SQLiteOpenHelper {
     private static final String DATABASE_NAME = "wellnest.db";
-    private static final int DATABASE_VERSION = 2;
+    public static final int DATABASE_VERSION = 12;
+
+    private final MigrationRunner migrations;
+    // The connection handed out by getWritableDatabase, for close()
+    private SQLiteDatabase openDatabase;
 
     public WellnestDatabaseHelper(Context context) {
-        super(context, DATABASE_NAME, null, DATABASE_VERSION);
+        this(context, DATABASE_NAME, new LogcatMigrationMetrics());
+    }
+
+    /**
+     * Opens {@code databaseName} instead of wellnest.db; used by the migration tests to
+     * upgrade copies of older schemas.
+     */
+    @VisibleForTesting
+    public WellnestDatabaseHelper(Context context, String databaseName, MigrationMetrics metrics) {
+        super(context, databaseName, null, DATABASE_VERSION);
+        this.migrations = new MigrationRunner(WellnestMigrations.all(), metrics);
+        // WAL lets background syncs write while the UI keeps reading from the
+        // shared connection pool instead of waiting on the writer's lock.
+        setWriteAheadLoggingEnabled(true);
     }
 
     @Override
@@ -22,6 +47,26 @@ public class WellnestDatabaseHelper extends SQLiteOpenHelper {
         db.setForeignKeyConstraintsEnabled(true);
     }
 
+    @Override
+    public void onOpen(SQLiteDatabase db) {
+        openDatabase = db;
+    }
+
+    /**
+     * Releases the statements managers compiled against the connection (see
+     * {@link StatementCache}) before closing it; each one holds a reference that would keep
+     * the connection open.
+     */
+    @Override
+    public synchronized void close() {
+        if (openDatabase != null) {
+            StatementCache.closeAll(openDatabase);
+            InvalidationTracker.forget(openDatabase);
+            openDatabase = null;
+        }
+        super.close();
+    }
+
     @Override
     public void onCreate(SQLiteDatabase db) {
         // USER PROFILE DOMAIN
@@ -31,45 +76,54 @@ public class WellnestDatabaseHelper extends SQLiteOpenHelper {
         db.execSQL(UserContract.Friends.SQL_CREATE);
         db.execSQL(UserContract.Badges.SQL_CREATE);
         db.execSQL(UserContract.Friends.SQL_INDEXES);
+        db.execSQL(UserContract.GlobalScore.SQL_INDEXES);
 
         // SNAP TASK DOMAIN
         db.execSQL(SnapTaskContract.Tasks.SQL_CREATE);
         db.execSQL(SnapTaskContract.SnapTask_Score.SQL_CREATE);
+        db.execSQL(SnapTaskContract.Verdicts.SQL_CREATE);
+        db.execSQL(SnapTaskContract.Verdicts.SQL_INDEXES);
 
         //ROAMIO DOMAIN
         db.execSQL(RoamioContract.Walk_Sessions.SQL_CREATE);
         db.execSQL(RoamioContract.Current_Walk.SQL_CREATE);
         db.execSQL(RoamioContract.Roamio_Score.SQL_CREATE);
-        db.execSQL(RoamioContract.Walk_Sessions.SQL_INDEXES);
+        for (String sql : RoamioContract.Walk_Sessions.SQL_INDEXES) {
+            db.execSQL(sql);
+        }
         db.execSQL(RoamioContract.Current_Walk.SQL_INDEXES);
 
         //ACTIVITY JAR DOMAIN
         db.execSQL(ActivityJarContract.Activity_Jar_Score.SQL_CREATE);
-        db.execSQL(ActivityJarContract.ActivityJarCache.SQL_CREATE);
+        createActivityJarCache(db);
+
+        //WEATHER AND GEOCODING CACHE
+        db.execSQL(GeoCacheContract.Entries.SQL_CREATE);
+
+        //SCORE LEDGER (after the tables its trigger writes to)
+        createScoreLedger(db);
+    }
+
+    private static void createActivityJarCache(SQLiteDatabase db) {
+        db.execSQL(ActivityJarContract.Batches.SQL_CREATE);
+        db.execSQL(ActivityJarContract.Batches.SQL_INDEXES);
+        db.execSQL(ActivityJarContract.Activities.SQL_CREATE);
+        db.execSQL(ActivityJarContract.Activities.SQL_INDEXES);
+        db.execSQL(ActivityJarContract.ActivityTags.SQL_CREATE);
+    }
+
+    private static void createScoreLedger(SQLiteDatabase db) {
+        db.execSQL(ScoreContract.ScoreEvents.SQL_CREATE);
+        db.execSQL(ScoreContract.ScoreEvents.SQL_INDEXES);
+        db.execSQL(ScoreContract.ScoreEvents.SQL_TRIGGER_APPLY);
+        db.execSQL(ScoreContract.ScoreEvents.SQL_TRIGGER_NO_UPDATE);
+        db.execSQL(ScoreContract.ScoreEvents.SQL_TRIGGER_NO_DELETE);
     }
 
     @Override
     public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
-        if (oldVersion < 2) {
-            db.execSQL(ActivityJarContract.ActivityJarCache.SQL_CREATE);
-        }
-        // For future versions, add more if blocks or switch case
-        // For development, if you want to wipe data on every upgrade, you can keep the old logic,
-        // but typically onUpgrade should migrate data.
-        // The previous implementation wiped everything, which is fine for dev but maybe not what we want long term.
-        // However, to respect the existing pattern if it was intended for dev:
-        /*
-        // for development, just wipe the data
-        db.beginTransaction();
-        try {
-            db.execSQL("DROP TABLE IF EXISTS " + UserContract.Badges.TABLE);
-            // ... drop all other tables ...
-            onCreate(db); // recreate tables
-            db.setTransactionSuccessful();
-        } finally {
-            db.endTransaction();
-        }
-        */
+        // Steps live in WellnestMigrations; a failed step rolls the whole upgrade back
+        migrations.migrate(db, oldVersion, newVersion);
     }
 
     /**
@@ -25,27 +25,105 @@ public class ActivityJarContract {
     }
 
     // =========================
-    //  activity_jar_cache
+    //  activity_jar_batches  (one row per saved set of generated activities, keyed by
+    //  where, when and in what weather they were generated)
     // =========================
 
-    public static final class ActivityJarCache {
-        private ActivityJarCache() {}
+    public static final class Batches {
+        private Batches() {}
 
-        public static final String TABLE = "activity_jar_cache";
+        public static final String TABLE = "activity_jar_batches";
 
         public static final class Col {
-            public static final String ID = "id";
-            public static final String JSON_DATA = "json_data";
-            public static final String TIMESTAMP = "timestamp";
-            public static final String WEATHER_SUMMARY = "weather_summary";
+            public static final String _ID = "_id";
+            public static final String GEOHASH = "geohash";                 // TEXT cell of the user's location
+            public static final String TIME_WINDOW = "time_window";         // TEXT (ActivityJarModels.TimeWindow name)
+            public static final String WEATHER_BUCKET = "weather_bucket";   // TEXT (ActivityJarModels.WeatherBucket name)
+            public static final String CREATED_AT = "created_at";           // INTEGER epoch ms
+            public static final String EXPIRES_AT = "expires_at";           // INTEGER epoch ms
+            public static final String LAST_USED_AT = "last_used_at";       // INTEGER epoch ms, for LRU eviction
+            public static final String WEATHER_SUMMARY = "weather_summary"; // TEXT
         }
 
         public static final String SQL_CREATE =
                 "CREATE TABLE " + TABLE + "(" +
-                        Col.ID + " INTEGER PRIMARY KEY, " +
-                        Col.JSON_DATA + " TEXT, " +
-                        Col.TIMESTAMP + " INTEGER, " +
+                        Col._ID + " INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                        Col.GEOHASH + " TEXT NOT NULL, " +
+                        Col.TIME_WINDOW + " TEXT NOT NULL, " +
+                        Col.WEATHER_BUCKET + " TEXT NOT NULL, " +
+                        Col.CREATED_AT + " INTEGER NOT NULL, " +
+                        Col.EXPIRES_AT + " INTEGER NOT NULL, " +
+                        Col.LAST_USED_AT + " INTEGER NOT NULL, " +
                         Col.WEATHER_SUMMARY + " TEXT" +
                         ")";
+
+        // One entry per key; lookups seek (geohash, time_window[, weather_bucket])
+        public static final String SQL_INDEXES =
+                "CREATE UNIQUE INDEX IF NOT EXISTS idx_activity_jar_batches_key ON " + TABLE + "(" +
+                        Col.GEOHASH + ", " + Col.TIME_WINDOW + ", " + Col.WEATHER_BUCKET + ")";
+    }
+
+    // =========================
+    //  activity_jar_activities  (one row per activity card)
+    // =========================
+
+    public static final class Activities {
+        private Activities() {}
+
+        public static final String TABLE = "activity_jar_activities";
+
+        public static final class Col {
+            public static final String _ID = "_id";
+            public static final String BATCH_ID = "batch_id";       // INTEGER FK -> activity_jar_batches
+            public static final String CATEGORY = "category";       // TEXT (ActivityJarModels.Category name)
+            public static final String POSITION = "position";       // INTEGER order within the category
+            public static final String EMOJI = "emoji";
+            public static final String TITLE = "title";
+            public static final String DESCRIPTION = "description";
+            public static final String ADDRESS = "address";
+            public static final String URL = "url";
+        }
+
+        public static final String SQL_CREATE =
+                "CREATE TABLE " + TABLE + "(" +
+                        Col._ID + " INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                        Col.BATCH_ID + " INTEGER NOT NULL REFERENCES " + Batches.TABLE + "(" + Batches.Col._ID + ") ON DELETE CASCADE, " +
+                        Col.CATEGORY + " TEXT NOT NULL, " +
+                        Col.POSITION + " INTEGER NOT NULL, " +
+                        Col.EMOJI + " TEXT, " +
+                        Col.TITLE + " TEXT NOT NULL, " +
+                        Col.DESCRIPTION + " TEXT, " +
+                        Col.ADDRESS + " TEXT, " +
+                        Col.URL + " TEXT" +
+                        ")";
+
+        // Category loads seek (batch_id, category) and come back in display order
+        public static final String SQL_INDEXES =
+                "CREATE INDEX IF NOT EXISTS idx_activity_jar_activities_batch_category ON " + TABLE + "(" +
+                        Col.BATCH_ID + ", " + Col.CATEGORY + ", " + Col.POSITION + ")";
+    }
+
+    // =========================
+    //  activity_jar_activity_tags  (tags of an activity, in order)
+    // =========================
+
+    public static final class ActivityTags {
+        private ActivityTags() {}
+
+        public static final String TABLE = "activity_jar_activity_tags";
+
+        public static final class Col {
+            public static final String ACTIVITY_ID = "activity_id"; // INTEGER FK -> activity_jar_activities
+            public static final String POSITION = "position";       // INTEGER order within the activity
+            public static final String TAG = "tag";                 // TEXT
+        }
+
+        public static final String SQL_CREATE =
+                "CREATE TABLE " + TABLE + "(" +
+                        Col.ACTIVITY_ID + " INTEGER NOT NULL REFERENCES " + Activities.TABLE + "(" + Activities.Col._ID + ") ON DELETE CASCADE, " +
+                        Col.POSITION + " INTEGER NOT NULL, " +
+                        Col.TAG + " TEXT NOT NULL, " +
+                        "PRIMARY KEY(" + Col.ACTIVITY_ID + ", " + Col.POSITION + ")" +
+                        ") WITHOUT ROWID";
     }
 }
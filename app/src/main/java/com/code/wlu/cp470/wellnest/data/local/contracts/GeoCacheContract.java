@@ -0,0 +1,34 @@
+package com.code.wlu.cp470.wellnest.data.local.contracts;
+
+public class GeoCacheContract {
+    private GeoCacheContract() {}
+
+    // =========================
+    //  geo_cache  (one row per remembered weather reading, reverse geocode or forward geocode,
+    //  keyed by its kind and a location cell or normalized address)
+    // =========================
+
+    public static final class Entries {
+        private Entries() {}
+
+        public static final String TABLE = "geo_cache";
+
+        public static final class Col {
+            public static final String KIND = "kind";             // TEXT (GeoCache.Kind name)
+            public static final String CACHE_KEY = "cache_key";   // TEXT geohash cell or normalized address
+            public static final String VALUE = "value";           // TEXT
+            public static final String CREATED_AT = "created_at"; // INTEGER epoch ms
+            public static final String EXPIRES_AT = "expires_at"; // INTEGER epoch ms
+        }
+
+        public static final String SQL_CREATE =
+                "CREATE TABLE " + TABLE + "(" +
+                        Col.KIND + " TEXT NOT NULL, " +
+                        Col.CACHE_KEY + " TEXT NOT NULL, " +
+                        Col.VALUE + " TEXT NOT NULL, " +
+                        Col.CREATED_AT + " INTEGER NOT NULL, " +
+                        Col.EXPIRES_AT + " INTEGER NOT NULL, " +
+                        "PRIMARY KEY(" + Col.KIND + ", " + Col.CACHE_KEY + ")" +
+                        ") WITHOUT ROWID";
+    }
+}
@@ -44,9 +44,25 @@ public class RoamioContract {
                         Col.STATUS + " TEXT NOT NULL DEFAULT 'COMPLETED'" +
                         ")";
 
-        public static final String SQL_INDEXES =
-                "CREATE INDEX idx_walk_sessions_uid ON " + TABLE + "(" + Col.UID + "); " +
-                "CREATE INDEX idx_walk_sessions_ended_at ON " + TABLE + "(" + Col.ENDED_AT + ");";
+        // One statement per constant: execSQL only runs the first statement of a string.
+        public static final String SQL_INDEX_ENDED_AT =
+                "CREATE INDEX IF NOT EXISTS idx_walk_sessions_ended_at ON " + TABLE + "(" + Col.ENDED_AT + ")";
+
+        /**
+         * History pages (uid = ? ORDER BY ended_at DESC, _id DESC) walk this index in order,
+         * tie-break included, so they need no sort; and the distance/week aggregates are
+         * answered from it without touching the table. Also covers lookups by uid alone,
+         * which is why there is no uid-only index.
+         */
+        public static final String SQL_INDEX_UID_ENDED_AT =
+                "CREATE INDEX IF NOT EXISTS idx_walk_sessions_uid_ended_at ON " + TABLE + "(" +
+                        Col.UID + ", " + Col.ENDED_AT + " DESC, " + Col._ID + " DESC, " +
+                        Col.DISTANCE_METERS + ")";
+
+        public static final String[] SQL_INDEXES = {
+                SQL_INDEX_ENDED_AT,
+                SQL_INDEX_UID_ENDED_AT
+        };
 
         private Walk_Sessions() {
         }
@@ -80,7 +96,16 @@ public class RoamioContract {
                         Col.START_ELAPSED_REALTIME_MS + " INTEGER NOT NULL DEFAULT 0, " +
                         Col.LAST_UPDATED_MS + " INTEGER NOT NULL DEFAULT 0, " +
                         Col.LAST_KNOWN_STEPS + " INTEGER NOT NULL DEFAULT 0, " +
-                        Col.LAST_KNOWN_DISTANCE_METERS + " REAL NOT NULL DEFAULT 0.0" +
+                        Col.LAST_KNOWN_DISTANCE_METERS + " REAL NOT NULL DEFAULT 0.0, " +
+                        Col.WALK_NAME + " TEXT, " +
+                        Col.WALK_STORY + " TEXT, " +
+                        Col.START_ADDRESS + " TEXT, " +
+                        Col.END_ADDRESS + " TEXT, " +
+                        Col.WALK_DISTANCE_METERS + " REAL NOT NULL DEFAULT 0.0, " +
+                        Col.START_LATITUDE + " REAL, " +
+                        Col.START_LONGITUDE + " REAL, " +
+                        Col.END_LATITUDE + " REAL, " +
+                        Col.END_LONGITUDE + " REAL" +
                         ")";
 
         public static final String SQL_INDEXES =
@@ -99,6 +124,15 @@ public class RoamioContract {
             public static final String LAST_UPDATED_MS = "last_updated_ms";
             public static final String LAST_KNOWN_STEPS = "last_known_steps";
             public static final String LAST_KNOWN_DISTANCE_METERS = "last_known_distance_meters";
+            public static final String WALK_NAME = "walk_name";
+            public static final String WALK_STORY = "walk_story";
+            public static final String START_ADDRESS = "start_address";
+            public static final String END_ADDRESS = "end_address";
+            public static final String WALK_DISTANCE_METERS = "walk_distance_meters"; // planned route length
+            public static final String START_LATITUDE = "start_latitude";   // REAL, NULL if unknown
+            public static final String START_LONGITUDE = "start_longitude"; // REAL, NULL if unknown
+            public static final String END_LATITUDE = "end_latitude";       // REAL, NULL if unknown
+            public static final String END_LONGITUDE = "end_longitude";     // REAL, NULL if unknown
         }
     }
 }
@@ -0,0 +1,112 @@
+package com.code.wlu.cp470.wellnest.data.local.contracts;
+
+public final class ScoreContract {
+    private ScoreContract() {
+    }
+
+    /**
+     * Values for {@link ScoreEvents.Col#MICRO_APP}.
+     */
+    public static final class MicroApp {
+        public static final String SNAP_TASK = "snaptask";
+        public static final String ROAMIO = "roamio";
+        public static final String ACTIVITY_JAR = "activity_jar";
+
+        private MicroApp() {
+        }
+    }
+
+    /**
+     * Values for {@link ScoreEvents.Col#SOURCE}.
+     */
+    public static final class Source {
+        public static final String EARNED = "earned";                   // points earned in-app
+        public static final String SYNC = "sync";                       // absolute value pulled from Firestore
+        public static final String OPENING_BALANCE = "opening_balance"; // score carried over when the ledger was added
+
+        private Source() {
+        }
+    }
+
+    // =========================
+    //  score_events  (append-only ledger)
+    // =========================
+    public static final class ScoreEvents {
+        public static final String TABLE = "score_events";
+
+        public static final String SQL_CREATE =
+                "CREATE TABLE " + TABLE + " (" +
+                        Col._ID + " INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                        Col.MICRO_APP + " TEXT NOT NULL, " +
+                        Col.DELTA + " INTEGER NOT NULL, " +
+                        Col.CREATED_AT + " INTEGER NOT NULL, " +
+                        Col.SOURCE + " TEXT NOT NULL" +
+                        ")";
+
+        public static final String SQL_INDEXES =
+                "CREATE INDEX IF NOT EXISTS idx_score_events_app_created ON " + TABLE +
+                        "(" + Col.MICRO_APP + ", " + Col.CREATED_AT + ")";
+
+        /**
+         * Raises the current user's global_score to the sum of the micro-app scores when that is higher.
+         * (No trailing semicolon so it can also be run on its own.)
+         */
+        public static final String SQL_RAISE_GLOBAL_TO_MICRO_APP_TOTAL =
+                "UPDATE " + UserContract.GlobalScore.TABLE +
+                        " SET " + UserContract.GlobalScore.Col.SCORE + " = MAX(" + UserContract.GlobalScore.Col.SCORE + ", " +
+                        "IFNULL((SELECT " + SnapTaskContract.SnapTask_Score.Col.SCORE + " FROM " + SnapTaskContract.SnapTask_Score.TABLE + "), 0) + " +
+                        "IFNULL((SELECT " + RoamioContract.Roamio_Score.Col.SCORE + " FROM " + RoamioContract.Roamio_Score.TABLE + "), 0) + " +
+                        "IFNULL((SELECT " + ActivityJarContract.Activity_Jar_Score.Col.SCORE + " FROM " + ActivityJarContract.Activity_Jar_Score.TABLE + "), 0))" +
+                        " WHERE " + UserContract.GlobalScore.Col.UID + " = (SELECT " + UserContract.UserProfile.Col.UID +
+                        " FROM " + UserContract.UserProfile.TABLE + " LIMIT 1)";
+
+        /**
+         * Keeps the materialized totals in step with the ledger:
+         * - the micro-app's singleton score row gets the delta (opening balances are already in it)
+         * - the current user's global_score is raised to the micro-app total if that is higher,
+         *   so remote scores pulled by the global sync are never lowered
+         * One trigger (not one per app) so the global update always runs after the per-app one.
+         */
+        public static final String SQL_TRIGGER_APPLY =
+                "CREATE TRIGGER IF NOT EXISTS trg_score_events_apply AFTER INSERT ON " + TABLE + " BEGIN " +
+                        applyToSingleton(MicroApp.SNAP_TASK, SnapTaskContract.SnapTask_Score.TABLE,
+                                SnapTaskContract.SnapTask_Score.Col.UID, SnapTaskContract.SnapTask_Score.Col.SCORE) +
+                        applyToSingleton(MicroApp.ROAMIO, RoamioContract.Roamio_Score.TABLE,
+                                RoamioContract.Roamio_Score.Col.UID, RoamioContract.Roamio_Score.Col.SCORE) +
+                        applyToSingleton(MicroApp.ACTIVITY_JAR, ActivityJarContract.Activity_Jar_Score.TABLE,
+                                ActivityJarContract.Activity_Jar_Score.Col.UID, ActivityJarContract.Activity_Jar_Score.Col.SCORE) +
+                        "INSERT OR IGNORE INTO " + UserContract.GlobalScore.TABLE + " (" +
+                        UserContract.GlobalScore.Col.UID + ", " + UserContract.GlobalScore.Col.SCORE + ") " +
+                        "SELECT " + UserContract.UserProfile.Col.UID + ", 0 FROM " + UserContract.UserProfile.TABLE + " LIMIT 1; " +
+                        SQL_RAISE_GLOBAL_TO_MICRO_APP_TOTAL + "; " +
+                        "END";
+
+        public static final String SQL_TRIGGER_NO_UPDATE =
+                "CREATE TRIGGER IF NOT EXISTS trg_score_events_no_update BEFORE UPDATE ON " + TABLE +
+                        " BEGIN SELECT RAISE(ABORT, 'score_events is append-only'); END";
+
+        public static final String SQL_TRIGGER_NO_DELETE =
+                "CREATE TRIGGER IF NOT EXISTS trg_score_events_no_delete BEFORE DELETE ON " + TABLE +
+                        " BEGIN SELECT RAISE(ABORT, 'score_events is append-only'); END";
+
+        private ScoreEvents() {
+        }
+
+        private static String applyToSingleton(String app, String table, String idCol, String scoreCol) {
+            String isApp = "NEW." + Col.MICRO_APP + " = '" + app + "'";
+            return "INSERT OR IGNORE INTO " + table + " (" + idCol + ", " + scoreCol + ") " +
+                    "SELECT 1, 0 WHERE " + isApp + "; " +
+                    "UPDATE " + table + " SET " + scoreCol + " = " + scoreCol + " + NEW." + Col.DELTA +
+                    " WHERE " + idCol + " = 1 AND " + isApp +
+                    " AND NEW." + Col.SOURCE + " <> '" + Source.OPENING_BALANCE + "'; ";
+        }
+
+        public static final class Col {
+            public static final String _ID = "_id";
+            public static final String MICRO_APP = "micro_app";   // TEXT (see MicroApp)
+            public static final String DELTA = "delta";           // INTEGER (can be negative)
+            public static final String CREATED_AT = "created_at"; // INTEGER epoch millis
+            public static final String SOURCE = "source";         // TEXT (see Source)
+        }
+    }
+}
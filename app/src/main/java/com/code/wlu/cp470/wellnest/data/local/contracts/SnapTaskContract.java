@@ -56,4 +56,44 @@ public class SnapTaskContract {
 
         public static final String SQL_INDEXES = ""; // none needed for the moment
     }
+
+    // =========================
+    //  snap_task_verdicts  (AI verdicts on submitted photo pairs, keyed by task, criteria and
+    //  perceptual hashes of the photos, so a resubmission of the same pair skips the model)
+    // =========================
+    public static final class Verdicts {
+        private Verdicts() {}
+
+        public static final String TABLE = "snap_task_verdicts";
+
+        public static final class Col {
+            public static final String _ID = "_id";
+            public static final String TASK_UID = "task_uid";             // TEXT
+            public static final String CRITERIA_HASH = "criteria_hash";   // TEXT SHA-256 hex of the criteria
+            public static final String BEFORE_DHASH = "before_dhash";     // INTEGER 64-bit difference hash
+            public static final String BEFORE_PHASH = "before_phash";     // INTEGER 64-bit DCT hash
+            public static final String AFTER_DHASH = "after_dhash";
+            public static final String AFTER_PHASH = "after_phash";
+            public static final String VERDICT = "verdict";               // TEXT "pass" | "fail"
+            public static final String CREATED_AT = "created_at";         // INTEGER epoch ms
+        }
+
+        public static final String SQL_CREATE =
+                "CREATE TABLE " + TABLE + "(" +
+                        Col._ID + " INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                        Col.TASK_UID + " TEXT NOT NULL, " +
+                        Col.CRITERIA_HASH + " TEXT NOT NULL, " +
+                        Col.BEFORE_DHASH + " INTEGER NOT NULL, " +
+                        Col.BEFORE_PHASH + " INTEGER NOT NULL, " +
+                        Col.AFTER_DHASH + " INTEGER NOT NULL, " +
+                        Col.AFTER_PHASH + " INTEGER NOT NULL, " +
+                        Col.VERDICT + " TEXT NOT NULL, " +
+                        Col.CREATED_AT + " INTEGER NOT NULL" +
+                        ")";
+
+        // Lookups seek (task_uid, criteria_hash) and compare the hashes of the few rows found
+        public static final String SQL_INDEXES =
+                "CREATE INDEX IF NOT EXISTS idx_snap_task_verdicts_task ON " + TABLE + "(" +
+                        Col.TASK_UID + ", " + Col.CRITERIA_HASH + ", " + Col.CREATED_AT + ")";
+    }
 }
@@ -39,6 +39,10 @@ public final class UserContract {
                         Col.UID + " TEXT PRIMARY KEY, " +      // UID from Firebase
                         Col.SCORE + " INTEGER NOT NULL DEFAULT 0" +
                         ") WITHOUT ROWID";
+        // Leaderboard order (score DESC, ties by uid); top-K, pages and rank counts walk this
+        public static final String SQL_INDEXES =
+                "CREATE INDEX IF NOT EXISTS idx_global_score_score ON " + TABLE + "(" +
+                        Col.SCORE + " DESC, " + Col.UID + ")";
 
         private GlobalScore() {
         }
@@ -0,0 +1,236 @@
+package com.code.wlu.cp470.wellnest.data.local.managers;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.database.SQLException;
+import android.database.sqlite.SQLiteDatabase;
+
+import com.code.wlu.cp470.wellnest.data.RoamioModels;
+import com.code.wlu.cp470.wellnest.data.local.InvalidationTracker;
+import com.code.wlu.cp470.wellnest.data.local.StatementCache;
+import com.code.wlu.cp470.wellnest.data.local.contracts.RoamioContract.Current_Walk;
+
+/**
+ * ActiveWalkManager persists the walk in progress in current_walk (at most one row per user).
+ * <p>
+ * A walk is started with {@link #startWalk}, checkpointed with {@link #checkpoint} while it is
+ * under way (see {@link com.code.wlu.cp470.wellnest.data.ActiveWalkTracker} for the throttling),
+ * and moved into walk_sessions by {@link #finishWalk} in one transaction.
+ */
+public class ActiveWalkManager {
+
+    public static final String STATUS_ACTIVE = "ACTIVE";
+
+    private static final String SQL_CHECKPOINT =
+            "UPDATE " + Current_Walk.TABLE + " SET " +
+                    Current_Walk.Col.LAST_UPDATED_MS + "=?, " +
+                    Current_Walk.Col.LAST_KNOWN_STEPS + "=?, " +
+                    Current_Walk.Col.LAST_KNOWN_DISTANCE_METERS + "=?" +
+                    " WHERE " + Current_Walk.Col._ID + "=?" +
+                    " AND " + Current_Walk.Col.LAST_UPDATED_MS + "<=?";
+
+    private static final String SQL_SET_END_COORDINATES =
+            "UPDATE " + Current_Walk.TABLE + " SET " +
+                    Current_Walk.Col.END_LATITUDE + "=?, " +
+                    Current_Walk.Col.END_LONGITUDE + "=?" +
+                    " WHERE " + Current_Walk.Col._ID + "=?";
+
+    private static final String[] COLUMNS = {
+            Current_Walk.Col._ID,
+            Current_Walk.Col.UID,
+            Current_Walk.Col.STARTED_AT,
+            Current_Walk.Col.START_STEP_COUNT,
+            Current_Walk.Col.START_ELAPSED_REALTIME_MS,
+            Current_Walk.Col.LAST_UPDATED_MS,
+            Current_Walk.Col.LAST_KNOWN_STEPS,
+            Current_Walk.Col.LAST_KNOWN_DISTANCE_METERS,
+            Current_Walk.Col.WALK_NAME,
+            Current_Walk.Col.WALK_STORY,
+            Current_Walk.Col.START_ADDRESS,
+            Current_Walk.Col.END_ADDRESS,
+            Current_Walk.Col.WALK_DISTANCE_METERS,
+            Current_Walk.Col.START_LATITUDE,
+            Current_Walk.Col.START_LONGITUDE,
+            Current_Walk.Col.END_LATITUDE,
+            Current_Walk.Col.END_LONGITUDE
+    };
+
+    private final SQLiteDatabase db;
+    private final StatementCache statements;
+    private final WalkSessionManager walkSessions;
+
+    public ActiveWalkManager(SQLiteDatabase db) {
+        this(db, db == null ? null : new WalkSessionManager(db));
+    }
+
+    /**
+     * Records finished walks through {@code walkSessions}; DatabaseProvider passes the shared
+     * one so the connection has a single set of its compiled statements.
+     */
+    public ActiveWalkManager(SQLiteDatabase db, WalkSessionManager walkSessions) {
+        if (db == null) throw new IllegalArgumentException("db cannot be null");
+        if (walkSessions == null) throw new IllegalArgumentException("walkSessions cannot be null");
+        this.db = db;
+        this.statements = new StatementCache(db);
+        this.walkSessions = walkSessions;
+    }
+
+    /**
+     * Starts a walk for {@code uid}, replacing any walk that user still had in progress.
+     */
+    public RoamioModels.ActiveWalk startWalk(String uid, RoamioModels.Walk walk, long startedAtMs,
+                                             long startElapsedRealtimeMs, int startStepCount) {
+        if (uid == null || uid.isEmpty()) throw new IllegalArgumentException("uid cannot be null/empty");
+        if (walk == null) throw new IllegalArgumentException("walk cannot be null");
+
+        ContentValues cv = new ContentValues();
+        cv.put(Current_Walk.Col.UID, uid);
+        cv.put(Current_Walk.Col.STATUS, STATUS_ACTIVE);
+        cv.put(Current_Walk.Col.STARTED_AT, startedAtMs);
+        cv.put(Current_Walk.Col.START_STEP_COUNT, startStepCount);
+        cv.put(Current_Walk.Col.START_ELAPSED_REALTIME_MS, startElapsedRealtimeMs);
+        cv.put(Current_Walk.Col.LAST_UPDATED_MS, startedAtMs);
+        cv.put(Current_Walk.Col.LAST_KNOWN_STEPS, 0);
+        cv.put(Current_Walk.Col.LAST_KNOWN_DISTANCE_METERS, 0d);
+        cv.put(Current_Walk.Col.WALK_NAME, walk.getName());
+        cv.put(Current_Walk.Col.WALK_STORY, walk.getStory());
+        cv.put(Current_Walk.Col.START_ADDRESS, walk.getStartAddress());
+        cv.put(Current_Walk.Col.END_ADDRESS, walk.getEndAddress());
+        cv.put(Current_Walk.Col.WALK_DISTANCE_METERS, walk.getDistanceMeters());
+        putCoordinate(cv, Current_Walk.Col.START_LATITUDE, walk.getStartLatitude());
+        putCoordinate(cv, Current_Walk.Col.START_LONGITUDE, walk.getStartLongitude());
+        putCoordinate(cv, Current_Walk.Col.END_LATITUDE, walk.getEndLatitude());
+        putCoordinate(cv, Current_Walk.Col.END_LONGITUDE, walk.getEndLongitude());
+
+        long id;
+        db.beginTransaction();
+        try {
+            db.delete(Current_Walk.TABLE, Current_Walk.Col.UID + "=?", new String[]{uid});
+            id = db.insertOrThrow(Current_Walk.TABLE, null, cv);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        InvalidationTracker.onWrite(db);
+        return new RoamioModels.ActiveWalk(id, uid, walk, startedAtMs, startStepCount,
+                startElapsedRealtimeMs, startedAtMs, 0, 0d);
+    }
+
+    /**
+     * The walk {@code uid} has in progress, or null if there is none.
+     */
+    public RoamioModels.ActiveWalk getActiveWalk(String uid) {
+        if (uid == null || uid.isEmpty()) return null;
+        try (Cursor c = db.query(Current_Walk.TABLE, COLUMNS,
+                Current_Walk.Col.UID + "=? AND " + Current_Walk.Col.STATUS + "=?",
+                new String[]{uid, STATUS_ACTIVE},
+                null, null, Current_Walk.Col._ID + " DESC", "1")) {
+            if (!c.moveToFirst()) return null;
+            RoamioModels.Walk walk = new RoamioModels.Walk(
+                    null,           // generated walks have no uid
+                    c.getString(8),
+                    c.getString(9),
+                    c.getString(10),
+                    c.getString(11),
+                    c.getFloat(12),
+                    false,
+                    getCoordinate(c, 13),
+                    getCoordinate(c, 14),
+                    getCoordinate(c, 15),
+                    getCoordinate(c, 16));
+            return new RoamioModels.ActiveWalk(
+                    c.getLong(0),
+                    c.getString(1),
+                    walk,
+                    c.getLong(2),
+                    c.getInt(3),
+                    c.getLong(4),
+                    c.getLong(5),
+                    c.getInt(6),
+                    c.getDouble(7));
+        }
+    }
+
+    /**
+     * Saves the latest progress of an active walk. Returns false if the walk no longer exists
+     * or already holds a newer checkpoint (checkpoints written from a background queue may
+     * land out of order).
+     */
+    public boolean checkpoint(long activeWalkId, int steps, double distanceMeters, long nowMs) {
+        return statements.executeUpdateDelete(SQL_CHECKPOINT,
+                nowMs, Math.max(0, steps), Math.max(0d, distanceMeters), activeWalkId, nowMs) == 1;
+    }
+
+    /**
+     * Saves the destination of an active walk that was started without it, once it has been
+     * geocoded. Returns false if the walk no longer exists.
+     */
+    public boolean setEndCoordinates(long activeWalkId, double latitude, double longitude) {
+        if (Double.isNaN(latitude) || Double.isNaN(longitude))
+            throw new IllegalArgumentException("coordinates cannot be NaN");
+        return statements.executeUpdateDelete(SQL_SET_END_COORDINATES,
+                latitude, longitude, activeWalkId) == 1;
+    }
+
+    /**
+     * Moves the walk into walk_sessions with its last checkpointed steps/distance and clears it
+     * from current_walk, atomically. Returns the walk_sessions row id.
+     */
+    public long finishWalk(long activeWalkId, long endedAtMs, int pointsAwarded) {
+        db.beginTransaction();
+        try {
+            long sessionId;
+            try (Cursor c = db.query(Current_Walk.TABLE,
+                    new String[]{
+                            Current_Walk.Col.UID,
+                            Current_Walk.Col.STARTED_AT,
+                            Current_Walk.Col.LAST_KNOWN_STEPS,
+                            Current_Walk.Col.LAST_KNOWN_DISTANCE_METERS,
+                            Current_Walk.Col.WALK_DISTANCE_METERS
+                    },
+                    Current_Walk.Col._ID + "=?",
+                    new String[]{String.valueOf(activeWalkId)},
+                    null, null, null)) {
+                if (!c.moveToFirst()) throw new SQLException("No active walk with id " + activeWalkId);
+                long startedAt = c.getLong(1);
+                double tracked = c.getDouble(3);
+                // Without any location fixes fall back to the planned route length
+                double distance = tracked > 0 ? tracked : c.getDouble(4);
+                sessionId = walkSessions.recordCompletedWalk(
+                        c.getString(0),
+                        startedAt,
+                        Math.max(startedAt, endedAtMs),
+                        c.getInt(2),
+                        distance,
+                        pointsAwarded);
+            }
+            db.delete(Current_Walk.TABLE, Current_Walk.Col._ID + "=?",
+                    new String[]{String.valueOf(activeWalkId)});
+            InvalidationTracker.onWrite(db);
+            db.setTransactionSuccessful();
+            return sessionId;
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Drops {@code uid}'s walk in progress without recording it.
+     */
+    public boolean abandonWalk(String uid) {
+        if (uid == null || uid.isEmpty()) return false;
+        int rows = db.delete(Current_Walk.TABLE, Current_Walk.Col.UID + "=?", new String[]{uid});
+        if (rows > 0) InvalidationTracker.onWrite(db);
+        return rows > 0;
+    }
+
+    // Unknown coordinates (NaN on the model) are stored as NULL
+    private static void putCoordinate(ContentValues cv, String column, double value) {
+        if (Double.isNaN(value)) cv.putNull(column);
+        else cv.put(column, value);
+    }
+
+    private static double getCoordinate(Cursor c, int index) {
+        return c.isNull(index) ? Double.NaN : c.getDouble(index);
+    }
+}
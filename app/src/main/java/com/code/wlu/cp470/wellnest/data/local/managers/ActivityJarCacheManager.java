@@ -1,102 +1,351 @@
 package com.code.wlu.cp470.wellnest.data.local.managers;
 
-import android.content.ContentValues;
 import android.database.Cursor;
+import android.database.SQLException;
 import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
 
-import com.code.wlu.cp470.wellnest.data.local.contracts.ActivityJarContract;
+import com.code.wlu.cp470.wellnest.data.ActivityJarModels.Activity;
+import com.code.wlu.cp470.wellnest.data.ActivityJarModels.CacheKey;
+import com.code.wlu.cp470.wellnest.data.ActivityJarModels.Category;
+import com.code.wlu.cp470.wellnest.data.ActivityJarModels.WeatherBucket;
+import com.code.wlu.cp470.wellnest.data.local.StatementCache;
+import com.code.wlu.cp470.wellnest.data.local.contracts.ActivityJarContract.Activities;
+import com.code.wlu.cp470.wellnest.data.local.contracts.ActivityJarContract.ActivityTags;
+import com.code.wlu.cp470.wellnest.data.local.contracts.ActivityJarContract.Batches;
 
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * ActivityJarCacheManager keeps recently generated sets of activities so the jar opens without
+ * another AI round trip.
+ * <p>
+ * Each set is an activity_jar_batches row keyed by a {@link CacheKey} (location cell, time
+ * window, weather bucket), so going back to a place, or reopening the jar later in the same
+ * window, finds the set planned for it. Entries expire after {@link #ENTRY_TTL_MS} and at most
+ * {@link #MAX_ENTRIES} are kept, least recently used evicted first.
+ * <p>
+ * Each activity is a row of activity_jar_activities (one column per field, ordered within its
+ * category) with its tags in activity_jar_activity_tags. Removing a card is a single-row delete
+ * (its tags cascade) and a category is an indexed read, instead of re-parsing and re-writing
+ * the whole response.
+ */
 public class ActivityJarCacheManager {
 
+    public static final long ENTRY_TTL_MS = TimeUnit.HOURS.toMillis(6);
+    public static final int MAX_ENTRIES = 8;
+
+    private static final String SQL_INSERT_BATCH =
+            "INSERT INTO " + Batches.TABLE + " (" +
+                    Batches.Col.GEOHASH + ", " +
+                    Batches.Col.TIME_WINDOW + ", " +
+                    Batches.Col.WEATHER_BUCKET + ", " +
+                    Batches.Col.CREATED_AT + ", " +
+                    Batches.Col.EXPIRES_AT + ", " +
+                    Batches.Col.LAST_USED_AT + ", " +
+                    Batches.Col.WEATHER_SUMMARY + ") VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String SQL_DELETE_KEY =
+            "DELETE FROM " + Batches.TABLE + " WHERE " + Batches.Col.GEOHASH + "=? AND " +
+                    Batches.Col.TIME_WINDOW + "=? AND " + Batches.Col.WEATHER_BUCKET + "=?";
+
+    private static final String SQL_DELETE_EXPIRED =
+            "DELETE FROM " + Batches.TABLE + " WHERE " + Batches.Col.EXPIRES_AT + "<=?";
+
+    // Everything but the MAX_ENTRIES most recently used
+    private static final String SQL_DELETE_LEAST_RECENTLY_USED =
+            "DELETE FROM " + Batches.TABLE + " WHERE " + Batches.Col._ID + " NOT IN (" +
+                    "SELECT " + Batches.Col._ID + " FROM " + Batches.TABLE +
+                    " ORDER BY " + Batches.Col.LAST_USED_AT + " DESC, " + Batches.Col._ID + " DESC LIMIT ?)";
+
+    private static final String SQL_TOUCH_BATCH =
+            "UPDATE " + Batches.TABLE + " SET " + Batches.Col.LAST_USED_AT + "=? WHERE " + Batches.Col._ID + "=?";
+
+    private static final String SQL_INSERT_ACTIVITY =
+            "INSERT INTO " + Activities.TABLE + " (" +
+                    Activities.Col.BATCH_ID + ", " +
+                    Activities.Col.CATEGORY + ", " +
+                    Activities.Col.POSITION + ", " +
+                    Activities.Col.EMOJI + ", " +
+                    Activities.Col.TITLE + ", " +
+                    Activities.Col.DESCRIPTION + ", " +
+                    Activities.Col.ADDRESS + ", " +
+                    Activities.Col.URL + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String SQL_INSERT_TAG =
+            "INSERT INTO " + ActivityTags.TABLE + " (" +
+                    ActivityTags.Col.ACTIVITY_ID + ", " +
+                    ActivityTags.Col.POSITION + ", " +
+                    ActivityTags.Col.TAG + ") VALUES (?, ?, ?)";
+
+    private static final String SQL_DELETE_ACTIVITY =
+            "DELETE FROM " + Activities.TABLE + " WHERE " + Activities.Col._ID + "=?";
+
+    private static final String SQL_FIND_BATCH =
+            "SELECT " + Batches.Col._ID + " FROM " + Batches.TABLE +
+                    " WHERE " + Batches.Col.GEOHASH + "=? AND " + Batches.Col.TIME_WINDOW + "=? AND " +
+                    Batches.Col.WEATHER_BUCKET + "=? AND " + Batches.Col.EXPIRES_AT + ">?";
+
+    // Without a weather reading, the most recently used entry for the place and time will do
+    private static final String SQL_FIND_BATCH_ANY_WEATHER =
+            "SELECT " + Batches.Col._ID + " FROM " + Batches.TABLE +
+                    " WHERE " + Batches.Col.GEOHASH + "=? AND " + Batches.Col.TIME_WINDOW + "=? AND " +
+                    Batches.Col.EXPIRES_AT + ">? ORDER BY " + Batches.Col.LAST_USED_AT + " DESC LIMIT 1";
+
+    private static final String SQL_ACTIVITY_COUNT =
+            "SELECT COUNT(*) FROM " + Activities.TABLE + " WHERE " + Activities.Col.BATCH_ID + "=?";
+
+    // Activities with their tags (one row per tag, or one tag-less row), in display order
+    private static final String SELECT_ACTIVITIES =
+            "SELECT a." + Activities.Col._ID + ", a." + Activities.Col.CATEGORY + ", a." + Activities.Col.EMOJI +
+                    ", a." + Activities.Col.TITLE + ", a." + Activities.Col.DESCRIPTION + ", a." + Activities.Col.ADDRESS +
+                    ", a." + Activities.Col.URL + ", t." + ActivityTags.Col.TAG +
+                    " FROM " + Activities.TABLE + " a" +
+                    " LEFT JOIN " + ActivityTags.TABLE + " t ON t." + ActivityTags.Col.ACTIVITY_ID + " = a." + Activities.Col._ID +
+                    " WHERE a." + Activities.Col.BATCH_ID + "=?";
+
+    private static final String ORDER_ACTIVITIES =
+            " ORDER BY a." + Activities.Col.CATEGORY + ", a." + Activities.Col.POSITION + ", t." + ActivityTags.Col.POSITION;
+
     private final SQLiteDatabase db;
+    private final StatementCache statements;
+    private final LongSupplier clock;
 
     public ActivityJarCacheManager(SQLiteDatabase db) {
+        this(db, System::currentTimeMillis);
+    }
+
+    /**
+     * @param clock Current time in epoch ms; used for expiry and recency.
+     */
+    public ActivityJarCacheManager(SQLiteDatabase db, LongSupplier clock) {
+        if (db == null) throw new IllegalArgumentException("db cannot be null");
+        if (clock == null) throw new IllegalArgumentException("clock cannot be null");
         this.db = db;
+        this.statements = new StatementCache(db);
+        this.clock = clock;
     }
 
+    // ----------------------------------------------------------------------
+    // Write
+    // ----------------------------------------------------------------------
+
     /**
-     * Saves the AI response and weather summary to the cache.
-     * Clears any existing cache entries to ensure only the latest is stored.
+     * Stores {@code activities} under {@code key}, replacing any entry with that key, then
+     * evicts expired entries and the least recently used beyond {@link #MAX_ENTRIES}. Each
+     * saved activity gets its row id set (see {@link Activity#getId()}) so it can later be
+     * removed on its own.
      *
-     * @param jsonData       The JSON string of the AI response.
+     * @param key            Where, when and in what weather the activities were planned.
+     * @param activities     The generated activities, by category.
      * @param weatherSummary The weather summary string.
      */
-    public void saveCache(String jsonData, String weatherSummary) {
+    public void saveCache(CacheKey key, Map<Category, List<Activity>> activities, String weatherSummary) {
+        if (key == null) throw new IllegalArgumentException("key cannot be null");
+        if (activities == null) throw new IllegalArgumentException("activities cannot be null");
+        long now = clock.getAsLong();
         db.beginTransaction();
         try {
-            // Clear previous cache - we only keep the latest
-            db.delete(ActivityJarContract.ActivityJarCache.TABLE, null, null);
+            // activities and tags cascade
+            statements.executeUpdateDelete(SQL_DELETE_KEY,
+                    key.getGeohash(), key.getTimeWindow().name(), key.getWeatherBucket().name());
 
-            ContentValues values = new ContentValues();
-            values.put(ActivityJarContract.ActivityJarCache.Col.JSON_DATA, jsonData);
-            values.put(ActivityJarContract.ActivityJarCache.Col.WEATHER_SUMMARY, weatherSummary);
-            values.put(ActivityJarContract.ActivityJarCache.Col.TIMESTAMP, System.currentTimeMillis());
+            SQLiteStatement batch = statements.get(SQL_INSERT_BATCH);
+            batch.bindString(1, key.getGeohash());
+            batch.bindString(2, key.getTimeWindow().name());
+            batch.bindString(3, key.getWeatherBucket().name());
+            batch.bindLong(4, now);
+            batch.bindLong(5, now + ENTRY_TTL_MS);
+            batch.bindLong(6, now);
+            bindNullable(batch, 7, weatherSummary);
+            long batchId = batch.executeInsert();
+            if (batchId == -1L) throw new SQLException("Failed to insert activity jar batch");
 
-            db.insert(ActivityJarContract.ActivityJarCache.TABLE, null, values);
+            for (Map.Entry<Category, List<Activity>> entry : activities.entrySet()) {
+                int position = 0;
+                for (Activity activity : entry.getValue()) {
+                    activity.setId(insertActivity(batchId, entry.getKey(), position++, activity));
+                }
+            }
+            evict(now);
             db.setTransactionSuccessful();
         } finally {
             db.endTransaction();
         }
     }
 
+    private long insertActivity(long batchId, Category category, int position, Activity activity) {
+        SQLiteStatement st = statements.get(SQL_INSERT_ACTIVITY);
+        st.bindLong(1, batchId);
+        st.bindString(2, category.name());
+        st.bindLong(3, position);
+        bindNullable(st, 4, activity.getEmoji());
+        st.bindString(5, activity.getTitle() != null ? activity.getTitle() : "");
+        bindNullable(st, 6, activity.getDescription());
+        bindNullable(st, 7, activity.getAddress());
+        bindNullable(st, 8, activity.getUrl());
+        long id = st.executeInsert();
+        if (id == -1L) throw new SQLException("Failed to insert activity " + activity.getTitle());
+
+        String[] tags = activity.getTags();
+        if (tags != null) {
+            int tagPosition = 0;
+            for (String tag : tags) {
+                if (tag == null) continue;
+                statements.executeUpdateDelete(SQL_INSERT_TAG, id, tagPosition++, tag);
+            }
+        }
+        return id;
+    }
+
+    /**
+     * Removes one cached activity (and its tags). Returns true if it was cached.
+     */
+    public boolean removeActivity(long activityId) {
+        return statements.executeUpdateDelete(SQL_DELETE_ACTIVITY, activityId) > 0;
+    }
+
+    /**
+     * Drops expired entries and all but the {@link #MAX_ENTRIES} most recently used.
+     */
+    public void evict() {
+        evict(clock.getAsLong());
+    }
+
+    private void evict(long now) {
+        statements.executeUpdateDelete(SQL_DELETE_EXPIRED, now);
+        statements.executeUpdateDelete(SQL_DELETE_LEAST_RECENTLY_USED, MAX_ENTRIES);
+    }
+
+    // ----------------------------------------------------------------------
+    // Read
+    // ----------------------------------------------------------------------
+
     /**
-     * Retrieves the cached data.
+     * Retrieves the unexpired activities cached under {@code key}, with their metadata, and
+     * marks the entry as just used. A key with an {@link WeatherBucket#Unknown} weather bucket
+     * matches the most recently used entry for the same cell and time window.
      *
-     * @return A CacheEntry object containing the data, or null if no cache exists.
+     * @return A CacheEntry object containing the data, or null if there is no such entry.
      */
-    public CacheEntry getCachedData() {
-        Cursor cursor = db.query(
-                ActivityJarContract.ActivityJarCache.TABLE,
-                null, null, null, null, null, null
-        );
+    public CacheEntry getCachedData(CacheKey key) {
+        long now = clock.getAsLong();
+        long batchId = findBatchId(key, now);
+        if (batchId == -1L) return null;
+        statements.executeUpdateDelete(SQL_TOUCH_BATCH, now, batchId);
 
-        try {
-            if (cursor != null && cursor.moveToFirst()) {
-                String jsonData = cursor.getString(cursor.getColumnIndexOrThrow(ActivityJarContract.ActivityJarCache.Col.JSON_DATA));
-                String weatherSummary = cursor.getString(cursor.getColumnIndexOrThrow(ActivityJarContract.ActivityJarCache.Col.WEATHER_SUMMARY));
-                long timestamp = cursor.getLong(cursor.getColumnIndexOrThrow(ActivityJarContract.ActivityJarCache.Col.TIMESTAMP));
-                return new CacheEntry(jsonData, weatherSummary, timestamp);
-            }
-        } finally {
-            if (cursor != null) {
-                cursor.close();
+        String weatherSummary;
+        long timestamp;
+        try (Cursor c = db.query(Batches.TABLE,
+                new String[]{Batches.Col.WEATHER_SUMMARY, Batches.Col.CREATED_AT},
+                Batches.Col._ID + "=?", new String[]{String.valueOf(batchId)},
+                null, null, null)) {
+            if (!c.moveToFirst()) return null;
+            weatherSummary = c.getString(0);
+            timestamp = c.getLong(1);
+        }
+
+        Map<Category, List<Activity>> byCategory = new EnumMap<>(Category.class);
+        for (Activity activity : readActivities(
+                SELECT_ACTIVITIES + ORDER_ACTIVITIES, new String[]{String.valueOf(batchId)})) {
+            Category category = Category.valueOf(activity.getCategory());
+            List<Activity> list = byCategory.get(category);
+            if (list == null) {
+                list = new ArrayList<>();
+                byCategory.put(category, list);
             }
+            list.add(activity);
         }
-        return null;
+        return new CacheEntry(byCategory, weatherSummary, timestamp);
     }
 
     /**
-     * Checks if there is a valid cache entry.
+     * The activities of one category cached under {@code key}, in order.
+     */
+    public List<Activity> getActivities(CacheKey key, Category category) {
+        long batchId = findBatchId(key, clock.getAsLong());
+        if (batchId == -1L) return new ArrayList<>();
+        return readActivities(
+                SELECT_ACTIVITIES + " AND a." + Activities.Col.CATEGORY + "=?" + ORDER_ACTIVITIES,
+                new String[]{String.valueOf(batchId), category.name()});
+    }
+
+    /**
+     * Checks if there is a valid cache entry for {@code key}.
      *
-     * @return true if cache exists, false otherwise.
+     * @return true if an unexpired entry for the key holds at least one activity, false otherwise.
+     */
+    public boolean hasValidCache(CacheKey key) {
+        long batchId = findBatchId(key, clock.getAsLong());
+        return batchId != -1L && statements.queryLong(SQL_ACTIVITY_COUNT, 0, batchId) > 0;
+    }
+
+    private long findBatchId(CacheKey key, long now) {
+        if (key == null) throw new IllegalArgumentException("key cannot be null");
+        if (key.getWeatherBucket() == WeatherBucket.Unknown) {
+            return statements.queryLong(SQL_FIND_BATCH_ANY_WEATHER, -1L,
+                    key.getGeohash(), key.getTimeWindow().name(), now);
+        }
+        return statements.queryLong(SQL_FIND_BATCH, -1L,
+                key.getGeohash(), key.getTimeWindow().name(), key.getWeatherBucket().name(), now);
+    }
+
+    /**
+     * Folds the one-row-per-tag join back into activities.
      */
-    public boolean hasValidCache() {
-        Cursor cursor = db.rawQuery("SELECT COUNT(*) FROM " + ActivityJarContract.ActivityJarCache.TABLE, null);
-        boolean hasData = false;
-        if (cursor != null) {
-            try {
-                if (cursor.moveToFirst()) {
-                    hasData = cursor.getInt(0) > 0;
+    private List<Activity> readActivities(String sql, String[] args) {
+        List<Activity> activities = new ArrayList<>();
+        try (Cursor c = db.rawQuery(sql, args)) {
+            long currentId = -1L;
+            Activity current = null;
+            List<String> tags = new ArrayList<>();
+            while (c.moveToNext()) {
+                long id = c.getLong(0);
+                if (id != currentId) {
+                    if (current != null) current.setTags(tags.toArray(new String[0]));
+                    tags.clear();
+                    current = new Activity(
+                            c.getString(1), // category
+                            c.getString(2), // emoji
+                            c.getString(3), // title
+                            c.getString(4), // description
+                            c.getString(5), // address
+                            null,
+                            c.getString(6)  // url
+                    );
+                    current.setId(id);
+                    activities.add(current);
+                    currentId = id;
                 }
-            } finally {
-                cursor.close();
+                if (!c.isNull(7)) tags.add(c.getString(7));
             }
+            if (current != null) current.setTags(tags.toArray(new String[0]));
         }
-        return hasData;
+        return activities;
+    }
+
+    private static void bindNullable(SQLiteStatement st, int index, String value) {
+        if (value == null) st.bindNull(index);
+        else st.bindString(index, value);
     }
 
     /**
      * Data holder for cached activity jar data.
      */
     public static class CacheEntry {
-        public final String jsonData;
+        public final Map<Category, List<Activity>> activities;
         public final String weatherSummary;
         public final long timestamp;
 
-        public CacheEntry(String jsonData, String weatherSummary, long timestamp) {
-            this.jsonData = jsonData;
+        public CacheEntry(Map<Category, List<Activity>> activities, String weatherSummary, long timestamp) {
+            this.activities = activities;
             this.weatherSummary = weatherSummary;
             this.timestamp = timestamp;
         }
     }
-}
\ No newline at end of file
+}
@@ -3,18 +3,20 @@ package com.code.wlu.cp470.wellnest.data.local.managers;
 import android.content.ContentValues;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
-import android.database.sqlite.SQLiteStatement;
 
 import com.code.wlu.cp470.wellnest.data.local.contracts.ActivityJarContract;
+import com.code.wlu.cp470.wellnest.data.local.contracts.ScoreContract;
 
 public class ActivityJarManager {
     private static final int SCORE_ROW_ID = 1;
 
     private final SQLiteDatabase db;
+    private final ScoreLedgerManager ledger;
 
     public ActivityJarManager(SQLiteDatabase db) {
         if (db == null) throw new IllegalArgumentException("db cannot be null");
         this.db = db;
+        this.ledger = new ScoreLedgerManager(db);
         ensureSingletonRows();
     }
 
@@ -58,48 +60,25 @@ public class ActivityJarManager {
     }
 
     public boolean upsertRoamioScore(int score) {
-        ContentValues cv = new ContentValues();
-        cv.put(ActivityJarContract.Activity_Jar_Score.Col.SCORE, score);
-        int rows = db.update(
-                ActivityJarContract.Activity_Jar_Score.TABLE,
-                cv,
-                ActivityJarContract.Activity_Jar_Score.Col.UID + "=?",
-                new String[]{String.valueOf(SCORE_ROW_ID)}
-        );
-        if (rows > 0) return true;
-
-        cv.put(ActivityJarContract.Activity_Jar_Score.Col.UID, SCORE_ROW_ID);
-        long id = db.insert(
-                ActivityJarContract.Activity_Jar_Score.TABLE,
-                null,
-                cv
-        );
-        return id != -1L;
+        // Absolute set (sync): recorded as the delta from the current value
+        db.beginTransaction();
+        try {
+            int delta = score - getActivityJarScore();
+            if (delta != 0) {
+                ledger.recordEvent(ScoreContract.MicroApp.ACTIVITY_JAR, delta, ScoreContract.Source.SYNC);
+            }
+            db.setTransactionSuccessful();
+            return true;
+        } finally {
+            db.endTransaction();
+        }
     }
 
     public int addToActivityJarScore(int delta) {
         db.beginTransaction();
         try {
-            String sql = "UPDATE " + ActivityJarContract.Activity_Jar_Score.TABLE +
-                    " SET " + ActivityJarContract.Activity_Jar_Score.Col.SCORE + " = " +
-                    ActivityJarContract.Activity_Jar_Score.Col.SCORE + " + ? " +
-                    " WHERE " + ActivityJarContract.Activity_Jar_Score.Col.UID + " = " + SCORE_ROW_ID;
-
-            SQLiteStatement st = db.compileStatement(sql);
-            st.bindLong(1, delta);
-            int rows = st.executeUpdateDelete();
-
-            if (rows == 0) {
-                ContentValues cv = new ContentValues();
-                cv.put(ActivityJarContract.Activity_Jar_Score.Col.UID, SCORE_ROW_ID);
-                cv.put(ActivityJarContract.Activity_Jar_Score.Col.SCORE, delta);
-                db.insertWithOnConflict(
-                        ActivityJarContract.Activity_Jar_Score.TABLE,
-                        null,
-                        cv,
-                        SQLiteDatabase.CONFLICT_IGNORE
-                );
-            }
+            // The score_events trigger applies the delta to activity_jar_score (and global_score)
+            ledger.recordEvent(ScoreContract.MicroApp.ACTIVITY_JAR, delta, ScoreContract.Source.EARNED);
 
             int newScore = getActivityJarScore();
             db.setTransactionSuccessful();
@@ -0,0 +1,117 @@
+package com.code.wlu.cp470.wellnest.data.local.managers;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import com.code.wlu.cp470.wellnest.data.GeoCache.Kind;
+import com.code.wlu.cp470.wellnest.data.local.StatementCache;
+import com.code.wlu.cp470.wellnest.data.local.contracts.GeoCacheContract.Entries;
+
+import java.util.function.LongSupplier;
+
+/**
+ * GeoCacheManager keeps weather readings and geocoding results so the next pipeline run for
+ * the same place does not fetch them again.
+ * <p>
+ * Each result is a geo_cache row under its {@link Kind} and key (a location cell or a
+ * normalized address), with its own expiry. Writing a key replaces it; at most
+ * {@link #MAX_ENTRIES_PER_KIND} rows of each kind are kept, oldest evicted first, so frequent
+ * weather readings never push out the long-lived geocodes.
+ */
+public class GeoCacheManager {
+
+    public static final int MAX_ENTRIES_PER_KIND = 256;
+
+    private static final String SQL_UPSERT =
+            "INSERT OR REPLACE INTO " + Entries.TABLE + " (" +
+                    Entries.Col.KIND + ", " +
+                    Entries.Col.CACHE_KEY + ", " +
+                    Entries.Col.VALUE + ", " +
+                    Entries.Col.CREATED_AT + ", " +
+                    Entries.Col.EXPIRES_AT + ") VALUES (?, ?, ?, ?, ?)";
+
+    private static final String SQL_FIND =
+            "SELECT " + Entries.Col.VALUE + ", " + Entries.Col.EXPIRES_AT + " FROM " + Entries.TABLE +
+                    " WHERE " + Entries.Col.KIND + "=? AND " + Entries.Col.CACHE_KEY + "=? AND " +
+                    Entries.Col.EXPIRES_AT + ">?";
+
+    private static final String SQL_DELETE_EXPIRED =
+            "DELETE FROM " + Entries.TABLE + " WHERE " + Entries.Col.EXPIRES_AT + "<=?";
+
+    // Everything of the kind but its MAX_ENTRIES_PER_KIND newest
+    private static final String SQL_DELETE_OLDEST =
+            "DELETE FROM " + Entries.TABLE + " WHERE " + Entries.Col.KIND + "=? AND " +
+                    Entries.Col.CACHE_KEY + " NOT IN (" +
+                    "SELECT " + Entries.Col.CACHE_KEY + " FROM " + Entries.TABLE +
+                    " WHERE " + Entries.Col.KIND + "=?" +
+                    " ORDER BY " + Entries.Col.CREATED_AT + " DESC LIMIT ?)";
+
+    private final SQLiteDatabase db;
+    private final StatementCache statements;
+    private final LongSupplier clock;
+
+    public GeoCacheManager(SQLiteDatabase db) {
+        this(db, System::currentTimeMillis);
+    }
+
+    /**
+     * @param clock Current time in epoch ms; used for expiry and age.
+     */
+    public GeoCacheManager(SQLiteDatabase db, LongSupplier clock) {
+        if (db == null) throw new IllegalArgumentException("db cannot be null");
+        if (clock == null) throw new IllegalArgumentException("clock cannot be null");
+        this.db = db;
+        this.statements = new StatementCache(db);
+        this.clock = clock;
+    }
+
+    /**
+     * Stores {@code value} under ({@code kind}, {@code key}) for {@code ttlMs}, replacing what
+     * was there, then evicts expired rows and the oldest of the kind beyond
+     * {@link #MAX_ENTRIES_PER_KIND}.
+     *
+     * @return When the stored value expires, in epoch ms.
+     */
+    public long put(Kind kind, String key, String value, long ttlMs) {
+        if (kind == null) throw new IllegalArgumentException("kind cannot be null");
+        if (key == null) throw new IllegalArgumentException("key cannot be null");
+        if (value == null) throw new IllegalArgumentException("value cannot be null");
+        long now = clock.getAsLong();
+        long expiresAt = now + ttlMs;
+        db.beginTransaction();
+        try {
+            statements.executeUpdateDelete(SQL_UPSERT, kind.name(), key, value, now, expiresAt);
+            statements.executeUpdateDelete(SQL_DELETE_EXPIRED, now);
+            statements.executeUpdateDelete(SQL_DELETE_OLDEST, kind.name(), kind.name(), MAX_ENTRIES_PER_KIND);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        return expiresAt;
+    }
+
+    /**
+     * The unexpired value under ({@code kind}, {@code key}), or null if there is none.
+     */
+    public Entry find(Kind kind, String key) {
+        if (kind == null || key == null) return null;
+        try (Cursor c = db.rawQuery(SQL_FIND,
+                new String[]{kind.name(), key, String.valueOf(clock.getAsLong())})) {
+            if (!c.moveToFirst()) return null;
+            return new Entry(c.getString(0), c.getLong(1));
+        }
+    }
+
+    /**
+     * A stored value and when it expires.
+     */
+    public static class Entry {
+        public final String value;
+        public final long expiresAt;
+
+        public Entry(String value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.code.wlu.cp470.wellnest.data.local.managers;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import com.code.wlu.cp470.wellnest.data.UserModels.LeaderboardEntry;
+import com.code.wlu.cp470.wellnest.data.local.SessionStore;
+import com.code.wlu.cp470.wellnest.data.local.StatementCache;
+import com.code.wlu.cp470.wellnest.data.local.contracts.UserContract.Friends;
+import com.code.wlu.cp470.wellnest.data.local.contracts.UserContract.GlobalScore;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * LeaderboardManager answers the friends leaderboard straight from global_score: the
+ * signed-in user plus every accepted friend, highest score first, ties ordered by uid.
+ * <p>
+ * Every query walks idx_global_score_score in leaderboard order and stops as soon as it has
+ * its rows, so the top-K and each following page cost the same however many friends there
+ * are. Pages are keyed by the last entry of the previous page (score, uid) rather than an
+ * OFFSET. A rank is a count over the entries above it, so it costs as much as the rank is
+ * deep; everything else is a bounded range seek.
+ */
+public final class LeaderboardManager {
+
+    private static final String ACCEPTED = "accepted";
+
+    // global_score rows joined with their friend row; "g.uid = ?" keeps the user's own row
+    private static final String FROM_BOARD =
+            " FROM " + GlobalScore.TABLE + " g" +
+                    " LEFT JOIN " + Friends.TABLE + " f ON f." + Friends.Col.FRIEND_UID + " = g." + GlobalScore.Col.UID +
+                    " WHERE (g." + GlobalScore.Col.UID + " = ? OR f." + Friends.Col.FRIEND_STATUS + " = '" + ACCEPTED + "')";
+
+    private static final String SELECT_ENTRY =
+            "SELECT g." + GlobalScore.Col.UID + ", f." + Friends.Col.FRIEND_NAME + ", g." + GlobalScore.Col.SCORE;
+
+    private static final String ORDER_DOWN =
+            " ORDER BY g." + GlobalScore.Col.SCORE + " DESC, g." + GlobalScore.Col.UID + " ASC LIMIT ?";
+
+    // reverse order, for the entries above a given one
+    private static final String ORDER_UP =
+            " ORDER BY g." + GlobalScore.Col.SCORE + " ASC, g." + GlobalScore.Col.UID + " DESC LIMIT ?";
+
+    private static final String SQL_TOP = SELECT_ENTRY + FROM_BOARD + ORDER_DOWN;
+
+    // "score <= ?" is the range the index seeks on; the OR only filters the ties
+    private static final String SQL_BELOW =
+            SELECT_ENTRY + FROM_BOARD +
+                    " AND g." + GlobalScore.Col.SCORE + " <= ?" +
+                    " AND (g." + GlobalScore.Col.SCORE + " < ? OR g." + GlobalScore.Col.UID + " > ?)" +
+                    ORDER_DOWN;
+
+    private static final String SQL_ABOVE =
+            SELECT_ENTRY + FROM_BOARD +
+                    " AND g." + GlobalScore.Col.SCORE + " >= ?" +
+                    " AND (g." + GlobalScore.Col.SCORE + " > ? OR g." + GlobalScore.Col.UID + " < ?)" +
+                    ORDER_UP;
+
+    private static final String SQL_ENTRY =
+            SELECT_ENTRY + FROM_BOARD + " AND g." + GlobalScore.Col.UID + " = ?";
+
+    private static final String SQL_COUNT_ABOVE =
+            "SELECT COUNT(*)" + FROM_BOARD +
+                    " AND g." + GlobalScore.Col.SCORE + " >= ?" +
+                    " AND (g." + GlobalScore.Col.SCORE + " > ? OR g." + GlobalScore.Col.UID + " < ?)";
+
+    private static final String SQL_COUNT = "SELECT COUNT(*)" + FROM_BOARD;
+
+    private final SQLiteDatabase db;
+    private final StatementCache statements;
+    private final SessionStore session;
+
+    public LeaderboardManager(SQLiteDatabase db, SessionStore session) {
+        if (db == null) throw new IllegalArgumentException("db cannot be null");
+        if (session == null) throw new IllegalArgumentException("session cannot be null");
+        this.db = db;
+        this.statements = new StatementCache(db);
+        this.session = session;
+    }
+
+    // ----------------------------------------------------------------------
+    // Pages (leaderboard order, keyset paged)
+    // ----------------------------------------------------------------------
+
+    /**
+     * The first {@code limit} entries, i.e. the top-K.
+     */
+    public List<LeaderboardEntry> getTop(int limit) {
+        checkLimit(limit);
+        String me = me();
+        return read(SQL_TOP, new String[]{me, String.valueOf(limit)}, me, 1, false);
+    }
+
+    /**
+     * The page after {@code last}. Pass the last entry of the previous page.
+     */
+    public List<LeaderboardEntry> getPageAfter(LeaderboardEntry last, int limit) {
+        if (last == null) return getTop(limit);
+        checkLimit(limit);
+        String me = me();
+        String score = String.valueOf(last.getScore());
+        return read(SQL_BELOW,
+                new String[]{me, score, score, last.getUid(), String.valueOf(limit)},
+                me, last.getRank() + 1, false);
+    }
+
+    /**
+     * {@code uid}'s entry with up to {@code radius} entries above and below it, in
+     * leaderboard order. Empty if {@code uid} is not on the leaderboard.
+     */
+    public List<LeaderboardEntry> getWindowAround(String uid, int radius) {
+        if (radius < 0) throw new IllegalArgumentException("radius must be >= 0");
+        LeaderboardEntry center = getEntry(uid);
+        if (center == null) return Collections.emptyList();
+
+        String me = me();
+        String score = String.valueOf(center.getScore());
+        List<LeaderboardEntry> window = new ArrayList<>(2 * radius + 1);
+        if (radius > 0) {
+            window.addAll(read(SQL_ABOVE,
+                    new String[]{me, score, score, uid, String.valueOf(radius)},
+                    me, center.getRank() - 1, true));
+        }
+        window.add(center);
+        if (radius > 0) window.addAll(getPageAfter(center, radius));
+        return window;
+    }
+
+    // ----------------------------------------------------------------------
+    // Single entries and counts
+    // ----------------------------------------------------------------------
+
+    /**
+     * {@code uid}'s entry with its rank, or null if it is not on the leaderboard.
+     */
+    public LeaderboardEntry getEntry(String uid) {
+        if (uid == null || uid.isEmpty()) return null;
+        String me = me();
+        String name;
+        int score;
+        try (Cursor c = db.rawQuery(SQL_ENTRY, new String[]{me, uid})) {
+            if (!c.moveToFirst()) return null;
+            name = c.getString(1);
+            score = c.getInt(2);
+        }
+        int above = (int) statements.queryLong(SQL_COUNT_ABOVE, 0, me, score, score, uid);
+        return new LeaderboardEntry(uid, name, score, above + 1, uid.equals(me));
+    }
+
+    /**
+     * The signed-in user's entry, or null if nobody is signed in or they have no score row.
+     */
+    public LeaderboardEntry getMyEntry() {
+        return getEntry(session.getUid());
+    }
+
+    /**
+     * 1-based rank of {@code uid}, or -1 if it is not on the leaderboard.
+     */
+    public int getRank(String uid) {
+        LeaderboardEntry entry = getEntry(uid);
+        return entry != null ? entry.getRank() : -1;
+    }
+
+    /**
+     * Number of entries on the leaderboard.
+     */
+    public int getSize() {
+        return (int) statements.queryLong(SQL_COUNT, 0, me());
+    }
+
+    // ----------------------------------------------------------------------
+    // helpers
+    // ----------------------------------------------------------------------
+
+    // "" matches no row, so a signed-out board is just the accepted friends
+    private String me() {
+        String uid = session.getUid();
+        return uid != null ? uid : "";
+    }
+
+    private static void checkLimit(int limit) {
+        if (limit <= 0) throw new IllegalArgumentException("limit must be > 0");
+    }
+
+    /**
+     * Reads entries ranked from {@code firstRank}; an upward read counts down and is returned
+     * in leaderboard order.
+     */
+    private List<LeaderboardEntry> read(String sql, String[] args, String me, int firstRank, boolean upward) {
+        List<LeaderboardEntry> rows = new ArrayList<>();
+        int rank = firstRank;
+        try (Cursor c = db.rawQuery(sql, args)) {
+            while (c.moveToNext()) {
+                String uid = c.getString(0);
+                rows.add(new LeaderboardEntry(uid, c.getString(1), c.getInt(2), rank, uid.equals(me)));
+                rank += upward ? -1 : 1;
+            }
+        }
+        if (upward) Collections.reverse(rows);
+        return rows;
+    }
+}
@@ -3,18 +3,20 @@ package com.code.wlu.cp470.wellnest.data.local.managers;
 import android.content.ContentValues;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
-import android.database.sqlite.SQLiteStatement;
 
 import com.code.wlu.cp470.wellnest.data.RoamioModels;
 import com.code.wlu.cp470.wellnest.data.local.contracts.RoamioContract;
+import com.code.wlu.cp470.wellnest.data.local.contracts.ScoreContract;
 
 public class RoamioManager {
     private static final int SCORE_ROW_ID = 1;  // Singleton row key
     private final SQLiteDatabase db;
+    private final ScoreLedgerManager ledger;
 
     public RoamioManager(SQLiteDatabase db) {
         if (db == null) throw new IllegalArgumentException("db cannot be null");
         this.db = db;
+        this.ledger = new ScoreLedgerManager(db);
         ensureSingletonRows();
     }
 
@@ -66,48 +68,22 @@ public class RoamioManager {
     }
 
     public boolean upsertRoamioScore(int score) {
-        ContentValues cv = new ContentValues();
-        cv.put(RoamioContract.Roamio_Score.Col.SCORE, score);
-        int rows = db.update(
-                RoamioContract.Roamio_Score.TABLE,
-                cv,
-                RoamioContract.Roamio_Score.Col.UID + "=?",
-                new String[]{String.valueOf(SCORE_ROW_ID)}
-        );
-        if (rows > 0) return true;
-
-        cv.put(RoamioContract.Roamio_Score.Col.UID, SCORE_ROW_ID);
-        long id = db.insert(RoamioContract.Roamio_Score.TABLE, null, cv);
-        return id != -1L;
-    }
-
-    public void addToRoamioScore(int delta) {
+        // Absolute set (sync): recorded as the delta from the current value
         db.beginTransaction();
         try {
-            // UPDATE score = score + ?
-            String sql = "UPDATE " + RoamioContract.Roamio_Score.TABLE +
-                    " SET " + RoamioContract.Roamio_Score.Col.SCORE + " = " +
-                    RoamioContract.Roamio_Score.Col.SCORE + " + ? " +
-                    " WHERE " + RoamioContract.Roamio_Score.Col.UID + " = " + SCORE_ROW_ID;
-
-            SQLiteStatement st = db.compileStatement(sql);
-            st.bindLong(1, delta);
-            int rows = st.executeUpdateDelete();
-
-            if (rows == 0) { //Row missing -> insert starting at delta
-                ContentValues cv = new ContentValues();
-                cv.put(RoamioContract.Roamio_Score.Col.UID, SCORE_ROW_ID);
-                cv.put(RoamioContract.Roamio_Score.Col.SCORE, delta);
-                db.insertWithOnConflict(
-                        RoamioContract.Roamio_Score.TABLE,
-                        null,
-                        cv,
-                        SQLiteDatabase.CONFLICT_IGNORE
-                );
+            int delta = score - getRoamioScore().getScore();
+            if (delta != 0) {
+                ledger.recordEvent(ScoreContract.MicroApp.ROAMIO, delta, ScoreContract.Source.SYNC);
             }
             db.setTransactionSuccessful();
+            return true;
         } finally {
             db.endTransaction();
         }
     }
+
+    public void addToRoamioScore(int delta) {
+        // The score_events trigger applies the delta to roamio_score (and global_score)
+        ledger.recordEvent(ScoreContract.MicroApp.ROAMIO, delta, ScoreContract.Source.EARNED);
+    }
 }
@@ -0,0 +1,107 @@
+package com.code.wlu.cp470.wellnest.data.local.managers;
+
+import android.database.Cursor;
+import android.database.SQLException;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+import com.code.wlu.cp470.wellnest.data.UserModels.ScoreEvent;
+import com.code.wlu.cp470.wellnest.data.local.InvalidationTracker;
+import com.code.wlu.cp470.wellnest.data.local.StatementCache;
+import com.code.wlu.cp470.wellnest.data.local.contracts.ScoreContract;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ScoreLedgerManager wraps the append-only score_events ledger.
+ * <p>
+ * Every score change is recorded here; the trigger on score_events keeps the micro-app
+ * singleton score rows and the current user's global_score up to date, so reads never
+ * have to recompute totals. Callers should not write the singleton score rows directly.
+ */
+public final class ScoreLedgerManager {
+
+    private static final String SQL_INSERT_EVENT =
+            "INSERT INTO " + ScoreContract.ScoreEvents.TABLE + " (" +
+                    ScoreContract.ScoreEvents.Col.MICRO_APP + ", " +
+                    ScoreContract.ScoreEvents.Col.DELTA + ", " +
+                    ScoreContract.ScoreEvents.Col.CREATED_AT + ", " +
+                    ScoreContract.ScoreEvents.Col.SOURCE + ") VALUES (?, ?, ?, ?)";
+
+    private static final String SQL_SUM_BY_APP =
+            "SELECT IFNULL(SUM(" + ScoreContract.ScoreEvents.Col.DELTA + "), 0)" +
+                    " FROM " + ScoreContract.ScoreEvents.TABLE +
+                    " WHERE " + ScoreContract.ScoreEvents.Col.MICRO_APP + "=?";
+
+    private final SQLiteDatabase db;
+    private final StatementCache statements;
+
+    public ScoreLedgerManager(SQLiteDatabase db) {
+        if (db == null) throw new IllegalArgumentException("db cannot be null");
+        this.db = db;
+        this.statements = new StatementCache(db);
+    }
+
+    /**
+     * Appends one event and returns its row id. A zero delta is still recorded (it is a
+     * no-op for the totals but keeps the history complete).
+     */
+    public long recordEvent(String microApp, int delta, String source) {
+        if (microApp == null || microApp.isEmpty())
+            throw new IllegalArgumentException("microApp cannot be null/empty");
+        if (source == null || source.isEmpty())
+            throw new IllegalArgumentException("source cannot be null/empty");
+
+        SQLiteStatement st = statements.get(SQL_INSERT_EVENT);
+        st.bindString(1, microApp);
+        st.bindLong(2, delta);
+        st.bindLong(3, System.currentTimeMillis());
+        st.bindString(4, source);
+        long id = st.executeInsert();
+        if (id == -1L) throw new SQLException("Failed to record score event for " + microApp);
+        InvalidationTracker.onWrite(db);
+        return id;
+    }
+
+    /**
+     * Sum of every event recorded for a micro-app (opening balance included). This should
+     * always equal that micro-app's materialized score; useful for reconciling.
+     */
+    public int sumEvents(String microApp) {
+        return (int) statements.queryLong(SQL_SUM_BY_APP, 0, microApp);
+    }
+
+    /**
+     * Events for a micro-app created at or after {@code sinceMillis}, oldest first.
+     */
+    public List<ScoreEvent> getEvents(String microApp, long sinceMillis) {
+        List<ScoreEvent> events = new ArrayList<>();
+        try (Cursor c = db.query(
+                ScoreContract.ScoreEvents.TABLE,
+                new String[]{
+                        ScoreContract.ScoreEvents.Col._ID,
+                        ScoreContract.ScoreEvents.Col.MICRO_APP,
+                        ScoreContract.ScoreEvents.Col.DELTA,
+                        ScoreContract.ScoreEvents.Col.CREATED_AT,
+                        ScoreContract.ScoreEvents.Col.SOURCE
+                },
+                ScoreContract.ScoreEvents.Col.MICRO_APP + "=? AND " +
+                        ScoreContract.ScoreEvents.Col.CREATED_AT + ">=?",
+                new String[]{microApp, String.valueOf(sinceMillis)},
+                null, null,
+                ScoreContract.ScoreEvents.Col.CREATED_AT + " ASC, " + ScoreContract.ScoreEvents.Col._ID + " ASC"
+        )) {
+            while (c.moveToNext()) {
+                events.add(new ScoreEvent(
+                        c.getLong(0),
+                        c.getString(1),
+                        c.getInt(2),
+                        c.getLong(3),
+                        c.getString(4)
+                ));
+            }
+        }
+        return events;
+    }
+}
@@ -3,9 +3,10 @@ package com.code.wlu.cp470.wellnest.data.local.managers;
 import android.content.ContentValues;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
-import android.database.sqlite.SQLiteStatement;
 
 import com.code.wlu.cp470.wellnest.data.SnapTaskModels.Task;
+import com.code.wlu.cp470.wellnest.data.local.InvalidationTracker;
+import com.code.wlu.cp470.wellnest.data.local.contracts.ScoreContract;
 import com.code.wlu.cp470.wellnest.data.local.contracts.SnapTaskContract;
 
 import java.util.ArrayList;
@@ -14,9 +15,11 @@ import java.util.List;
 public class SnapTaskManager {
     private static final int SCORE_ROW_ID = 1; // singleton row key
     private final SQLiteDatabase db;
+    private final ScoreLedgerManager ledger;
 
     public SnapTaskManager(SQLiteDatabase db) {
         this.db = db;
+        this.ledger = new ScoreLedgerManager(db);
         ensureSingletonRows();
     }
 
@@ -70,8 +73,9 @@ public class SnapTaskManager {
                     cv,
                     SQLiteDatabase.CONFLICT_ABORT
             );
-            return id != -1L;
+            if (id == -1L) return false;
         }
+        InvalidationTracker.onWrite(db);
         return true;
     }
 
@@ -153,12 +157,14 @@ public class SnapTaskManager {
             throw new IllegalArgumentException("task uid cannot be null/empty");
         ContentValues cv = new ContentValues();
         cv.put(SnapTaskContract.Tasks.Col.COMPLETED, true);
-        return db.update(
+        int rows = db.update(
                 SnapTaskContract.Tasks.TABLE,
                 cv,
                 SnapTaskContract.Tasks.Col.UID + "=?",
                 new String[]{uid}
-        ) > 0;
+        );
+        if (rows > 0) InvalidationTracker.onWrite(db);
+        return rows > 0;
     }
 
     // ----------------------------------------------------------------------
@@ -182,48 +188,28 @@ public class SnapTaskManager {
     }
 
     public boolean upsertSnapTaskScore(int score) {
-        ContentValues cv = new ContentValues();
-        cv.put(SnapTaskContract.SnapTask_Score.Col.SCORE, score);
-        int rows = db.update(
-                SnapTaskContract.SnapTask_Score.TABLE,
-                cv,
-                SnapTaskContract.SnapTask_Score.Col.UID + "=?",
-                new String[]{String.valueOf(SCORE_ROW_ID)}
-        );
-        if (rows > 0) return true;
-
-        cv.put(SnapTaskContract.SnapTask_Score.Col.UID, SCORE_ROW_ID);
-        long id = db.insert(SnapTaskContract.SnapTask_Score.TABLE, null, cv);
-        return id != -1L;
+        // Absolute set (sync): recorded as the delta from the current value
+        db.beginTransaction();
+        try {
+            int delta = score - getSnapTaskScore();
+            if (delta != 0) {
+                ledger.recordEvent(ScoreContract.MicroApp.SNAP_TASK, delta, ScoreContract.Source.SYNC);
+            }
+            db.setTransactionSuccessful();
+            return true;
+        } finally {
+            db.endTransaction();
+        }
     }
 
     /**
-     * Atomic add using UPDATE; inserts row if missing, returns new score.
+     * Records earned points in the score ledger and returns the new score.
      */
     public int addToSnapTaskScore(int delta) {
         db.beginTransaction();
         try {
-            // UPDATE score = score + ?
-            String sql = "UPDATE " + SnapTaskContract.SnapTask_Score.TABLE +
-                    " SET " + SnapTaskContract.SnapTask_Score.Col.SCORE + " = " +
-                    SnapTaskContract.SnapTask_Score.Col.SCORE + " + ? " +
-                    " WHERE " + SnapTaskContract.SnapTask_Score.Col.UID + " = " + SCORE_ROW_ID;
-
-            SQLiteStatement st = db.compileStatement(sql);
-            st.bindLong(1, delta);
-            int rows = st.executeUpdateDelete();
-
-            if (rows == 0) { // row missing → insert starting at delta
-                ContentValues cv = new ContentValues();
-                cv.put(SnapTaskContract.SnapTask_Score.Col.UID, SCORE_ROW_ID);
-                cv.put(SnapTaskContract.SnapTask_Score.Col.SCORE, delta);
-                db.insertWithOnConflict(
-                        SnapTaskContract.SnapTask_Score.TABLE,
-                        null,
-                        cv,
-                        SQLiteDatabase.CONFLICT_IGNORE
-                );
-            }
+            // The score_events trigger applies the delta to snapTask_score (and global_score)
+            ledger.recordEvent(ScoreContract.MicroApp.SNAP_TASK, delta, ScoreContract.Source.EARNED);
 
             // Read back new value
             int newScore = getSnapTaskScore();
@@ -0,0 +1,114 @@
+package com.code.wlu.cp470.wellnest.data.local.managers;
+
+import android.database.Cursor;
+import android.database.SQLException;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+import com.code.wlu.cp470.wellnest.data.SnapTaskModels.VerdictKey;
+import com.code.wlu.cp470.wellnest.data.local.StatementCache;
+import com.code.wlu.cp470.wellnest.data.local.contracts.SnapTaskContract.Verdicts;
+
+import java.util.function.LongSupplier;
+
+/**
+ * SnapTaskVerdictManager keeps the AI's verdicts on submitted before/after photo pairs.
+ * <p>
+ * Each verdict is a snap_task_verdicts row under a {@link VerdictKey}. Photos are matched by
+ * perceptual hash distance rather than equality, so the rows of the task and criteria are read
+ * (newest first) and compared in Java; SQLite has no popcount. At most {@link #MAX_ENTRIES}
+ * verdicts are kept, oldest evicted first.
+ */
+public class SnapTaskVerdictManager {
+
+    public static final int MAX_ENTRIES = 64;
+
+    // Candidates compared per lookup; a task rarely has more than a couple of submissions
+    private static final int MAX_CANDIDATES = 16;
+
+    private static final String SQL_INSERT =
+            "INSERT INTO " + Verdicts.TABLE + " (" +
+                    Verdicts.Col.TASK_UID + ", " +
+                    Verdicts.Col.CRITERIA_HASH + ", " +
+                    Verdicts.Col.BEFORE_DHASH + ", " +
+                    Verdicts.Col.BEFORE_PHASH + ", " +
+                    Verdicts.Col.AFTER_DHASH + ", " +
+                    Verdicts.Col.AFTER_PHASH + ", " +
+                    Verdicts.Col.VERDICT + ", " +
+                    Verdicts.Col.CREATED_AT + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    // Everything but the MAX_ENTRIES newest
+    private static final String SQL_DELETE_OLDEST =
+            "DELETE FROM " + Verdicts.TABLE + " WHERE " + Verdicts.Col._ID + " NOT IN (" +
+                    "SELECT " + Verdicts.Col._ID + " FROM " + Verdicts.TABLE +
+                    " ORDER BY " + Verdicts.Col.CREATED_AT + " DESC, " + Verdicts.Col._ID + " DESC LIMIT ?)";
+
+    private static final String SQL_FIND_CANDIDATES =
+            "SELECT " + Verdicts.Col.BEFORE_DHASH + ", " + Verdicts.Col.BEFORE_PHASH + ", " +
+                    Verdicts.Col.AFTER_DHASH + ", " + Verdicts.Col.AFTER_PHASH + ", " + Verdicts.Col.VERDICT +
+                    " FROM " + Verdicts.TABLE +
+                    " WHERE " + Verdicts.Col.TASK_UID + "=? AND " + Verdicts.Col.CRITERIA_HASH + "=?" +
+                    " ORDER BY " + Verdicts.Col.CREATED_AT + " DESC, " + Verdicts.Col._ID + " DESC LIMIT " + MAX_CANDIDATES;
+
+    private final SQLiteDatabase db;
+    private final StatementCache statements;
+    private final LongSupplier clock;
+
+    public SnapTaskVerdictManager(SQLiteDatabase db) {
+        this(db, System::currentTimeMillis);
+    }
+
+    /**
+     * @param clock Current time in epoch ms; orders verdicts for lookup and eviction.
+     */
+    public SnapTaskVerdictManager(SQLiteDatabase db, LongSupplier clock) {
+        if (db == null) throw new IllegalArgumentException("db cannot be null");
+        if (clock == null) throw new IllegalArgumentException("clock cannot be null");
+        this.db = db;
+        this.statements = new StatementCache(db);
+        this.clock = clock;
+    }
+
+    /**
+     * Stores {@code verdict} for the photos of {@code key}, then evicts all but the
+     * {@link #MAX_ENTRIES} newest verdicts.
+     */
+    public void putVerdict(VerdictKey key, String verdict) {
+        if (key == null) throw new IllegalArgumentException("key cannot be null");
+        if (verdict == null) throw new IllegalArgumentException("verdict cannot be null");
+        db.beginTransaction();
+        try {
+            SQLiteStatement st = statements.get(SQL_INSERT);
+            st.bindString(1, key.getTaskUid());
+            st.bindString(2, key.getCriteriaHash());
+            st.bindLong(3, key.getBeforeDHash());
+            st.bindLong(4, key.getBeforePHash());
+            st.bindLong(5, key.getAfterDHash());
+            st.bindLong(6, key.getAfterPHash());
+            st.bindString(7, verdict);
+            st.bindLong(8, clock.getAsLong());
+            if (st.executeInsert() == -1L) throw new SQLException("Failed to insert verdict");
+            statements.executeUpdateDelete(SQL_DELETE_OLDEST, MAX_ENTRIES);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * The newest verdict for the task and criteria of {@code key} whose photos are each within
+     * {@code maxDistance} bits of {@code key}'s on both hashes, or null if there is none.
+     */
+    public String findVerdict(VerdictKey key, int maxDistance) {
+        if (key == null) return null;
+        try (Cursor c = db.rawQuery(SQL_FIND_CANDIDATES,
+                new String[]{key.getTaskUid(), key.getCriteriaHash()})) {
+            while (c.moveToNext()) {
+                if (key.photosMatch(c.getLong(0), c.getLong(1), c.getLong(2), c.getLong(3), maxDistance)) {
+                    return c.getString(4);
+                }
+            }
+        }
+        return null;
+    }
+}
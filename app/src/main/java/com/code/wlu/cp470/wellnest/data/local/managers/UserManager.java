@@ -9,10 +9,18 @@ import android.util.Log;
 import com.code.wlu.cp470.wellnest.data.UserModels.Friend;
 import com.code.wlu.cp470.wellnest.data.UserModels.Score;
 import com.code.wlu.cp470.wellnest.data.UserModels.UserProfile;
+import com.code.wlu.cp470.wellnest.data.local.InvalidationTracker;
+import com.code.wlu.cp470.wellnest.data.local.SessionStore;
+import com.code.wlu.cp470.wellnest.data.local.StatementCache;
 import com.code.wlu.cp470.wellnest.data.local.contracts.UserContract;
+import com.code.wlu.cp470.wellnest.data.model.FriendSyncResult;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * UserManager wraps reads/writes for:
@@ -25,14 +33,85 @@ import java.util.List;
  * This version implements UserInterface with normalized return shapes.
  */
 public final class UserManager {
+
+    // ----------------------------------------------------------------------
+    // hot-path SQL (compiled once per thread through StatementCache)
+    // ----------------------------------------------------------------------
+
+    // IFNULL keeps the old queryInt contract: missing row or NULL value -> -1
+    private static final String SQL_SCORE_BY_UID =
+            "SELECT IFNULL(" + UserContract.GlobalScore.Col.SCORE + ", -1)" +
+                    " FROM " + UserContract.GlobalScore.TABLE +
+                    " WHERE " + UserContract.GlobalScore.Col.UID + "=?";
+
+    private static final String SQL_UPSERT_SCORE =
+            "INSERT OR REPLACE INTO " + UserContract.GlobalScore.TABLE + " (" +
+                    UserContract.GlobalScore.Col.UID + ", " +
+                    UserContract.GlobalScore.Col.SCORE + ") VALUES (?, ?)";
+
+    private static final String SQL_ENSURE_SCORE =
+            "INSERT OR IGNORE INTO " + UserContract.GlobalScore.TABLE + " (" +
+                    UserContract.GlobalScore.Col.UID + ", " +
+                    UserContract.GlobalScore.Col.SCORE + ") VALUES (?, 0)";
+
+    private static final String SQL_STREAK_COUNT =
+            "SELECT IFNULL(" + UserContract.Streak.Col.COUNT + ", -1)" +
+                    " FROM " + UserContract.Streak.TABLE +
+                    " WHERE " + UserContract.Streak.Col.ID + "=1";
+
+    private static final String SQL_UPSERT_FRIEND =
+            "INSERT OR REPLACE INTO " + UserContract.Friends.TABLE + " (" +
+                    UserContract.Friends.Col.FRIEND_UID + ", " +
+                    UserContract.Friends.Col.FRIEND_NAME + ", " +
+                    UserContract.Friends.Col.FRIEND_STATUS + ") VALUES (?, ?, ?)";
+
+    // Same as above but keeps the stored status (or 'pending' for a new friend)
+    private static final String SQL_UPSERT_FRIEND_KEEP_STATUS =
+            "INSERT OR REPLACE INTO " + UserContract.Friends.TABLE + " (" +
+                    UserContract.Friends.Col.FRIEND_UID + ", " +
+                    UserContract.Friends.Col.FRIEND_NAME + ", " +
+                    UserContract.Friends.Col.FRIEND_STATUS + ") VALUES (?, ?, " +
+                    "COALESCE((SELECT " + UserContract.Friends.Col.FRIEND_STATUS +
+                    " FROM " + UserContract.Friends.TABLE +
+                    " WHERE " + UserContract.Friends.Col.FRIEND_UID + "=?), 'pending'))";
+
+    private static final String SQL_DELETE_FRIEND =
+            "DELETE FROM " + UserContract.Friends.TABLE +
+                    " WHERE " + UserContract.Friends.Col.FRIEND_UID + "=?";
+
+    private static final String SQL_IS_FRIEND =
+            "SELECT COUNT(*) FROM " + UserContract.Friends.TABLE +
+                    " WHERE " + UserContract.Friends.Col.FRIEND_UID + "=?";
+
+    private static final String SQL_HAS_BADGE =
+            "SELECT COUNT(*) FROM " + UserContract.Badges.TABLE +
+                    " WHERE " + UserContract.Badges.Col.BADGE_ID + "=?";
+
     private final SQLiteDatabase db;
+    private final StatementCache statements;
+    private final SessionStore session;
 
     public UserManager(SQLiteDatabase db) {
+        this(db, db == null ? null : new SessionStore(db));
+    }
+
+    /**
+     * Uses {@code session} for the current user (see {@link SessionStore}); DatabaseProvider
+     * passes the app-wide one so repositories and this manager agree on who is signed in.
+     */
+    public UserManager(SQLiteDatabase db, SessionStore session) {
         if (db == null) throw new IllegalArgumentException("db cannot be null");
+        if (session == null) throw new IllegalArgumentException("session cannot be null");
         this.db = db;
+        this.statements = new StatementCache(db);
+        this.session = session;
         ensureSingletons();
     }
 
+    public SessionStore getSessionStore() {
+        return session;
+    }
+
     /**
      * Ensure singleton rows exist for global_score and streak.
      */
@@ -77,24 +156,18 @@ public final class UserManager {
                 cv,
                 SQLiteDatabase.CONFLICT_REPLACE
         );
+        if (id != -1L) {
+            session.onProfileWritten(uid, name, email);
+            InvalidationTracker.onWrite(db);
+        }
         return id != -1L;
     }
 
     /**
-     * Returns current user’s UID.
+     * Returns current user’s UID (cached by the SessionStore, no query).
      */
     public String currentUid() {
-        try (Cursor cursor = db.query(
-                UserContract.UserProfile.TABLE,
-                new String[]{UserContract.UserProfile.Col.UID},
-                null, null, null, null, null
-        )) {
-            if (cursor.moveToFirst()) {
-                return cursor.getString(0);
-            } else {
-                throw new IllegalStateException("No current user");
-            }
-        }
+        return session.requireUid();
     }
 
     /**
@@ -206,6 +279,8 @@ public final class UserManager {
                 null,
                 null
         );
+        session.invalidate();
+        if (rows > 0) InvalidationTracker.onWrite(db);
         return rows > 0;
     }
 
@@ -214,29 +289,12 @@ public final class UserManager {
     // ----------------------------------------------------------------------
 
     private Integer queryScoreByUid(String uid) {
-        return queryInt(
-                UserContract.GlobalScore.TABLE,
-                UserContract.GlobalScore.Col.SCORE,
-                UserContract.GlobalScore.Col.UID + "=?",
-                new String[]{uid}
-        );
+        return queryInt(SQL_SCORE_BY_UID, uid);
     }
 
     private boolean upsertScore(String uid, int score) {
-        // Try UPDATE first; if no row, INSERT.
-        ContentValues cv = new ContentValues();
-        cv.put(UserContract.GlobalScore.Col.SCORE, score);
-        int rows = db.update(
-                UserContract.GlobalScore.TABLE,
-                cv,
-                UserContract.GlobalScore.Col.UID + "=?",
-                new String[]{uid}
-        );
-        if (rows > 0) return true;
-
-        cv.put(UserContract.GlobalScore.Col.UID, uid);
-        long id = db.insert(UserContract.GlobalScore.TABLE, null, cv);
-        return id != -1;
+        // Single statement: global_score only has (uid, score), so REPLACE == upsert
+        return statements.executeUpdateDelete(SQL_UPSERT_SCORE, uid, score) > 0;
     }
 
     // --- READ (current user) ---
@@ -258,6 +316,7 @@ public final class UserManager {
         cv.put(UserContract.GlobalScore.Col.UID, currentUid());
         cv.put(UserContract.GlobalScore.Col.SCORE, initialScore);
         long id = db.insert(UserContract.GlobalScore.TABLE, null, cv);
+        if (id != -1) InvalidationTracker.onWrite(db);
         return id != -1;
     }
 
@@ -267,23 +326,15 @@ public final class UserManager {
         cv.put(UserContract.GlobalScore.Col.UID, uid);
         cv.put(UserContract.GlobalScore.Col.SCORE, initialScore);
         long id = db.insert(UserContract.GlobalScore.TABLE, null, cv);
+        if (id != -1) InvalidationTracker.onWrite(db);
         return id != -1;
     }
 
     // --- ENSURE ---
     public boolean ensureGlobalScore(String uid) {
-        if (queryScoreByUid(uid) == -1) {
-            // create with 0 if missing and return false
-            ContentValues cv = new ContentValues();
-            cv.put(UserContract.GlobalScore.Col.UID, uid);
-            cv.put(UserContract.GlobalScore.Col.SCORE, 0);
-            boolean error = db.insert(UserContract.GlobalScore.TABLE, null, cv) == -1;
-            if (error) {
-                throw new SQLException("Failed to create global score for uid=" + uid);
-            }
-            return false;
-        }
-        return true;
+        if (uid == null) throw new IllegalArgumentException("uid cannot be null");
+        // INSERT OR IGNORE: one row changed means it was missing and got created with 0
+        return statements.executeUpdateDelete(SQL_ENSURE_SCORE, uid) == 0;
     }
 
 // --- UPDATE (current user) ---
@@ -338,6 +389,7 @@ public final class UserManager {
                 UserContract.GlobalScore.Col.UID + "=?",
                 new String[]{currentUid()}
         );
+        if (rows > 0) InvalidationTracker.onWrite(db);
         return rows > 0;
     }
 
@@ -348,6 +400,7 @@ public final class UserManager {
                 UserContract.GlobalScore.Col.UID + "=?",
                 new String[]{uid}
         );
+        if (rows > 0) InvalidationTracker.onWrite(db);
         return rows > 0;
     }
 
@@ -386,6 +439,11 @@ public final class UserManager {
     }
 
     // --- LIST ALL ---
+
+    /**
+     * Every score row, highest first. The scoreboard reads ranked pages from
+     * {@link LeaderboardManager} instead.
+     */
     public java.util.List<Score> listAllGlobalScores() {
         java.util.List<Score> list = new java.util.ArrayList<>();
         Cursor c = null;
@@ -418,7 +476,9 @@ public final class UserManager {
             args[i++] = uid;
         }
         sb.append(')');
-        return db.delete(UserContract.GlobalScore.TABLE, sb.toString(), args);
+        int rows = db.delete(UserContract.GlobalScore.TABLE, sb.toString(), args);
+        if (rows > 0) InvalidationTracker.onWrite(db);
+        return rows;
     }
 
     // ----------------------------------------------------------------------
@@ -426,12 +486,7 @@ public final class UserManager {
     // ----------------------------------------------------------------------
 
     public int getStreakCount() {
-        Integer val = queryInt(
-                UserContract.Streak.TABLE,
-                UserContract.Streak.Col.COUNT,
-                UserContract.Streak.Col.ID + "=?",
-                new String[]{"1"}
-        );
+        Integer val = queryInt(SQL_STREAK_COUNT);
         return val != null ? val : 0;
     }
 
@@ -447,6 +502,7 @@ public final class UserManager {
                 UserContract.Streak.Col.ID + "=?",
                 new String[]{"1"}
         );
+        if (rows > 0) InvalidationTracker.onWrite(db);
         return rows > 0;
     }
 
@@ -468,6 +524,7 @@ public final class UserManager {
                     new String[]{"1"}
             );
             if (rows == 0) throw new SQLException("Failed to update streak");
+            InvalidationTracker.onWrite(db);
             db.setTransactionSuccessful();
             return updated;
         } finally {
@@ -497,26 +554,13 @@ public final class UserManager {
             throw new IllegalArgumentException("friendUid is empty");
         }
 
-        // Look up existing status if this friend already exists
-        String existingStatus = null;
-        Cursor c = null;
-        try {
-            c = db.query(
-                    UserContract.Friends.TABLE,
-                    new String[]{UserContract.Friends.Col.FRIEND_STATUS},
-                    UserContract.Friends.Col.FRIEND_UID + "=?",
-                    new String[]{friendUid},
-                    null, null, null
-            );
-            if (c.moveToFirst()) {
-                existingStatus = c.getString(0);
-            }
-        } finally {
-            if (c != null) c.close();
-        }
+        if (friendName == null) friendName = "";
 
-        String statusToUse = (existingStatus != null) ? existingStatus : "pending";
-        return upsertFriend(friendUid, friendName, statusToUse);
+        // The existing status is looked up inside the same statement
+        boolean success = statements.executeUpdateDelete(
+                SQL_UPSERT_FRIEND_KEEP_STATUS, friendUid, friendName, friendUid) > 0;
+        if (success) ensureGlobalScore(friendUid);
+        return success;
     }
 
     /**
@@ -531,20 +575,9 @@ public final class UserManager {
 
         Log.d("UserManager", "upsertFriend: uid=" + friendUid + ", name=" + friendName + ", status=" + status);
 
-        ContentValues cv = new ContentValues();
-        cv.put(UserContract.Friends.Col.FRIEND_UID, friendUid);
-        cv.put(UserContract.Friends.Col.FRIEND_NAME, friendName);
-        cv.put(UserContract.Friends.Col.FRIEND_STATUS, status);
-
         // Use REPLACE to overwrite existing entries completely
-        long id = db.insertWithOnConflict(
-                UserContract.Friends.TABLE,
-                null,
-                cv,
-                SQLiteDatabase.CONFLICT_REPLACE
-        );
-
-        boolean success = id != -1;
+        boolean success = statements.executeUpdateDelete(
+                SQL_UPSERT_FRIEND, friendUid, friendName, status) > 0;
 
         // Ensure the friend has a global_score entry for the INNER JOIN in getFriends()
         if (success) {
@@ -552,10 +585,67 @@ public final class UserManager {
             Log.d("UserManager", "upsertFriend: ensureGlobalScore for " + friendUid + " = " + scoreEnsured);
         }
 
-        Log.d("UserManager", "upsertFriend result: " + success + " (id=" + id + ")");
+        Log.d("UserManager", "upsertFriend result: " + success);
         return success;
     }
 
+    /**
+     * Bulk ingest of a full friend list (used for Firebase sync).
+     * <p>
+     * Applies every friend and its global_score row in a single transaction with reused
+     * statements, and removes local friends that are not in {@code friends} in the same pass.
+     * A row that fails is reported as FAILED without rolling back the others.
+     */
+    public FriendSyncResult upsertFriends(Collection<Friend> friends) {
+        FriendSyncResult result = new FriendSyncResult();
+        if (friends == null) friends = Collections.emptyList();
+
+        db.beginTransaction();
+        try {
+            Set<String> existing = new HashSet<>();
+            try (Cursor c = db.query(
+                    UserContract.Friends.TABLE,
+                    new String[]{UserContract.Friends.Col.FRIEND_UID},
+                    null, null, null, null, null)) {
+                while (c.moveToNext()) existing.add(c.getString(0));
+            }
+
+            Set<String> incoming = new HashSet<>();
+            for (Friend friend : friends) {
+                String uid = friend != null ? friend.getUid() : null;
+                if (uid == null || uid.isEmpty()) {
+                    Log.w("UserManager", "upsertFriends: skipping friend without uid");
+                    continue;
+                }
+                incoming.add(uid);
+                String name = friend.getName() != null ? friend.getName() : "";
+                String status = friend.getStatus() != null ? friend.getStatus() : "pending";
+                try {
+                    boolean ok = statements.executeUpdateDelete(SQL_UPSERT_FRIEND, uid, name, status) > 0;
+                    if (ok) statements.executeUpdateDelete(SQL_ENSURE_SCORE, uid);
+                    result.put(uid, !ok ? FriendSyncResult.Outcome.FAILED
+                            : existing.contains(uid) ? FriendSyncResult.Outcome.UPDATED
+                            : FriendSyncResult.Outcome.INSERTED);
+                } catch (SQLException e) {
+                    Log.e("UserManager", "upsertFriends: failed for " + uid, e);
+                    result.put(uid, FriendSyncResult.Outcome.FAILED);
+                }
+            }
+
+            for (String uid : existing) {
+                if (incoming.contains(uid)) continue;
+                if (statements.executeUpdateDelete(SQL_DELETE_FRIEND, uid) > 0) {
+                    result.put(uid, FriendSyncResult.Outcome.REMOVED);
+                }
+            }
+
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        return result;
+    }
+
 
     /**
      * Remove a friend by UID. Returns true if a row was deleted.
@@ -567,6 +657,7 @@ public final class UserManager {
                 UserContract.Friends.Col.FRIEND_UID + "=?",
                 new String[]{friendUid}
         );
+        if (rows > 0) InvalidationTracker.onWrite(db);
         return rows > 0;
     }
 
@@ -582,6 +673,7 @@ public final class UserManager {
                 UserContract.Friends.Col.FRIEND_UID + "=?",
                 new String[]{friendUid}
         );
+        if (rows > 0) InvalidationTracker.onWrite(db);
         return rows > 0;
     }
 
@@ -596,19 +688,7 @@ public final class UserManager {
      * Returns true if this friend exists.
      */
     public boolean isFriend(String friendUid) {
-        Cursor c = null;
-        try {
-            c = db.query(
-                    UserContract.Friends.TABLE,
-                    new String[]{UserContract.Friends.Col.FRIEND_UID},
-                    UserContract.Friends.Col.FRIEND_UID + "=?",
-                    new String[]{friendUid},
-                    null, null, null
-            );
-            return c.moveToFirst();
-        } finally {
-            if (c != null) c.close();
-        }
+        return statements.queryLong(SQL_IS_FRIEND, 0, friendUid) > 0;
     }
 
     /**
@@ -667,6 +747,7 @@ public final class UserManager {
                 cv,
                 SQLiteDatabase.CONFLICT_IGNORE
         );
+        if (id != -1L) InvalidationTracker.onWrite(db);
         return id != -1L;
     }
 
@@ -679,6 +760,7 @@ public final class UserManager {
                 UserContract.Badges.Col.BADGE_ID + "=?",
                 new String[]{badgeId}
         );
+        if (rows > 0) InvalidationTracker.onWrite(db);
         return rows > 0;
     }
 
@@ -686,19 +768,7 @@ public final class UserManager {
      * Returns true if the user has this badge.
      */
     public boolean hasBadge(String badgeId) {
-        Cursor c = null;
-        try {
-            c = db.query(
-                    UserContract.Badges.TABLE,
-                    new String[]{UserContract.Badges.Col.BADGE_ID},
-                    UserContract.Badges.Col.BADGE_ID + "=?",
-                    new String[]{badgeId},
-                    null, null, null
-            );
-            return c.moveToFirst();
-        } finally {
-            if (c != null) c.close();
-        }
+        return statements.queryLong(SQL_HAS_BADGE, 0, badgeId) > 0;
     }
 
     /**
@@ -728,12 +798,11 @@ public final class UserManager {
     // helpers
     // ----------------------------------------------------------------------
 
-    private Integer queryInt(String table, String col, String where, String[] args) {
-        try (Cursor c = db.query(table, new String[]{col}, where, args, null, null, null)) {
-            if (!c.moveToFirst()) return -1;
-            if (c.isNull(0)) return -1;
-            return c.getInt(0);
-        }
+    /**
+     * Runs a cached single-int query; returns -1 when no row matched or the value is NULL.
+     */
+    private Integer queryInt(String sql, Object... args) {
+        return (int) statements.queryLong(sql, -1, args);
     }
 
     private String queryString(String table, String col, String where, String[] args) {
@@ -0,0 +1,208 @@
+package com.code.wlu.cp470.wellnest.data.local.managers;
+
+import android.database.Cursor;
+import android.database.SQLException;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+import com.code.wlu.cp470.wellnest.data.RoamioModels.WalkSession;
+import com.code.wlu.cp470.wellnest.data.RoamioModels.WeeklyWalkStats;
+import com.code.wlu.cp470.wellnest.data.local.InvalidationTracker;
+import com.code.wlu.cp470.wellnest.data.local.StatementCache;
+import com.code.wlu.cp470.wellnest.data.local.contracts.RoamioContract.Walk_Sessions;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TimeZone;
+
+/**
+ * WalkSessionManager stores completed Roamio walks in walk_sessions and reads them back.
+ * <p>
+ * History is paged with a keyset (the ended_at/_id of the last row on the previous page)
+ * rather than OFFSET, so every page is a range seek on idx_walk_sessions_uid_ended_at no
+ * matter how far back the user scrolls. The aggregates only read columns that are in that
+ * index, so they never touch the table itself.
+ */
+public class WalkSessionManager {
+
+    public static final String STATUS_COMPLETED = "COMPLETED";
+
+    private static final long DAY_MS = 24L * 60 * 60 * 1000;
+    private static final long WEEK_MS = 7 * DAY_MS;
+    // The epoch (1970-01-01) was a Thursday; shifting by 3 days makes weeks start on Monday
+    private static final long MONDAY_SHIFT_MS = 3 * DAY_MS;
+
+    private static final String[] SESSION_COLUMNS = {
+            Walk_Sessions.Col._ID,
+            Walk_Sessions.Col.UID,
+            Walk_Sessions.Col.STARTED_AT,
+            Walk_Sessions.Col.ENDED_AT,
+            Walk_Sessions.Col.STEPS,
+            Walk_Sessions.Col.DISTANCE_METERS,
+            Walk_Sessions.Col.POINTS_AWARDED,
+            Walk_Sessions.Col.STATUS
+    };
+
+    private static final String SQL_INSERT =
+            "INSERT INTO " + Walk_Sessions.TABLE + " (" +
+                    Walk_Sessions.Col.UID + ", " +
+                    Walk_Sessions.Col.STARTED_AT + ", " +
+                    Walk_Sessions.Col.ENDED_AT + ", " +
+                    Walk_Sessions.Col.STEPS + ", " +
+                    Walk_Sessions.Col.DISTANCE_METERS + ", " +
+                    Walk_Sessions.Col.POINTS_AWARDED + ", " +
+                    Walk_Sessions.Col.STATUS + ") VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String SQL_WALK_COUNT =
+            "SELECT COUNT(*) FROM " + Walk_Sessions.TABLE +
+                    " WHERE " + Walk_Sessions.Col.UID + "=?";
+
+    private static final String SQL_TOTAL_DISTANCE =
+            "SELECT IFNULL(SUM(" + Walk_Sessions.Col.DISTANCE_METERS + "), 0)" +
+                    " FROM " + Walk_Sessions.TABLE +
+                    " WHERE " + Walk_Sessions.Col.UID + "=?";
+
+    private static final String SQL_WEEKLY_STATS =
+            "SELECT (" + Walk_Sessions.Col.ENDED_AT + " + ?) / " + WEEK_MS + " AS week, " +
+                    "COUNT(*), IFNULL(SUM(" + Walk_Sessions.Col.DISTANCE_METERS + "), 0)" +
+                    " FROM " + Walk_Sessions.TABLE +
+                    " WHERE " + Walk_Sessions.Col.UID + "=? AND " + Walk_Sessions.Col.ENDED_AT + ">=?" +
+                    " GROUP BY week ORDER BY week DESC";
+
+    private static final String PAGE_ORDER =
+            Walk_Sessions.Col.ENDED_AT + " DESC, " + Walk_Sessions.Col._ID + " DESC";
+
+    private final SQLiteDatabase db;
+    private final StatementCache statements;
+
+    public WalkSessionManager(SQLiteDatabase db) {
+        if (db == null) throw new IllegalArgumentException("db cannot be null");
+        this.db = db;
+        this.statements = new StatementCache(db);
+    }
+
+    // ----------------------------------------------------------------------
+    // Write
+    // ----------------------------------------------------------------------
+
+    /**
+     * Stores a completed walk and returns its row id.
+     */
+    public long recordCompletedWalk(String uid, long startedAt, long endedAt, int steps,
+                                    double distanceMeters, int pointsAwarded) {
+        if (uid == null || uid.isEmpty()) throw new IllegalArgumentException("uid cannot be null/empty");
+        if (endedAt < startedAt) throw new IllegalArgumentException("endedAt is before startedAt");
+
+        SQLiteStatement st = statements.get(SQL_INSERT);
+        st.bindString(1, uid);
+        st.bindLong(2, startedAt);
+        st.bindLong(3, endedAt);
+        st.bindLong(4, Math.max(0, steps));
+        st.bindDouble(5, Math.max(0d, distanceMeters));
+        st.bindLong(6, pointsAwarded);
+        st.bindString(7, STATUS_COMPLETED);
+        long id = st.executeInsert();
+        if (id == -1L) throw new SQLException("Failed to record walk session for uid=" + uid);
+        InvalidationTracker.onWrite(db);
+        return id;
+    }
+
+    // ----------------------------------------------------------------------
+    // History (newest first, keyset paged)
+    // ----------------------------------------------------------------------
+
+    /**
+     * First page of a user's walks, newest first.
+     */
+    public List<WalkSession> getHistoryPage(String uid, int limit) {
+        return queryPage(
+                Walk_Sessions.Col.UID + "=?",
+                new String[]{uid},
+                limit);
+    }
+
+    /**
+     * The page after {@code last}, i.e. the walks that ended before it (ties on ended_at are
+     * broken by id). Pass the last session of the previous page.
+     */
+    public List<WalkSession> getHistoryPageAfter(String uid, WalkSession last, int limit) {
+        if (last == null) return getHistoryPage(uid, limit);
+        return getHistoryPageBefore(uid, last.getEndedAt(), last.getId(), limit);
+    }
+
+    /**
+     * Walks that ended before ({@code endedAt}, {@code id}), newest first.
+     */
+    public List<WalkSession> getHistoryPageBefore(String uid, long endedAt, long id, int limit) {
+        // "ended_at <= ?" is the range the index seeks on; the OR only filters the ties
+        return queryPage(
+                Walk_Sessions.Col.UID + "=? AND " +
+                        Walk_Sessions.Col.ENDED_AT + "<=? AND (" +
+                        Walk_Sessions.Col.ENDED_AT + "<? OR " + Walk_Sessions.Col._ID + "<?)",
+                new String[]{uid, String.valueOf(endedAt), String.valueOf(endedAt), String.valueOf(id)},
+                limit);
+    }
+
+    private List<WalkSession> queryPage(String selection, String[] args, int limit) {
+        if (args[0] == null || args[0].isEmpty())
+            throw new IllegalArgumentException("uid cannot be null/empty");
+        if (limit <= 0) throw new IllegalArgumentException("limit must be > 0");
+
+        List<WalkSession> page = new ArrayList<>(limit);
+        try (Cursor c = db.query(Walk_Sessions.TABLE, SESSION_COLUMNS, selection, args,
+                null, null, PAGE_ORDER, String.valueOf(limit))) {
+            while (c.moveToNext()) {
+                page.add(new WalkSession(
+                        c.getLong(0),
+                        c.getString(1),
+                        c.getLong(2),
+                        c.getLong(3),
+                        c.getInt(4),
+                        c.getDouble(5),
+                        c.getInt(6),
+                        c.getString(7)
+                ));
+            }
+        }
+        return page;
+    }
+
+    // ----------------------------------------------------------------------
+    // Aggregates (answered from idx_walk_sessions_uid_ended_at)
+    // ----------------------------------------------------------------------
+
+    public int getWalkCount(String uid) {
+        return (int) statements.queryLong(SQL_WALK_COUNT, 0, uid);
+    }
+
+    public double getTotalDistanceMeters(String uid) {
+        try (Cursor c = db.rawQuery(SQL_TOTAL_DISTANCE, new String[]{uid})) {
+            return c.moveToFirst() ? c.getDouble(0) : 0d;
+        }
+    }
+
+    /**
+     * Walks and distance per week since {@code sinceMillis}, newest week first, using the
+     * device's time zone for week boundaries. Weeks without walks are not returned.
+     */
+    public List<WeeklyWalkStats> getWeeklyStats(String uid, long sinceMillis) {
+        return getWeeklyStats(uid, sinceMillis, TimeZone.getDefault().getOffset(System.currentTimeMillis()));
+    }
+
+    /**
+     * Same as {@link #getWeeklyStats(String, long)} with an explicit UTC offset for the
+     * week boundaries.
+     */
+    public List<WeeklyWalkStats> getWeeklyStats(String uid, long sinceMillis, long utcOffsetMillis) {
+        long shift = utcOffsetMillis + MONDAY_SHIFT_MS;
+        List<WeeklyWalkStats> weeks = new ArrayList<>();
+        try (Cursor c = db.rawQuery(SQL_WEEKLY_STATS, new String[]{
+                String.valueOf(shift), uid, String.valueOf(sinceMillis)})) {
+            while (c.moveToNext()) {
+                long weekStart = c.getLong(0) * WEEK_MS - shift;
+                weeks.add(new WeeklyWalkStats(weekStart, c.getInt(1), c.getDouble(2)));
+            }
+        }
+        return weeks;
+    }
+}
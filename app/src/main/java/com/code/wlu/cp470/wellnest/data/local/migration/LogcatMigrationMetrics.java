@@ -0,0 +1,26 @@
+package com.code.wlu.cp470.wellnest.data.local.migration;
+
+import android.util.Log;
+
+/**
+ * Default {@link MigrationMetrics}: writes the timings to logcat.
+ */
+public final class LogcatMigrationMetrics implements MigrationMetrics {
+
+    private static final String TAG = "WellnestMigrations";
+
+    @Override
+    public void onStepCompleted(Migration step, long durationMs) {
+        Log.i(TAG, step + " took " + durationMs + " ms");
+    }
+
+    @Override
+    public void onStepFailed(Migration step, long durationMs, Throwable error) {
+        Log.e(TAG, step + " failed after " + durationMs + " ms; upgrade rolled back", error);
+    }
+
+    @Override
+    public void onUpgradeCompleted(int fromVersion, int toVersion, long durationMs) {
+        Log.i(TAG, "Upgraded v" + fromVersion + " -> v" + toVersion + " in " + durationMs + " ms");
+    }
+}
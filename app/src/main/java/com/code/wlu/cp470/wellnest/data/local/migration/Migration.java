@@ -0,0 +1,31 @@
+package com.code.wlu.cp470.wellnest.data.local.migration;
+
+import android.database.sqlite.SQLiteDatabase;
+
+/**
+ * One schema step, from version {@link #from} to version {@link #to}.
+ * <p>
+ * Steps run inside the upgrade transaction (see {@link MigrationRunner}), so they must not open
+ * or end transactions of their own, and they must never drop user data to get to the new
+ * schema. A step describes the schema as it was at its target version: once shipped it should
+ * not change, even when the contracts it was written against do.
+ */
+public abstract class Migration {
+
+    public final int from;
+    public final int to;
+
+    protected Migration(int from, int to) {
+        if (from < 1 || to <= from)
+            throw new IllegalArgumentException("invalid migration " + from + " -> " + to);
+        this.from = from;
+        this.to = to;
+    }
+
+    public abstract void migrate(SQLiteDatabase db);
+
+    @Override
+    public String toString() {
+        return "Migration(" + from + " -> " + to + ")";
+    }
+}
@@ -0,0 +1,18 @@
+package com.code.wlu.cp470.wellnest.data.local.migration;
+
+import android.database.sqlite.SQLiteException;
+
+/**
+ * Thrown when the database cannot be brought up to date. Nothing has been changed when this
+ * is thrown: the upgrade transaction was rolled back and the file is still at its old version.
+ */
+public class MigrationException extends SQLiteException {
+
+    public MigrationException(String message) {
+        super(message);
+    }
+
+    public MigrationException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,16 @@
+package com.code.wlu.cp470.wellnest.data.local.migration;
+
+/**
+ * Receives the timing of every migration step and of the upgrade as a whole.
+ */
+public interface MigrationMetrics {
+
+    void onStepCompleted(Migration step, long durationMs);
+
+    void onStepFailed(Migration step, long durationMs, Throwable error);
+
+    /**
+     * Called once every step of the upgrade has run successfully.
+     */
+    void onUpgradeCompleted(int fromVersion, int toVersion, long durationMs);
+}
@@ -0,0 +1,79 @@
+package com.code.wlu.cp470.wellnest.data.local.migration;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.os.SystemClock;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Applies registered {@link Migration} steps to get a database from one version to another.
+ * <p>
+ * All steps of an upgrade run in one transaction: either the database ends up at the new
+ * version, or a {@link MigrationException} is thrown and it is exactly as it was before
+ * (SQLiteOpenHelper then leaves the old version number in place, so the upgrade is retried on
+ * the next launch). The runner never falls back to dropping and recreating tables.
+ */
+public final class MigrationRunner {
+
+    private final List<Migration> migrations;
+    private final MigrationMetrics metrics;
+
+    public MigrationRunner(List<Migration> migrations, MigrationMetrics metrics) {
+        if (migrations == null) throw new IllegalArgumentException("migrations == null");
+        if (metrics == null) throw new IllegalArgumentException("metrics == null");
+        this.migrations = Collections.unmodifiableList(new ArrayList<>(migrations));
+        this.metrics = metrics;
+    }
+
+    /**
+     * The steps that take {@code fromVersion} to {@code toVersion}, in order.
+     *
+     * @throws MigrationException if some version in between has no step
+     */
+    public List<Migration> findPath(int fromVersion, int toVersion) {
+        List<Migration> path = new ArrayList<>();
+        int version = fromVersion;
+        while (version < toVersion) {
+            Migration next = null;
+            for (Migration m : migrations) {
+                // prefer the step that jumps furthest without overshooting
+                if (m.from == version && m.to <= toVersion && (next == null || m.to > next.to)) {
+                    next = m;
+                }
+            }
+            if (next == null) {
+                throw new MigrationException("No migration from v" + version + " (upgrading v"
+                        + fromVersion + " -> v" + toVersion + ")");
+            }
+            path.add(next);
+            version = next.to;
+        }
+        return path;
+    }
+
+    public void migrate(SQLiteDatabase db, int fromVersion, int toVersion) {
+        // resolve the whole path before touching the database
+        List<Migration> path = findPath(fromVersion, toVersion);
+
+        long upgradeStart = SystemClock.elapsedRealtime();
+        db.beginTransaction();
+        try {
+            for (Migration step : path) {
+                long stepStart = SystemClock.elapsedRealtime();
+                try {
+                    step.migrate(db);
+                } catch (RuntimeException e) {
+                    metrics.onStepFailed(step, SystemClock.elapsedRealtime() - stepStart, e);
+                    throw new MigrationException(step + " failed", e);
+                }
+                metrics.onStepCompleted(step, SystemClock.elapsedRealtime() - stepStart);
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        metrics.onUpgradeCompleted(fromVersion, toVersion, SystemClock.elapsedRealtime() - upgradeStart);
+    }
+}
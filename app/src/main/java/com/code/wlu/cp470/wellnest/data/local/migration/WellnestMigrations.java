@@ -0,0 +1,284 @@
+package com.code.wlu.cp470.wellnest.data.local.migration;
+
+import android.database.sqlite.SQLiteDatabase;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Every schema step of wellnest.db, oldest first. To change the schema: bump
+ * {@code WellnestDatabaseHelper.DATABASE_VERSION}, change the contract/onCreate for fresh
+ * installs, add a {@code MIGRATION_N_N+1} here that gets existing installs to the same place,
+ * and add version N+1 to the androidTest {@code HistoricalSchemas}.
+ * <p>
+ * Steps spell out their SQL instead of using the contracts' constants, which describe the
+ * current schema: a later contract change must not rewrite what an old step does.
+ */
+public final class WellnestMigrations {
+
+    // Raises the current user's global_score to the micro-app total, as at v3
+    private static final String SQL_RAISE_GLOBAL_TO_MICRO_APP_TOTAL_V3 =
+            "UPDATE global_score SET score = MAX(score, " +
+                    "IFNULL((SELECT score FROM snapTask_score), 0) + " +
+                    "IFNULL((SELECT score FROM roamio_score), 0) + " +
+                    "IFNULL((SELECT score FROM activity_jar_score), 0)) " +
+                    "WHERE uid = (SELECT uid FROM user_profile LIMIT 1)";
+
+    // activity_jar_activities and its tags as created by v7 and recreated unchanged by v8
+    private static final String SQL_CREATE_ACTIVITIES_V7 =
+            "CREATE TABLE activity_jar_activities(" +
+                    "_id INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                    "batch_id INTEGER NOT NULL REFERENCES activity_jar_batches(_id) ON DELETE CASCADE, " +
+                    "category TEXT NOT NULL, " +
+                    "position INTEGER NOT NULL, " +
+                    "emoji TEXT, " +
+                    "title TEXT NOT NULL, " +
+                    "description TEXT, " +
+                    "address TEXT, " +
+                    "url TEXT)";
+    private static final String SQL_INDEX_ACTIVITIES_V7 =
+            "CREATE INDEX IF NOT EXISTS idx_activity_jar_activities_batch_category " +
+                    "ON activity_jar_activities(batch_id, category, position)";
+    private static final String SQL_CREATE_ACTIVITY_TAGS_V7 =
+            "CREATE TABLE activity_jar_activity_tags(" +
+                    "activity_id INTEGER NOT NULL REFERENCES activity_jar_activities(_id) ON DELETE CASCADE, " +
+                    "position INTEGER NOT NULL, " +
+                    "tag TEXT NOT NULL, " +
+                    "PRIMARY KEY(activity_id, position)) WITHOUT ROWID";
+
+    /**
+     * v2: activity_jar_cache.
+     */
+    public static final Migration MIGRATION_1_2 = new Migration(1, 2) {
+        @Override
+        public void migrate(SQLiteDatabase db) {
+            // activity_jar_cache as it was at v2
+            db.execSQL("CREATE TABLE IF NOT EXISTS activity_jar_cache(" +
+                    "id INTEGER PRIMARY KEY, " +
+                    "json_data TEXT, " +
+                    "timestamp INTEGER, " +
+                    "weather_summary TEXT)");
+        }
+    };
+
+    /**
+     * v3: score_events ledger, seeded with the existing micro-app scores as opening balances.
+     */
+    public static final Migration MIGRATION_2_3 = new Migration(2, 3) {
+        @Override
+        public void migrate(SQLiteDatabase db) {
+            // score_events and its triggers as they were at v3
+            db.execSQL("CREATE TABLE score_events (" +
+                    "_id INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                    "micro_app TEXT NOT NULL, " +
+                    "delta INTEGER NOT NULL, " +
+                    "created_at INTEGER NOT NULL, " +
+                    "source TEXT NOT NULL)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS idx_score_events_app_created " +
+                    "ON score_events(micro_app, created_at)");
+            db.execSQL("CREATE TRIGGER IF NOT EXISTS trg_score_events_apply AFTER INSERT ON score_events BEGIN " +
+                    applyToSingleton("snaptask", "snapTask_score") +
+                    applyToSingleton("roamio", "roamio_score") +
+                    applyToSingleton("activity_jar", "activity_jar_score") +
+                    "INSERT OR IGNORE INTO global_score (uid, score) SELECT uid, 0 FROM user_profile LIMIT 1; " +
+                    SQL_RAISE_GLOBAL_TO_MICRO_APP_TOTAL_V3 + "; " +
+                    "END");
+            db.execSQL("CREATE TRIGGER IF NOT EXISTS trg_score_events_no_update BEFORE UPDATE ON score_events " +
+                    "BEGIN SELECT RAISE(ABORT, 'score_events is append-only'); END");
+            db.execSQL("CREATE TRIGGER IF NOT EXISTS trg_score_events_no_delete BEFORE DELETE ON score_events " +
+                    "BEGIN SELECT RAISE(ABORT, 'score_events is append-only'); END");
+            // Carry the existing micro-app scores over as opening balances, then do the
+            // max(micro-app total, global) reconcile the app used to repeat on every resume
+            db.execSQL(seedOpeningBalance("snaptask", "snapTask_score"));
+            db.execSQL(seedOpeningBalance("roamio", "roamio_score"));
+            db.execSQL(seedOpeningBalance("activity_jar", "activity_jar_score"));
+            db.execSQL(SQL_RAISE_GLOBAL_TO_MICRO_APP_TOTAL_V3);
+        }
+
+        private String applyToSingleton(String app, String table) {
+            String isApp = "NEW.micro_app = '" + app + "'";
+            return "INSERT OR IGNORE INTO " + table + " (id, score) SELECT 1, 0 WHERE " + isApp + "; " +
+                    "UPDATE " + table + " SET score = score + NEW.delta WHERE id = 1 AND " + isApp +
+                    " AND NEW.source <> 'opening_balance'; ";
+        }
+
+        private String seedOpeningBalance(String app, String table) {
+            return "INSERT INTO score_events (micro_app, delta, created_at, source) " +
+                    "SELECT '" + app + "', score, CAST(strftime('%s','now') AS INTEGER) * 1000, " +
+                    "'opening_balance' FROM " + table + " WHERE score <> 0";
+        }
+    };
+
+    /**
+     * v4: walk_sessions indexes. v1-v3 packed both index statements into one execSQL, so only
+     * the uid index was ever created; it is replaced by the (uid, ended_at) index.
+     */
+    public static final Migration MIGRATION_3_4 = new Migration(3, 4) {
+        @Override
+        public void migrate(SQLiteDatabase db) {
+            db.execSQL("DROP INDEX IF EXISTS idx_walk_sessions_uid");
+            db.execSQL("CREATE INDEX IF NOT EXISTS idx_walk_sessions_ended_at ON walk_sessions(ended_at)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS idx_walk_sessions_uid_ended_at " +
+                    "ON walk_sessions(uid, ended_at, distance_meters)");
+        }
+    };
+
+    /**
+     * v5: the generated walk's details on current_walk so an active walk can be restored.
+     */
+    public static final Migration MIGRATION_4_5 = new Migration(4, 5) {
+        @Override
+        public void migrate(SQLiteDatabase db) {
+            db.execSQL("ALTER TABLE current_walk ADD COLUMN walk_name TEXT");
+            db.execSQL("ALTER TABLE current_walk ADD COLUMN walk_story TEXT");
+            db.execSQL("ALTER TABLE current_walk ADD COLUMN start_address TEXT");
+            db.execSQL("ALTER TABLE current_walk ADD COLUMN end_address TEXT");
+            db.execSQL("ALTER TABLE current_walk ADD COLUMN walk_distance_meters REAL NOT NULL DEFAULT 0.0");
+        }
+    };
+
+    /**
+     * v6: leaderboard index on global_score.
+     */
+    public static final Migration MIGRATION_5_6 = new Migration(5, 6) {
+        @Override
+        public void migrate(SQLiteDatabase db) {
+            db.execSQL("CREATE INDEX IF NOT EXISTS idx_global_score_score ON global_score(score DESC, uid)");
+        }
+    };
+
+    /**
+     * v7: the activity jar cache as rows (batch, activities, tags) instead of one JSON blob.
+     * The blob is only a cache of generated activities, so it is dropped rather than converted;
+     * the next prefetch fills the new tables.
+     */
+    public static final Migration MIGRATION_6_7 = new Migration(6, 7) {
+        @Override
+        public void migrate(SQLiteDatabase db) {
+            // v2-v6 kept the whole AI response as one JSON blob
+            db.execSQL("DROP TABLE IF EXISTS activity_jar_cache");
+            // the three tables as they were at v7
+            db.execSQL("CREATE TABLE activity_jar_batches(" +
+                    "_id INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                    "created_at INTEGER NOT NULL, " +
+                    "weather_summary TEXT)");
+            db.execSQL(SQL_CREATE_ACTIVITIES_V7);
+            db.execSQL(SQL_INDEX_ACTIVITIES_V7);
+            db.execSQL(SQL_CREATE_ACTIVITY_TAGS_V7);
+        }
+    };
+
+    /**
+     * v8: activity jar batches keyed by location cell, time window and weather bucket, with
+     * an expiry and last-used time. The v7 rows have no key to migrate to (and are only a cache),
+     * so the three tables are recreated empty.
+     */
+    public static final Migration MIGRATION_7_8 = new Migration(7, 8) {
+        @Override
+        public void migrate(SQLiteDatabase db) {
+            db.execSQL("DROP TABLE IF EXISTS activity_jar_activity_tags");
+            db.execSQL("DROP TABLE IF EXISTS activity_jar_activities");
+            db.execSQL("DROP TABLE IF EXISTS activity_jar_batches");
+            // activity_jar_batches as it was at v8; the other two are unchanged from v7
+            db.execSQL("CREATE TABLE activity_jar_batches(" +
+                    "_id INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                    "geohash TEXT NOT NULL, " +
+                    "time_window TEXT NOT NULL, " +
+                    "weather_bucket TEXT NOT NULL, " +
+                    "created_at INTEGER NOT NULL, " +
+                    "expires_at INTEGER NOT NULL, " +
+                    "last_used_at INTEGER NOT NULL, " +
+                    "weather_summary TEXT)");
+            db.execSQL("CREATE UNIQUE INDEX IF NOT EXISTS idx_activity_jar_batches_key " +
+                    "ON activity_jar_batches(geohash, time_window, weather_bucket)");
+            db.execSQL(SQL_CREATE_ACTIVITIES_V7);
+            db.execSQL(SQL_INDEX_ACTIVITIES_V7);
+            db.execSQL(SQL_CREATE_ACTIVITY_TAGS_V7);
+        }
+    };
+
+    /**
+     * v9: snap_task_verdicts, the SnapTask verdict cache.
+     */
+    public static final Migration MIGRATION_8_9 = new Migration(8, 9) {
+        @Override
+        public void migrate(SQLiteDatabase db) {
+            db.execSQL("CREATE TABLE snap_task_verdicts(" +
+                    "_id INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                    "task_uid TEXT NOT NULL, " +
+                    "criteria_hash TEXT NOT NULL, " +
+                    "before_dhash INTEGER NOT NULL, " +
+                    "before_phash INTEGER NOT NULL, " +
+                    "after_dhash INTEGER NOT NULL, " +
+                    "after_phash INTEGER NOT NULL, " +
+                    "verdict TEXT NOT NULL, " +
+                    "created_at INTEGER NOT NULL)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS idx_snap_task_verdicts_task " +
+                    "ON snap_task_verdicts(task_uid, criteria_hash, created_at)");
+        }
+    };
+
+    /**
+     * v10: geo_cache, the weather and geocoding cache.
+     */
+    public static final Migration MIGRATION_9_10 = new Migration(9, 10) {
+        @Override
+        public void migrate(SQLiteDatabase db) {
+            db.execSQL("CREATE TABLE geo_cache(" +
+                    "kind TEXT NOT NULL, " +
+                    "cache_key TEXT NOT NULL, " +
+                    "value TEXT NOT NULL, " +
+                    "created_at INTEGER NOT NULL, " +
+                    "expires_at INTEGER NOT NULL, " +
+                    "PRIMARY KEY(kind, cache_key)) WITHOUT ROWID");
+        }
+    };
+
+    /**
+     * v11: the walk's resolved coordinates on current_walk.
+     */
+    public static final Migration MIGRATION_10_11 = new Migration(10, 11) {
+        @Override
+        public void migrate(SQLiteDatabase db) {
+            db.execSQL("ALTER TABLE current_walk ADD COLUMN start_latitude REAL");
+            db.execSQL("ALTER TABLE current_walk ADD COLUMN start_longitude REAL");
+            db.execSQL("ALTER TABLE current_walk ADD COLUMN end_latitude REAL");
+            db.execSQL("ALTER TABLE current_walk ADD COLUMN end_longitude REAL");
+        }
+    };
+
+    /**
+     * v12: the _id tie-break of walk history pages in the (uid, ended_at) index, so the pages
+     * are read in index order instead of sorted.
+     */
+    public static final Migration MIGRATION_11_12 = new Migration(11, 12) {
+        @Override
+        public void migrate(SQLiteDatabase db) {
+            db.execSQL("DROP INDEX IF EXISTS idx_walk_sessions_uid_ended_at");
+            db.execSQL("CREATE INDEX IF NOT EXISTS idx_walk_sessions_uid_ended_at " +
+                    "ON walk_sessions(uid, ended_at DESC, _id DESC, distance_meters)");
+        }
+    };
+
+    private static final List<Migration> ALL = Collections.unmodifiableList(Arrays.asList(
+            MIGRATION_1_2,
+            MIGRATION_2_3,
+            MIGRATION_3_4,
+            MIGRATION_4_5,
+            MIGRATION_5_6,
+            MIGRATION_6_7,
+            MIGRATION_7_8,
+            MIGRATION_8_9,
+            MIGRATION_9_10,
+            MIGRATION_10_11,
+            MIGRATION_11_12
+    ));
+
+    private WellnestMigrations() {
+    }
+
+    public static List<Migration> all() {
+        return ALL;
+    }
+}
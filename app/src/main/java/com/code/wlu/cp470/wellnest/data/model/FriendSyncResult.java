@@ -0,0 +1,48 @@
+package com.code.wlu.cp470.wellnest.data.model;
+
+import androidx.annotation.NonNull;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Per-row outcome of a bulk friend ingestion ({@code UserManager.upsertFriends}).
+ * Rows are kept in the order they were applied; removed friends come last.
+ */
+public final class FriendSyncResult {
+
+    public enum Outcome {
+        INSERTED,
+        UPDATED,
+        REMOVED,
+        FAILED
+    }
+
+    private final Map<String, Outcome> outcomes = new LinkedHashMap<>();
+
+    public void put(@NonNull String friendUid, @NonNull Outcome outcome) {
+        outcomes.put(friendUid, outcome);
+    }
+
+    @NonNull
+    public Map<String, Outcome> getOutcomes() {
+        return Collections.unmodifiableMap(outcomes);
+    }
+
+    public Outcome getOutcome(String friendUid) {
+        return outcomes.get(friendUid);
+    }
+
+    public int count(@NonNull Outcome outcome) {
+        int n = 0;
+        for (Outcome o : outcomes.values()) {
+            if (o == outcome) n++;
+        }
+        return n;
+    }
+
+    public boolean hasFailures() {
+        return outcomes.containsValue(Outcome.FAILED);
+    }
+}
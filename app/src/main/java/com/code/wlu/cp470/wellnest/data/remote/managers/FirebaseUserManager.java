@@ -452,6 +452,21 @@ public class FirebaseUserManager {
      * from their root user doc (if present). Missing scores default to 0.
      */
     public List<Friend> getFriends(@NonNull String ownerUid) {
+        try {
+            return fetchFriends(ownerUid);
+        } catch (ExecutionException | InterruptedException e) {
+            Log.e(TAG, "getFriends failed", e);
+            Thread.currentThread().interrupt();
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Same as {@link #getFriends(String)} but surfaces failures instead of returning an empty
+     * list, so callers can tell "no friends" apart from "could not reach Firestore".
+     */
+    public List<Friend> fetchFriends(@NonNull String ownerUid)
+            throws ExecutionException, InterruptedException {
         List<Friend> out = new ArrayList<>();
         if (ownerUid.isEmpty()) return out;
 
@@ -459,45 +474,40 @@ public class FirebaseUserManager {
                 .document(ownerUid)
                 .collection(UserContract.Friends.TABLE);
 
-        try {
-            QuerySnapshot friendsSnap = Tasks.await(friendsCol.get());
-            if (friendsSnap == null) return out;
-
-            // Map of friendUid → Friend object
-            Map<String, Friend> map = new HashMap<>();
-            List<Task<DocumentSnapshot>> pendingUserGets = new ArrayList<>();
-
-            for (DocumentSnapshot d : friendsSnap.getDocuments()) {
-                String uid = d.getString(UserContract.Friends.Col.FRIEND_UID);
-                String name = d.getString(UserContract.Friends.Col.FRIEND_NAME);
-                String status = d.getString(UserContract.Friends.Col.FRIEND_STATUS);
-                if (uid == null) continue;
-                if (status == null) status = "pending";
-                map.put(uid, new Friend(uid, name, status, 0));
-
-                // Fetch root user doc later to read their score
-                pendingUserGets.add(db.collection("users").document(uid).get());
-            }
+        QuerySnapshot friendsSnap = Tasks.await(friendsCol.get());
+        if (friendsSnap == null) return out;
+
+        // Map of friendUid → Friend object
+        Map<String, Friend> map = new HashMap<>();
+        List<Task<DocumentSnapshot>> pendingUserGets = new ArrayList<>();
+
+        for (DocumentSnapshot d : friendsSnap.getDocuments()) {
+            String uid = d.getString(UserContract.Friends.Col.FRIEND_UID);
+            String name = d.getString(UserContract.Friends.Col.FRIEND_NAME);
+            String status = d.getString(UserContract.Friends.Col.FRIEND_STATUS);
+            if (uid == null) continue;
+            if (status == null) status = "pending";
+            map.put(uid, new Friend(uid, name, status, 0));
+
+            // Fetch root user doc later to read their score
+            pendingUserGets.add(db.collection("users").document(uid).get());
+        }
 
-            if (!pendingUserGets.isEmpty()) {
-                List<Object> results = Tasks.await(Tasks.whenAllSuccess(pendingUserGets));
-                for (Object obj : results) {
-                    DocumentSnapshot ud = (DocumentSnapshot) obj;
-                    if (ud != null && ud.exists()) {
-                        String fid = ud.getId();
-                        Number n = (Number) ud.get(UserContract.GlobalScore.Col.SCORE);
-                        int score = (n == null) ? 0 : n.intValue();
-                        Friend f = map.get(fid);
-                        if (f != null) f.setScore(score);
-                    }
+        if (!pendingUserGets.isEmpty()) {
+            List<Object> results = Tasks.await(Tasks.whenAllSuccess(pendingUserGets));
+            for (Object obj : results) {
+                DocumentSnapshot ud = (DocumentSnapshot) obj;
+                if (ud != null && ud.exists()) {
+                    String fid = ud.getId();
+                    Number n = (Number) ud.get(UserContract.GlobalScore.Col.SCORE);
+                    int score = (n == null) ? 0 : n.intValue();
+                    Friend f = map.get(fid);
+                    if (f != null) f.setScore(score);
                 }
             }
-
-            out.addAll(map.values());
-        } catch (ExecutionException | InterruptedException e) {
-            Log.e(TAG, "getFriends failed", e);
-            Thread.currentThread().interrupt();
         }
+
+        out.addAll(map.values());
         return out;
     }
 
@@ -11,6 +11,7 @@ import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
 import androidx.fragment.app.FragmentManager;
 import android.widget.ProgressBar;
+import android.widget.TextView;
 import android.widget.Toast;
 
 import androidx.lifecycle.ViewModelProvider;
@@ -32,6 +33,7 @@ public class activityJarSelection extends Fragment {
     private ActivityCarouselAdapter adapter;
     private ActivityJarViewModel viewModel;
     private ProgressBar loadingProgressBar;
+    private TextView loadingMessage;
 
     public static activityJarSelection newInstance(int startIndex) {
         activityJarSelection fragment = new activityJarSelection();
@@ -51,6 +53,7 @@ public class activityJarSelection extends Fragment {
 
         carouselView = view.findViewById(R.id.carousel);
         loadingProgressBar = view.findViewById(R.id.loadingProgressBar);
+        loadingMessage = view.findViewById(R.id.loadingMessage);
 
         viewModel = new ViewModelProvider(requireActivity()).get(ActivityJarViewModel.class);
 
@@ -107,6 +110,14 @@ public class activityJarSelection extends Fragment {
             android.util.Log.d("ActivityJarSelection", "Observer: isLoading = " + isLoading);
             loadingProgressBar.setVisibility(isLoading ? View.VISIBLE : View.GONE);
             carouselView.setVisibility(isLoading ? View.GONE : View.VISIBLE);
+            if (!isLoading) loadingMessage.setVisibility(View.GONE);
+        });
+
+        // Steps of the plan being loaded (also when the startup prefetch is the one planning it)
+        viewModel.getPlanProgress().observe(getViewLifecycleOwner(), progress -> {
+            boolean show = progress.isRunning() && Boolean.TRUE.equals(viewModel.getIsLoading().getValue());
+            loadingMessage.setText(progress.getMessage() + " (" + progress.getPercent() + "%)");
+            loadingMessage.setVisibility(show ? View.VISIBLE : View.GONE);
         });
 
         viewModel.getError().observe(getViewLifecycleOwner(), error -> {
@@ -3,11 +3,6 @@ package com.code.wlu.cp470.wellnest.ui.home;
 import static android.view.View.GONE;
 import static android.view.View.VISIBLE;
 
-import android.content.BroadcastReceiver;
-import android.content.Context;
-import android.content.Intent;
-import android.content.IntentFilter;
-import android.database.sqlite.SQLiteDatabase;
 import android.net.Uri;
 import android.os.Bundle;
 import android.view.LayoutInflater;
@@ -23,60 +18,31 @@ import androidx.constraintlayout.widget.Guideline;
 import androidx.fragment.app.Fragment;
 import androidx.fragment.app.FragmentManager;
 import androidx.lifecycle.ViewModelProvider;
-import androidx.localbroadcastmanager.content.LocalBroadcastManager;
 import androidx.navigation.NavController;
 import androidx.navigation.Navigation;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
-import com.code.wlu.cp470.wellnest.MainActivity;
 import com.code.wlu.cp470.wellnest.R;
-import com.code.wlu.cp470.wellnest.data.UserModels.Friend;
-import com.code.wlu.cp470.wellnest.data.local.WellnestDatabaseHelper;
-import com.code.wlu.cp470.wellnest.data.local.managers.ActivityJarManager;
-import com.code.wlu.cp470.wellnest.data.local.managers.RoamioManager;
-import com.code.wlu.cp470.wellnest.data.local.managers.SnapTaskManager;
+import com.code.wlu.cp470.wellnest.data.local.DatabaseProvider;
+import com.code.wlu.cp470.wellnest.data.local.InvalidationTracker;
+import com.code.wlu.cp470.wellnest.data.local.contracts.UserContract;
 import com.code.wlu.cp470.wellnest.data.local.managers.UserManager;
 import com.code.wlu.cp470.wellnest.ui.effects.UiClickEffects;
 import com.code.wlu.cp470.wellnest.viewmodel.FriendViewModel;
-
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
+import com.code.wlu.cp470.wellnest.viewmodel.LeaderboardViewModel;
 
 public class HomeFragment extends Fragment {
 
+    // start loading the next scoreboard page this many rows before the end
+    private static final int PREFETCH_DISTANCE = 5;
+
     private FriendViewModel friendViewModel;
+    private LeaderboardViewModel leaderboardViewModel;
 
-    // Class fields for score refresh on resume
     private TextView scoreText;
     private String uid;
     private UserManager userManager;
-    private SnapTaskManager snapTaskManager;
-    private ActivityJarManager activityJarManager;
-    private RoamioManager roamioManager;
-
-    /**
-     * BroadcastReceiver that listens for score sync completion from MainActivity.
-     * When a fresh install login happens, the global score sync runs async and this receiver
-     * ensures the UI refreshes once the sync completes.
-     */
-    private final BroadcastReceiver scoreSyncReceiver = new BroadcastReceiver() {
-        @Override
-        public void onReceive(Context context, Intent intent) {
-            android.util.Log.d("HomeFragment", "Received ACTION_SCORE_SYNC_COMPLETE broadcast, refreshing score");
-            // Re-open database connection to get fresh synced data
-            if (getActivity() != null) {
-                WellnestDatabaseHelper dbHelper = new WellnestDatabaseHelper(getActivity().getApplicationContext());
-                SQLiteDatabase db = dbHelper.getWritableDatabase();
-                userManager = new UserManager(db);
-                snapTaskManager = new SnapTaskManager(db);
-                activityJarManager = new ActivityJarManager(db);
-                roamioManager = new RoamioManager(db);
-                refreshGlobalScore();
-            }
-        }
-    };
 
     @Nullable
     @Override
@@ -91,11 +57,11 @@ public class HomeFragment extends Fragment {
     public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
         super.onViewCreated(view, savedInstanceState);
 
-        // Register for score sync completion broadcasts
-        LocalBroadcastManager.getInstance(requireContext())
-                .registerReceiver(scoreSyncReceiver, new IntentFilter(MainActivity.ACTION_SCORE_SYNC_COMPLETE));
-
-        friendViewModel = new ViewModelProvider(this, new ViewModelProvider.AndroidViewModelFactory(requireActivity().getApplication())).get(FriendViewModel.class);
+        ViewModelProvider.AndroidViewModelFactory factory =
+                new ViewModelProvider.AndroidViewModelFactory(requireActivity().getApplication());
+        // FriendViewModel pulls the friend list and their scores from Firebase on creation
+        friendViewModel = new ViewModelProvider(this, factory).get(FriendViewModel.class);
+        leaderboardViewModel = new ViewModelProvider(this, factory).get(LeaderboardViewModel.class);
 
         ImageView friendsTxt = view.findViewById(R.id.friendsScoreboardTxt);
         friendsTxt.setVisibility(GONE);
@@ -103,25 +69,27 @@ public class HomeFragment extends Fragment {
         ImageView bgOval = view.findViewById(R.id.bgOval);
         ImageView chevron = view.findViewById(R.id.chevron);
 
-        WellnestDatabaseHelper dbHelper = new WellnestDatabaseHelper(getActivity().getApplicationContext());
-        SQLiteDatabase db = dbHelper.getWritableDatabase();
-        userManager = new UserManager(db);
-        snapTaskManager = new SnapTaskManager(db);
-        activityJarManager = new ActivityJarManager(db);
-        roamioManager = new RoamioManager(db);
+        DatabaseProvider provider = DatabaseProvider.get(requireContext());
+        InvalidationTracker tracker = provider.getInvalidationTracker();
+        userManager = provider.getUserManager();
 
         uid = userManager.currentUid();
 
-        // Calculate and display the global score
-        refreshGlobalScore();
+        // Global score: the score_events trigger keeps global_score current, and the query only
+        // re-runs when that table changed (e.g. a micro-app scored or the login sync finished),
+        // not on every return to this screen.
+        tracker.createLiveData(new String[]{UserContract.GlobalScore.TABLE},
+                        () -> userManager.getGlobalScore(uid))
+                .observe(getViewLifecycleOwner(), globalScore ->
+                        scoreText.setText(String.valueOf(globalScore != null && globalScore > 0 ? globalScore : 0)));
 
         // Display streak counter
         ImageView streakIcon = view.findViewById(R.id.imageView);
         TextView streakCounter = view.findViewById(R.id.streakCounter);
-        int streakCount = userManager.getStreakCount();
         streakIcon.setVisibility(View.VISIBLE);
         streakCounter.setVisibility(View.VISIBLE);
-        streakCounter.setText(String.valueOf(streakCount));
+        tracker.createLiveData(new String[]{UserContract.Streak.TABLE}, userManager::getStreakCount)
+                .observe(getViewLifecycleOwner(), streakCount -> streakCounter.setText(String.valueOf(streakCount)));
 
         // Add modular micro app cards to home fragment
         FragmentManager fm = getChildFragmentManager();
@@ -161,21 +129,19 @@ public class HomeFragment extends Fragment {
         RecyclerView scoreboardRecyclerView = scoreboardView.findViewById(R.id.scoreboard_recycler_view);
         scoreboardRecyclerView.setLayoutManager(new LinearLayoutManager(getContext()));
 
-        friendViewModel.getAcceptedFriends().observe(getViewLifecycleOwner(), friends -> {
-            List<Friend> sortedFriends = new ArrayList<>(friends);
-            try {
-                // Use the actual global score for leaderboard, not just micro-app score
-                int globalScore = userManager.getGlobalScore(uid);
-                Friend currentUser = new Friend(uid, "You", "accepted", globalScore);
-                sortedFriends.add(currentUser);
-            } catch (Exception e) {
-                // Fallback if something fails
+        // Ranked by the leaderboard query (top page first, more pages as the list scrolls)
+        LinearLayoutManager scoreboardLayout = (LinearLayoutManager) scoreboardRecyclerView.getLayoutManager();
+        ScoreboardAdapter scoreboardAdapter = new ScoreboardAdapter(getContext());
+        scoreboardRecyclerView.setAdapter(scoreboardAdapter);
+        leaderboardViewModel.getScoreboard().observe(getViewLifecycleOwner(), scoreboardAdapter::submit);
+        scoreboardRecyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                if (dy > 0 && scoreboardLayout.findLastVisibleItemPosition()
+                        >= scoreboardAdapter.getItemCount() - PREFETCH_DISTANCE) {
+                    leaderboardViewModel.loadMore();
+                }
             }
-
-            Collections.sort(sortedFriends, (f1, f2) -> Integer.compare(f2.getScore(), f1.getScore()));
-
-            ScoreboardAdapter adapter = new ScoreboardAdapter(getContext(), sortedFriends);
-            scoreboardRecyclerView.setAdapter(adapter);
         });
 
         Guideline ovalBottomGuide = view.findViewById(R.id.guide_scoreboard_bottom);
@@ -253,66 +219,4 @@ public class HomeFragment extends Fragment {
 
         parent.addView(cardView);
     }
-
-    @Override
-    public void onDestroyView() {
-        super.onDestroyView();
-        // Unregister the broadcast receiver to prevent leaks
-        LocalBroadcastManager.getInstance(requireContext()).unregisterReceiver(scoreSyncReceiver);
-    }
-
-    @Override
-    public void onResume() {
-        super.onResume();
-        android.util.Log.d("HomeFragment", "onResume() called - BEFORE refreshing database connection");
-
-        // Re-open database connection to get fresh data
-        // This is necessary because ActivityJarActivity uses a different database connection
-        // and SQLite WAL mode can cause stale reads
-        WellnestDatabaseHelper dbHelper = new WellnestDatabaseHelper(requireActivity().getApplicationContext());
-        SQLiteDatabase db = dbHelper.getWritableDatabase();
-
-        // Reinitialize managers with fresh connection
-        userManager = new UserManager(db);
-        snapTaskManager = new SnapTaskManager(db);
-        activityJarManager = new ActivityJarManager(db);
-        roamioManager = new RoamioManager(db);
-
-        android.util.Log.d("HomeFragment", "onResume() - AFTER refreshing database connection");
-        refreshGlobalScore();
-    }
-
-    /**
-     * Refreshes the global score display by recalculating from micro-app scores.
-     * Called on initial load and when navigating back to the home screen.
-     */
-    private void refreshGlobalScore() {
-        if (scoreText == null || uid == null || userManager == null ||
-                snapTaskManager == null || activityJarManager == null || roamioManager == null) {
-            return;
-        }
-
-        int microAppScore = (int) snapTaskManager.getSnapTaskScore()
-                + (int) activityJarManager.getActivityJarScore()
-                + (int) roamioManager.getRoamioScore().getScore();
-
-        // DIAGNOSTIC: Check current global score (may contain synced remote data)
-        int currentGlobalScore = userManager.getGlobalScore(uid);
-        android.util.Log.d("HomeFragment", "refreshGlobalScore: Calculated micro-app score = " + microAppScore);
-        android.util.Log.d("HomeFragment", "refreshGlobalScore: Current global score in DB = " + currentGlobalScore);
-
-        // Use whichever is higher - this preserves synced remote scores
-        int displayScore = Math.max(microAppScore, currentGlobalScore);
-        android.util.Log.d("HomeFragment", "refreshGlobalScore: Using display score = " + displayScore);
-
-        scoreText.setText(String.valueOf(displayScore));
-
-        // Only update global score if micro-app score is higher than what's already there
-        if (microAppScore > currentGlobalScore) {
-            android.util.Log.d("HomeFragment", "refreshGlobalScore: Updating global score to " + microAppScore);
-            userManager.setGlobalScore(uid, microAppScore);
-        } else {
-            android.util.Log.d("HomeFragment", "refreshGlobalScore: Keeping global score at " + currentGlobalScore);
-        }
-    }
-}
\ No newline at end of file
+}
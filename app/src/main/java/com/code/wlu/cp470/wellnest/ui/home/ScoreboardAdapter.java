@@ -11,18 +11,47 @@ import androidx.annotation.NonNull;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.code.wlu.cp470.wellnest.R;
-import com.code.wlu.cp470.wellnest.data.UserModels.Friend;
+import com.code.wlu.cp470.wellnest.data.UserModels.LeaderboardEntry;
+import com.code.wlu.cp470.wellnest.viewmodel.LeaderboardViewModel.Scoreboard;
 
+import java.util.ArrayList;
 import java.util.List;
 
 public class ScoreboardAdapter extends RecyclerView.Adapter<ScoreboardAdapter.MyViewHolder> {
 
     private final Context context;
-    private final List<Friend> friends;
+    // loaded entries in rank order, then the user's own entry if it is further down
+    private final List<LeaderboardEntry> rows = new ArrayList<>();
+    private List<LeaderboardEntry> entries = new ArrayList<>();
+    private LeaderboardEntry pinnedMe;
 
-    public ScoreboardAdapter(Context context, List<Friend> friends) {
+    public ScoreboardAdapter(Context context) {
         this.context = context;
-        this.friends = friends;
+    }
+
+    /**
+     * Shows {@code board}. A board that only appended a page to the current one rebinds just
+     * the new rows.
+     */
+    public void submit(Scoreboard board) {
+        List<LeaderboardEntry> next = board.getEntries();
+        boolean appended = board.getPinnedMe() == pinnedMe
+                && next.size() >= entries.size()
+                && next.subList(0, entries.size()).equals(entries);
+
+        int oldSize = rows.size();
+        entries = next;
+        pinnedMe = board.getPinnedMe();
+        rows.clear();
+        rows.addAll(entries);
+        if (pinnedMe != null) rows.add(pinnedMe);
+
+        if (appended) {
+            int insertAt = oldSize - (pinnedMe != null ? 1 : 0);
+            notifyItemRangeInserted(insertAt, rows.size() - oldSize);
+        } else {
+            notifyDataSetChanged();
+        }
     }
 
     @NonNull
@@ -34,17 +63,17 @@ public class ScoreboardAdapter extends RecyclerView.Adapter<ScoreboardAdapter.My
 
     @Override
     public void onBindViewHolder(@NonNull ScoreboardAdapter.MyViewHolder holder, int position) {
-        Friend friend = friends.get(position);
-        holder.nameText.setText(friend.getName());
-        holder.scoreText.setText(String.valueOf(friend.getScore()));
-        holder.rankNumber.setText(String.valueOf(position + 1));
+        LeaderboardEntry entry = rows.get(position);
+        holder.nameText.setText(entry.isMe() ? "You" : entry.getName());
+        holder.scoreText.setText(String.valueOf(entry.getScore()));
+        holder.rankNumber.setText(String.valueOf(entry.getRank()));
 
-        // Set rank icon based on position
-        if (position == 0) {
+        // Set rank icon based on rank
+        if (entry.getRank() == 1) {
             holder.rankIcon.setImageResource(R.drawable.star_icon_first);
-        } else if (position == 1) {
+        } else if (entry.getRank() == 2) {
             holder.rankIcon.setImageResource(R.drawable.star_icon_second);
-        } else if (position == 2) {
+        } else if (entry.getRank() == 3) {
             holder.rankIcon.setImageResource(R.drawable.star_icon_third);
         } else {
             holder.rankIcon.setImageResource(R.drawable.star_icon_other);
@@ -53,7 +82,7 @@ public class ScoreboardAdapter extends RecyclerView.Adapter<ScoreboardAdapter.My
 
     @Override
     public int getItemCount() {
-        return friends.size();
+        return rows.size();
     }
 
     public static class MyViewHolder extends RecyclerView.ViewHolder {
@@ -24,6 +24,7 @@ import androidx.appcompat.app.AppCompatActivity;
 import androidx.cardview.widget.CardView;
 import androidx.core.app.ActivityCompat;
 import androidx.core.view.WindowCompat;
+import androidx.lifecycle.ViewModelProvider;
 
 import com.code.wlu.cp470.wellnest.R;
 import com.code.wlu.cp470.wellnest.data.RoamioModels;
@@ -31,6 +32,9 @@ import com.code.wlu.cp470.wellnest.ui.components.WellnestProgressBar;
 import com.code.wlu.cp470.wellnest.ui.effects.UiClickEffects;
 import com.code.wlu.cp470.wellnest.viewmodel.RoamioViewModel;
 import com.google.android.gms.location.FusedLocationProviderClient;
+import com.google.android.gms.location.LocationCallback;
+import com.google.android.gms.location.LocationRequest;
+import com.google.android.gms.location.LocationResult;
 import com.google.android.gms.location.LocationServices;
 import com.google.android.gms.location.Priority;
 import com.google.android.gms.tasks.Task;
@@ -46,6 +50,8 @@ public class RoamioActivity extends AppCompatActivity {
     private static final int LOCATION_PERMISSION_REQUEST_CODE = 100;
     private static final float COMPLETION_RADIUS_METERS = 50f;
     private static final boolean DISABLE_LOCATION_CHECK = false;
+    private static final long WALK_LOCATION_INTERVAL_MS = 5_000L;
+    private static final float WALK_LOCATION_MIN_DISTANCE_METERS = 10f;
 
     Context context;
     private TextView scoreText, walkTitle, walkDescription;
@@ -59,6 +65,7 @@ public class RoamioActivity extends AppCompatActivity {
     private boolean walkStarted = false;
     private int currentDifficulty = 1;
     private FusedLocationProviderClient fusedLocationClient;
+    private LocationCallback walkLocationCallback;
 
     private View loadingOverlay;
     private TextView loadingMessage;
@@ -117,7 +124,7 @@ public class RoamioActivity extends AppCompatActivity {
         loadingMessageHandler = new Handler(Looper.getMainLooper());
 
         // Initialize ViewModel
-        roamioViewModel = new RoamioViewModel(getApplication());
+        roamioViewModel = new ViewModelProvider(this).get(RoamioViewModel.class);
         int score = roamioViewModel.getScore().getScore();
         scoreText.setText(String.valueOf(score));
 
@@ -144,7 +151,29 @@ public class RoamioActivity extends AppCompatActivity {
             overridePendingTransition(R.anim.slide_in_left, R.anim.slide_out_right);
         });
 
-        // Generate walk using current location and update UI with results
+        // A walk that was under way when the app was closed/killed comes straight back
+        RoamioModels.Walk activeWalk = roamioViewModel.restoreActiveWalk();
+        if (activeWalk != null) {
+            showWalk(activeWalk);
+            walkStarted = true;
+            primaryButton.setText("Finish Walk");
+            startWalkTracking();
+        } else {
+            generateWalk();
+        }
+
+        BlurTarget blurTarget = findViewById(R.id.roamio_bg_blurTarget);
+        BlurView blurView = findViewById(R.id.roamio_blurView);
+        blurView.setOutlineProvider(ViewOutlineProvider.BACKGROUND);
+        blurView.setClipToOutline(true);
+        blurView.setupWith(blurTarget)
+                .setBlurRadius(5f);
+    }
+
+    /**
+     * Generates a new walk using the current location and shows it.
+     */
+    private void generateWalk() {
         // Show loading overlay with fade-in animation
         showLoadingOverlay();
 
@@ -152,14 +181,7 @@ public class RoamioActivity extends AppCompatActivity {
             @Override
             public void onSuccess(RoamioModels.Walk walk) {
                 hideLoadingOverlay();
-                currentWalk = walk;
-                // Update UI with generated walk details
-                walkTitle.setText(walk.getName());
-                walkDescription.setText(walk.getStory());
-
-                // Calculate and display difficulty
-                currentDifficulty = calculateDifficulty(walk.getDistanceMeters());
-                updateDifficultyDisplay(currentDifficulty);
+                showWalk(walk);
 
                 // Set initial button state
                 primaryButton.setText("Start Walk");
@@ -180,13 +202,52 @@ public class RoamioActivity extends AppCompatActivity {
                 updateLoadingProgress(percent, message);
             }
         });
+    }
 
-        BlurTarget blurTarget = findViewById(R.id.roamio_bg_blurTarget);
-        BlurView blurView = findViewById(R.id.roamio_blurView);
-        blurView.setOutlineProvider(ViewOutlineProvider.BACKGROUND);
-        blurView.setClipToOutline(true);
-        blurView.setupWith(blurTarget)
-                .setBlurRadius(5f);
+    /**
+     * Shows the walk's details and difficulty.
+     */
+    private void showWalk(RoamioModels.Walk walk) {
+        currentWalk = walk;
+        walkTitle.setText(walk.getName());
+        walkDescription.setText(walk.getStory());
+
+        // Calculate and display difficulty
+        currentDifficulty = calculateDifficulty(walk.getDistanceMeters());
+        updateDifficultyDisplay(currentDifficulty);
+    }
+
+    /**
+     * Starts location updates for the walk in progress; the view model checkpoints them.
+     */
+    private void startWalkTracking() {
+        if (walkLocationCallback != null) return;
+        if (ActivityCompat.checkSelfPermission(this, Manifest.permission.ACCESS_FINE_LOCATION)
+                != PackageManager.PERMISSION_GRANTED &&
+                ActivityCompat.checkSelfPermission(this, Manifest.permission.ACCESS_COARSE_LOCATION)
+                        != PackageManager.PERMISSION_GRANTED) {
+            return;
+        }
+
+        walkLocationCallback = new LocationCallback() {
+            @Override
+            public void onLocationResult(@NonNull LocationResult result) {
+                for (Location location : result.getLocations()) {
+                    roamioViewModel.onWalkLocation(location.getLatitude(), location.getLongitude());
+                }
+            }
+        };
+        LocationRequest request = new LocationRequest.Builder(
+                Priority.PRIORITY_BALANCED_POWER_ACCURACY, WALK_LOCATION_INTERVAL_MS)
+                .setMinUpdateDistanceMeters(WALK_LOCATION_MIN_DISTANCE_METERS)
+                .build();
+        fusedLocationClient.requestLocationUpdates(request, walkLocationCallback, Looper.getMainLooper());
+    }
+
+    private void stopWalkTracking() {
+        if (walkLocationCallback == null) return;
+        fusedLocationClient.removeLocationUpdates(walkLocationCallback);
+        walkLocationCallback = null;
     }
 
     /**
@@ -254,6 +315,8 @@ public class RoamioActivity extends AppCompatActivity {
             // State 1: Start Walk - Launch Maps
             launchMapsNavigation();
             walkStarted = true;
+            roamioViewModel.startWalk(currentWalk);
+            startWalkTracking();
             primaryButton.setText("Finish Walk");
         } else {
             // State 2: Finish Walk - Check location and complete
@@ -323,19 +386,23 @@ public class RoamioActivity extends AppCompatActivity {
                 return;
             }
 
-            // Parse end location from walk
-            float distance = calculateDistanceToDestination(location);
-
-            if (distance <= COMPLETION_RADIUS_METERS) {
-                // Within radius - complete the walk
-                completeWalk();
-            } else {
-                // Not close enough
-                String message = String.format(Locale.US,
-                        "You're %.0f meters from the destination. Get within %d meters to complete!",
-                        distance, (int) COMPLETION_RADIUS_METERS);
-                Toast.makeText(this, message, Toast.LENGTH_LONG).show();
-            }
+            // Distance to the destination the walk was generated with; only a walk saved
+            // without it has its end address geocoded, in the background
+            RoamioModels.Walk walk = currentWalk;
+            roamioViewModel.distanceToDestination(walk, location.getLatitude(), location.getLongitude(),
+                    new RoamioViewModel.RoamioCallback<Float>() {
+                        @Override
+                        public void onSuccess(Float distance) {
+                            if (isFinishing() || isDestroyed() || currentWalk != walk) return;
+                            onDistanceToDestination(distance);
+                        }
+
+                        @Override
+                        public void onError(String error) {
+                            if (isFinishing() || isDestroyed() || currentWalk != walk) return;
+                            Toast.makeText(RoamioActivity.this, error, Toast.LENGTH_LONG).show();
+                        }
+                    });
         }).addOnFailureListener(e -> {
             Log.e(TAG, "Error getting location", e);
             Toast.makeText(this, "Error getting location. Please try again.",
@@ -344,45 +411,31 @@ public class RoamioActivity extends AppCompatActivity {
     }
 
     /**
-     * Calculates distance to the walk destination.
+     * Completes the walk if the user is within the completion radius of its destination.
      *
-     * @param currentLocation Current user location
-     * @return Distance in meters
+     * @param distance Distance to the destination in meters
      */
-    private float calculateDistanceToDestination(Location currentLocation) {
-        // For simplicity, we'll use a geocoding approach
-        // In production, you might want to cache the destination coordinates
-        try {
-            android.location.Geocoder geocoder = new android.location.Geocoder(this, Locale.getDefault());
-            java.util.List<android.location.Address> addresses = geocoder.getFromLocationName(
-                    currentWalk.getEndAddress(), 1);
-
-            if (addresses != null && !addresses.isEmpty()) {
-                android.location.Address destAddress = addresses.get(0);
-                float[] results = new float[1];
-                Location.distanceBetween(
-                        currentLocation.getLatitude(),
-                        currentLocation.getLongitude(),
-                        destAddress.getLatitude(),
-                        destAddress.getLongitude(),
-                        results);
-                return results[0];
-            }
-        } catch (Exception e) {
-            Log.e(TAG, "Error calculating distance", e);
+    private void onDistanceToDestination(float distance) {
+        if (distance <= COMPLETION_RADIUS_METERS) {
+            // Within radius - complete the walk
+            completeWalk();
+        } else {
+            // Not close enough
+            String message = String.format(Locale.US,
+                    "You're %.0f meters from the destination. Get within %d meters to complete!",
+                    distance, (int) COMPLETION_RADIUS_METERS);
+            Toast.makeText(this, message, Toast.LENGTH_LONG).show();
         }
-
-        // If geocoding fails, return a large distance
-        return Float.MAX_VALUE;
     }
 
     /**
-     * Completes the walk and awards points.
+     * Completes the walk, awards points and saves it to the walk history.
      */
     private void completeWalk() {
         // Award points based on difficulty
         int points = getPointsForDifficulty(currentDifficulty);
-        roamioViewModel.addToScore(points);
+        roamioViewModel.completeWalk(currentWalk, points);
+        stopWalkTracking();
 
         // Mark walk as completed
         currentWalk.setCompleted(true);
@@ -532,8 +585,17 @@ public class RoamioActivity extends AppCompatActivity {
         }
     }
 
+    @Override
+    protected void onPause() {
+        super.onPause();
+        // The process may be killed while the user is in Maps; save the latest progress now
+        roamioViewModel.flushWalkProgress();
+    }
+
     @Override
     protected void onDestroy() {
+        stopWalkTracking();
+        roamioViewModel.flushWalkProgress();
         super.onDestroy();
     }
 }
@@ -1,6 +1,5 @@
 package com.code.wlu.cp470.wellnest.ui.snaptask;
 
-import android.content.Intent;
 import android.os.Bundle;
 import android.util.Log;
 import android.view.View;
@@ -66,8 +65,10 @@ public class SnapTaskActivity extends AppCompatActivity {
         initializeViewModel();
         bindViews();
         setupRecycler();
-        refreshScoreAndCharacter();
-        loadTasks();
+        // Both re-query only when their table changed, so returning from a task detail screen
+        // re-reads the list and score only if the task was actually completed
+        snapTaskViewModel.observeScore().observe(this, this::showScoreAndCharacter);
+        snapTaskViewModel.observeTasks().observe(this, this::showTasks);
 
         UiClickEffects.setOnClickWithPulse(backButton, R.raw.ui_click_effect, v -> {
             finish();
@@ -98,8 +99,7 @@ public class SnapTaskActivity extends AppCompatActivity {
         recyclerView.setLayoutManager(new LinearLayoutManager(this));
     }
 
-    private void loadTasks() {
-        List<SnapTaskModels.Task> tasks = snapTaskViewModel.getTasks();
+    private void showTasks(List<SnapTaskModels.Task> tasks) {
         int completedTasks = 0;
         for (SnapTaskModels.Task t : tasks) {
             if (t.getCompleted()) {
@@ -107,31 +107,14 @@ public class SnapTaskActivity extends AppCompatActivity {
             }
         }
         Log.d("SNAPTASK_ACTIVITY", "Completed tasks: " + completedTasks);
-        int progress = (int) Math.ceil(((double) completedTasks / (double) tasks.size()) * 100);
+        int progress = tasks.isEmpty() ? 0 : (int) Math.ceil(((double) completedTasks / (double) tasks.size()) * 100);
         Log.d("SNAPTASK_ACTIVITY", "Progress: " + progress + "%");
         progressBar.setProgressAnimated(progress);
         adapter = new SnapTaskAdapter(this, tasks, snapTaskViewModel);
         recyclerView.setAdapter(adapter);
     }
 
-    private void refreshTasks() {
-        List<SnapTaskModels.Task> tasks = snapTaskViewModel.getTasks();
-        int completedTasks = 0;
-        for (SnapTaskModels.Task t : tasks) {
-            if (t.getCompleted()) {
-                completedTasks++;
-            }
-        }
-        Log.d("SNAPTASK_ACTIVITY", "Completed tasks: " + completedTasks);
-        int progress = (int) Math.ceil(((double) completedTasks / (double) tasks.size()) * 100);
-        Log.d("SNAPTASK_ACTIVITY", "Progress: " + progress + "%");
-        progressBar.setProgressAnimated(progress);
-        adapter = new SnapTaskAdapter(this, tasks, snapTaskViewModel);
-        recyclerView.setAdapter(adapter);
-    }
-
-    private void refreshScoreAndCharacter() {
-        int score = snapTaskViewModel.getScore();
+    private void showScoreAndCharacter(int score) {
         if (snapTaskScore != null) {
             snapTaskScore.setText(String.valueOf(score));
         }
@@ -148,16 +131,6 @@ public class SnapTaskActivity extends AppCompatActivity {
         }
     }
 
-    @Override
-    protected void onActivityResult(int requestCode, int resultCode, @Nullable Intent data) {
-        super.onActivityResult(requestCode, resultCode, data);
-        if (requestCode == REQUEST_TASK_DETAIL) {
-            // After returning from detail, refresh score and list
-            refreshScoreAndCharacter();
-            refreshTasks();
-        }
-    }
-
     @Override
     public void onBackPressed() {
         super.onBackPressed();
@@ -22,7 +22,6 @@ import androidx.core.view.WindowCompat;
 import androidx.lifecycle.ViewModelProvider;
 
 import com.code.wlu.cp470.wellnest.R;
-import com.code.wlu.cp470.wellnest.data.WellnestAiClient;
 import com.code.wlu.cp470.wellnest.ui.components.WellnestProgressBar;
 import com.code.wlu.cp470.wellnest.ui.effects.UiClickEffects;
 import com.code.wlu.cp470.wellnest.ui.effects.UiProgressEffects;
@@ -261,25 +260,16 @@ public class SnapTaskDetailActivity extends AppCompatActivity {
 
         showLoadingOverlay();
 
-        new Thread(() -> {
-            String verdictLocal = "fail";
-            try {
-                verdictLocal = WellnestAiClient.evaluateSnapTask(taskDescription, beforeImage, afterImage);
-                Log.d(TAG, "evaluateTask() got verdict from AI (background): " + verdictLocal);
-            } catch (Exception e) {
-                Log.e(TAG, "Error during evaluateSnapTask in background thread", e);
+        // Runs on the ViewModel, so leaving the screen cancels the evaluation
+        snapTaskViewModel.evaluateTask(taskUid, taskDescription, beforeImage, afterImage, verdict -> {
+            Log.d(TAG, "evaluateTask() got verdict from AI: " + verdict);
+            hideLoadingOverlay();
+            if ("pass".equals(verdict)) {
+                handleTaskCompletionSuccess();
+            } else {
+                showFailureDialog();
             }
-
-            final String finalVerdict = verdictLocal;
-            runOnUiThread(() -> {
-                hideLoadingOverlay();
-                if ("pass".equals(finalVerdict)) {
-                    handleTaskCompletionSuccess();
-                } else {
-                    showFailureDialog();
-                }
-            });
-        }).start();
+        });
     }
 
     private Bitmap downscale(Bitmap src, int maxSize) {
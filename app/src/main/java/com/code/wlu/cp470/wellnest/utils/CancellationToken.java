@@ -0,0 +1,112 @@
+package com.code.wlu.cp470.wellnest.utils;
+
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tells a running pipeline that nobody wants its result any more, e.g. because the screen
+ * that asked for it has gone ({@code ViewModel.onCleared}).
+ * <p>
+ * Blocking steps register what stops them early with {@link #onCancel}: the OkHttp call in
+ * flight, the location request being awaited. Backoff waits use {@link #sleep}. Steps that
+ * cannot be interrupted check {@link #throwIfCancelled} before they start.
+ * <p>
+ * Cancelling is one-way and idempotent; each registered action runs once, on the thread that
+ * cancels (or right away, on the registering thread, if the token is already cancelled).
+ */
+public final class CancellationToken {
+
+    /**
+     * A token that is never cancelled, for callers that always want the result.
+     */
+    public static final CancellationToken NONE = new CancellationToken(false);
+
+    private final boolean cancellable;
+    private final CountDownLatch cancelled = new CountDownLatch(1);
+    private final List<Runnable> actions = new ArrayList<>();
+
+    public CancellationToken() {
+        this(true);
+    }
+
+    private CancellationToken(boolean cancellable) {
+        this.cancellable = cancellable;
+    }
+
+    /**
+     * Cancels the token and runs the registered actions. Does nothing on {@link #NONE} or a
+     * token that is already cancelled.
+     */
+    public void cancel() {
+        if (!cancellable) return;
+        List<Runnable> toRun;
+        synchronized (actions) {
+            if (isCancelled()) return;
+            cancelled.countDown();
+            toRun = new ArrayList<>(actions);
+            actions.clear();
+        }
+        for (Runnable action : toRun) action.run();
+    }
+
+    public boolean isCancelled() {
+        return cancelled.getCount() == 0;
+    }
+
+    /**
+     * @throws CancelledException If the token has been cancelled.
+     */
+    public void throwIfCancelled() throws CancelledException {
+        if (isCancelled()) throw new CancelledException();
+    }
+
+    /**
+     * Runs {@code action} when the token is cancelled, or now if it already is. Close the
+     * returned registration once the step it stops is over.
+     */
+    public Registration onCancel(Runnable action) {
+        if (!cancellable) return () -> { };
+        synchronized (actions) {
+            if (!isCancelled()) {
+                actions.add(action);
+                return () -> {
+                    synchronized (actions) {
+                        actions.remove(action);
+                    }
+                };
+            }
+        }
+        action.run();
+        return () -> { };
+    }
+
+    /**
+     * Waits {@code ms}, or until the token is cancelled.
+     *
+     * @throws CancelledException   If the token was cancelled before or during the wait.
+     * @throws InterruptedException If the thread was interrupted.
+     */
+    public void sleep(long ms) throws CancelledException, InterruptedException {
+        if (cancelled.await(ms, TimeUnit.MILLISECONDS)) throw new CancelledException();
+    }
+
+    /**
+     * Undoes an {@link #onCancel} registration.
+     */
+    public interface Registration extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    /**
+     * Thrown by a step that stopped because its token was cancelled.
+     */
+    public static final class CancelledException extends InterruptedIOException {
+        public CancelledException() {
+            super("Cancelled");
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.code.wlu.cp470.wellnest.utils;
+
+import java.io.InterruptedIOException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * The time a whole pipeline has left, shared by all of its stages.
+ * <p>
+ * Each stage caps its own timeout with {@link #cap} instead of waiting out its full timeout
+ * regardless of what came before, so the pipeline as a whole finishes (or fails) within its
+ * budget. Optional stages ask {@link #reserving} for a deadline that leaves time for the
+ * stage that matters most, and are skipped or cut short when that runs out.
+ * <p>
+ * Immutable; the time left is read from a monotonic clock.
+ */
+public final class Deadline {
+
+    /**
+     * No deadline: every stage keeps its own timeout.
+     */
+    public static final Deadline NONE = new Deadline(Long.MAX_VALUE, Deadline::monotonicMs);
+
+    private final long expiresAtMs;
+    private final LongSupplier clock;
+
+    private Deadline(long expiresAtMs, LongSupplier clock) {
+        this.expiresAtMs = expiresAtMs;
+        this.clock = clock;
+    }
+
+    /**
+     * A deadline {@code budgetMs} from now.
+     */
+    public static Deadline in(long budgetMs) {
+        return in(budgetMs, Deadline::monotonicMs);
+    }
+
+    /**
+     * A deadline {@code budgetMs} from now on {@code clock}, a monotonic time in ms.
+     */
+    public static Deadline in(long budgetMs, LongSupplier clock) {
+        if (budgetMs < 0) throw new IllegalArgumentException("budgetMs < 0");
+        if (clock == null) throw new IllegalArgumentException("clock == null");
+        return new Deadline(clock.getAsLong() + budgetMs, clock);
+    }
+
+    /**
+     * Whether this is an actual deadline rather than {@link #NONE}.
+     */
+    public boolean isBounded() {
+        return expiresAtMs != Long.MAX_VALUE;
+    }
+
+    /**
+     * Ms left, 0 once passed; {@link Long#MAX_VALUE} for {@link #NONE}.
+     */
+    public long remainingMs() {
+        if (!isBounded()) return Long.MAX_VALUE;
+        return Math.max(0, expiresAtMs - clock.getAsLong());
+    }
+
+    public boolean isExpired() {
+        return remainingMs() == 0;
+    }
+
+    /**
+     * {@code timeoutMs}, or the time left if that is shorter.
+     */
+    public long cap(long timeoutMs) {
+        return Math.min(timeoutMs, remainingMs());
+    }
+
+    /**
+     * A deadline {@code reserveMs} before this one, for the stages that must leave that much
+     * time to the ones after them. {@link #NONE} stays unbounded.
+     */
+    public Deadline reserving(long reserveMs) {
+        if (!isBounded()) return this;
+        return new Deadline(expiresAtMs - reserveMs, clock);
+    }
+
+    /**
+     * @throws ExceededException If the deadline has passed.
+     */
+    public void throwIfExpired() throws ExceededException {
+        if (isExpired()) throw new ExceededException();
+    }
+
+    private static long monotonicMs() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    }
+
+    /**
+     * Thrown by a stage that did not start, or was cut short, because the deadline passed.
+     */
+    public static final class ExceededException extends InterruptedIOException {
+        public ExceededException() {
+            super("Deadline exceeded");
+        }
+    }
+}
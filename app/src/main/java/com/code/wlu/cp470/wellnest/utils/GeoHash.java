@@ -0,0 +1,58 @@
+package com.code.wlu.cp470.wellnest.utils;
+
+/**
+ * Standard base-32 geohash encoding. Nearby points share a prefix, and each extra character
+ * shrinks the cell: 5 characters is about 4.9 x 4.9 km, 6 about 1.2 x 0.6 km.
+ */
+public final class GeoHash {
+
+    private static final char[] BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz".toCharArray();
+
+    private GeoHash() {
+    }
+
+    /**
+     * The geohash of ({@code latitude}, {@code longitude}) with {@code precision} characters.
+     */
+    public static String encode(double latitude, double longitude, int precision) {
+        if (precision < 1 || precision > 12)
+            throw new IllegalArgumentException("precision must be 1-12, was " + precision);
+        if (Double.isNaN(latitude) || Double.isNaN(longitude))
+            throw new IllegalArgumentException("coordinates cannot be NaN");
+
+        double minLat = -90, maxLat = 90;
+        double minLon = -180, maxLon = 180;
+        StringBuilder hash = new StringBuilder(precision);
+        boolean lonBit = true; // bits alternate, starting with longitude
+        int bit = 0;
+        int ch = 0;
+        while (hash.length() < precision) {
+            if (lonBit) {
+                double mid = (minLon + maxLon) / 2;
+                if (longitude >= mid) {
+                    ch = (ch << 1) | 1;
+                    minLon = mid;
+                } else {
+                    ch <<= 1;
+                    maxLon = mid;
+                }
+            } else {
+                double mid = (minLat + maxLat) / 2;
+                if (latitude >= mid) {
+                    ch = (ch << 1) | 1;
+                    minLat = mid;
+                } else {
+                    ch <<= 1;
+                    maxLat = mid;
+                }
+            }
+            lonBit = !lonBit;
+            if (++bit == 5) {
+                hash.append(BASE32[ch]);
+                bit = 0;
+                ch = 0;
+            }
+        }
+        return hash.toString();
+    }
+}
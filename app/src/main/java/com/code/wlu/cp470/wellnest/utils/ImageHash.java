@@ -0,0 +1,127 @@
+package com.code.wlu.cp470.wellnest.utils;
+
+import java.util.Arrays;
+
+/**
+ * 64-bit perceptual hashes of an image's luminance. Photos of the same scene hash to values a
+ * few bits apart (compare with {@link #distance}), even after re-encoding, rescaling or a
+ * small change in exposure; unrelated photos differ in about half of the bits.
+ * <p>
+ * Both hashes work on a shrunken grey image, so a thumbnail of a few thousand pixels is as
+ * good an input as the full photo and far cheaper.
+ */
+public final class ImageHash {
+
+    private static final int DCT_SIZE = 32;
+    private static final int DCT_KEEP = 8;
+
+    // COS[u][x] = cos((2x + 1) * u * pi / (2 * DCT_SIZE)) for the low frequencies kept
+    private static final double[][] COS = new double[DCT_KEEP][DCT_SIZE];
+
+    static {
+        for (int u = 0; u < DCT_KEEP; u++) {
+            for (int x = 0; x < DCT_SIZE; x++) {
+                COS[u][x] = Math.cos((2 * x + 1) * u * Math.PI / (2 * DCT_SIZE));
+            }
+        }
+    }
+
+    private ImageHash() {
+    }
+
+    /**
+     * Luminance (0-255) of ARGB pixels, as {@code Bitmap.getPixels} returns them.
+     */
+    public static int[] luminance(int[] argb) {
+        int[] luma = new int[argb.length];
+        for (int i = 0; i < argb.length; i++) {
+            int p = argb[i];
+            // ITU-R BT.601 weights in 8-bit fixed point
+            luma[i] = (77 * ((p >> 16) & 0xff) + 150 * ((p >> 8) & 0xff) + 29 * (p & 0xff)) >> 8;
+        }
+        return luma;
+    }
+
+    /**
+     * Difference hash: the image shrunk to 9 x 8, one bit per horizontally adjacent pair that
+     * gets brighter to the right.
+     */
+    public static long dHash(int[] luma, int width, int height) {
+        double[] grid = shrink(luma, width, height, 9, 8);
+        long hash = 0;
+        for (int y = 0; y < 8; y++) {
+            for (int x = 0; x < 8; x++) {
+                hash = (hash << 1) | (grid[y * 9 + x] < grid[y * 9 + x + 1] ? 1 : 0);
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * DCT hash: the image shrunk to 32 x 32, one bit per coefficient of the lowest 8 x 8
+     * frequencies that is above their median (the DC term is left out of the median).
+     */
+    public static long pHash(int[] luma, int width, int height) {
+        double[] grid = shrink(luma, width, height, DCT_SIZE, DCT_SIZE);
+
+        // Separable 2-D DCT-II, computing only the frequencies kept: rows, then columns
+        double[] rows = new double[DCT_SIZE * DCT_KEEP];
+        for (int y = 0; y < DCT_SIZE; y++) {
+            for (int u = 0; u < DCT_KEEP; u++) {
+                double sum = 0;
+                for (int x = 0; x < DCT_SIZE; x++) sum += grid[y * DCT_SIZE + x] * COS[u][x];
+                rows[y * DCT_KEEP + u] = sum;
+            }
+        }
+        double[] coefficients = new double[DCT_KEEP * DCT_KEEP];
+        for (int v = 0; v < DCT_KEEP; v++) {
+            for (int u = 0; u < DCT_KEEP; u++) {
+                double sum = 0;
+                for (int y = 0; y < DCT_SIZE; y++) sum += rows[y * DCT_KEEP + u] * COS[v][y];
+                coefficients[v * DCT_KEEP + u] = sum;
+            }
+        }
+
+        double[] ac = new double[coefficients.length - 1];
+        System.arraycopy(coefficients, 1, ac, 0, ac.length);
+        Arrays.sort(ac);
+        double median = (ac[ac.length / 2 - 1] + ac[ac.length / 2]) / 2;
+
+        long hash = 0;
+        for (double c : coefficients) {
+            hash = (hash << 1) | (c > median ? 1 : 0);
+        }
+        return hash;
+    }
+
+    /**
+     * Number of differing bits, 0 (same) to 64.
+     */
+    public static int distance(long a, long b) {
+        return Long.bitCount(a ^ b);
+    }
+
+    // Box-filtered {@code targetWidth} x {@code targetHeight} copy, row-major; also used by
+    // ImageSimilarity
+    static double[] shrink(int[] luma, int width, int height, int targetWidth, int targetHeight) {
+        if (width <= 0 || height <= 0 || luma.length < width * height)
+            throw new IllegalArgumentException("luma must hold width x height pixels");
+
+        double[] grid = new double[targetWidth * targetHeight];
+        for (int ty = 0; ty < targetHeight; ty++) {
+            int y0 = ty * height / targetHeight;
+            int y1 = Math.max(y0 + 1, (ty + 1) * height / targetHeight);
+            for (int tx = 0; tx < targetWidth; tx++) {
+                int x0 = tx * width / targetWidth;
+                int x1 = Math.max(x0 + 1, (tx + 1) * width / targetWidth);
+                long sum = 0;
+                for (int y = y0; y < y1; y++) {
+                    int row = y * width;
+                    for (int x = x0; x < x1; x++) sum += luma[row + x];
+                }
+                grid[ty * targetWidth + tx] = (double) sum / ((y1 - y0) * (x1 - x0));
+            }
+        }
+        return grid;
+    }
+}
@@ -0,0 +1,73 @@
+package com.code.wlu.cp470.wellnest.utils;
+
+/**
+ * Block-wise structural similarity (SSIM) of two images' luminance, to tell whether anything
+ * in the scene changed between two photos.
+ * <p>
+ * Both images are shrunk to a 64 x 64 grey grid and compared in 8 x 8 blocks. A change to one
+ * part of the scene (a made bed, a cleared desk) shows up as a block with low similarity even
+ * when the image as a whole is nearly the same, so {@link #worstBlockSsim} reports the least
+ * similar block rather than the mean.
+ */
+public final class ImageSimilarity {
+
+    private static final int GRID = 64;
+    private static final int BLOCK = 8;
+
+    // Stabilizing constants of the SSIM formula for 8-bit values: (0.01 * 255)^2, (0.03 * 255)^2
+    private static final double C1 = 6.5025;
+    private static final double C2 = 58.5225;
+
+    private ImageSimilarity() {
+    }
+
+    /**
+     * SSIM of the least similar block of the two images: 1 for identical images, around 0 for
+     * unrelated content, below 0 for inverted content. The images may differ in size.
+     */
+    public static double worstBlockSsim(int[] lumaA, int widthA, int heightA,
+                                        int[] lumaB, int widthB, int heightB) {
+        double[] a = ImageHash.shrink(lumaA, widthA, heightA, GRID, GRID);
+        double[] b = ImageHash.shrink(lumaB, widthB, heightB, GRID, GRID);
+        double worst = 1;
+        for (int by = 0; by < GRID; by += BLOCK) {
+            for (int bx = 0; bx < GRID; bx += BLOCK) {
+                worst = Math.min(worst, blockSsim(a, b, bx, by));
+            }
+        }
+        return worst;
+    }
+
+    private static double blockSsim(double[] a, double[] b, int bx, int by) {
+        double meanA = 0;
+        double meanB = 0;
+        for (int y = by; y < by + BLOCK; y++) {
+            for (int x = bx; x < bx + BLOCK; x++) {
+                meanA += a[y * GRID + x];
+                meanB += b[y * GRID + x];
+            }
+        }
+        meanA /= BLOCK * BLOCK;
+        meanB /= BLOCK * BLOCK;
+
+        double varA = 0;
+        double varB = 0;
+        double cov = 0;
+        for (int y = by; y < by + BLOCK; y++) {
+            for (int x = bx; x < bx + BLOCK; x++) {
+                double da = a[y * GRID + x] - meanA;
+                double db = b[y * GRID + x] - meanB;
+                varA += da * da;
+                varB += db * db;
+                cov += da * db;
+            }
+        }
+        int n = BLOCK * BLOCK - 1;
+        varA /= n;
+        varB /= n;
+        cov /= n;
+
+        return ((2 * meanA * meanB + C1) * (2 * cov + C2))
+                / ((meanA * meanA + meanB * meanB + C1) * (varA + varB + C2));
+    }
+}
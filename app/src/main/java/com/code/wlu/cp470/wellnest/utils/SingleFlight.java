@@ -0,0 +1,139 @@
+package com.code.wlu.cp470.wellnest.utils;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Collapses concurrent calls for the same key into one.
+ * <p>
+ * The first caller for a key runs the work on its own thread; anyone calling with that key
+ * while it runs blocks and gets the same result (or the same exception) instead of running
+ * the work again. Once the work finishes the key is free, so a later call runs it afresh.
+ * <p>
+ * Each caller may pass a {@link CancellationToken}. A caller whose token is cancelled stops
+ * waiting at once; the shared run itself is only cancelled (through the token handed to the
+ * work) once every caller sharing it has cancelled, so one screen going away does not fail
+ * the others. The key is freed at that point, so a call made while the abandoned run is still
+ * winding down starts a fresh one.
+ *
+ * @param <K> Key type; needs equals/hashCode.
+ * @param <V> Result type.
+ */
+public final class SingleFlight<K, V> {
+
+    private final Map<K, Flight<V>> inFlight = new HashMap<>();
+
+    /**
+     * Runs {@code work} for {@code key}, or waits for the run already in flight for it.
+     *
+     * @throws Exception            Whatever the work threw, for every caller that shared it.
+     * @throws InterruptedException If this caller was interrupted while waiting for another's run.
+     */
+    public V run(K key, Callable<V> work) throws Exception {
+        return run(key, token -> work.call(), CancellationToken.NONE);
+    }
+
+    /**
+     * {@link #run(Object, Callable)} for a caller that may cancel.
+     *
+     * @param work   Gets the run's own token, which is cancelled once every caller sharing the
+     *               run has cancelled.
+     * @param caller This caller's token.
+     * @throws CancellationToken.CancelledException If {@code caller} was cancelled.
+     */
+    public V run(K key, Work<V> work, CancellationToken caller) throws Exception {
+        caller.throwIfCancelled();
+        Flight<V> flight;
+        boolean leader;
+        synchronized (inFlight) {
+            flight = inFlight.get(key);
+            leader = flight == null;
+            if (leader) {
+                flight = new Flight<>();
+                inFlight.put(key, flight);
+            }
+            flight.callers++;
+        }
+        Flight<V> joined = flight;
+        try (CancellationToken.Registration ignored = caller.onCancel(() -> leave(key, joined))) {
+            return leader ? lead(key, flight, work, caller) : await(flight, caller);
+        }
+    }
+
+    /**
+     * Whether a run for {@code key} is in flight right now.
+     */
+    public boolean isInFlight(K key) {
+        synchronized (inFlight) {
+            return inFlight.containsKey(key);
+        }
+    }
+
+    private V lead(K key, Flight<V> flight, Work<V> work, CancellationToken caller) throws Exception {
+        V result;
+        try {
+            result = work.call(flight.token);
+        } catch (Exception | Error e) {
+            release(key, flight);
+            flight.result.completeExceptionally(e);
+            throw e;
+        }
+        release(key, flight);
+        flight.result.complete(result);
+        // the run went on for the others sharing it; this caller no longer wants it
+        caller.throwIfCancelled();
+        return result;
+    }
+
+    // The key is freed before followers are woken, so none of them can re-attach to a finished run
+    private void release(K key, Flight<V> flight) {
+        synchronized (inFlight) {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    // A caller cancelled: the run is cancelled if it was the last one still waiting for it, and
+    // its key freed first so nobody joins a run that is being cancelled
+    private void leave(K key, Flight<V> flight) {
+        boolean last;
+        synchronized (inFlight) {
+            last = --flight.callers == 0;
+            if (last) inFlight.remove(key, flight);
+        }
+        if (last) flight.token.cancel();
+    }
+
+    private static <V> V await(Flight<V> flight, CancellationToken caller) throws Exception {
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        flight.result.whenComplete((value, failure) -> {
+            if (failure != null) mine.completeExceptionally(failure);
+            else mine.complete(value);
+        });
+        try (CancellationToken.Registration ignored =
+                     caller.onCancel(() -> mine.completeExceptionally(new CancellationToken.CancelledException()))) {
+            return mine.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) throw (Exception) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw e;
+        }
+    }
+
+    /**
+     * The work of a run, given the run's token.
+     */
+    public interface Work<V> {
+        V call(CancellationToken token) throws Exception;
+    }
+
+    private static final class Flight<V> {
+        final CompletableFuture<V> result = new CompletableFuture<>();
+        final CancellationToken token = new CancellationToken();
+        // callers sharing the run that have not cancelled; guarded by inFlight
+        int callers;
+    }
+}
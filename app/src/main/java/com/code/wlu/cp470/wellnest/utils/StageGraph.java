@@ -0,0 +1,174 @@
+package com.code.wlu.cp470.wellnest.utils;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.LongSupplier;
+
+/**
+ * Runs a pipeline as a graph of stages: each stage starts as soon as the stages it depends on
+ * have finished, on a shared bounded executor, so independent branches overlap and the whole
+ * run takes as long as its longest chain rather than the sum of its stages.
+ * <p>
+ * Every stage has a timeout and an optional {@link Fallback}. A stage that throws or runs out
+ * of time resolves to its fallback's value if it has one (a partial result the rest of the
+ * graph can still use), and fails otherwise. A failed stage fails everything that depends on
+ * it with the same cause.
+ * <p>
+ * A stage's timeout may be worked out only when it is about to start, so that it can be cut to
+ * what is left of a pipeline-wide {@link Deadline}; a stage with no time left is not started and
+ * resolves as if it had timed out.
+ * <p>
+ * One StageGraph describes one run; the executors are shared and not owned by it.
+ */
+public final class StageGraph {
+
+    private final ExecutorService executor;
+    private final ScheduledExecutorService timer;
+    private final long startNanos = System.nanoTime();
+    // stage name -> ms from the start of the run until it resolved
+    private final Map<String, Long> finishedAt = Collections.synchronizedMap(new LinkedHashMap<>());
+
+    public StageGraph(ExecutorService executor, ScheduledExecutorService timer) {
+        if (executor == null) throw new IllegalArgumentException("executor == null");
+        if (timer == null) throw new IllegalArgumentException("timer == null");
+        this.executor = executor;
+        this.timer = timer;
+    }
+
+    /**
+     * A stage whose value is already known.
+     */
+    public static <T> CompletableFuture<T> known(T value) {
+        return CompletableFuture.completedFuture(value);
+    }
+
+    /**
+     * Adds a stage that runs {@code work} once every stage in {@code after} has resolved.
+     *
+     * @param name      Used in timeout messages and {@link #getFinishTimes()}.
+     * @param timeoutMs How long {@code work} may run before the stage gives up on it.
+     * @param fallback  Value to use if {@code work} fails or times out, or null to fail the stage.
+     * @param work      The stage itself; may read its dependencies with {@link #valueOf}.
+     * @param after     Stages this one depends on.
+     */
+    public <T> CompletableFuture<T> stage(String name, long timeoutMs, Fallback<T> fallback,
+                                          Callable<T> work, CompletableFuture<?>... after) {
+        return stage(name, () -> timeoutMs, fallback, work, after);
+    }
+
+    /**
+     * {@link #stage(String, long, Fallback, Callable, CompletableFuture[])} with the timeout
+     * read once the dependencies have resolved, just before {@code work} would start. If it is 0
+     * or less, {@code work} does not run.
+     */
+    public <T> CompletableFuture<T> stage(String name, LongSupplier timeoutMs, Fallback<T> fallback,
+                                          Callable<T> work, CompletableFuture<?>... after) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        CompletableFuture<Void> ready = after.length == 0
+                ? CompletableFuture.completedFuture(null)
+                : CompletableFuture.allOf(after);
+        ready.whenComplete((ignored, dependencyFailure) -> {
+            if (dependencyFailure != null) {
+                resolve(name, result, null, unwrap(dependencyFailure));
+                return;
+            }
+            long budgetMs = timeoutMs.getAsLong();
+            if (budgetMs <= 0) {
+                recover(name, result, fallback, new TimeoutException(name + " skipped: no time left"));
+                return;
+            }
+            Future<?> task;
+            try {
+                task = executor.submit(() -> {
+                    try {
+                        resolve(name, result, work.call(), null);
+                    } catch (Exception e) {
+                        recover(name, result, fallback, e);
+                    }
+                });
+            } catch (RuntimeException rejected) {
+                recover(name, result, fallback, rejected);
+                return;
+            }
+            timer.schedule(() -> {
+                if (result.isDone()) return;
+                task.cancel(true);
+                recover(name, result, fallback,
+                        new TimeoutException(name + " timed out after " + budgetMs + " ms"));
+            }, budgetMs, TimeUnit.MILLISECONDS);
+        });
+        return result;
+    }
+
+    private void recover(String name, CompletableFuture<?> result, Fallback<?> fallback, Exception cause) {
+        if (result.isDone()) return;
+        if (fallback == null) {
+            resolve(name, result, null, cause);
+            return;
+        }
+        try {
+            resolve(name, result, fallback.recover(cause), null);
+        } catch (Exception e) {
+            resolve(name, result, null, e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void resolve(String name, CompletableFuture<?> result, Object value, Throwable failure) {
+        boolean first = failure == null
+                ? ((CompletableFuture<Object>) result).complete(value)
+                : result.completeExceptionally(failure);
+        if (first) finishedAt.put(name, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+    }
+
+    /**
+     * Waits for {@code stage} and returns its value, rethrowing the exception it failed with.
+     */
+    public static <T> T await(CompletableFuture<T> stage) throws Exception {
+        try {
+            return stage.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) throw (Exception) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw e;
+        }
+    }
+
+    /**
+     * The value of a dependency that has already resolved, for use inside a stage's work.
+     */
+    public static <T> T valueOf(CompletableFuture<T> dependency) {
+        return dependency.join();
+    }
+
+    /**
+     * When each resolved stage finished, in ms since this graph was created, in finishing order.
+     */
+    public Map<String, Long> getFinishTimes() {
+        synchronized (finishedAt) {
+            return new LinkedHashMap<>(finishedAt);
+        }
+    }
+
+    private static Throwable unwrap(Throwable t) {
+        return t instanceof CompletionException && t.getCause() != null ? t.getCause() : t;
+    }
+
+    /**
+     * Supplies a stand-in value for a stage that failed or timed out.
+     */
+    public interface Fallback<T> {
+        T recover(Exception cause) throws Exception;
+    }
+}
@@ -6,22 +6,17 @@ import android.util.Log;
 import androidx.annotation.NonNull;
 import androidx.lifecycle.AndroidViewModel;
 import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MediatorLiveData;
 import androidx.lifecycle.MutableLiveData;
 
-import android.database.sqlite.SQLiteDatabase;
-
 import com.code.wlu.cp470.wellnest.data.ActivityJarModels;
+import com.code.wlu.cp470.wellnest.data.ActivityJarPlanner;
 import com.code.wlu.cp470.wellnest.data.ActivityJarRepository;
-import com.code.wlu.cp470.wellnest.data.WellnestAiClient;
-import com.code.wlu.cp470.wellnest.data.local.WellnestDatabaseHelper;
+import com.code.wlu.cp470.wellnest.data.local.DatabaseProvider;
 import com.code.wlu.cp470.wellnest.data.local.managers.ActivityJarCacheManager;
+import com.code.wlu.cp470.wellnest.utils.CancellationToken;
 
-import org.json.JSONArray;
-import org.json.JSONException;
-import org.json.JSONObject;
-
-import java.util.ArrayList;
-import java.util.EnumMap;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ExecutorService;
@@ -34,17 +29,27 @@ public class ActivityJarViewModel extends AndroidViewModel {
     private final MutableLiveData<Boolean> isLoading = new MutableLiveData<>(false);
     private final MutableLiveData<String> error = new MutableLiveData<>();
     private final MutableLiveData<Integer> score = new MutableLiveData<>();
+    private final MediatorLiveData<ActivityJarPlanner.Progress> planProgress = new MediatorLiveData<>();
 
     private final ExecutorService executor = Executors.newSingleThreadExecutor();
     private final ActivityJarCacheManager cacheManager;
+    private final ActivityJarPlanner planner;
     private final ActivityJarRepository repository;
+    // Cancelled when the screen goes away; a plan the prefetch also waits for keeps running
+    private final CancellationToken cancellation = new CancellationToken();
+
+    // The key this screen is loading; progress of plans for other keys is not ours
+    private volatile ActivityJarModels.CacheKey loadingKey;
 
     public ActivityJarViewModel(@NonNull Application application) {
         super(application);
-        WellnestDatabaseHelper dbHelper = new WellnestDatabaseHelper(application);
-        SQLiteDatabase db = dbHelper.getWritableDatabase();
-        cacheManager = new ActivityJarCacheManager(db);
-        repository = new ActivityJarRepository(db);
+        DatabaseProvider databaseProvider = DatabaseProvider.get(application);
+        cacheManager = databaseProvider.getActivityJarCacheManager();
+        planner = ActivityJarPlanner.get(application);
+        repository = new ActivityJarRepository(databaseProvider.getActivityJarManager());
+        planProgress.addSource(planner.getProgress(), p -> {
+            if (p != null && p.getKey().equals(loadingKey)) planProgress.setValue(p);
+        });
         loadScore();
     }
 
@@ -64,6 +69,13 @@ public class ActivityJarViewModel extends AndroidViewModel {
         return score;
     }
 
+    /**
+     * Progress of the plan being loaded, including one the startup prefetch already started.
+     */
+    public LiveData<ActivityJarPlanner.Progress> getPlanProgress() {
+        return planProgress;
+    }
+
     private void loadScore() {
         repository.getScore(new ActivityJarRepository.ScoreCallback() {
             @Override
@@ -110,11 +122,9 @@ public class ActivityJarViewModel extends AndroidViewModel {
 
         if (removed) {
             activities.postValue(currentMap);
-            // Update cache in background
-            executor.execute(() -> {
-                String jsonString = serializeActivitiesToJson(currentMap);
-                cacheManager.saveCache(jsonString, "Cached via ViewModel (after removal)");
-            });
+            // Drop just this card from the cache
+            long id = activityToRemove.getId();
+            if (id != 0) executor.execute(() -> cacheManager.removeActivity(id));
         }
     }
 
@@ -129,40 +139,39 @@ public class ActivityJarViewModel extends AndroidViewModel {
         isLoading.setValue(true);
         executor.execute(() -> {
             try {
-                // 1. Try to load from cache first
-                if (cacheManager.hasValidCache()) {
-                    Log.d(TAG, "Valid cache found, loading from cache...");
-                    ActivityJarCacheManager.CacheEntry entry = cacheManager.getCachedData();
-                    if (entry != null) {
-                        Map<ActivityJarModels.Category, List<ActivityJarModels.Activity>> cachedResult =
-                                parseActivitiesFromJson(entry.jsonData);
-                        if (cachedResult != null && !cachedResult.isEmpty()) {
-                            Log.d(TAG, "Cache loaded successfully, posting value.");
-                            activities.postValue(cachedResult);
-                            isLoading.postValue(false);
-                            return; // Done!
-                        }
-                    }
+                // 1. Where and in what weather: this is what the cached activities are keyed by
+                ActivityJarModels.PlanContext planContext = planner.locate(cancellation);
+                if (planContext == null) {
+                    error.postValue("Unable to get your location. Please try again.");
+                    return;
+                }
+                ActivityJarModels.CacheKey key = ActivityJarModels.CacheKey.of(planContext, LocalDateTime.now());
+                loadingKey = key;
+
+                // 2. Try the activities cached for this place, time window and weather
+                ActivityJarCacheManager.CacheEntry entry = cacheManager.getCachedData(key);
+                if (entry != null && !entry.activities.isEmpty()) {
+                    Log.d(TAG, "Cache hit for " + key + ", posting value.");
+                    activities.postValue(entry.activities);
+                    return; // Done!
                 }
 
-                // 2. If no cache or parsing failed, fetch from network
-                Log.d(TAG, "No valid cache or parsing failed. Fetching from network...");
-                
-                // planThingsToDo requires Context. getApplication() returns the Application context.
+                // 3. If there is no cache, plan: joins the prefetch if it is already planning this key,
+                //    and the planner caches the result
+                Log.d(TAG, "No valid cache for " + key + ". Planning"
+                        + (planner.isPlanning(key) ? " (joining the running plan)..." : "..."));
                 Map<ActivityJarModels.Category, List<ActivityJarModels.Activity>> result =
-                        WellnestAiClient.planThingsToDo(getApplication());
+                        planner.plan(key, planContext, cancellation);
 
-                Log.d(TAG, "planThingsToDo returned result: " + (result != null ? "success" : "null"));
+                Log.d(TAG, "plan returned result: " + (result != null ? "success" : "null"));
 
                 if (result != null) {
                     activities.postValue(result);
-                    
-                    // Save to cache for next time
-                    String jsonString = serializeActivitiesToJson(result);
-                    cacheManager.saveCache(jsonString, "Cached via ViewModel");
                 } else {
                     error.postValue("Failed to generate activities. Please try again.");
                 }
+            } catch (CancellationToken.CancelledException e) {
+                Log.d(TAG, "loadActivities cancelled");
             } catch (Exception e) {
                 Log.e(TAG, "Error loading activities", e);
                 error.postValue("Error: " + e.getMessage());
@@ -173,93 +182,10 @@ public class ActivityJarViewModel extends AndroidViewModel {
         });
     }
 
-    private Map<ActivityJarModels.Category, List<ActivityJarModels.Activity>> parseActivitiesFromJson(String jsonString) {
-        try {
-            JSONObject root = new JSONObject(jsonString);
-            Map<ActivityJarModels.Category, List<ActivityJarModels.Activity>> byCategory =
-                    new EnumMap<>(ActivityJarModels.Category.class);
-
-            for (ActivityJarModels.Category category : ActivityJarModels.Category.values()) {
-                if (!root.has(category.name())) continue;
-
-                JSONArray activitiesArray = root.getJSONArray(category.name());
-                List<ActivityJarModels.Activity> activities = new ArrayList<>();
-
-                for (int i = 0; i < activitiesArray.length(); i++) {
-                    JSONObject a = activitiesArray.getJSONObject(i);
-
-                    String emoji = a.optString("emoji");
-                    String title = a.optString("title");
-                    String description = a.optString("description");
-                    String address = a.optString("address");
-                    String url = a.optString("url");
-
-                    JSONArray tagsJson = a.optJSONArray("tags");
-                    String[] tags = new String[tagsJson != null ? tagsJson.length() : 0];
-
-                    if (tagsJson != null) {
-                        for (int t = 0; t < tagsJson.length(); t++) {
-                            tags[t] = tagsJson.getString(t);
-                        }
-                    }
-
-                    ActivityJarModels.Activity activity =
-                            new ActivityJarModels.Activity(
-                                    category.name(),
-                                    emoji,
-                                    title,
-                                    description,
-                                    address,
-                                    tags,
-                                    url
-                            );
-
-                    activities.add(activity);
-                }
-                byCategory.put(category, activities);
-            }
-            return byCategory;
-        } catch (JSONException e) {
-            Log.e(TAG, "Error parsing cached JSON", e);
-            return null;
-        }
-    }
-
-    private String serializeActivitiesToJson(Map<ActivityJarModels.Category, List<ActivityJarModels.Activity>> map) {
-        JSONObject root = new JSONObject();
-        try {
-            for (Map.Entry<ActivityJarModels.Category, List<ActivityJarModels.Activity>> entry : map.entrySet()) {
-                JSONArray array = new JSONArray();
-                for (ActivityJarModels.Activity activity : entry.getValue()) {
-                    JSONObject obj = new JSONObject();
-                    obj.put("emoji", activity.getEmoji());
-                    obj.put("title", activity.getTitle());
-                    obj.put("description", activity.getDescription());
-                    obj.put("address", activity.getAddress());
-                    obj.put("url", activity.getUrl());
-
-                    JSONArray tags = new JSONArray();
-                    if (activity.getTags() != null) {
-                        for (String tag : activity.getTags()) {
-                            tags.put(tag);
-                        }
-                    }
-                    obj.put("tags", tags);
-
-                    array.put(obj);
-                }
-                root.put(entry.getKey().name(), array);
-            }
-            return root.toString();
-        } catch (JSONException e) {
-            Log.e(TAG, "Error serializing activities", e);
-            return "{}";
-        }
-    }
-
     @Override
     protected void onCleared() {
         super.onCleared();
+        cancellation.cancel();
         executor.shutdown();
         repository.shutdown();
     }
@@ -2,7 +2,6 @@ package com.code.wlu.cp470.wellnest.viewmodel;
 
 import android.app.Application;
 import android.content.Context;
-import android.database.sqlite.SQLiteDatabase;
 
 import androidx.lifecycle.AndroidViewModel;
 import androidx.lifecycle.LiveData;
@@ -10,7 +9,7 @@ import androidx.lifecycle.MutableLiveData;
 
 import com.code.wlu.cp470.wellnest.data.UserRepository;
 import com.code.wlu.cp470.wellnest.data.auth.AuthRepository;
-import com.code.wlu.cp470.wellnest.data.local.WellnestDatabaseHelper;
+import com.code.wlu.cp470.wellnest.data.local.DatabaseProvider;
 import com.code.wlu.cp470.wellnest.data.local.managers.UserManager;
 import com.code.wlu.cp470.wellnest.data.remote.managers.FirebaseUserManager;
 import com.google.firebase.auth.FirebaseUser;
@@ -19,8 +18,6 @@ import java.util.concurrent.Executors;
 
 public class AuthViewModel extends AndroidViewModel {
     private final AuthRepository repo;
-    private final WellnestDatabaseHelper dbHelper;
-    private final SQLiteDatabase db;
     private final MutableLiveData<FirebaseUser> user = new MutableLiveData<>();
     private final MutableLiveData<String> error = new MutableLiveData<>();
     private final MutableLiveData<Boolean> loading = new MutableLiveData<>(false);
@@ -33,10 +30,7 @@ public class AuthViewModel extends AndroidViewModel {
         super(app);
         context = app.getApplicationContext();
 
-        this.dbHelper = new WellnestDatabaseHelper(context);
-        this.db = dbHelper.getWritableDatabase();
-
-        this.local = new UserManager(db);
+        this.local = DatabaseProvider.get(context).getUserManager();
         this.remote = new FirebaseUserManager();
 
         UserRepository userRepo = new UserRepository(context, local, remote);
@@ -133,12 +127,4 @@ public class AuthViewModel extends AndroidViewModel {
     public interface DeleteAccountCallback {
         void onComplete(boolean success, Exception error);
     }
-
-
-    @Override
-    protected void onCleared() {
-        super.onCleared();
-        if (db != null && db.isOpen()) db.close();
-        if (dbHelper != null) dbHelper.close();
-    }
 }
@@ -2,7 +2,6 @@ package com.code.wlu.cp470.wellnest.viewmodel;
 
 import android.app.Application;
 import android.content.Context;
-import android.database.sqlite.SQLiteDatabase;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
@@ -13,7 +12,7 @@ import androidx.lifecycle.MutableLiveData;
 
 import com.code.wlu.cp470.wellnest.data.UserModels.Friend;
 import com.code.wlu.cp470.wellnest.data.UserRepository;
-import com.code.wlu.cp470.wellnest.data.local.WellnestDatabaseHelper;
+import com.code.wlu.cp470.wellnest.data.local.DatabaseProvider;
 import com.code.wlu.cp470.wellnest.data.local.managers.UserManager;
 import com.code.wlu.cp470.wellnest.data.model.FriendRequestResult;
 import com.code.wlu.cp470.wellnest.data.remote.managers.FirebaseUserManager;
@@ -39,8 +38,6 @@ public class FriendViewModel extends AndroidViewModel {
 
     // --- Data layer dependencies ---
     private final UserRepository userRepository;
-    private final WellnestDatabaseHelper databaseHelper;
-    private final SQLiteDatabase writableDatabase;
 
     // Single background thread for DB/network work (avoid blocking main thread)
     private final ExecutorService ioExecutor = Executors.newSingleThreadExecutor();
@@ -70,12 +67,8 @@ public class FriendViewModel extends AndroidViewModel {
         super(application);
         Context appContext = application.getApplicationContext();
 
-        // Local SQLite DB
-        this.databaseHelper = new WellnestDatabaseHelper(appContext);
-        this.writableDatabase = databaseHelper.getWritableDatabase();
-
-        // Local + remote managers
-        UserManager localUserManager = new UserManager(writableDatabase);
+        // Local (shared app-wide connection) + remote managers
+        UserManager localUserManager = DatabaseProvider.get(appContext).getUserManager();
         FirebaseUserManager remoteUserManager = new FirebaseUserManager();
         this.userRepository = new UserRepository(appContext, localUserManager, remoteUserManager);
 
@@ -279,13 +272,7 @@ public class FriendViewModel extends AndroidViewModel {
     protected void onCleared() {
         super.onCleared();
         ioExecutor.shutdown();
-
-        if (writableDatabase != null && writableDatabase.isOpen()) {
-            writableDatabase.close();
-        }
-        if (databaseHelper != null) {
-            databaseHelper.close();
-        }
+        // The database is owned by DatabaseProvider; other screens are still using it.
     }
 
     // --- UI state class for friend-request feedback ---
@@ -0,0 +1,166 @@
+package com.code.wlu.cp470.wellnest.viewmodel;
+
+import android.app.Application;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.lifecycle.AndroidViewModel;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MediatorLiveData;
+
+import com.code.wlu.cp470.wellnest.data.UserModels.LeaderboardEntry;
+import com.code.wlu.cp470.wellnest.data.local.DatabaseProvider;
+import com.code.wlu.cp470.wellnest.data.local.contracts.UserContract;
+import com.code.wlu.cp470.wellnest.data.local.managers.LeaderboardManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * ViewModel for the friends scoreboard on the home screen.
+ * <p>
+ * The first page (the top {@link #PAGE_SIZE}) is re-queried only when global_score or friends
+ * change, which UserManager reports after each write (so the friends sync started by
+ * FriendViewModel shows up without a refresh here); further pages are loaded on demand as the
+ * list is scrolled. If the user's own entry
+ * is not among the loaded rows it is exposed separately so the screen can pin it.
+ */
+public class LeaderboardViewModel extends AndroidViewModel {
+
+    private static final String TAG = "LeaderboardViewModel";
+
+    public static final int PAGE_SIZE = 25;
+
+    private final LeaderboardManager leaderboard;
+
+    // Background thread for the extra pages; the first page runs on the tracker's executor
+    private final ExecutorService ioExecutor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private final MediatorLiveData<Scoreboard> scoreboardLiveData = new MediatorLiveData<>();
+
+    // main thread only
+    private Scoreboard current;
+    private boolean loadingMore;
+
+    public LeaderboardViewModel(@NonNull Application application) {
+        super(application);
+        DatabaseProvider provider = DatabaseProvider.get(application.getApplicationContext());
+        this.leaderboard = provider.getLeaderboardManager();
+
+        LiveData<Scoreboard> firstPage = provider.getInvalidationTracker().createLiveData(
+                new String[]{UserContract.GlobalScore.TABLE, UserContract.Friends.TABLE},
+                this::loadFirstPage);
+        // A new first page means the scores changed: it replaces whatever was paged in so far
+        scoreboardLiveData.addSource(firstPage, board -> {
+            current = board;
+            scoreboardLiveData.setValue(board);
+        });
+    }
+
+    public LiveData<Scoreboard> getScoreboard() {
+        return scoreboardLiveData;
+    }
+
+    /**
+     * Appends the next page, if there is one and no page is already being loaded.
+     */
+    @MainThread
+    public void loadMore() {
+        Scoreboard board = current;
+        if (board == null || !board.hasMore() || loadingMore) return;
+        loadingMore = true;
+        ioExecutor.execute(() -> {
+            List<LeaderboardEntry> page;
+            try {
+                page = leaderboard.getPageAfter(board.getLast(), PAGE_SIZE);
+            } catch (RuntimeException e) {
+                Log.w(TAG, "loadMore: failed to read the next page", e);
+                page = null;
+            }
+            List<LeaderboardEntry> result = page;
+            mainHandler.post(() -> {
+                loadingMore = false;
+                // the first page was re-queried meanwhile; this page belongs to the old scores
+                if (result == null || current != board) return;
+                current = board.append(result, result.size() == PAGE_SIZE);
+                scoreboardLiveData.setValue(current);
+            });
+        });
+    }
+
+    private Scoreboard loadFirstPage() {
+        List<LeaderboardEntry> top = leaderboard.getTop(PAGE_SIZE);
+        LeaderboardEntry me = null;
+        if (!containsMe(top)) me = leaderboard.getMyEntry();
+        return new Scoreboard(top, me, top.size() == PAGE_SIZE);
+    }
+
+    private static boolean containsMe(List<LeaderboardEntry> entries) {
+        for (LeaderboardEntry entry : entries) {
+            if (entry.isMe()) return true;
+        }
+        return false;
+    }
+
+    // --- Lifecycle cleanup ---
+
+    @Override
+    protected void onCleared() {
+        super.onCleared();
+        ioExecutor.shutdown();
+    }
+
+    // --- UI state ---
+
+    /**
+     * The loaded part of the leaderboard, in order.
+     */
+    public static final class Scoreboard {
+        private final List<LeaderboardEntry> entries;
+        @Nullable
+        private final LeaderboardEntry pinnedMe;
+        private final boolean hasMore;
+
+        Scoreboard(List<LeaderboardEntry> entries, @Nullable LeaderboardEntry pinnedMe, boolean hasMore) {
+            this.entries = Collections.unmodifiableList(entries);
+            this.pinnedMe = pinnedMe;
+            this.hasMore = hasMore;
+        }
+
+        public List<LeaderboardEntry> getEntries() {
+            return entries;
+        }
+
+        /**
+         * The user's own entry while it is below the loaded rows, else null.
+         */
+        @Nullable
+        public LeaderboardEntry getPinnedMe() {
+            return pinnedMe;
+        }
+
+        public boolean hasMore() {
+            return hasMore;
+        }
+
+        @Nullable
+        LeaderboardEntry getLast() {
+            return entries.isEmpty() ? null : entries.get(entries.size() - 1);
+        }
+
+        Scoreboard append(List<LeaderboardEntry> page, boolean more) {
+            List<LeaderboardEntry> all = new ArrayList<>(entries.size() + page.size());
+            all.addAll(entries);
+            all.addAll(page);
+            return new Scoreboard(all, containsMe(page) ? null : pinnedMe, more);
+        }
+    }
+}
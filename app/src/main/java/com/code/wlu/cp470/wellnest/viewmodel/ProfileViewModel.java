@@ -2,7 +2,6 @@ package com.code.wlu.cp470.wellnest.viewmodel;
 
 import android.app.Application;
 import android.content.Context;
-import android.database.sqlite.SQLiteDatabase;
 
 import androidx.annotation.NonNull;
 import androidx.lifecycle.AndroidViewModel;
@@ -10,7 +9,7 @@ import androidx.lifecycle.MutableLiveData;
 
 import com.code.wlu.cp470.wellnest.data.UserModels;
 import com.code.wlu.cp470.wellnest.data.UserRepository;
-import com.code.wlu.cp470.wellnest.data.local.WellnestDatabaseHelper;
+import com.code.wlu.cp470.wellnest.data.local.DatabaseProvider;
 import com.code.wlu.cp470.wellnest.data.local.managers.UserManager;
 import com.code.wlu.cp470.wellnest.data.remote.managers.FirebaseUserManager;
 
@@ -22,8 +21,6 @@ import java.util.concurrent.Executors;
 public class ProfileViewModel extends AndroidViewModel {
 
     private final UserRepository repo;
-    private final WellnestDatabaseHelper dbHelper;
-    private final SQLiteDatabase db;
 
     // Background executor so we don't hit DB on the main thread
     private final ExecutorService io = Executors.newSingleThreadExecutor();
@@ -36,10 +33,7 @@ public class ProfileViewModel extends AndroidViewModel {
         super(app);
         Context context = app.getApplicationContext();
 
-        this.dbHelper = new WellnestDatabaseHelper(context);
-        this.db = dbHelper.getWritableDatabase();
-
-        UserManager local = new UserManager(db);
+        UserManager local = DatabaseProvider.get(context).getUserManager();
         FirebaseUserManager remote = new FirebaseUserManager();
         this.repo = new UserRepository(context, local, remote);
     }
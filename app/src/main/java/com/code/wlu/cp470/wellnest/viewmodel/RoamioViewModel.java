@@ -1,18 +1,19 @@
 package com.code.wlu.cp470.wellnest.viewmodel;
 
 import android.app.Application;
-import android.database.sqlite.SQLiteDatabase;
 import android.os.Handler;
 import android.os.Looper;
 
 import androidx.annotation.NonNull;
 import androidx.lifecycle.AndroidViewModel;
 
+import com.code.wlu.cp470.wellnest.data.ActiveWalkTracker;
 import com.code.wlu.cp470.wellnest.data.RoamioModels;
 import com.code.wlu.cp470.wellnest.data.RoamioRepository;
-import com.code.wlu.cp470.wellnest.data.local.WellnestDatabaseHelper;
+import com.code.wlu.cp470.wellnest.data.local.DatabaseProvider;
 import com.code.wlu.cp470.wellnest.data.local.managers.RoamioManager;
 import com.code.wlu.cp470.wellnest.data.remote.managers.FirebaseRoamioManager;
+import com.code.wlu.cp470.wellnest.utils.CancellationToken;
 
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -45,19 +46,22 @@ public class RoamioViewModel extends AndroidViewModel {
     }
 
     private final RoamioRepository repo;
-    private final WellnestDatabaseHelper dbHelper;
-    private final SQLiteDatabase db;
     private final ExecutorService io = Executors.newSingleThreadExecutor();
     private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    // Cancelled when the screen goes away, stopping any walk still being generated
+    private final CancellationToken cancellation = new CancellationToken();
+
+    // Walk in progress (null until started/restored, or when there is no user to save it under)
+    private ActiveWalkTracker walkTracker;
+    private long walkStartedAtMs;
 
     public RoamioViewModel(@NonNull Application application) {
         super(application);
-        dbHelper = new WellnestDatabaseHelper(application);
-        db = dbHelper.getWritableDatabase();
-
-        RoamioManager local = new RoamioManager(db);
+        DatabaseProvider databaseProvider = DatabaseProvider.get(application);
+        RoamioManager local = databaseProvider.getRoamioManager();
         FirebaseRoamioManager remote = new FirebaseRoamioManager();
-        repo = new RoamioRepository(application, local, remote);
+        repo = new RoamioRepository(application, local, databaseProvider.getWalkSessionManager(),
+                databaseProvider.getActiveWalkManager(), remote);
     }
 
     public void syncScore() {
@@ -72,6 +76,99 @@ public class RoamioViewModel extends AndroidViewModel {
         repo.addToRoamioScore(points);
     }
 
+    /**
+     * Restores the walk that was in progress when the app was last closed or killed.
+     *
+     * @return the walk, or null if there is none
+     */
+    public RoamioModels.Walk restoreActiveWalk() {
+        RoamioModels.ActiveWalk active = repo.getActiveWalk();
+        if (active == null) return null;
+        walkTracker = repo.trackWalk(active, io);
+        walkStartedAtMs = active.getStartedAt();
+        return active.getWalk();
+    }
+
+    /**
+     * Starts {@code walk} and begins checkpointing its progress.
+     */
+    public void startWalk(RoamioModels.Walk walk) {
+        walkStartedAtMs = System.currentTimeMillis();
+        RoamioModels.ActiveWalk active = repo.startWalk(walk);
+        walkTracker = active != null ? repo.trackWalk(active, io) : null;
+    }
+
+    /**
+     * Feeds a location fix of the walk in progress (checkpointed with throttling, on the
+     * background thread).
+     */
+    public void onWalkLocation(double latitude, double longitude) {
+        if (walkTracker != null) walkTracker.onLocationFix(latitude, longitude);
+    }
+
+    /**
+     * How far ({@code latitude}, {@code longitude}) is from the end of {@code walk}, in metres.
+     * <p>
+     * A generated walk carries its destination, so this is answered at once on the calling
+     * thread. A walk restored without it has its end address geocoded on the background
+     * thread first, and the callback is then invoked on the main thread (unless the
+     * ViewModel has been cleared). The main thread never waits on the geocoder.
+     */
+    public void distanceToDestination(RoamioModels.Walk walk, double latitude, double longitude,
+                                      RoamioCallback<Float> callback) {
+        if (walk.hasEndCoordinates()) {
+            callback.onSuccess(walk.distanceToEndMeters(latitude, longitude));
+            return;
+        }
+        ActiveWalkTracker tracker = walkTracker;
+        RoamioModels.ActiveWalk active = tracker != null && tracker.getActiveWalk().getWalk() == walk
+                ? tracker.getActiveWalk() : null;
+        io.execute(() -> {
+            boolean resolved;
+            try {
+                resolved = repo.resolveDestination(walk, active);
+            } catch (Exception e) {
+                resolved = false;
+            }
+            if (cancellation.isCancelled()) return;
+            if (resolved) {
+                float distance = walk.distanceToEndMeters(latitude, longitude);
+                mainHandler.post(() -> callback.onSuccess(distance));
+            } else {
+                mainHandler.post(() -> callback.onError("Could not find the destination. Please try again."));
+            }
+        });
+    }
+
+    /**
+     * Queues any walk progress that has not been checkpointed yet on the background thread.
+     */
+    public void flushWalkProgress() {
+        if (walkTracker != null) walkTracker.flush();
+    }
+
+    /**
+     * Awards the points for a finished walk and saves it to the walk history.
+     */
+    public void completeWalk(RoamioModels.Walk walk, int points) {
+        long now = System.currentTimeMillis();
+        if (walkTracker != null) {
+            repo.completeWalk(walkTracker, now, points);
+            walkTracker = null;
+        } else {
+            repo.completeWalk(walk, walkStartedAtMs > 0 ? walkStartedAtMs : now, now, points);
+        }
+    }
+
+    @Override
+    protected void onCleared() {
+        super.onCleared();
+        cancellation.cancel();
+        io.shutdownNow();
+        // queued checkpoints may have been dropped; write the latest one here instead
+        if (walkTracker != null) walkTracker.flushNow();
+    }
+
     /**
      * Generates a walk asynchronously using the device's current location.
      * <p>
@@ -79,7 +176,8 @@ public class RoamioViewModel extends AndroidViewModel {
      * performs reverse geocoding to get the location name, and generates a
      * personalized walking recommendation.
      * <p>
-     * The callback will be invoked on the main thread with either success or error results.
+     * The callback will be invoked on the main thread with either success or error results,
+     * unless the ViewModel is cleared first: that cancels the generation and no callback is made.
      * <p>
      * <b>Required Permissions:</b>
      * The calling activity/fragment must have already obtained location permissions:
@@ -100,14 +198,16 @@ public class RoamioViewModel extends AndroidViewModel {
             try {
                 RoamioModels.Walk walk = repo.generateWalk((percent, message) -> {
                     mainHandler.post(() -> callback.onProgress(percent, message));
-                });
-                
+                }, cancellation);
+                if (cancellation.isCancelled()) return;
+
                 if (walk != null) {
                     mainHandler.post(() -> callback.onSuccess(walk));
                 } else {
                     mainHandler.post(() -> callback.onError("Failed to generate walk. Please ensure location permissions are granted and location services are enabled."));
                 }
             } catch (Exception e) {
+                if (cancellation.isCancelled()) return;
                 mainHandler.post(() -> callback.onError("Error generating walk: " + e.getMessage()));
             }
         });
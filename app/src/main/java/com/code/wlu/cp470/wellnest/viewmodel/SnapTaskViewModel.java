@@ -2,16 +2,23 @@ package com.code.wlu.cp470.wellnest.viewmodel;
 
 import android.app.Application;
 import android.content.Context;
-import android.database.sqlite.SQLiteDatabase;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
 
 import androidx.annotation.NonNull;
 import androidx.lifecycle.AndroidViewModel;
+import androidx.lifecycle.LiveData;
 
 import com.code.wlu.cp470.wellnest.data.SnapTaskModels;
 import com.code.wlu.cp470.wellnest.data.SnapTaskRepository;
-import com.code.wlu.cp470.wellnest.data.local.WellnestDatabaseHelper;
+import com.code.wlu.cp470.wellnest.data.WellnestAiClient;
+import com.code.wlu.cp470.wellnest.data.local.DatabaseProvider;
+import com.code.wlu.cp470.wellnest.data.local.InvalidationTracker;
+import com.code.wlu.cp470.wellnest.data.local.contracts.SnapTaskContract;
 import com.code.wlu.cp470.wellnest.data.local.managers.SnapTaskManager;
 import com.code.wlu.cp470.wellnest.data.remote.managers.FirebaseSnapTaskManager;
+import com.code.wlu.cp470.wellnest.utils.CancellationToken;
 
 import java.util.List;
 import java.util.concurrent.ExecutorService;
@@ -19,23 +26,51 @@ import java.util.concurrent.Executors;
 
 public class SnapTaskViewModel extends AndroidViewModel {
 
+    private static final String TAG = "SnapTaskViewModel";
+
+    /**
+     * Receives the verdict of {@link #evaluateTask}, on the main thread.
+     */
+    public interface VerdictCallback {
+        /**
+         * @param verdict "pass" or "fail"
+         */
+        void onVerdict(String verdict);
+    }
+
     private final SnapTaskRepository repo;
-    private final WellnestDatabaseHelper dbHelper;
-    private final SQLiteDatabase db;
+    private final InvalidationTracker tracker;
+    private final LiveData<List<SnapTaskModels.Task>> tasks;
+    private final LiveData<Integer> score;
 
     // Background executor so we don't hit DB on the main thread
     private final ExecutorService io = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    // Cancelled when the screen goes away, stopping an evaluation still waiting on the model
+    private final CancellationToken cancellation = new CancellationToken();
 
     public SnapTaskViewModel(@NonNull Application app) {
         super(app);
         Context context = app.getApplicationContext();
 
-        this.dbHelper = new WellnestDatabaseHelper(context);
-        this.db = dbHelper.getWritableDatabase();
-
-        SnapTaskManager local = new SnapTaskManager(db);
+        DatabaseProvider provider = DatabaseProvider.get(context);
+        SnapTaskManager local = provider.getSnapTaskManager();
         FirebaseSnapTaskManager remote = new FirebaseSnapTaskManager();
         this.repo = new SnapTaskRepository(context, local, remote);
+
+        // Re-queried only when tasks / snapTask_score change, e.g. after a task is completed
+        this.tracker = provider.getInvalidationTracker();
+        this.tasks = tracker.createLiveData(new String[]{SnapTaskContract.Tasks.TABLE}, repo::getTasks);
+        this.score = tracker.createLiveData(new String[]{SnapTaskContract.SnapTask_Score.TABLE},
+                repo::getSnapTaskScore);
+    }
+
+    public LiveData<List<SnapTaskModels.Task>> observeTasks() {
+        return tasks;
+    }
+
+    public LiveData<Integer> observeScore() {
+        return score;
     }
 
     public List<SnapTaskModels.Task> getTasks() {
@@ -56,7 +91,37 @@ public class SnapTaskViewModel extends AndroidViewModel {
         if (points != 0) {
             repo.addToSnapTaskScore(points);
         }
+        // let screens that are still visible (e.g. the list behind this one) pick it up now
+        tracker.refreshAsync();
+    }
+
+    /**
+     * Asks the model whether the after photo shows the task done, in the background. The
+     * callback gets "fail" if the evaluation throws, and is not called at all if the
+     * ViewModel is cleared first.
+     */
+    public void evaluateTask(String taskUid, String criteria, byte[] beforeJpeg, byte[] afterJpeg,
+                             VerdictCallback callback) {
+        WellnestAiClient client = WellnestAiClient.get(getApplication());
+        io.execute(() -> {
+            String verdict;
+            try {
+                verdict = client.evaluateSnapTask(taskUid, criteria, beforeJpeg, afterJpeg, cancellation);
+            } catch (Exception e) {
+                Log.e(TAG, "evaluateTask failed", e);
+                verdict = "fail";
+            }
+            if (cancellation.isCancelled() || verdict == null) return;
+            String result = verdict;
+            mainHandler.post(() -> callback.onVerdict(result));
+        });
+    }
+
+    @Override
+    protected void onCleared() {
+        super.onCleared();
+        cancellation.cancel();
+        io.shutdownNow();
     }
-    
 }
 
@@ -0,0 +1,142 @@
+package com.code.wlu.cp470.wellnest;
+
+/**
+ * Responses recorded from the Vercel proxy (OpenAI chat, Tavily search) and Open-Meteo, trimmed
+ * to the fields WellnestAiClient reads plus enough of the rest to keep their real shape. Replayed
+ * by MockWebServer in WellnestAiClientInstrumentedTest and parsed directly by the JVM tests, so
+ * it lives in the source set both share.
+ */
+final class RecordedAiResponses {
+
+    private RecordedAiResponses() {
+    }
+
+    static final String OPEN_METEO_FORECAST = "{"
+            + "\"latitude\":43.47,\"longitude\":-80.54,\"generationtime_ms\":0.0629425048828125,"
+            + "\"utc_offset_seconds\":0,\"timezone\":\"GMT\",\"timezone_abbreviation\":\"GMT\",\"elevation\":331.0,"
+            + "\"current_weather_units\":{\"time\":\"iso8601\",\"interval\":\"seconds\",\"temperature\":\"°C\","
+            + "\"windspeed\":\"km/h\",\"winddirection\":\"°\",\"is_day\":\"\",\"weathercode\":\"wmo code\"},"
+            + "\"current_weather\":{\"time\":\"2025-06-02T13:30\",\"interval\":900,\"temperature\":21.4,"
+            + "\"windspeed\":11.2,\"winddirection\":250,\"is_day\":1,\"weathercode\":2},"
+            + "\"hourly_units\":{\"time\":\"iso8601\",\"temperature_2m\":\"°C\",\"precipitation_probability\":\"%\","
+            + "\"weathercode\":\"wmo code\",\"wind_speed_10m\":\"km/h\"},"
+            + "\"hourly\":{\"time\":[\"2025-06-02T13:00\",\"2025-06-02T14:00\"],\"temperature_2m\":[21.0,21.9],"
+            + "\"precipitation_probability\":[3,5],\"weathercode\":[2,2],\"wind_speed_10m\":[11.0,12.1]}"
+            + "}";
+
+    static final String TAVILY_SEARCH = "{"
+            + "\"query\":\"Best local things to do in Waterloo, Ontario\","
+            + "\"follow_up_questions\":null,"
+            + "\"answer\":\"Waterloo has trails along Laurel Creek, a lively Uptown bar scene and the "
+            + "Canadian Clay and Glass Gallery.\","
+            + "\"images\":[],"
+            + "\"results\":["
+            + "{\"url\":\"https://www.waterloo.ca/en/things-to-do/parks-and-trails.aspx\","
+            + "\"title\":\"Parks and trails - City of Waterloo\","
+            + "\"content\":\"Explore more than 150 km of trails, including the Laurel Trail.\","
+            + "\"score\":0.91,\"raw_content\":null},"
+            + "{\"url\":\"https://www.theclayandglass.ca/\","
+            + "\"title\":\"Canadian Clay & Glass Gallery\","
+            + "\"content\":\"Free admission. Open Tuesday to Sunday.\","
+            + "\"score\":0.87,\"raw_content\":null},"
+            + "{\"url\":\"https://www.uptownwaterloo.ca/\","
+            + "\"title\":\"Uptown Waterloo\","
+            + "\"content\":\"Restaurants, cafes, bars and live music in Uptown.\","
+            + "\"score\":0.82,\"raw_content\":null}"
+            + "],"
+            + "\"response_time\":1.37"
+            + "}";
+
+    static final String ACTIVITIES_JSON = "{"
+            + "\"Explore\":[{\"emoji\":\"🥾\",\"title\":\"Laurel Trail\",\"description\":\"A paved trail along Laurel Creek.\","
+            + "\"address\":\"Waterloo Park, Waterloo, ON\",\"tags\":[\"solo\",\"family\"],"
+            + "\"url\":\"https://www.waterloo.ca/en/things-to-do/parks-and-trails.aspx\"}],"
+            + "\"Nightlife\":[{\"emoji\":\"🎶\",\"title\":\"Live music in Uptown\",\"description\":\"Bars with local bands.\","
+            + "\"address\":\"King St N, Waterloo, ON\",\"tags\":[\"friends\"],\"url\":\"https://www.uptownwaterloo.ca/\"}],"
+            + "\"Play\":[{\"emoji\":\"🏓\",\"title\":\"Table tennis in the park\",\"description\":\"Outdoor tables by the lake.\","
+            + "\"address\":\"Waterloo Park, Waterloo, ON\",\"tags\":[\"friends\",\"family\"],"
+            + "\"url\":\"https://www.waterloo.ca/en/things-to-do/parks-and-trails.aspx\"}],"
+            + "\"Cozy\":[{\"emoji\":\"☕\",\"title\":\"Uptown cafes\",\"description\":\"Quiet coffee shops.\","
+            + "\"address\":\"King St S, Waterloo, ON\",\"tags\":[\"solo\"],\"url\":\"https://www.uptownwaterloo.ca/\"}],"
+            + "\"Culture\":[{\"emoji\":\"🏺\",\"title\":\"Canadian Clay & Glass Gallery\",\"description\":\"Ceramics and glass.\","
+            + "\"address\":\"25 Caroline St N, Waterloo, ON\",\"tags\":[\"solo\",\"friends\",\"family\"],"
+            + "\"url\":\"https://www.theclayandglass.ca/\"}]"
+            + "}";
+
+    static final String WALK_JSON = "{"
+            + "\"query\":\"scenic walking trails Waterloo Ontario\","
+            + "\"pick\":{\"name\":\"Laurel Trail\",\"start_address\":\"Waterloo Park, Waterloo, ON\","
+            + "\"end_address\":\"Uptown Waterloo, ON\"},"
+            + "\"story\":\"The Laurel Trail follows an old rail line through the heart of Waterloo.\""
+            + "}";
+
+    static final String SEARCH_QUERY = "scenic walking trails Waterloo Ontario";
+
+    /**
+     * A search with raw page content, near-duplicate URLs (tracking parameters, "www.",
+     * trailing slashes) and a repeated title, the way Tavily returns a busy query.
+     */
+    static String tavilySearchWithRawContent() {
+        String[][] results = {
+                // title, url, score, snippet
+                {"Parks and trails - City of Waterloo", "https://www.waterloo.ca/en/things-to-do/parks-and-trails.aspx", "0.91",
+                        "Explore more than 150 km of trails, including the Laurel Trail, Waterloo Park and the Grey Silo trails."},
+                {"Parks and trails - City of Waterloo", "https://waterloo.ca/en/things-to-do/parks-and-trails.aspx?utm_source=tavily", "0.90",
+                        "Explore more than 150 km of trails, including the Laurel Trail."},
+                {"Canadian Clay & Glass Gallery", "https://www.theclayandglass.ca/", "0.87",
+                        "Free admission. Open Tuesday to Sunday. Exhibitions of contemporary ceramics, glass, enamel and stained glass."},
+                {"Canadian Clay &amp; Glass Gallery | Visit", "https://theclayandglass.ca", "0.55",
+                        "Plan your visit to the gallery in Uptown Waterloo."},
+                {"Uptown Waterloo", "https://www.uptownwaterloo.ca/", "0.82",
+                        "Restaurants, cafes, bars and live music in Uptown, steps from the ION light rail."},
+                {"THEMUSEUM", "https://themuseum.ca/", "0.79",
+                        "Interactive exhibits for all ages in downtown Kitchener, open late on Fridays."},
+                {"Waterloo Region Museum", "https://www.waterlooregionmuseum.ca/en/index.aspx", "0.74",
+                        "Ontario's largest community museum with Doon Heritage Village, a living history village."},
+                {"Bingemans", "https://www.bingemans.com/", "0.71",
+                        "Go-karts, laser tag, an arcade, mini golf and a summer water park in Kitchener."},
+                {"Death Valley's Little Brother", "https://www.deathvalleyslittlebrother.com/", "0.69",
+                        "A cozy coffee shop and bar in Uptown Waterloo with board games and live jazz."},
+                {"Princess Cinemas", "https://www.princesscinemas.com/", "0.66",
+                        "Independent cinema showing first-run, foreign and repertory films in Uptown Waterloo."},
+                {"Chainsaw", "https://www.chainsawbar.ca/", "0.64",
+                        "A late-night bar in Uptown Waterloo known for its patio and DJs on weekends."},
+                {"Kitchener Public Library events", "https://www.kpl.org/events?utm_campaign=summer#calendar", "0.41",
+                        "Author talks, workshops and quiet reading rooms downtown."},
+        };
+        StringBuilder page = new StringBuilder();
+        while (page.length() < 6_000) {
+            page.append("Skip to main content Menu Home Things to do Events Parks Trails Contact us Accessibility "
+                    + "Privacy Terms Copyright City of Waterloo. Subscribe to our newsletter. ");
+        }
+        StringBuilder json = new StringBuilder("{\"query\":\"Best local things to do in Waterloo, Ontario\","
+                + "\"follow_up_questions\":null,\"answer\":null,\"images\":[],\"results\":[");
+        for (int i = 0; i < results.length; i++) {
+            if (i > 0) json.append(',');
+            // a snippet is a few paragraphs of the page, newlines and all
+            String snippet = results[i][3] + "\\n\\n" + results[i][3] + "\\n" + page.substring(0, 900);
+            json.append("{\"url\":\"").append(results[i][1]).append("\",")
+                    .append("\"title\":\"").append(results[i][0]).append("\",")
+                    .append("\"content\":\"").append(snippet).append("\",")
+                    .append("\"score\":").append(results[i][2]).append(',')
+                    .append("\"raw_content\":\"").append(results[i][3]).append(' ').append(page).append("\"}");
+        }
+        return json.append("],\"response_time\":2.84}").toString();
+    }
+
+    /**
+     * An OpenAI chat completion as the proxy returns it, answering with {@code content}.
+     */
+    static String chatCompletion(String model, String content) {
+        String escaped = content.replace("\\", "\\\\").replace("\"", "\\\"");
+        return "{"
+                + "\"id\":\"chatcmpl-BdX1sN5tq0aL2y7kWcQ3mH8vP9eRz\","
+                + "\"object\":\"chat.completion\",\"created\":1748871032,"
+                + "\"model\":\"" + model + "\","
+                + "\"choices\":[{\"index\":0,\"message\":{\"role\":\"assistant\",\"content\":\"" + escaped + "\","
+                + "\"refusal\":null,\"annotations\":[]},\"logprobs\":null,\"finish_reason\":\"stop\"}],"
+                + "\"usage\":{\"prompt_tokens\":1412,\"completion_tokens\":389,\"total_tokens\":1801},"
+                + "\"service_tier\":\"default\",\"system_fingerprint\":null"
+                + "}";
+    }
+}
@@ -0,0 +1,64 @@
+package com.code.wlu.cp470.wellnest;
+
+import java.util.Random;
+
+/**
+ * Synthetic luminance images for the SnapTask image tests: a few soft-edged blobs on a lit
+ * gradient, with sensor noise. The same {@code scene} at another size or exposure is a
+ * near-duplicate; another {@code scene} is a different photo. Pure Java, so the JVM tests
+ * use it directly and TestPhotos encodes it as JPEGs on the device.
+ */
+final class TestScenes {
+
+    private TestScenes() {
+    }
+
+    static int[] luminance(int scene, int width, int height, int brightness, long noiseSeed) {
+        return luminance(scene, width, height, brightness, noiseSeed, false);
+    }
+
+    /**
+     * {@code scene}, or with {@code choreDone} the same scene with its most prominent blob
+     * cleared away, as the after photo of a done chore.
+     */
+    static int[] luminance(int scene, int width, int height, int brightness, long noiseSeed, boolean choreDone) {
+        Random layout = new Random(scene);
+        int blobs = 6;
+        double[] cx = new double[blobs];
+        double[] cy = new double[blobs];
+        double[] radius = new double[blobs];
+        double[] shade = new double[blobs];
+        for (int i = 0; i < blobs; i++) {
+            cx[i] = layout.nextDouble();
+            cy[i] = layout.nextDouble();
+            radius[i] = 0.1 + 0.3 * layout.nextDouble();
+            shade[i] = layout.nextInt(160) - 80;
+        }
+        double light = layout.nextDouble();
+        int prominent = 0;
+        for (int i = 1; i < blobs; i++) {
+            if (Math.abs(shade[i]) * radius[i] * radius[i]
+                    > Math.abs(shade[prominent]) * radius[prominent] * radius[prominent]) prominent = i;
+        }
+
+        Random noise = new Random(noiseSeed);
+        int[] luma = new int[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                double fx = (double) x / width;
+                double fy = (double) y / height;
+                double value = 90 + 70 * (light * fx + (1 - light) * fy) + brightness;
+                for (int i = 0; i < blobs; i++) {
+                    if (choreDone && i == prominent) continue;
+                    double dx = fx - cx[i];
+                    double dy = fy - cy[i];
+                    double d = Math.sqrt(dx * dx + dy * dy) / radius[i];
+                    if (d < 1) value += shade[i] * (1 - d * d);
+                }
+                value += noise.nextGaussian() * 3;
+                luma[y * width + x] = (int) Math.max(0, Math.min(255, value));
+            }
+        }
+        return luma;
+    }
+}
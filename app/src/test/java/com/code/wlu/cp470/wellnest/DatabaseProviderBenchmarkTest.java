@@ -0,0 +1,195 @@
+package com.code.wlu.cp470.wellnest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import android.app.Application;
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+import android.util.Log;
+
+import com.code.wlu.cp470.wellnest.data.local.DatabaseProvider;
+import com.code.wlu.cp470.wellnest.data.local.WellnestDatabaseHelper;
+import com.code.wlu.cp470.wellnest.data.local.contracts.SnapTaskContract;
+import com.code.wlu.cp470.wellnest.data.local.managers.ActivityJarManager;
+import com.code.wlu.cp470.wellnest.data.local.managers.RoamioManager;
+import com.code.wlu.cp470.wellnest.data.local.managers.SnapTaskManager;
+import com.code.wlu.cp470.wellnest.data.local.managers.UserManager;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.SQLiteMode;
+import org.robolectric.shadows.ShadowLog;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Robolectric benchmark for the application-scoped {@link DatabaseProvider}.
+ * <p>
+ * Compares the old "open a helper and rebuild every manager on resume" path against the
+ * shared connection, and checks that a read is served while a sync holds a write transaction.
+ * Runs on the native SQLite mode so WAL and the connection pool behave as on a device.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34, application = Application.class)
+@SQLiteMode(SQLiteMode.Mode.NATIVE)
+public class DatabaseProviderBenchmarkTest {
+
+    private static final String TAG = "DatabaseProviderTest";
+    private static final int RESUME_ITERATIONS = 50;
+
+    private Context context;
+    private DatabaseProvider provider;
+    private SQLiteDatabase db;
+
+    @Before
+    public void setUp() {
+        ShadowLog.stream = System.out;
+        context = RuntimeEnvironment.getApplication();
+        // every test gets a fresh application, so never reuse a provider opened by another one
+        DatabaseProvider.resetForTests();
+        provider = DatabaseProvider.get(context);
+        db = provider.getDatabase();
+        provider.getSnapTaskManager().upsertSnapTaskScore(0);
+        provider.getRoamioManager().upsertRoamioScore(0);
+        provider.getActivityJarManager().upsertRoamioScore(0);
+    }
+
+    @After
+    public void tearDown() {
+        DatabaseProvider.resetForTests();
+    }
+
+    @Test
+    public void testSharedDatabase_isWriteAheadLogged() {
+        assertTrue("Shared connection should use WAL", db.isWriteAheadLoggingEnabled());
+    }
+
+    // ============================================================
+    // Benchmark: resume cost
+    // ============================================================
+
+    /**
+     * Mirrors what HomeFragment.onResume used to do (new helper + four managers + score reads)
+     * against the shared provider path, and reports both timings.
+     */
+    @Test
+    public void testBenchmark_resumeWithSharedProvider_isFasterThanReopening() {
+        // warm up both paths once
+        reopenAndReadScores();
+        readScoresFromProvider();
+
+        long reopenStart = System.nanoTime();
+        for (int i = 0; i < RESUME_ITERATIONS; i++) {
+            reopenAndReadScores();
+        }
+        long reopenNanos = System.nanoTime() - reopenStart;
+
+        long sharedStart = System.nanoTime();
+        for (int i = 0; i < RESUME_ITERATIONS; i++) {
+            readScoresFromProvider();
+        }
+        long sharedNanos = System.nanoTime() - sharedStart;
+
+        Log.i(TAG, "resume x" + RESUME_ITERATIONS
+                + ": reopen=" + TimeUnit.NANOSECONDS.toMicros(reopenNanos) + "us"
+                + ", shared=" + TimeUnit.NANOSECONDS.toMicros(sharedNanos) + "us"
+                + ", speedup=" + String.format("%.1fx", (double) reopenNanos / Math.max(1, sharedNanos)));
+
+        assertTrue("Shared provider should resume faster than reopening the database",
+                sharedNanos < reopenNanos);
+    }
+
+    // ============================================================
+    // Benchmark: reads during a sync write
+    // ============================================================
+
+    /**
+     * Holds a write transaction open on a background thread (like a Firebase sync would) and
+     * verifies that a UI-style read on another thread completes before the writer commits and
+     * still sees the last committed value.
+     */
+    @Test
+    public void testReadDuringWriteTransaction_doesNotBlock() throws Exception {
+        SnapTaskManager snapTaskManager = provider.getSnapTaskManager();
+        snapTaskManager.upsertSnapTaskScore(10);
+
+        CountDownLatch writerInTransaction = new CountDownLatch(1);
+        CountDownLatch releaseWriter = new CountDownLatch(1);
+        CountDownLatch readerDone = new CountDownLatch(1);
+        AtomicInteger readValue = new AtomicInteger(-1);
+
+        Thread writer = new Thread(() -> {
+            db.beginTransaction();
+            try {
+                ContentValues cv = new ContentValues();
+                cv.put(SnapTaskContract.SnapTask_Score.Col.SCORE, 99);
+                db.update(SnapTaskContract.SnapTask_Score.TABLE, cv, null, null);
+                writerInTransaction.countDown();
+                releaseWriter.await(10, TimeUnit.SECONDS);
+                db.setTransactionSuccessful();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                db.endTransaction();
+            }
+        });
+        writer.start();
+        assertTrue("Writer never started", writerInTransaction.await(5, TimeUnit.SECONDS));
+
+        long readStart = System.nanoTime();
+        Thread reader = new Thread(() -> {
+            readValue.set(snapTaskManager.getSnapTaskScore());
+            readerDone.countDown();
+        });
+        reader.start();
+
+        boolean readFinishedWhileWriting = readerDone.await(2, TimeUnit.SECONDS);
+        long readMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - readStart);
+        releaseWriter.countDown();
+        writer.join(5000);
+        reader.join(5000);
+
+        Log.i(TAG, "read during open write transaction took " + readMicros + "us");
+        assertTrue("Read blocked behind the write transaction", readFinishedWhileWriting);
+        assertEquals("Reader should see the last committed score", 10, readValue.get());
+        assertEquals("Writer's change should be visible after commit",
+                99, (int) snapTaskManager.getSnapTaskScore());
+        assertFalse(db.inTransaction());
+    }
+
+    // ============================================================
+    // Helpers
+    // ============================================================
+
+    private void reopenAndReadScores() {
+        WellnestDatabaseHelper helper = new WellnestDatabaseHelper(context);
+        SQLiteDatabase fresh = helper.getWritableDatabase();
+        try {
+            new UserManager(fresh);
+            int total = new SnapTaskManager(fresh).getSnapTaskScore()
+                    + new ActivityJarManager(fresh).getActivityJarScore()
+                    + new RoamioManager(fresh).getRoamioScore().getScore();
+            assertTrue(total >= 0);
+        } finally {
+            helper.close();
+        }
+    }
+
+    private void readScoresFromProvider() {
+        provider.getUserManager();
+        int total = provider.getSnapTaskManager().getSnapTaskScore()
+                + provider.getActivityJarManager().getActivityJarScore()
+                + provider.getRoamioManager().getRoamioScore().getScore();
+        assertTrue(total >= 0);
+    }
+}
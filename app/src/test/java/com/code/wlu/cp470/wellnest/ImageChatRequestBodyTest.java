@@ -0,0 +1,117 @@
+package com.code.wlu.cp470.wellnest;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import android.app.Application;
+
+import com.code.wlu.cp470.wellnest.data.ImageChatRequestBody;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.Base64;
+import java.util.Random;
+
+import okio.Buffer;
+
+/**
+ * Robolectric tests for ImageChatRequestBody: the streamed request is the same chat
+ * completion the JSONObject version built, its length is known up front, and it can be
+ * written again for a retry. Robolectric supplies the real org.json both sides use.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34, application = Application.class)
+public class ImageChatRequestBodyTest {
+
+    private static final String SYSTEM = "You are an image judge for household chores.";
+
+    private static byte[] photo(int size, long seed) {
+        byte[] bytes = new byte[size];
+        new Random(seed).nextBytes(bytes);
+        return bytes;
+    }
+
+    private static ImageChatRequestBody snapTaskBody(String criteria, byte[] before, byte[] after) throws Exception {
+        return new ImageChatRequestBody.Builder("gpt-4o", 0.0)
+                .system(SYSTEM)
+                .text("Criteria:\n" + criteria)
+                .text("BEFORE photo:")
+                .jpeg(before)
+                .text("AFTER photo:")
+                .jpeg(after)
+                .build();
+    }
+
+    private static byte[] written(ImageChatRequestBody body) throws Exception {
+        Buffer sink = new Buffer();
+        body.writeTo(sink);
+        return sink.readByteArray();
+    }
+
+    private static JSONObject imagePart(byte[] jpeg) throws Exception {
+        return new JSONObject()
+                .put("type", "image_url")
+                .put("image_url", new JSONObject()
+                        .put("url", "data:image/jpeg;base64," + Base64.getEncoder().encodeToString(jpeg))
+                        .put("detail", "low"));
+    }
+
+    @Test
+    public void streamedRequest_matchesTheJsonObjectRequest() throws Exception {
+        byte[] before = photo(70_001, 1);
+        byte[] after = photo(50_000, 2);
+        String criteria = "Bed made, \"pillows\" stacked\tneatly / no clothes on the floor ✓";
+
+        JSONObject expected = new JSONObject()
+                .put("model", "gpt-4o")
+                .put("temperature", 0.0)
+                .put("messages", new JSONArray()
+                        .put(new JSONObject().put("role", "system").put("content", SYSTEM))
+                        .put(new JSONObject().put("role", "user").put("content", new JSONArray()
+                                .put(new JSONObject().put("type", "text").put("text", "Criteria:\n" + criteria))
+                                .put(new JSONObject().put("type", "text").put("text", "BEFORE photo:"))
+                                .put(imagePart(before))
+                                .put(new JSONObject().put("type", "text").put("text", "AFTER photo:"))
+                                .put(imagePart(after)))));
+
+        JSONObject actual = new JSONObject(new String(written(snapTaskBody(criteria, before, after)), "UTF-8"));
+
+        assertEquals(expected.toString(), actual.toString());
+    }
+
+    @Test
+    public void contentLength_isKnownBeforeWriting() throws Exception {
+        for (int size = 0; size < 8; size++) {
+            ImageChatRequestBody body = snapTaskBody("Tidy desk", photo(size, size), photo(2 * size + 1, size));
+            assertEquals("photo of " + size + " bytes", body.contentLength(), written(body).length);
+        }
+        ImageChatRequestBody large = snapTaskBody("Tidy desk", photo(2 * 1024 * 1024, 3), photo(5 * 1024 * 1024 + 2, 4));
+        assertEquals(large.contentLength(), written(large).length);
+    }
+
+    @Test
+    public void photos_roundTripThroughBase64_forEveryRemainder() throws Exception {
+        for (int size = 0; size < 10; size++) {
+            byte[] jpeg = photo(size * 4_099, size);
+            JSONObject request = new JSONObject(new String(written(snapTaskBody("x", jpeg, new byte[0])), "UTF-8"));
+            JSONArray parts = request.getJSONArray("messages").getJSONObject(1).getJSONArray("content");
+            String url = parts.getJSONObject(2).getJSONObject("image_url").getString("url");
+
+            assertArrayEquals(jpeg, Base64.getDecoder().decode(url.substring("data:image/jpeg;base64,".length())));
+        }
+    }
+
+    @Test
+    public void body_canBeWrittenAgainForARetry() throws Exception {
+        ImageChatRequestBody body = snapTaskBody("Dishes done", photo(300_000, 5), photo(400_000, 6));
+
+        assertFalse(body.isOneShot());
+        assertArrayEquals(written(body), written(body));
+    }
+}
@@ -0,0 +1,59 @@
+package com.code.wlu.cp470.wellnest;
+
+import static org.junit.Assert.assertTrue;
+
+import com.code.wlu.cp470.wellnest.utils.ImageHash;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+/**
+ * Benchmark for the perceptual hashes that key a SnapTask submission.
+ * <p>
+ * Times dHash + pHash on luminance images of a few sizes ({@link TestScenes}) and logs the
+ * median of each. ImageHash is plain Java, so this runs with the JVM unit tests; the
+ * decode + hash path on a real JPEG is timed on the device by
+ * ImageHashBenchmarkInstrumentedTest.
+ */
+public class ImageHashBenchmarkTest {
+
+    private static final int WARMUP = 5;
+    private static final int RUNS = 21;
+
+    private interface Run {
+        long run();
+    }
+
+    // Median wall time of {@code run} in ns; the results are folded into {@code sink} so the
+    // work cannot be skipped
+    private static long medianNanos(Run run, long[] sink) {
+        for (int i = 0; i < WARMUP; i++) sink[0] ^= run.run();
+        long[] nanos = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            sink[0] ^= run.run();
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        return nanos[RUNS / 2];
+    }
+
+    @Test
+    public void benchmark_hashingCost() {
+        long[] sink = {0};
+        int[][] sizes = {{60, 45}, {120, 90}, {480, 360}};
+        StringBuilder report = new StringBuilder("ImageHashBench: ");
+        long largest = 0;
+        for (int[] size : sizes) {
+            int[] luma = TestScenes.luminance(1, size[0], size[1], 0, 1);
+            largest = medianNanos(() -> ImageHash.dHash(luma, size[0], size[1])
+                    ^ ImageHash.pHash(luma, size[0], size[1]), sink);
+            report.append(String.format("%dx%d luma=%.3f ms; ", size[0], size[1], largest / 1e6));
+        }
+
+        System.out.println(report + "[" + Long.toHexString(sink[0]) + "]");
+        // the hashes must leave nearly all of the per-photo budget to the JPEG decode
+        assertTrue("hashing 480x360 took " + largest / 1_000_000 + " ms", largest < 10_000_000L);
+    }
+}
@@ -0,0 +1,59 @@
+package com.code.wlu.cp470.wellnest;
+
+import static org.junit.Assert.assertTrue;
+
+import com.code.wlu.cp470.wellnest.utils.ImageSimilarity;
+
+import org.junit.Test;
+
+/**
+ * Throughput benchmark for {@link ImageSimilarity#worstBlockSsim}, the comparison behind the
+ * unchanged-photo pre-screen, on luminance images of the size SnapTaskPhoto decodes to and at
+ * full camera size. Logs pairs per second for each. The decode + compare path on real JPEGs
+ * is timed on the device by ImageSimilarityBenchmarkInstrumentedTest.
+ */
+public class ImageSimilarityBenchmarkTest {
+
+    private static final String TAG = "ImageSimilarityBench";
+    private static final long RUN_NANOS = 500_000_000L;
+
+    private interface Pair {
+        double compare();
+    }
+
+    // Pairs compared per second over RUN_NANOS, after a warm-up of the same length
+    private static double pairsPerSecond(Pair pair) {
+        double sink = 0;
+        long end = System.nanoTime() + RUN_NANOS;
+        while (System.nanoTime() < end) sink += pair.compare();
+
+        long pairs = 0;
+        long start = System.nanoTime();
+        end = start + RUN_NANOS;
+        long now;
+        do {
+            sink += pair.compare();
+            pairs++;
+            now = System.nanoTime();
+        } while (now < end);
+        if (Double.isNaN(sink)) System.out.println(TAG + ": unexpected NaN");
+        return pairs * 1e9 / (now - start);
+    }
+
+    @Test
+    public void benchmark_worstBlockSsimThroughput() {
+        int[] thumbBefore = TestScenes.luminance(1, 240, 180, 0, 1);
+        int[] thumbAfter = TestScenes.luminance(1, 240, 180, 0, 2, true);
+        double thumbs = pairsPerSecond(() ->
+                ImageSimilarity.worstBlockSsim(thumbBefore, 240, 180, thumbAfter, 240, 180));
+
+        int[] fullBefore = TestScenes.luminance(1, 480, 360, 0, 1);
+        int[] fullAfter = TestScenes.luminance(1, 480, 360, 0, 2, true);
+        double full = pairsPerSecond(() ->
+                ImageSimilarity.worstBlockSsim(fullBefore, 480, 360, fullAfter, 480, 360));
+
+        System.out.println(String.format("%s: pairs/s: 240x180 luma=%.0f, 480x360 luma=%.0f", TAG, thumbs, full));
+        // the comparison must leave nearly all of the 20 ms pre-screen budget to the decode
+        assertTrue("240x180 compare ran at " + thumbs + " pairs/s", thumbs >= 500);
+    }
+}
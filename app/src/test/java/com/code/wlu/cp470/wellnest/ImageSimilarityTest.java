@@ -0,0 +1,59 @@
+package com.code.wlu.cp470.wellnest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.code.wlu.cp470.wellnest.data.SnapTaskPhoto;
+import com.code.wlu.cp470.wellnest.utils.ImageSimilarity;
+
+import org.junit.Test;
+
+/**
+ * Tests for the unchanged-photo pre-screen on a corpus of synthetic photo pairs
+ * ({@link TestScenes}): retakes of an untouched scene must look unchanged, while a done chore
+ * or another scene must not. ImageSimilarity is plain Java, so these run on the JVM.
+ */
+public class ImageSimilarityTest {
+
+    private static final String TAG = "SnapTaskPreScreen";
+    private static final int SCENES = 10;
+    private static final int W = 480;
+    private static final int H = 360;
+
+    private static double worst(int[] before, int[] after, int afterWidth, int afterHeight) {
+        return ImageSimilarity.worstBlockSsim(before, W, H, after, afterWidth, afterHeight);
+    }
+
+    @Test
+    public void identicalImages_scoreOne() {
+        int[] luma = TestScenes.luminance(1, W, H, 0, 1);
+        assertEquals(1.0, worst(luma, luma, W, H), 1e-9);
+    }
+
+    @Test
+    public void retakesOfAnUntouchedScene_lookUnchanged() {
+        for (int scene = 1; scene <= SCENES; scene++) {
+            int[] before = TestScenes.luminance(scene, W, H, 0, scene);
+            // another size and sensor noise, a little brighter; the same size, a little darker
+            double rescaled = worst(before, TestScenes.luminance(scene, 400, 300, 6, scene + 100), 400, 300);
+            double darker = worst(before, TestScenes.luminance(scene, W, H, -6, scene + 200), W, H);
+            System.out.println(TAG + ": scene " + scene + " retakes: " + rescaled + ", " + darker);
+
+            assertTrue("scene " + scene + " rescaled retake scored " + rescaled, rescaled >= SnapTaskPhoto.UNCHANGED_SSIM);
+            assertTrue("scene " + scene + " darker retake scored " + darker, darker >= SnapTaskPhoto.UNCHANGED_SSIM);
+        }
+    }
+
+    @Test
+    public void doneChores_andOtherScenes_lookChanged() {
+        for (int scene = 1; scene <= SCENES; scene++) {
+            int[] before = TestScenes.luminance(scene, W, H, 0, scene);
+            double chore = worst(before, TestScenes.luminance(scene, W, H, 0, scene + 300, true), W, H);
+            double other = worst(before, TestScenes.luminance(scene + 20, W, H, 0, scene), W, H);
+            System.out.println(TAG + ": scene " + scene + " chore done: " + chore + ", other scene: " + other);
+
+            assertTrue("scene " + scene + " chore scored " + chore, chore < SnapTaskPhoto.UNCHANGED_SSIM);
+            assertTrue("scene " + scene + " other scene scored " + other, other < SnapTaskPhoto.UNCHANGED_SSIM);
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package com.code.wlu.cp470.wellnest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import android.app.Application;
+import android.util.Log;
+
+import com.code.wlu.cp470.wellnest.data.ActivityJarModels.Activity;
+import com.code.wlu.cp470.wellnest.data.ActivityJarModels.Category;
+import com.code.wlu.cp470.wellnest.data.ActivityJarModels.PlanContext;
+import com.code.wlu.cp470.wellnest.data.ActivityPlanGraph;
+import com.code.wlu.cp470.wellnest.data.AiResponseReader;
+import com.code.wlu.cp470.wellnest.data.SearchResultCompactor;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLog;
+
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Robolectric tests for SearchResultCompactor on recorded Tavily responses: prompts shrink
+ * and stay within budget, results are ranked and deduplicated deterministically, and the
+ * activities planned from a compacted prompt are the same. Robolectric supplies the real
+ * org.json and JsonReader the compactor and the streamed decode use.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34, application = Application.class)
+public class SearchResultCompactorTest {
+
+    private static final String TAG = "SearchResultCompactor";
+    private static final String PREFIX = "Pick things to do from these results.\n\nTavily JSON:\n";
+
+    private ExecutorService executor;
+    private ScheduledExecutorService timer;
+
+    @Before
+    public void setUp() {
+        ShadowLog.stream = System.out;
+        executor = Executors.newFixedThreadPool(4);
+        timer = Executors.newSingleThreadScheduledExecutor();
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+        timer.shutdownNow();
+    }
+
+    private static int bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    private static JSONArray compactedResults(SearchResultCompactor compactor, JSONObject search) throws Exception {
+        return new JSONArray(compactor.buildPrompt(PREFIX, search).substring(PREFIX.length()));
+    }
+
+    @Test
+    public void recordedSearch_promptShrinks_andStaysUnderBudget() throws Exception {
+        JSONObject search = new JSONObject(RecordedAiResponses.tavilySearchWithRawContent());
+        String before = PREFIX + search.toString();
+        String after = SearchResultCompactor.DEFAULT.buildPrompt(PREFIX, search);
+
+        Log.i(TAG, String.format("prompt: before=%d B, after=%d B (%.1f%%)",
+                bytes(before), bytes(after), 100.0 * bytes(after) / bytes(before)));
+        assertTrue(bytes(after) <= SearchResultCompactor.DEFAULT.getPromptBudgetBytes());
+        assertTrue(bytes(after) * 5 < bytes(before));
+
+        JSONArray results = new JSONArray(after.substring(PREFIX.length()));
+        assertEquals(SearchResultCompactor.DEFAULT_MAX_RESULTS, results.length());
+        for (int i = 0; i < results.length(); i++) {
+            JSONObject r = results.getJSONObject(i);
+            assertEquals(3, r.length()); // title, url, content; no score or raw_content
+            assertTrue(r.getString("content").length() <= SearchResultCompactor.DEFAULT_SNIPPET_CHARS);
+            assertTrue(r.getString("content").indexOf('\n') < 0);
+        }
+    }
+
+    @Test
+    public void results_areRankedByScore_andDeduplicated() throws Exception {
+        JSONObject search = new JSONObject(RecordedAiResponses.tavilySearchWithRawContent());
+        JSONArray results = compactedResults(new SearchResultCompactor(100_000, 20, 400), search);
+
+        // 12 results: one is the same page with a tracking parameter, one the same site without "www."
+        assertEquals(10, results.length());
+        assertEquals("Parks and trails - City of Waterloo", results.getJSONObject(0).getString("title"));
+        assertEquals("Canadian Clay & Glass Gallery", results.getJSONObject(1).getString("title"));
+        assertEquals("Uptown Waterloo", results.getJSONObject(2).getString("title"));
+        assertEquals("Kitchener Public Library events", results.getJSONObject(9).getString("title"));
+        Set<String> titles = new HashSet<>();
+        for (int i = 0; i < results.length(); i++) {
+            assertTrue(titles.add(results.getJSONObject(i).getString("title")));
+        }
+    }
+
+    @Test
+    public void streamedResults_areRankedByScore() throws Exception {
+        // how the client reads Tavily: the streamed decode must keep what the ranking needs
+        String body = "{\"results\":["
+                + "{\"title\":\"Low\",\"url\":\"https://low.example\",\"content\":\"l\",\"score\":0.2},"
+                + "{\"title\":\"High\",\"url\":\"https://high.example\",\"content\":\"h\",\"score\":0.9}]}";
+        JSONArray results = compactedResults(SearchResultCompactor.DEFAULT,
+                AiResponseReader.readSearchResults(new StringReader(body)));
+        assertEquals("High", results.getJSONObject(0).getString("title"));
+        assertEquals("Low", results.getJSONObject(1).getString("title"));
+
+        String raw = RecordedAiResponses.tavilySearchWithRawContent();
+        SearchResultCompactor compactor = new SearchResultCompactor(100_000, 20, 400);
+        assertEquals(compactor.buildPrompt(PREFIX, new JSONObject(raw)),
+                compactor.buildPrompt(PREFIX, AiResponseReader.readSearchResults(new StringReader(raw))));
+    }
+
+    @Test
+    public void unscoredResults_keepTheirOrder() throws Exception {
+        JSONObject search = new JSONObject("{\"results\":["
+                + "{\"title\":\"B\",\"url\":\"https://b.example\",\"content\":\"b\"},"
+                + "{\"title\":\"A\",\"url\":\"https://a.example\",\"content\":\"a\"},"
+                + "{\"title\":\"B again\",\"url\":\"http://www.b.example/#top\",\"content\":\"b\"}]}");
+
+        JSONArray results = compactedResults(SearchResultCompactor.DEFAULT, search);
+
+        assertEquals(2, results.length());
+        assertEquals("B", results.getJSONObject(0).getString("title"));
+        assertEquals("A", results.getJSONObject(1).getString("title"));
+    }
+
+    @Test
+    public void urls_matchCaseInsensitivelyOnlyInSchemeAndHost() throws Exception {
+        JSONObject search = new JSONObject("{\"results\":["
+                + "{\"title\":\"Upper\",\"url\":\"https://Example.com/Trails/A\",\"content\":\"u\"},"
+                + "{\"title\":\"Lower\",\"url\":\"https://example.com/trails/a\",\"content\":\"l\"},"
+                + "{\"title\":\"Host case\",\"url\":\"HTTPS://WWW.EXAMPLE.COM/Trails/A?UTM_source=x\",\"content\":\"h\"}]}");
+
+        JSONArray results = compactedResults(SearchResultCompactor.DEFAULT, search);
+
+        // paths are case-sensitive, so only the third (same page, other host case) is a duplicate
+        assertEquals(2, results.length());
+        assertEquals("Upper", results.getJSONObject(0).getString("title"));
+        assertEquals("Lower", results.getJSONObject(1).getString("title"));
+    }
+
+    @Test
+    public void tightBudgets_shortenSnippetsThenDropResults() throws Exception {
+        JSONObject search = new JSONObject(RecordedAiResponses.tavilySearchWithRawContent());
+        int generous = bytes(SearchResultCompactor.DEFAULT.buildPrompt(PREFIX, search));
+
+        for (int budget : new int[]{generous - 1, 2_000, 1_000, 400}) {
+            SearchResultCompactor compactor = new SearchResultCompactor(budget, 8, 400);
+            String prompt = compactor.buildPrompt(PREFIX, search);
+            assertTrue(budget + ": " + bytes(prompt), bytes(prompt) <= budget);
+            assertTrue(prompt.startsWith(PREFIX));
+            Log.i(TAG, budget + " B budget keeps " + new JSONArray(prompt.substring(PREFIX.length())).length() + " results");
+        }
+        // a budget the prefix alone uses up leaves no results at all
+        assertEquals(PREFIX + "[]", new SearchResultCompactor(bytes(PREFIX) + 10, 8, 400).buildPrompt(PREFIX, search));
+    }
+
+    @Test
+    public void compaction_isDeterministic() throws Exception {
+        String raw = RecordedAiResponses.tavilySearchWithRawContent();
+        SearchResultCompactor compactor = new SearchResultCompactor(3_000, 8, 400);
+
+        String first = compactor.buildPrompt(PREFIX, new JSONObject(raw));
+        for (int i = 0; i < 5; i++) {
+            assertEquals(first, compactor.buildPrompt(PREFIX, new JSONObject(raw)));
+        }
+    }
+
+    @Test
+    public void plannedActivities_areUnchangedByCompaction() throws Exception {
+        String raw = RecordedAiResponses.tavilySearchWithRawContent();
+        String[] prompt = new String[1];
+        ActivityPlanGraph.Stages stages = new ActivityPlanGraph.Stages() {
+            @Override
+            public double[] locate() {
+                return new double[]{43.4723, -80.5449};
+            }
+
+            @Override
+            public JSONObject currentWeather(double latitude, double longitude) {
+                return null;
+            }
+
+            @Override
+            public String locationName(double latitude, double longitude) {
+                return "Waterloo, Ontario";
+            }
+
+            @Override
+            public JSONObject search(String query) throws Exception {
+                return new JSONObject(raw);
+            }
+
+            @Override
+            public String synthesize(String synthesisPrompt) {
+                prompt[0] = synthesisPrompt;
+                return RecordedAiResponses.ACTIVITIES_JSON;
+            }
+        };
+        PlanContext waterloo = new PlanContext(43.4723, -80.5449, "Clear, 20°C", 0, "Waterloo, Ontario");
+        ActivityPlanGraph.Timeouts timeouts = new ActivityPlanGraph.Timeouts(5_000, 5_000, 5_000, 5_000, 5_000);
+
+        Map<Category, List<Activity>> compacted = new ActivityPlanGraph(stages, timeouts, executor, timer,
+                System::currentTimeMillis, SearchResultCompactor.DEFAULT).plan(waterloo, null);
+        String compactedPrompt = prompt[0];
+        Map<Category, List<Activity>> unbounded = new ActivityPlanGraph(stages, timeouts, executor, timer,
+                System::currentTimeMillis, new SearchResultCompactor(Integer.MAX_VALUE, 1_000, 100_000))
+                .plan(waterloo, null);
+
+        assertNotNull(compacted);
+        assertEquals(unbounded.keySet(), compacted.keySet());
+        for (Category category : unbounded.keySet()) {
+            assertEquals(unbounded.get(category).size(), compacted.get(category).size());
+            for (int i = 0; i < unbounded.get(category).size(); i++) {
+                Activity expected = unbounded.get(category).get(i);
+                Activity actual = compacted.get(category).get(i);
+                assertEquals(expected.getTitle(), actual.getTitle());
+                assertEquals(expected.getUrl(), actual.getUrl());
+                assertEquals(expected.getAddress(), actual.getAddress());
+            }
+        }
+        assertTrue(bytes(compactedPrompt) < bytes(prompt[0]));
+        assertTrue(bytes(compactedPrompt) <= SearchResultCompactor.DEFAULT.getPromptBudgetBytes());
+    }
+}
@@ -0,0 +1,129 @@
+package com.code.wlu.cp470.wellnest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import android.app.Application;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.util.Log;
+
+import com.code.wlu.cp470.wellnest.data.RoamioModels.WalkSession;
+import com.code.wlu.cp470.wellnest.data.local.WellnestDatabaseHelper;
+import com.code.wlu.cp470.wellnest.data.local.managers.WalkSessionManager;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.SQLiteMode;
+import org.robolectric.shadows.ShadowLog;
+
+import java.util.List;
+
+/**
+ * Robolectric benchmark for WalkSessionManager: times the first and the last page of a
+ * 50k-walk history and checks the query plans behind them, on the native SQLite mode.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34, application = Application.class)
+@SQLiteMode(SQLiteMode.Mode.NATIVE)
+public class WalkSessionManagerBenchmarkTest {
+
+    private static final String TAG = "WalkSessionManagerTest";
+    private static final String ME = "uid_me";
+    private static final String OTHER = "uid_other";
+    private static final long HOUR_MS = 60L * 60 * 1000;
+    // Monday 2024-01-01 00:00 UTC
+    private static final long MONDAY_UTC = 1704067200000L;
+
+    private WellnestDatabaseHelper helper;
+    private SQLiteDatabase db;
+    private WalkSessionManager manager;
+
+    @Before
+    public void setUp() {
+        ShadowLog.stream = System.out;
+        helper = new WellnestDatabaseHelper(RuntimeEnvironment.getApplication());
+        db = helper.getWritableDatabase();
+        manager = new WalkSessionManager(db);
+    }
+
+    @After
+    public void tearDown() {
+        if (helper != null) helper.close();
+    }
+
+    @Test
+    public void history_50kWalks_lastPageCostsTheSameAsFirstPage() {
+        final int walks = 50_000;
+        db.beginTransaction();
+        try {
+            for (int i = 0; i < walks; i++) {
+                long ended = MONDAY_UTC + i * HOUR_MS;
+                manager.recordCompletedWalk(ME, ended - HOUR_MS, ended, 1000, 800, 300);
+                if (i % 10 == 0) manager.recordCompletedWalk(OTHER, ended - HOUR_MS, ended, 1000, 800, 300);
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        db.execSQL("ANALYZE");
+
+        // cursor (id 0 = strictly before deepEndedAt) that leaves exactly one page of older walks
+        List<WalkSession> first = manager.getHistoryPage(ME, 20);
+        long deepEndedAt = MONDAY_UTC + 20 * HOUR_MS;
+        List<WalkSession> deep = manager.getHistoryPageBefore(ME, deepEndedAt, 0L, 20);
+        assertEquals(20, first.size());
+        assertEquals(20, deep.size());
+        assertEquals(MONDAY_UTC + (walks - 1) * HOUR_MS, first.get(0).getEndedAt());
+        assertEquals(MONDAY_UTC + 19 * HOUR_MS, deep.get(0).getEndedAt());
+
+        final int reps = 200;
+        for (int i = 0; i < 20; i++) { // warm up
+            manager.getHistoryPage(ME, 20);
+            manager.getHistoryPageBefore(ME, deepEndedAt, 0L, 20);
+        }
+        long t0 = System.nanoTime();
+        for (int i = 0; i < reps; i++) manager.getHistoryPage(ME, 20);
+        long firstNanos = (System.nanoTime() - t0) / reps;
+        t0 = System.nanoTime();
+        for (int i = 0; i < reps; i++) manager.getHistoryPageBefore(ME, deepEndedAt, 0L, 20);
+        long deepNanos = (System.nanoTime() - t0) / reps;
+        t0 = System.nanoTime();
+        manager.getTotalDistanceMeters(ME);
+        manager.getWeeklyStats(ME, 0, 0);
+        long aggregateNanos = System.nanoTime() - t0;
+
+        Log.i(TAG, String.format("%d walks: first page=%.1fus, last page=%.1fus, aggregates=%.1fms",
+                walks, firstNanos / 1000.0, deepNanos / 1000.0, aggregateNanos / 1_000_000.0));
+
+        // an OFFSET/scan-based page would be orders of magnitude slower at the tail
+        assertTrue("last page " + deepNanos + "ns vs first page " + firstNanos + "ns",
+                deepNanos < firstNanos * 5 + 1_000_000);
+
+        // and the plans: pages seek the (uid, ended_at, _id) index in order, aggregates never
+        // read the table (newer SQLite prints "SCAN walk_sessions", older "SCAN TABLE ...")
+        String pagePlan = explain("SELECT * FROM walk_sessions WHERE uid=? AND ended_at<=? AND "
+                + "(ended_at<? OR _id<?) ORDER BY ended_at DESC, _id DESC LIMIT 20", ME, "1", "1", "1");
+        assertTrue(pagePlan, pagePlan.contains("idx_walk_sessions_uid_ended_at"));
+        assertFalse(pagePlan, pagePlan.contains("SCAN"));
+        assertFalse(pagePlan, pagePlan.contains("TEMP B-TREE"));
+        String sumPlan = explain("SELECT SUM(distance_meters) FROM walk_sessions WHERE uid=?", ME);
+        assertTrue(sumPlan, sumPlan.contains("COVERING INDEX idx_walk_sessions_uid_ended_at"));
+    }
+
+    private String explain(String sql, String... args) {
+        StringBuilder plan = new StringBuilder();
+        try (Cursor c = db.rawQuery("EXPLAIN QUERY PLAN " + sql, args)) {
+            int detail = c.getColumnIndexOrThrow("detail");
+            while (c.moveToNext()) plan.append(c.getString(detail)).append('\n');
+        }
+        return plan.toString();
+    }
+}
+}